@@ -0,0 +1,75 @@
+package Banks.Benchmarks;
+
+import Banks.AccountTypes.Account;
+import Banks.AccountTypes.DebitAccount;
+import Banks.ClientSystem.Client;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * бенчмарк атомарных операций над балансом одного общего аккаунта:
+ * пополнение и снятие из нескольких потоков (-t задает число потоков).
+ * после прогона печатается число повторов CAS, то есть насколько потоки мешали друг другу
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+public class AccountBalanceBenchmark {
+    private static final BigDecimal amount = BigDecimal.ONE;
+    private Account account;
+
+    /**
+     * метод, который создает общий аккаунт
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Client client = new Client("name", "surname", "street", Fixtures.passport(0));
+        account = new DebitAccount(BigDecimal.valueOf(1_000_000_000L), client, BigDecimal.ONE);
+        account.setVerificationLimit(BigDecimal.valueOf(1_000_000_000L));
+    }
+
+    /**
+     * метод, который печатает счетчик конкуренции после прогона
+     */
+    @TearDown(Level.Trial)
+    public void report() {
+        System.out.println("CAS retries: " + account.getCasRetries());
+    }
+
+    /**
+     * пополнение и снятие через методы аккаунта
+     */
+    @Benchmark
+    public void depositAndWithdraw() {
+        account.updateMoney(amount);
+        account.withdrawMoney(amount);
+    }
+
+    /**
+     * пополнение и снятие напрямую в минимальных единицах
+     * @return - результат списания
+     */
+    @Benchmark
+    public boolean creditAndDebitUnits() {
+        account.creditUnits(100);
+        return account.tryDebitUnits(100, 0);
+    }
+}
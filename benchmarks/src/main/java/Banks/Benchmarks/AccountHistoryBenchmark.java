@@ -0,0 +1,100 @@
+package Banks.Benchmarks;
+
+import Banks.AccountTypes.Account;
+import Banks.AccountTypes.DebitAccount;
+import Banks.ClientSystem.Client;
+import Banks.Transactions.AccountHistoryIndex;
+import Banks.Transactions.AccountHistoryPage;
+import Banks.Transactions.Transaction;
+import Banks.Transactions.TransferTransaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * бенчмарк страницы последних операций аккаунта (20 записей): индекс истории против фильтрации
+ * общего списка транзакций по отправителю и получателю с конца
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class AccountHistoryBenchmark {
+    private static final int accountsCount = 10_000;
+    private static final int pageSize = 20;
+
+    @Param({"100000", "1000000"})
+    public int transactions;
+
+    private final ArrayList<Transaction> list = new ArrayList<Transaction>();
+    private final AccountHistoryIndex index = new AccountHistoryIndex();
+    private Account[] accounts;
+    private int cursor;
+
+    /**
+     * метод, который заполняет список и индекс одинаковыми переводами между случайными аккаунтами
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Client client = new Client("name", "surname", "street", Fixtures.passport(0));
+        accounts = new Account[accountsCount];
+        for (int i = 0; i < accountsCount; i++)
+            accounts[i] = new DebitAccount(BigDecimal.TEN, client, BigDecimal.ONE);
+        SplittableRandom random = new SplittableRandom(42);
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < transactions; i++) {
+            Transaction transaction = new TransferTransaction(accounts[random.nextInt(accountsCount)],
+                    accounts[random.nextInt(accountsCount)], BigDecimal.ONE, time.plusSeconds(i));
+            list.add(transaction);
+            index.addTransaction(transaction);
+        }
+    }
+
+    /**
+     * первая страница через индекс истории
+     * @return - страница
+     */
+    @Benchmark
+    public AccountHistoryPage index() {
+        return index.getPage(next(), AccountHistoryPage.firstPage, pageSize);
+    }
+
+    /**
+     * первая страница фильтрацией списка с конца
+     * @return - транзакции страницы
+     */
+    @Benchmark
+    public List<Transaction> scan() {
+        Account account = next();
+        ArrayList<Transaction> page = new ArrayList<Transaction>(pageSize);
+        for (int i = list.size() - 1; i >= 0 && page.size() < pageSize; i--) {
+            Transaction transaction = list.get(i);
+            if (transaction.getSender() == account || ((TransferTransaction) transaction).getRecipient() == account)
+                page.add(transaction);
+        }
+        return page;
+    }
+
+    private Account next() {
+        cursor = (cursor + 1) % accountsCount;
+        return accounts[cursor];
+    }
+}
@@ -0,0 +1,138 @@
+package Banks.Benchmarks;
+
+import Banks.AccountTypes.Account;
+import Banks.AccountTypes.DebitAccount;
+import Banks.BankSystem.CentralBank;
+import Banks.ClientSystem.Client;
+import Banks.Persistence.JournalSyncPolicy;
+import Banks.Persistence.TransactionJournal;
+import Banks.Transactions.TransferRequest;
+import Banks.Transactions.TransferResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * бенчмарк пакетных переводов: одни и те же 10000 переводов между 1024 аккаунтами проводятся
+ * пакетами разного размера (batchSize = 1 - это отдельный пакет на каждый перевод) и по одному
+ * через transferMoney. результат - переводов в секунду. с journaled=true подключается журнал
+ * с групповой фиксацией во временной папке (ее можно задать через -Djournal.dir=...):
+ * пакет пишется в журнал одной записью и ждет одного fsync
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class BatchTransferBenchmark {
+    private static final int transfers = 10_000;
+    private static final int accountsCount = 1024;
+    private static final BigDecimal startMoney = BigDecimal.valueOf(1_000_000_000L);
+
+    @Param({"1", "10", "100", "1000", "10000"})
+    public int batchSize;
+
+    @Param({"false", "true"})
+    public boolean journaled;
+
+    private final CentralBank centralBank = CentralBank.getInstance();
+    private List<List<TransferRequest>> batches;
+    private List<TransferRequest> requests;
+    private TransactionJournal journal;
+    private Path directory;
+
+    /**
+     * метод, который создает аккаунты, режет одинаковый набор переводов на пакеты и подключает журнал
+     * @throws IOException - если не удалось создать папку журнала
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Client client = new Client("name", "surname", "street", Fixtures.passport(0));
+        Account[] accounts = new Account[accountsCount];
+        for (int i = 0; i < accountsCount; i++) {
+            accounts[i] = new DebitAccount(startMoney, client, BigDecimal.ONE);
+            accounts[i].setVerificationLimit(startMoney);
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        requests = new ArrayList<TransferRequest>(transfers);
+        for (int i = 0; i < transfers; i++) {
+            Account sender = accounts[random.nextInt(accountsCount)];
+            Account recipient = accounts[random.nextInt(accountsCount)];
+            requests.add(new TransferRequest(sender, recipient, BigDecimal.ONE));
+        }
+        batches = new ArrayList<List<TransferRequest>>();
+        for (int from = 0; from < transfers; from += batchSize)
+            batches.add(requests.subList(from, Math.min(transfers, from + batchSize)));
+        if (journaled) {
+            String base = System.getProperty("journal.dir");
+            directory = base == null ? Files.createTempDirectory("journal") : Files.createTempDirectory(Path.of(base), "journal");
+            journal = new TransactionJournal(directory, JournalSyncPolicy.GROUP);
+            centralBank.attachJournal(journal);
+        }
+    }
+
+    /**
+     * метод, который отключает журнал и удаляет его папку
+     * @throws IOException - если не удалось удалить файлы
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (journal == null)
+            return;
+        centralBank.detachJournal();
+        journal.close();
+        System.out.println(journal.getRecordCount() + " records, " + journal.getSyncCount() + " fsyncs");
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList())
+                Files.delete(path);
+        }
+    }
+
+    /**
+     * переводы пакетами заданного размера
+     * @param blackhole - потребитель результатов
+     */
+    @Benchmark
+    @OperationsPerInvocation(transfers)
+    public void batch(Blackhole blackhole) {
+        for (List<TransferRequest> batch : batches) {
+            List<TransferResult> results = centralBank.transferBatch(batch);
+            blackhole.consume(results);
+        }
+    }
+
+    /**
+     * те же переводы по одному через transferMoney
+     * @param blackhole - потребитель результатов
+     */
+    @Benchmark
+    @OperationsPerInvocation(transfers)
+    public void single(Blackhole blackhole) {
+        for (TransferRequest request : requests)
+            blackhole.consume(centralBank.transferMoney(request.getMoney(), request.getSender(), request.getRecipient()));
+    }
+}
@@ -0,0 +1,58 @@
+package Banks.Benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * точка входа benchmarks.jar: принимает те же ключи, что и org.openjdk.jmh.Main, но если формат
+ * результата не задан ключами -rf/-rff, пишет результаты в JSON в папку results
+ * (ее можно задать через -Dresults.dir=...) в файл с версией и временем запуска в имени,
+ * чтобы прогоны разных версий можно было сравнивать между собой
+ */
+public final class BenchmarkRunner {
+    private static final DateTimeFormatter fileTime = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private BenchmarkRunner() { }
+
+    /**
+     * метод, который запускает бенчмарки
+     * @param args - ключи командной строки JMH
+     * @throws CommandLineOptionException - если ключи заданы неверно
+     * @throws RunnerException - если прогон не удался
+     * @throws IOException - если не удалось создать папку результатов
+     */
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException, IOException {
+        CommandLineOptions command = new CommandLineOptions(args);
+        if (command.shouldHelp() || command.shouldList() || command.shouldListWithParams()
+                || command.shouldListProfilers() || command.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        Options options = command;
+        if (!command.getResultFormat().hasValue() && !command.getResult().hasValue()) {
+            Path directory = Path.of(System.getProperty("results.dir", "results"));
+            Files.createDirectories(directory);
+            String version = BenchmarkRunner.class.getPackage().getImplementationVersion();
+            Path file = directory.resolve("benchmarks-" + (version == null ? "dev" : version)
+                    + "-" + LocalDateTime.now().format(fileTime) + ".json");
+            options = new OptionsBuilder()
+                    .parent(command)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(file.toString())
+                    .build();
+            System.out.println("results: " + file.toAbsolutePath());
+        }
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,97 @@
+package Banks.Benchmarks;
+
+import Banks.AccountTypes.Account;
+import Banks.AccountTypes.DebitAccount;
+import Banks.BankSystem.CentralBank;
+import Banks.ClientSystem.Client;
+import Banks.Transactions.CancellationResult;
+import Banks.Transactions.Transaction;
+import Banks.Transactions.TransferTransaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * бенчмарк отмены всех транзакций за час: bulk - один вызов cancelTransactionsBetween,
+ * loop - cancelTransaction на каждую транзакцию. перед каждой итерацией в центральном банке
+ * регистрируется новый час переводов между случайными аккаунтами
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class BulkCancelBenchmark {
+    private static final int accountsCount = 10_000;
+
+    @Param({"1000000"})
+    public int transactions;
+
+    private final CentralBank centralBank = CentralBank.getInstance();
+    private final SplittableRandom random = new SplittableRandom(42);
+    private Account[] accounts;
+    private Transaction[] registered;
+    private LocalDateTime hour = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    /**
+     * метод, который создает аккаунты с запасом денег на все отмены
+     */
+    @Setup(Level.Trial)
+    public void setUpAccounts() {
+        Client client = new Client("name", "surname", "street", Fixtures.passport(0));
+        accounts = new Account[accountsCount];
+        for (int i = 0; i < accountsCount; i++)
+            accounts[i] = new DebitAccount(BigDecimal.valueOf(1_000_000_000L), client, BigDecimal.ONE);
+        registered = new Transaction[transactions];
+    }
+
+    /**
+     * метод, который регистрирует час переводов для следующей итерации (и собирает мусор настройки,
+     * чтобы он не попадал в замер)
+     */
+    @Setup(Level.Iteration)
+    public void setUpHour() {
+        hour = hour.plusHours(1);
+        for (int i = 0; i < transactions; i++) {
+            registered[i] = centralBank.registerTransaction(new TransferTransaction(accounts[random.nextInt(accountsCount)],
+                    accounts[random.nextInt(accountsCount)], BigDecimal.ONE, hour.plusNanos(i * 1000L)));
+        }
+        System.gc();
+    }
+
+    /**
+     * отмена часа одним вызовом
+     * @return - результаты отмены
+     */
+    @Benchmark
+    public List<CancellationResult> bulk() {
+        return centralBank.cancelTransactionsBetween(hour, hour.plusHours(1));
+    }
+
+    /**
+     * отмена часа по одной транзакции, от новых к старым
+     * @return - количество отмененных транзакций
+     */
+    @Benchmark
+    public int loop() {
+        for (int i = transactions - 1; i >= 0; i--)
+            centralBank.cancelTransaction(registered[i].getId());
+        return transactions;
+    }
+}
@@ -0,0 +1,109 @@
+package Banks.Benchmarks;
+
+import Banks.AccountTypes.Account;
+import Banks.AccountTypes.DebitAccount;
+import Banks.BankSystem.Bank;
+import Banks.ClientSystem.Client;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * бенчмарк поиска клиента в банке по паспорту и по id и поиска аккаунта клиента при разном числе
+ * клиентов (у каждого клиента один аккаунт). время поиска должно оставаться постоянным от 10k до 10M клиентов
+ * (для 10M клиентов нужен heap порядка 4G: -jvmArgs -Xmx4g)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class ClientLookupBenchmark {
+    private static final int lookupKeys = 1 << 16;
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int clients;
+
+    private Bank bank;
+    private String[] passports;
+    private Client[] probes;
+    private int cursor;
+
+    /**
+     * метод, который заполняет банк клиентами с аккаунтами и готовит ключи для поиска
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        bank = new Bank("benchmark", Fixtures.settings());
+        Client[] all = new Client[clients];
+        for (int i = 0; i < clients; i++) {
+            all[i] = new Client("name", "surname", "street", Fixtures.passport(i));
+            bank.addClient(all[i]);
+            bank.addAccount(new DebitAccount(BigDecimal.TEN, all[i], BigDecimal.ONE));
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        passports = new String[lookupKeys];
+        probes = new Client[lookupKeys];
+        for (int i = 0; i < lookupKeys; i++) {
+            int index = random.nextInt(clients);
+            // новая строка, чтобы поиск сравнивал паспорта по значению, а не по ссылке
+            passports[i] = new String(Fixtures.passport(index));
+            probes[i] = all[index];
+        }
+    }
+
+    /**
+     * поиск клиента по паспорту
+     * @return - найденный клиент
+     */
+    @Benchmark
+    public Client findClientByPassport() {
+        return bank.findClientByPassport(passports[next()]);
+    }
+
+    /**
+     * поиск клиента по id
+     * @return - найденный клиент
+     */
+    @Benchmark
+    public Client findClientById() {
+        return bank.findClientById(probes[next()].getId());
+    }
+
+    /**
+     * проверка наличия клиента (путь, который проходит каждый addClient)
+     * @return - true если клиент найден
+     */
+    @Benchmark
+    public boolean checkClientExist() {
+        return bank.checkClientExist(probes[next()]);
+    }
+
+    /**
+     * поиск первого аккаунта клиента
+     * @return - найденный аккаунт
+     */
+    @Benchmark
+    public Account findAccountOwner() {
+        return bank.findAccountOwner(probes[next()]);
+    }
+
+    private int next() {
+        cursor = (cursor + 1) & (lookupKeys - 1);
+        return cursor;
+    }
+}
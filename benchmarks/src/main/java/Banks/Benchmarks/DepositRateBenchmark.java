@@ -0,0 +1,112 @@
+package Banks.Benchmarks;
+
+import Banks.AccountTypes.DepositAccount;
+import Banks.BankSystem.Bank;
+import Banks.BankSystem.DepositRateTable;
+import Banks.ClientSystem.Client;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * бенчмарк таблицы депозитных ставок: поиск ставки двоичным поиском по порогам в копейках
+ * против TreeMap.floorEntry по BigDecimal и пересчет ставок всех депозитов банка
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DepositRateBenchmark {
+    private static final int balancesCount = 4096;
+    private static final int depositsCount = 100_000;
+
+    @Param({"4", "64"})
+    public int tiers;
+
+    private final TreeMap<BigDecimal, BigDecimal> map = new TreeMap<BigDecimal, BigDecimal>();
+    private final long[] units = new long[balancesCount];
+    private final BigDecimal[] balances = new BigDecimal[balancesCount];
+    private DepositRateTable table;
+    private Bank bank;
+    private ForkJoinPool pool;
+    private int cursor;
+
+    /**
+     * метод, который строит таблицу, случайные остатки и банк с депозитами
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        for (int i = 0; i < tiers; i++)
+            map.put(BigDecimal.valueOf(i * 10_000L), BigDecimal.valueOf(i).movePointLeft(1));
+        table = new DepositRateTable(map);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < balancesCount; i++) {
+            units[i] = random.nextLong(tiers * 1_000_000L);
+            balances[i] = BigDecimal.valueOf(units[i], 2);
+        }
+        bank = new Bank("deposits", Fixtures.settings());
+        bank.changeDepositRates(table);
+        Client client = new Client("name", "surname", "street", Fixtures.passport(0));
+        Date end = new Date(System.currentTimeMillis() + 365L * 24 * 60 * 60 * 1000);
+        for (int i = 0; i < depositsCount; i++)
+            bank.addAccount(new DepositAccount(balances[i % balancesCount], client, BigDecimal.ONE, end));
+        pool = new ForkJoinPool();
+    }
+
+    /**
+     * метод, который останавливает пул
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    /**
+     * ставка для остатка через таблицу
+     * @return - ставка
+     */
+    @Benchmark
+    public BigDecimal table() {
+        cursor = (cursor + 1) & (balancesCount - 1);
+        return table.rateForUnits(units[cursor]);
+    }
+
+    /**
+     * ставка для остатка через TreeMap
+     * @return - ставка
+     */
+    @Benchmark
+    public BigDecimal treeMap() {
+        cursor = (cursor + 1) & (balancesCount - 1);
+        return map.floorEntry(balances[cursor]).getValue();
+    }
+
+    /**
+     * пересчет ставок всех депозитов банка
+     * @return - количество аккаунтов с измененной ставкой
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int retier() {
+        return bank.retierDepositAccounts(pool);
+    }
+}
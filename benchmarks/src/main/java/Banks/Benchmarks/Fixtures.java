@@ -0,0 +1,36 @@
+package Banks.Benchmarks;
+
+import Banks.BankSystem.BankSettings;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+
+/**
+ * общие данные для бенчмарков
+ */
+final class Fixtures {
+    private static final long firstPassport = 6000000000L;
+
+    private Fixtures() { }
+
+    /**
+     * метод, который создает типовые настройки банка
+     * @return - настройки банка
+     */
+    static BankSettings settings() {
+        ArrayList<BigDecimal> deposit = new ArrayList<BigDecimal>();
+        deposit.add(BigDecimal.valueOf(2));
+        deposit.add(BigDecimal.valueOf(3));
+        deposit.add(BigDecimal.valueOf(4));
+        return new BankSettings(BigDecimal.valueOf(1), deposit, BigDecimal.valueOf(10000), BigDecimal.valueOf(1000), BigDecimal.valueOf(10000));
+    }
+
+    /**
+     * метод, который возвращает номер паспорта для i-го клиента
+     * @param i - номер клиента
+     * @return - номер паспорта
+     */
+    static String passport(long i) {
+        return Long.toString(firstPassport + i);
+    }
+}
@@ -0,0 +1,85 @@
+package Banks.Benchmarks;
+
+import Banks.Tools.IdGenerator;
+import Banks.Tools.RandomIdGenerator;
+import Banks.Tools.TimeOrderedIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * бенчмарк выдачи id: random - UUID.randomUUID через SecureRandom, timeOrdered - TimeOrderedIdGenerator.
+ * один генератор на все потоки, от 1 до 64 потоков
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdGeneratorBenchmark {
+    @Param({"random", "timeOrdered"})
+    public String generator;
+
+    private IdGenerator ids;
+
+    /**
+     * метод, который создает генератор
+     */
+    @Setup
+    public void setUp() {
+        ids = generator.equals("random") ? new RandomIdGenerator() : new TimeOrderedIdGenerator();
+    }
+
+    /**
+     * один поток
+     * @return - id
+     */
+    @Benchmark
+    @Threads(1)
+    public UUID threads01() {
+        return ids.nextId();
+    }
+
+    /**
+     * 4 потока
+     * @return - id
+     */
+    @Benchmark
+    @Threads(4)
+    public UUID threads04() {
+        return ids.nextId();
+    }
+
+    /**
+     * 16 потоков
+     * @return - id
+     */
+    @Benchmark
+    @Threads(16)
+    public UUID threads16() {
+        return ids.nextId();
+    }
+
+    /**
+     * 64 потока
+     * @return - id
+     */
+    @Benchmark
+    @Threads(64)
+    public UUID threads64() {
+        return ids.nextId();
+    }
+}
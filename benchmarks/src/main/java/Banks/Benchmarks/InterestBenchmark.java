@@ -0,0 +1,109 @@
+package Banks.Benchmarks;
+
+import Banks.AccountTypes.DebitAccount;
+import Banks.AccountTypes.DepositAccount;
+import Banks.AccountTypes.InterestCalculator;
+import Banks.ClientSystem.Client;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * бенчмарк расчета процентов: возведение в степень через квадраты против ежедневного цикла
+ * и против прежнего цикла из DebitAccount/DepositAccount.calculateMoney, а также сами
+ * calculateMoney дебетового и депозитного аккаунтов на разных сроках
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InterestBenchmark {
+    private static final BigDecimal yearDays = BigDecimal.valueOf(365);
+
+    @Param({"1", "30", "365", "3650", "36500"})
+    public int days;
+
+    private final BigDecimal money = new BigDecimal("12345.67");
+    private final BigDecimal percent = new BigDecimal("3.5");
+    private DebitAccount debit;
+    private DepositAccount deposit;
+
+    /**
+     * метод, который создает дебетовый и депозитный аккаунты
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Client client = new Client("name", "surname", "street", Fixtures.passport(0));
+        debit = new DebitAccount(money, client, percent);
+        deposit = new DepositAccount(money, client, percent, new Date());
+    }
+
+    /**
+     * расчет за O(log days)
+     * @return - сумма после начисления
+     */
+    @Benchmark
+    public BigDecimal closedForm() {
+        return InterestCalculator.compound(money, percent, yearDays, days);
+    }
+
+    /**
+     * эталонный ежедневный расчет за O(days)
+     * @return - сумма после начисления
+     */
+    @Benchmark
+    public BigDecimal dayByDay() {
+        return InterestCalculator.compoundDaily(money, percent, yearDays, days);
+    }
+
+    /**
+     * прежний цикл calculateMoney: новые BigDecimal на каждый день и постоянно растущий масштаб.
+     * процент 3.5 берется как 3.65, чтобы деление на 365 было конечной дробью, иначе старый код бросает исключение
+     * @return - сумма после цикла
+     */
+    @Benchmark
+    public BigDecimal legacyLoop() {
+        BigDecimal yearPercent = new BigDecimal("3.65").divide(yearDays);
+        BigDecimal calcMoney = money;
+        for (int i = 0; i < days; i++) {
+            calcMoney = calcMoney.add(calcMoney.add(yearPercent));
+        }
+        return calcMoney.round(MathContext.DECIMAL64);
+    }
+
+    /**
+     * DebitAccount.calculateMoney (накопленная сумма каждый раз сбрасывается к исходной)
+     * @return - сумма после начисления
+     */
+    @Benchmark
+    public BigDecimal debitCalculateMoney() {
+        debit.setCalculateMoney(money);
+        return debit.calculateMoney(days);
+    }
+
+    /**
+     * DepositAccount.calculateMoney (накопленная сумма каждый раз сбрасывается к исходной)
+     * @return - сумма после начисления
+     */
+    @Benchmark
+    public BigDecimal depositCalculateMoney() {
+        deposit.setCalculateMoney(money);
+        return deposit.calculateMoney(days);
+    }
+}
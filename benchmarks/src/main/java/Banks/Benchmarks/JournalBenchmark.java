@@ -0,0 +1,120 @@
+package Banks.Benchmarks;
+
+import Banks.AccountTypes.Account;
+import Banks.AccountTypes.DebitAccount;
+import Banks.BankSystem.CentralBank;
+import Banks.ClientSystem.Client;
+import Banks.Persistence.JournalSyncPolicy;
+import Banks.Persistence.TransactionJournal;
+import Banks.Transactions.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * бенчмарк переводов в секунду с подключенным журналом при разных политиках сброса.
+ * журнал пишется во временную папку на локальном диске (ее можно задать через -Djournal.dir=...),
+ * число потоков задается ключом -t. после прогона печатается отношение записей к fsync
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Threads(Threads.MAX)
+public class JournalBenchmark {
+    private static final BigDecimal startMoney = BigDecimal.valueOf(1_000_000_000L);
+
+    /**
+     * общие данные: журнал и центральный банк
+     */
+    @State(Scope.Benchmark)
+    public static class Shared {
+        @Param({"PER_RECORD", "GROUP", "PERIODIC"})
+        public JournalSyncPolicy policy;
+
+        final CentralBank centralBank = CentralBank.getInstance();
+        TransactionJournal journal;
+        Path directory;
+
+        /**
+         * метод, который создает журнал во временной папке и подключает его
+         * @throws IOException - если не удалось создать папку
+         */
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            String base = System.getProperty("journal.dir");
+            directory = base == null ? Files.createTempDirectory("journal") : Files.createTempDirectory(Path.of(base), "journal");
+            journal = new TransactionJournal(directory, policy);
+            centralBank.attachJournal(journal);
+        }
+
+        /**
+         * метод, который закрывает журнал и удаляет папку
+         * @throws IOException - если не удалось удалить файлы
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            centralBank.detachJournal();
+            journal.close();
+            System.out.println(policy + ": " + journal.getRecordCount() + " records, " + journal.getSyncCount() + " fsyncs");
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList())
+                    Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * данные потока: своя пара аккаунтов
+     */
+    @State(Scope.Thread)
+    public static class PerThread {
+        Account first;
+        Account second;
+        boolean forward;
+
+        /**
+         * метод, который создает пару аккаунтов потока
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            Client client = new Client("name", "surname", "street", Fixtures.passport(0));
+            first = new DebitAccount(startMoney, client, BigDecimal.ONE);
+            second = new DebitAccount(startMoney, client, BigDecimal.ONE);
+        }
+    }
+
+    /**
+     * перевод с записью в журнал
+     * @param shared - общие данные
+     * @param own - данные потока
+     * @return - транзакция
+     */
+    @Benchmark
+    public Transaction transfer(Shared shared, PerThread own) {
+        own.forward = !own.forward;
+        return own.forward
+                ? shared.centralBank.transferMoney(BigDecimal.ONE, own.first, own.second)
+                : shared.centralBank.transferMoney(BigDecimal.ONE, own.second, own.first);
+    }
+}
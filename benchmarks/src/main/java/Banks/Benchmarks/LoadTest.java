@@ -0,0 +1,294 @@
+package Banks.Benchmarks;
+
+import Banks.AccountTypes.Account;
+import Banks.BankSystem.Bank;
+import Banks.BankSystem.CentralBank;
+import Banks.Metrics.HistogramSnapshot;
+import Banks.Metrics.LatencyHistogram;
+import Banks.Transactions.Transaction;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * нагрузочный тест: генерирует банки, клиентов и аккаунты (WorkloadGenerator) и из threads потоков
+ * гоняет смесь операций - переводы, отмены недавних переводов, изменения настроек банков и симуляции
+ * дней по аккаунтам. после прогона печатает пропускную способность, p50/p99/p999 задержек по типам
+ * операций, отказы по типам исключений и использование heap.
+ * параметры задаются аргументами вида ключ=значение, например:
+ * java -cp benchmarks/target/benchmarks.jar Banks.Benchmarks.LoadTest threads=8 clients=100000 mix=90,4,1,5
+ * (mix - доли переводов, отмен, изменений настроек и симуляций)
+ */
+public final class LoadTest {
+    private static final String[] operations = {"transfer", "cancel", "settings", "simulate"};
+    private static final int transfer = 0;
+    private static final int cancel = 1;
+    private static final int settings = 2;
+    private static final int simulate = 3;
+    private static final int recentTransfers = 64;
+
+    private LoadTest() { }
+
+    /**
+     * метод, который запускает нагрузочный тест
+     * @param args - параметры вида ключ=значение
+     * @throws InterruptedException - если поток прерван
+     */
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = new LinkedHashMap<String, String>();
+        options.put("seed", "42");
+        options.put("banks", "8");
+        options.put("clients", "10000");
+        options.put("accountsPerClient", "3");
+        options.put("credit", "0.25");
+        options.put("deposit", "0.15");
+        options.put("threads", Integer.toString(Runtime.getRuntime().availableProcessors()));
+        options.put("warmup", "5");
+        options.put("duration", "30");
+        options.put("mix", "90,4,1,5");
+        for (String arg : args) {
+            int split = arg.indexOf('=');
+            if (split < 0 || !options.containsKey(arg.substring(0, split)))
+                throw new IllegalArgumentException("unknown option " + arg + ", expected one of " + options.keySet());
+            options.put(arg.substring(0, split), arg.substring(split + 1));
+        }
+        long seed = Long.parseLong(options.get("seed"));
+        int threads = Integer.parseInt(options.get("threads"));
+        int[] mix = parseMix(options.get("mix"));
+        System.out.println("options: " + options);
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long heapBefore = usedAfterGc(memory);
+        long start = System.nanoTime();
+        WorkloadGenerator generator = new WorkloadGenerator(seed);
+        generator.generate(Integer.parseInt(options.get("banks")), Integer.parseInt(options.get("clients")),
+                Integer.parseInt(options.get("accountsPerClient")), Double.parseDouble(options.get("credit")),
+                Double.parseDouble(options.get("deposit")), "load-" + seed + "-" + System.nanoTime());
+        long accounts = generator.getAccounts().size();
+        long heapData = usedAfterGc(memory) - heapBefore;
+        System.out.printf("generated %d banks, %d accounts in %.1f s, heap %.1f MB (%.0f B/account)%n",
+                generator.getBanks().size(), accounts, (System.nanoTime() - start) / 1e9,
+                heapData / 1048576.0, (double) heapData / accounts);
+
+        run(generator, mix, threads, seed, Long.parseLong(options.get("warmup")), null);
+        Worker[] workers = new Worker[threads];
+        long gcBefore = gcMillis();
+        HeapSampler sampler = new HeapSampler(memory);
+        sampler.start();
+        long elapsed = run(generator, mix, threads, seed + 1, Long.parseLong(options.get("duration")), workers);
+        sampler.stop();
+        long gc = gcMillis() - gcBefore;
+
+        report(workers, elapsed, memory, sampler.getPeak(), gc, CentralBank.getInstance().getTransactions().size());
+    }
+
+    private static long run(WorkloadGenerator generator, int[] mix, int threads, long seed, long seconds, Worker[] workers) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        CountDownLatch done = new CountDownLatch(threads);
+        SplittableRandom seeds = new SplittableRandom(seed);
+        long start = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            Worker worker = new Worker(generator, mix, seeds.split(), deadline, done);
+            if (workers != null)
+                workers[i] = worker;
+            Thread thread = new Thread(worker, "load-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+        return System.nanoTime() - start;
+    }
+
+    private static void report(Worker[] workers, long elapsedNanos, MemoryMXBean memory, long peakHeap, long gcMillis, int transactions) {
+        double seconds = elapsedNanos / 1e9;
+        long total = 0;
+        System.out.printf("%n%-10s %12s %12s %10s %10s %10s %10s %10s%n",
+                "operation", "ops", "ops/s", "failed", "p50 us", "p99 us", "p999 us", "max us");
+        for (int op = 0; op < operations.length; op++) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            long failed = 0;
+            for (Worker worker : workers) {
+                histogram.add(worker.latencies[op]);
+                failed += worker.failed[op];
+            }
+            HistogramSnapshot snapshot = histogram.snapshot();
+            total += snapshot.getCount();
+            System.out.printf("%-10s %12d %12.0f %10d %10.1f %10.1f %10.1f %10.1f%n", operations[op],
+                    snapshot.getCount(), snapshot.getCount() / seconds, failed,
+                    snapshot.getP50Nanos() / 1e3, snapshot.getP99Nanos() / 1e3,
+                    snapshot.getP999Nanos() / 1e3, snapshot.getMaxNanos() / 1e3);
+        }
+        System.out.printf("%-10s %12d %12.0f%n", "total", total, total / seconds);
+
+        TreeMap<String, Long> failures = new TreeMap<String, Long>();
+        for (Worker worker : workers)
+            worker.failures.forEach((type, count) -> failures.merge(type, count, Long::sum));
+        System.out.println("failures by type: " + failures);
+        System.out.printf("heap: peak %.1f MB, after gc %.1f MB, gc time %d ms (%.1f%%), transactions kept %d%n",
+                peakHeap / 1048576.0, usedAfterGc(memory) / 1048576.0, gcMillis, gcMillis / 10.0 / seconds, transactions);
+    }
+
+    private static int[] parseMix(String value) {
+        String[] parts = value.split(",");
+        if (parts.length != operations.length)
+            throw new IllegalArgumentException("mix must have " + operations.length + " weights: transfer,cancel,settings,simulate");
+        int[] cumulative = new int[operations.length];
+        int sum = 0;
+        for (int i = 0; i < parts.length; i++) {
+            sum += Integer.parseInt(parts[i].trim());
+            cumulative[i] = sum;
+        }
+        if (sum <= 0)
+            throw new IllegalArgumentException("mix weights must sum to a positive number");
+        return cumulative;
+    }
+
+    private static long usedAfterGc(MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+            total += Math.max(0, collector.getCollectionTime());
+        return total;
+    }
+
+    /**
+     * поток нагрузки: выбирает операции по весам смеси, меряет задержку каждой и считает отказы по типам исключений
+     */
+    private static final class Worker implements Runnable {
+        private final List<Account> senders;
+        private final List<Account> accounts;
+        private final List<Bank> banks;
+        private final int[] mix;
+        private final SplittableRandom random;
+        private final long deadline;
+        private final CountDownLatch done;
+        private final LatencyHistogram[] latencies = new LatencyHistogram[operations.length];
+        private final long[] failed = new long[operations.length];
+        private final Map<String, Long> failures = new TreeMap<String, Long>();
+        private final UUID[] recent = new UUID[recentTransfers];
+        private int recentCount;
+
+        private Worker(WorkloadGenerator generator, int[] mix, SplittableRandom random, long deadline, CountDownLatch done) {
+            this.senders = generator.getSenders();
+            this.accounts = generator.getAccounts();
+            this.banks = generator.getBanks();
+            this.mix = mix;
+            this.random = random;
+            this.deadline = deadline;
+            this.done = done;
+            for (int i = 0; i < operations.length; i++)
+                latencies[i] = new LatencyHistogram();
+        }
+
+        @Override
+        public void run() {
+            try {
+                CentralBank centralBank = CentralBank.getInstance();
+                long now = System.nanoTime();
+                while (now < deadline) {
+                    int op = choose();
+                    try {
+                        execute(centralBank, op);
+                    } catch (RuntimeException e) {
+                        failed[op]++;
+                        failures.merge(e.getClass().getSimpleName(), 1L, Long::sum);
+                    }
+                    long end = System.nanoTime();
+                    latencies[op].record(end - now);
+                    now = end;
+                }
+            } finally {
+                done.countDown();
+            }
+        }
+
+        private int choose() {
+            int ticket = random.nextInt(mix[mix.length - 1]);
+            int op = 0;
+            while (ticket >= mix[op])
+                op++;
+            // отменять нечего, пока поток не сделал ни одного перевода
+            return op == cancel && recentCount == 0 ? transfer : op;
+        }
+
+        private void execute(CentralBank centralBank, int op) {
+            switch (op) {
+                case transfer -> {
+                    Account sender = senders.get(random.nextInt(senders.size()));
+                    Account recipient = accounts.get(random.nextInt(accounts.size()));
+                    Transaction transaction = centralBank.transferMoney(BigDecimal.valueOf(1 + random.nextInt(10_000), 2), sender, recipient);
+                    recent[recentCount++ % recentTransfers] = transaction.getId();
+                }
+                case cancel -> {
+                    int available = Math.min(recentCount, recentTransfers);
+                    centralBank.cancelTransaction(recent[random.nextInt(available)]);
+                }
+                case settings -> {
+                    Bank bank = banks.get(random.nextInt(banks.size()));
+                    if (random.nextBoolean())
+                        bank.changeDebitPercent(BigDecimal.valueOf(1 + random.nextInt(5)));
+                    else
+                        bank.changeCreditSettings(BigDecimal.valueOf(random.nextInt(100)));
+                }
+                case simulate -> centralBank.simulateDays(accounts.get(random.nextInt(accounts.size())), 1 + random.nextInt(365));
+                default -> throw new IllegalStateException("unknown operation " + op);
+            }
+        }
+    }
+
+    /**
+     * поток, который раз в 100 мс замеряет занятый heap и запоминает максимум
+     */
+    private static final class HeapSampler {
+        private final MemoryMXBean memory;
+        private final AtomicLong peak = new AtomicLong();
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        private HeapSampler(MemoryMXBean memory) {
+            this.memory = memory;
+            this.thread = new Thread(this::sample, "heap-sampler");
+            this.thread.setDaemon(true);
+        }
+
+        private void start() {
+            thread.start();
+        }
+
+        private void stop() throws InterruptedException {
+            running = false;
+            thread.join();
+        }
+
+        private long getPeak() {
+            return peak.get();
+        }
+
+        private void sample() {
+            while (running) {
+                peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package Banks.Benchmarks;
+
+import Banks.BankSystem.Bank;
+import Banks.ClientSystem.Client;
+import Banks.Observer.Observer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * бенчмарк рассылки изменения настройки банка всем клиентам: shared - текущая схема (одно событие
+ * на изменение, ящик клиента хранит ссылку), legacy - прежняя схема (строка собирается для каждого
+ * наблюдателя и копится в неограниченном списке). затраты памяти на рассылку видны через -prof gc
+ * (gc.alloc.rate.norm), удерживаемая память после notifications изменений печатается при настройке
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class NotificationHeapBenchmark {
+    private static final int notifications = 32;
+
+    @Param({"10000", "100000"})
+    public int clients;
+
+    private Bank shared;
+    private Bank legacy;
+
+    /**
+     * метод, который подписывает клиентов на оба банка и печатает удерживаемую память обеих схем
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Bank retainedShared = subscribe(new Bank("shared", Fixtures.settings()), false);
+        long before = usedHeap();
+        for (int i = 0; i < notifications; i++)
+            retainedShared.changeDebitPercent(BigDecimal.valueOf(i));
+        long sharedBytes = usedHeap() - before;
+
+        Bank retainedLegacy = subscribe(new Bank("legacy", Fixtures.settings()), true);
+        before = usedHeap();
+        for (int i = 0; i < notifications; i++)
+            retainedLegacy.changeDebitPercent(BigDecimal.valueOf(i));
+        long legacyBytes = usedHeap() - before;
+
+        System.out.printf("%n%d clients x %d notifications retained: shared %.1f B/message, legacy %.1f B/message%n",
+                clients, notifications, (double) sharedBytes / clients / notifications,
+                (double) legacyBytes / clients / notifications);
+        shared = subscribe(new Bank("shared", Fixtures.settings()), false);
+        legacy = subscribe(new Bank("legacy", Fixtures.settings()), true);
+    }
+
+    /**
+     * рассылка одного изменения через общие события и ящики клиентов
+     */
+    @Benchmark
+    public void shared() {
+        shared.changeDebitPercent(BigDecimal.TEN);
+    }
+
+    /**
+     * рассылка одного изменения по прежней схеме
+     */
+    @Benchmark
+    public void legacy() {
+        legacy.changeDebitPercent(BigDecimal.TEN);
+    }
+
+    private Bank subscribe(Bank bank, boolean legacyObservers) {
+        for (int i = 0; i < clients; i++) {
+            Client client = new Client("name", "surname", "street", Fixtures.passport(i));
+            bank.addObserver(legacyObservers ? new LegacyClient() : client);
+        }
+        return bank;
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * наблюдатель, который повторяет прежнее поведение клиента: текст собирается на каждого
+     * наблюдателя и добавляется в неограниченный список
+     */
+    private static final class LegacyClient implements Observer {
+        private final List<String> notifications = new ArrayList<String>();
+
+        @Override
+        public void update(String message) {
+            notifications.add(message);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package Banks.Benchmarks;
+
+import Banks.BankSystem.Bank;
+import Banks.ClientSystem.Client;
+import Banks.Observer.BackPressurePolicy;
+import Banks.Observer.NotificationDispatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * бенчмарк Bank.notify при разном числе наблюдателей: sync - обход всех клиентов в вызывающем потоке,
+ * submit - только постановка в очередь рассылки (время, которое видит тот, кто меняет настройку),
+ * delivered - постановка в очередь и ожидание доставки всем клиентам
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class NotifyBenchmark {
+    @Param({"100", "10000", "1000000"})
+    public int observers;
+
+    private Bank direct;
+    private Bank queued;
+    private NotificationDispatcher dispatcher;
+    private int change;
+
+    /**
+     * метод, который подписывает клиентов на банк без рассылки и на банк с рассылкой
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        direct = new Bank("direct", Fixtures.settings());
+        queued = new Bank("queued", Fixtures.settings());
+        for (int i = 0; i < observers; i++) {
+            direct.addObserver(new Client("name", "surname", "street", Fixtures.passport(i)));
+            queued.addObserver(new Client("name", "surname", "street", Fixtures.passport(i)));
+        }
+        dispatcher = new NotificationDispatcher(1024, 1, BackPressurePolicy.COALESCE);
+        queued.setNotificationDispatcher(dispatcher);
+    }
+
+    /**
+     * метод, который закрывает рассылку
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dispatcher.close();
+        System.out.println(dispatcher.getMetrics());
+    }
+
+    /**
+     * синхронная рассылка всем наблюдателям
+     */
+    @Benchmark
+    public void sync() {
+        direct.changeDebitPercent(BigDecimal.valueOf(++change & 7));
+    }
+
+    /**
+     * постановка изменения в очередь рассылки (ждущие изменения той же настройки сливаются)
+     */
+    @Benchmark
+    public void submit() {
+        queued.changeDebitPercent(BigDecimal.valueOf(++change & 7));
+    }
+
+    /**
+     * постановка в очередь и ожидание доставки
+     * @throws InterruptedException - если поток прерван
+     */
+    @Benchmark
+    public void delivered() throws InterruptedException {
+        queued.changeDebitPercent(BigDecimal.valueOf(++change & 7));
+        dispatcher.awaitIdle(1, TimeUnit.MINUTES);
+    }
+}
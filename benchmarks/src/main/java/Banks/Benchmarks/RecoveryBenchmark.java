@@ -0,0 +1,108 @@
+package Banks.Benchmarks;
+
+import Banks.AccountTypes.DebitAccount;
+import Banks.BankSystem.Bank;
+import Banks.BankSystem.CentralBank;
+import Banks.ClientSystem.Client;
+import Banks.Persistence.RecoveredState;
+import Banks.Persistence.SnapshotStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * бенчмарк времени старта: загрузка снимка с заданным числом аккаунтов, разбитых по банкам
+ * (секции банков разбираются параллельно), и запись снимка. для цели в 10M аккаунтов:
+ * -p accounts=10000000 -jvmArgsAppend -Xmx24g. папку снимков можно задать через -Dsnapshot.dir=...
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class RecoveryBenchmark {
+    private static final int accountsPerClient = 4;
+
+    @Param({"100000", "1000000"})
+    public int accounts;
+
+    @Param({"1", "8"})
+    public int banks;
+
+    private final CentralBank centralBank = CentralBank.getInstance();
+    private SnapshotStore store;
+    private Path directory;
+    private Path snapshot;
+
+    /**
+     * метод, который создает банки с аккаунтами и пишет исходный снимок
+     * @throws IOException - если не удалось создать папку
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        for (int b = 0; b < banks; b++) {
+            Bank bank = centralBank.registerBank("recovery-" + b, Fixtures.settings());
+            Client client = null;
+            for (int i = b; i < accounts; i += banks) {
+                if (client == null || i / banks % accountsPerClient == 0)
+                    client = bank.addClient(new Client("name", "surname", "street", Fixtures.passport(i)));
+                bank.addAccount(new DebitAccount(BigDecimal.valueOf(1000 + i % 1000), client, BigDecimal.ONE));
+            }
+        }
+        String base = System.getProperty("snapshot.dir");
+        directory = base == null ? Files.createTempDirectory("snapshot") : Files.createTempDirectory(Path.of(base), "snapshot");
+        store = new SnapshotStore(directory, 1);
+        snapshot = store.write();
+        System.out.println(accounts + " accounts: " + Files.size(snapshot) / (1 << 20) + " MB");
+    }
+
+    /**
+     * метод, который удаляет папку снимков
+     * @throws IOException - если не удалось удалить файлы
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList())
+                Files.delete(path);
+        }
+    }
+
+    /**
+     * загрузка снимка (без регистрации в центральном банке)
+     * @return - восстановленное состояние
+     */
+    @Benchmark
+    public RecoveredState load() {
+        return SnapshotStore.load(snapshot);
+    }
+
+    /**
+     * запись согласованного снимка всей системы
+     * @return - файл снимка
+     */
+    @Benchmark
+    public Path write() {
+        return store.write();
+    }
+}
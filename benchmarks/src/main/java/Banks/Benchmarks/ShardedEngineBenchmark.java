@@ -0,0 +1,151 @@
+package Banks.Benchmarks;
+
+import Banks.AccountTypes.Account;
+import Banks.AccountTypes.DebitAccount;
+import Banks.BankSystem.CentralBank;
+import Banks.ClientSystem.Client;
+import Banks.Engine.ShardedEngine;
+import Banks.Transactions.TransferTransaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * бенчмарк движка переводов ShardedEngine: потоки бенчмарка (ключ -t, по умолчанию 4) отправляют
+ * случайные переводы между 4096 аккаунтами, и каждый ждет результатов своей порции. при shards шардах
+ * доля межшардовых (двухшаговых) переводов - примерно 1 - 1/shards. engine - переводы через движок,
+ * locked - те же переводы через CentralBank.transferMoney с блокировками аккаунтов. результат - переводов
+ * в секунду; рост engine с числом шардов виден, только если ядер хватает на шарды и потоки бенчмарка
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Threads(4)
+public class ShardedEngineBenchmark {
+    private static final int transfers = 10_000;
+    private static final int accountsCount = 4096;
+    private static final int capacity = 4096;
+    private static final BigDecimal startMoney = BigDecimal.valueOf(1_000_000_000L);
+
+    /**
+     * общие данные: аккаунты и движок
+     */
+    @State(Scope.Benchmark)
+    public static class Shared {
+        @Param({"1", "2", "4", "8"})
+        public int shards;
+
+        final CentralBank centralBank = CentralBank.getInstance();
+        Account[] accounts;
+        ShardedEngine engine;
+
+        /**
+         * метод, который создает аккаунты и запускает движок
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            Client client = new Client("name", "surname", "street", Fixtures.passport(0));
+            accounts = new Account[accountsCount];
+            for (int i = 0; i < accountsCount; i++) {
+                accounts[i] = new DebitAccount(startMoney, client, BigDecimal.ONE);
+                accounts[i].setVerificationLimit(startMoney);
+            }
+            engine = new ShardedEngine(shards, capacity);
+        }
+
+        /**
+         * метод, который собирает мусор перед итерацией: проведенные переводы копятся в центральном банке,
+         * и без этого сборка кучи попадает в замер случайных итераций
+         */
+        @Setup(Level.Iteration)
+        public void collect() {
+            System.gc();
+        }
+
+        /**
+         * метод, который останавливает движок и печатает долю межшардовых переводов
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            engine.close();
+            System.out.println(engine.getCrossShardTransfers() + " of " + engine.getCompleted() + " transfers crossed shards");
+        }
+    }
+
+    /**
+     * данные потока: свой набор переводов
+     */
+    @State(Scope.Thread)
+    public static class PerThread {
+        Account[] senders;
+        Account[] recipients;
+        BigDecimal amount = BigDecimal.ONE;
+
+        /**
+         * метод, который генерирует переводы потока
+         * @param shared - общие данные
+         * @param thread - параметры потока бенчмарка
+         */
+        @Setup(Level.Trial)
+        public void setUp(Shared shared, ThreadParams thread) {
+            SplittableRandom random = new SplittableRandom(thread.getThreadIndex());
+            senders = new Account[transfers];
+            recipients = new Account[transfers];
+            for (int i = 0; i < transfers; i++) {
+                senders[i] = shared.accounts[random.nextInt(accountsCount)];
+                recipients[i] = shared.accounts[random.nextInt(accountsCount)];
+            }
+        }
+    }
+
+    /**
+     * переводы через движок: отправка порции и ожидание всех ее результатов
+     * @param shared - общие данные
+     * @param perThread - данные потока
+     * @param blackhole - потребитель результатов
+     */
+    @Benchmark
+    @OperationsPerInvocation(transfers)
+    @SuppressWarnings("unchecked")
+    public void engine(Shared shared, PerThread perThread, Blackhole blackhole) {
+        CompletableFuture<TransferTransaction>[] results = new CompletableFuture[transfers];
+        for (int i = 0; i < transfers; i++)
+            results[i] = shared.engine.transfer(perThread.amount, perThread.senders[i], perThread.recipients[i]);
+        CompletableFuture.allOf(results).join();
+        blackhole.consume(results);
+    }
+
+    /**
+     * те же переводы через CentralBank.transferMoney
+     * @param shared - общие данные
+     * @param perThread - данные потока
+     * @param blackhole - потребитель результатов
+     */
+    @Benchmark
+    @OperationsPerInvocation(transfers)
+    public void locked(Shared shared, PerThread perThread, Blackhole blackhole) {
+        for (int i = 0; i < transfers; i++)
+            blackhole.consume(shared.centralBank.transferMoney(perThread.amount, perThread.senders[i], perThread.recipients[i]));
+    }
+}
@@ -0,0 +1,138 @@
+package Banks.Benchmarks;
+
+import Banks.AccountTypes.Account;
+import Banks.AccountTypes.DebitAccount;
+import Banks.ClientSystem.Client;
+import Banks.Transactions.Transaction;
+import Banks.Transactions.TransactionArchive;
+import Banks.Transactions.TransferTransaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * бенчмарк истории транзакций: список объектов Transaction против колоночного архива.
+ * переводы идут как в живом потоке: id упорядочены по времени, время растет с шагом до 2 мс,
+ * аккаунты и суммы случайные. удерживаемая память обоих вариантов печатается при настройке,
+ * замеряются сумма оборота по всей истории, сборка одной транзакции по позиции и поиск по id
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TransactionArchiveBenchmark {
+    private static final int accountsCount = 10_000;
+
+    @Param({"1000000"})
+    public int transactions;
+
+    private ArrayList<Transaction> list;
+    private TransactionArchive archive;
+    private long cursor;
+    private UUID[] ids;
+
+    /**
+     * метод, который заполняет список и архив одинаковыми переводами и печатает их удерживаемую память
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Client client = new Client("name", "surname", "street", Fixtures.passport(0));
+        Account[] accounts = new Account[accountsCount];
+        for (int i = 0; i < accountsCount; i++)
+            accounts[i] = new DebitAccount(BigDecimal.TEN, client, BigDecimal.ONE);
+        SplittableRandom random = new SplittableRandom(42);
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        long before = usedHeap();
+        list = new ArrayList<Transaction>();
+        for (int i = 0; i < transactions; i++) {
+            time = time.plusNanos(random.nextLong(2_000_000));
+            list.add(new TransferTransaction(accounts[random.nextInt(accountsCount)], accounts[random.nextInt(accountsCount)],
+                    BigDecimal.valueOf(random.nextLong(1_000_000_000L), 2), time));
+        }
+        long listBytes = usedHeap() - before;
+
+        before = usedHeap();
+        archive = new TransactionArchive();
+        for (Transaction transaction : list)
+            archive.append(transaction);
+        long archiveBytes = usedHeap() - before;
+        ids = new UUID[1024];
+        for (int i = 0; i < ids.length; i++)
+            ids[i] = list.get(random.nextInt(transactions)).getId();
+
+        System.out.printf("%n%d transactions retained: list %.1f B/record, archive %.1f B/record (counted %.1f), %.1fx%n",
+                transactions, (double) listBytes / transactions, (double) archiveBytes / transactions,
+                (double) archive.getFootprintBytes() / transactions, (double) listBytes / archiveBytes);
+    }
+
+    /**
+     * оборот по всей истории через объекты Transaction
+     * @return - сумма
+     */
+    @Benchmark
+    public BigDecimal listSum() {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (Transaction transaction : list)
+            sum = sum.add(transaction.getMoney());
+        return sum;
+    }
+
+    /**
+     * оборот по всей истории через колонку сумм архива
+     * @return - сумма в копейках
+     */
+    @Benchmark
+    public long archiveSum() {
+        long sum = 0;
+        long size = archive.size();
+        for (long position = 0; position < size; position++)
+            sum += archive.getAmountUnits(position);
+        return sum;
+    }
+
+    /**
+     * сборка одной транзакции из архива
+     * @return - транзакция
+     */
+    @Benchmark
+    public Transaction archiveGet() {
+        cursor = (cursor + 7919) % transactions;
+        return archive.get(cursor);
+    }
+
+    /**
+     * поиск позиции по id (просматриваются только блоки с подходящим диапазоном id)
+     * @return - позиция
+     */
+    @Benchmark
+    public long archiveIndexOf() {
+        cursor++;
+        return archive.indexOf(ids[(int) (cursor & (ids.length - 1))]);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,129 @@
+package Banks.Benchmarks;
+
+import Banks.AccountTypes.Account;
+import Banks.AccountTypes.DebitAccount;
+import Banks.ClientSystem.Client;
+import Banks.Transactions.Transaction;
+import Banks.Transactions.TransactionIndex;
+import Banks.Transactions.UpdateTransaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * бенчмарк индекса транзакций против HashMap&lt;UUID, Transaction&gt;.
+ * lookup* меряют время поиска по копии id (другой объект UUID);
+ * build* строят индекс целиком, их стоит запускать с -prof gc:
+ * gc.alloc.rate.norm показывает байты, выделенные на построение (с учетом мусора от resize),
+ * а footprint - итоговый объем таблиц индекса
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TransactionIndexBenchmark {
+    private static final int lookupKeys = 1 << 16;
+
+    @Param({"10000", "1000000"})
+    public int transactions;
+
+    private Transaction[] all;
+    private TransactionIndex index;
+    private HashMap<UUID, Transaction> map;
+    private UUID[] keys;
+    private int cursor;
+
+    /**
+     * метод, который создает транзакции и заполняет оба индекса
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Client client = new Client("name", "surname", "street", Fixtures.passport(0));
+        Account account = new DebitAccount(BigDecimal.valueOf(1000), client, BigDecimal.ONE);
+        LocalDateTime time = LocalDateTime.now();
+        all = new Transaction[transactions];
+        index = new TransactionIndex();
+        map = new HashMap<UUID, Transaction>();
+        for (int i = 0; i < transactions; i++) {
+            all[i] = new UpdateTransaction(account, BigDecimal.ONE, time);
+            index.put(all[i]);
+            map.put(all[i].getId(), all[i]);
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        keys = new UUID[lookupKeys];
+        for (int i = 0; i < lookupKeys; i++) {
+            UUID id = all[random.nextInt(transactions)].getId();
+            keys[i] = new UUID(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        }
+        System.out.println("TransactionIndex footprint: " + index.footprintBytes() / transactions + " bytes/transaction");
+    }
+
+    /**
+     * поиск транзакции в индексе
+     * @return - найденная транзакция
+     */
+    @Benchmark
+    public Transaction lookupIndex() {
+        return index.get(keys[next()]);
+    }
+
+    /**
+     * поиск транзакции в HashMap
+     * @return - найденная транзакция
+     */
+    @Benchmark
+    public Transaction lookupHashMap() {
+        return map.get(keys[next()]);
+    }
+
+    /**
+     * построение индекса из всех транзакций
+     * @return - индекс
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public TransactionIndex buildIndex() {
+        TransactionIndex built = new TransactionIndex();
+        for (Transaction transaction : all)
+            built.put(transaction);
+        return built;
+    }
+
+    /**
+     * построение HashMap из всех транзакций
+     * @return - HashMap
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public HashMap<UUID, Transaction> buildHashMap() {
+        HashMap<UUID, Transaction> built = new HashMap<UUID, Transaction>();
+        for (Transaction transaction : all)
+            built.put(transaction.getId(), transaction);
+        return built;
+    }
+
+    private int next() {
+        cursor = (cursor + 1) & (lookupKeys - 1);
+        return cursor;
+    }
+}
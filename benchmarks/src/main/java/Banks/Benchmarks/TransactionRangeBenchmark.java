@@ -0,0 +1,102 @@
+package Banks.Benchmarks;
+
+import Banks.AccountTypes.Account;
+import Banks.AccountTypes.DebitAccount;
+import Banks.ClientSystem.Client;
+import Banks.Transactions.Transaction;
+import Banks.Transactions.TransactionTimeStore;
+import Banks.Transactions.UpdateTransaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * бенчмарк запроса транзакций за период: часовые разделы TransactionTimeStore против полного
+ * прохода по общему списку (как раньше приходилось делать через getTransactions).
+ * транзакции равномерно распределены по 30 дням, запрашивается окно в hours часов
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TransactionRangeBenchmark {
+    private static final int days = 30;
+
+    @Param({"1000000"})
+    public int transactions;
+
+    @Param({"1", "24"})
+    public int hours;
+
+    private final ArrayList<Transaction> list = new ArrayList<Transaction>();
+    private final TransactionTimeStore store = new TransactionTimeStore();
+    private LocalDateTime from;
+    private LocalDateTime to;
+
+    /**
+     * метод, который заполняет список и хранилище одинаковыми транзакциями
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Account account = new DebitAccount(BigDecimal.TEN, new Client("name", "surname", "street", Fixtures.passport(0)), BigDecimal.ONE);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        long step = days * 24L * 3600 * 1_000_000_000L / transactions;
+        for (int i = 0; i < transactions; i++) {
+            Transaction transaction = new UpdateTransaction(account, BigDecimal.ONE, start.plusNanos(step * i));
+            list.add(transaction);
+            store.append(transaction);
+        }
+        from = start.plusDays(days / 2).plusMinutes(30);
+        to = from.plusHours(hours);
+    }
+
+    /**
+     * запрос через разделы
+     * @return - транзакции периода
+     */
+    @Benchmark
+    public List<Transaction> partitioned() {
+        return store.findBetween(from, to);
+    }
+
+    /**
+     * подсчет через параллельный поток разделов
+     * @return - количество транзакций периода
+     */
+    @Benchmark
+    public long partitionedParallelCount() {
+        return store.streamBetween(from, to).parallel().count();
+    }
+
+    /**
+     * полный проход по списку
+     * @return - транзакции периода
+     */
+    @Benchmark
+    public List<Transaction> fullScan() {
+        ArrayList<Transaction> result = new ArrayList<Transaction>();
+        for (Transaction transaction : list) {
+            LocalDateTime time = transaction.getTransactionTime();
+            if (!time.isBefore(from) && time.isBefore(to))
+                result.add(transaction);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,122 @@
+package Banks.Benchmarks;
+
+import Banks.AccountTypes.Account;
+import Banks.AccountTypes.DebitAccount;
+import Banks.BankSystem.CentralBank;
+import Banks.ClientSystem.Client;
+import Banks.Transactions.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * бенчмарк пропускной способности CentralBank.transferMoney.
+ * disjoint - каждый поток переводит деньги внутри своей пары аккаунтов (должно масштабироваться по ядрам),
+ * contended - все потоки переводят внутри одной общей пары, single - однопоточный перевод.
+ * число потоков задается ключом -t (например -t 1, -t 4, -t 16)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Threads(Threads.MAX)
+public class TransferBenchmark {
+    private static final BigDecimal startMoney = BigDecimal.valueOf(1_000_000_000L);
+    private static final BigDecimal amount = BigDecimal.ONE;
+
+    /**
+     * общие данные: центральный банк и общая пара аккаунтов
+     */
+    @State(Scope.Benchmark)
+    public static class Shared {
+        final CentralBank centralBank = CentralBank.getInstance();
+        Account first;
+        Account second;
+
+        /**
+         * метод, который создает общую пару аккаунтов
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            first = account();
+            second = account();
+        }
+    }
+
+    /**
+     * данные потока: своя пара аккаунтов и направление следующего перевода
+     */
+    @State(Scope.Thread)
+    public static class PerThread {
+        Account first;
+        Account second;
+        boolean forward;
+
+        /**
+         * метод, который создает пару аккаунтов потока
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            first = account();
+            second = account();
+        }
+    }
+
+    /**
+     * перевод внутри собственной пары аккаунтов потока
+     * @param shared - общие данные
+     * @param own - данные потока
+     * @return - транзакция
+     */
+    @Benchmark
+    public Transaction disjoint(Shared shared, PerThread own) {
+        own.forward = !own.forward;
+        return own.forward
+                ? shared.centralBank.transferMoney(amount, own.first, own.second)
+                : shared.centralBank.transferMoney(amount, own.second, own.first);
+    }
+
+    /**
+     * перевод внутри собственной пары аккаунтов в одном потоке (не зависит от -t)
+     * @param shared - общие данные
+     * @param own - данные потока
+     * @return - транзакция
+     */
+    @Benchmark
+    @Threads(1)
+    public Transaction single(Shared shared, PerThread own) {
+        return disjoint(shared, own);
+    }
+
+    /**
+     * перевод внутри общей пары аккаунтов
+     * @param shared - общие данные
+     * @param own - данные потока
+     * @return - транзакция
+     */
+    @Benchmark
+    public Transaction contended(Shared shared, PerThread own) {
+        own.forward = !own.forward;
+        return own.forward
+                ? shared.centralBank.transferMoney(amount, shared.first, shared.second)
+                : shared.centralBank.transferMoney(amount, shared.second, shared.first);
+    }
+
+    private static Account account() {
+        Client client = new Client("name", "surname", "street", Fixtures.passport(0));
+        return new DebitAccount(startMoney, client, BigDecimal.ONE);
+    }
+}
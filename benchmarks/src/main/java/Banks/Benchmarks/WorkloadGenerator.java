@@ -0,0 +1,108 @@
+package Banks.Benchmarks;
+
+import Banks.AccountTypes.Account;
+import Banks.AccountTypes.CreditAccount;
+import Banks.AccountTypes.DebitAccount;
+import Banks.AccountTypes.DepositAccount;
+import Banks.BankSystem.Bank;
+import Banks.BankSystem.CentralBank;
+import Banks.ClientSystem.Client;
+import Banks.ClientSystem.ClientBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * генератор синтетических данных: банки регистрируются в центральном банке, клиенты строятся через
+ * ClientBuilder, у каждого клиента несколько аккаунтов разных типов (дебетовые, кредитные, депозитные
+ * в заданной пропорции). при одном seed набор данных повторяется (кроме случайных id)
+ */
+final class WorkloadGenerator {
+    private static final long firstPassport = 5000000000L;
+    private final SplittableRandom random;
+    private final List<Bank> banks = new ArrayList<Bank>();
+    private final List<Account> accounts = new ArrayList<Account>();
+    private final List<Account> senders = new ArrayList<Account>();
+
+    /**
+     * конструктор генератора
+     * @param seed - зерно генератора случайных чисел
+     */
+    WorkloadGenerator(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * метод, который создает банки, клиентов и аккаунты
+     * @param bankCount - количество банков
+     * @param clientsPerBank - количество клиентов в каждом банке
+     * @param accountsPerClient - количество аккаунтов у клиента
+     * @param creditShare - доля кредитных аккаунтов (от 0 до 1)
+     * @param depositShare - доля депозитных аккаунтов (от 0 до 1)
+     * @param prefix - префикс имен банков (имена в центральном банке должны быть уникальными)
+     */
+    void generate(int bankCount, int clientsPerBank, int accountsPerClient, double creditShare, double depositShare, String prefix) {
+        CentralBank centralBank = CentralBank.getInstance();
+        long passport = firstPassport;
+        Date depositEnd = new Date(System.currentTimeMillis() + 365L * 24 * 60 * 60 * 1000);
+        for (int b = 0; b < bankCount; b++) {
+            Bank bank = centralBank.registerBank(prefix + "-" + b, Fixtures.settings());
+            banks.add(bank);
+            for (int c = 0; c < clientsPerBank; c++) {
+                ClientBuilder builder = new ClientBuilder();
+                builder.addName("name" + c);
+                builder.addSurname("surname" + b);
+                // каждый десятый клиент не верифицирован и получает лимит банка для неверифицированных
+                if (random.nextInt(10) != 0) {
+                    builder.addAddress("street " + random.nextInt(1000));
+                    builder.addPassport(Long.toString(passport++));
+                }
+                Client client = bank.addClient(builder.makeClient());
+                for (int a = 0; a < accountsPerClient; a++) {
+                    BigDecimal money = BigDecimal.valueOf(1000 + random.nextInt(1_000_000), 2);
+                    double kind = random.nextDouble();
+                    Account account;
+                    if (kind < creditShare) {
+                        account = new CreditAccount(money, client, BigDecimal.valueOf(random.nextInt(100)));
+                    } else if (kind < creditShare + depositShare) {
+                        account = new DepositAccount(money, client, BigDecimal.valueOf(2 + random.nextInt(3)), depositEnd);
+                    } else {
+                        account = new DebitAccount(money, client, BigDecimal.valueOf(1 + random.nextInt(5)));
+                    }
+                    bank.addAccount(account);
+                    accounts.add(account);
+                    // с депозита снимать нельзя, поэтому переводы отправляются только с дебетовых и кредитных счетов
+                    if (!(account instanceof DepositAccount))
+                        senders.add(account);
+                }
+            }
+        }
+    }
+
+    /**
+     * метод, который возвращает созданные банки
+     * @return - банки
+     */
+    List<Bank> getBanks() {
+        return banks;
+    }
+
+    /**
+     * метод, который возвращает все созданные аккаунты
+     * @return - аккаунты
+     */
+    List<Account> getAccounts() {
+        return accounts;
+    }
+
+    /**
+     * метод, который возвращает аккаунты, с которых можно переводить деньги
+     * @return - аккаунты
+     */
+    List<Account> getSenders() {
+        return senders;
+    }
+}
@@ -2,25 +2,62 @@ package Banks.AccountTypes;
 
 import Banks.ClientSystem.Client;
 import Banks.Tools.AccountException;
+import Banks.Tools.BankClock;
 import Banks.Tools.ClientException;
+import Banks.Tools.Ids;
+import Banks.Tools.MoneyUnits;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * абстрактный класс, описывающий аккаунт
+ * абстрактный класс, описывающий аккаунт.
+ * баланс хранится в long минимальных единиц (копейках) и меняется через compare-and-set,
+ * поэтому списание с проверкой остатка и зачисление атомарны без блокировок.
+ * проценты начисляются лениво: аккаунт помнит день последнего начисления и дробный остаток
+ * начисления меньше копейки, и любое чтение или изменение баланса сначала начисляет проценты
+ * за прошедшие с тех пор дни (см. accrue)
  */
 public abstract class Account {
+    private static final VarHandle BALANCE;
+    private static final VarHandle CAS_RETRIES;
+    private static final VarHandle ACCRUED_DAY;
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            BALANCE = lookup.findVarHandle(Account.class, "balance", long.class);
+            CAS_RETRIES = lookup.findVarHandle(Account.class, "casRetries", long.class);
+            ACCRUED_DAY = lookup.findVarHandle(Account.class, "accruedDay", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     protected final BigDecimal minMoney = BigDecimal.valueOf(0);
     protected final BigDecimal minPercent = BigDecimal.valueOf(0);
     protected final int minDaysToCalculate = 0;
     protected final BigDecimal yearDays = BigDecimal.valueOf(365);
+    /**
+     * число знаков дробного остатка начисления после копейки
+     */
+    public static final int carryScale = 9;
+    private static final long accruing = Long.MIN_VALUE;
     private Client accountClient;
-    private BigDecimal accountMoney;
+    private long balance;
+    private long casRetries;
+    private long accruedDay;
+    private long accruedCarry;
     private BigDecimal calculateMoney;
     private final UUID id;
     private boolean isVerified;
     private BigDecimal verificationLimit;
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile long settingsVersion;
 
     /**
      * базовый конструктор абстрактного класса
@@ -30,6 +67,20 @@ public abstract class Account {
      * @throws ClientException - исключение, которое бросается если client null
      */
     public Account(BigDecimal money, Client client) throws AccountException, ClientException{
+        this(Ids.next(), money, client);
+    }
+
+    /**
+     * конструктор абстрактного класса с заданным id (для восстановления из снимка)
+     * @param id - id аккаунта
+     * @param money - начальная сумма на аккаунте
+     * @param client - владелец аккаунта
+     * @throws AccountException - исключение, которое бросается если id или money null или money меньше нуля
+     * @throws ClientException - исключение, которое бросается если client null
+     */
+    protected Account(UUID id, BigDecimal money, Client client) throws AccountException, ClientException{
+        if (id == null)
+            throw AccountException.NullException();
         if (money == null)
             throw AccountException.NullException();
         if (client == null)
@@ -38,13 +89,28 @@ public abstract class Account {
             throw AccountException.InvalidAccountMoneyException();
 
         accountClient = client;
-        accountMoney = money;
+        BALANCE.setVolatile(this, MoneyUnits.toUnits(money));
+        ACCRUED_DAY.setVolatile(this, BankClock.epochDay());
         calculateMoney = money;
-        id = UUID.randomUUID();
+        this.id = id;
         isVerified = client.checkVerification();
-        verificationLimit = accountMoney;
+        verificationLimit = money;
     }
 
+    /**
+     * метод, который запоминает версию настроек банка, которые аккаунт применил последними
+     * @param settingsVersion - версия настроек банка
+     */
+    public void setSettingsVersion(long settingsVersion) {
+        this.settingsVersion = settingsVersion;
+    }
+    /**
+     * метод, который возвращает версию настроек банка, которые аккаунт применил последними
+     * @return - версия настроек или 0, если аккаунт не добавлен в банк
+     */
+    public long getSettingsVersion() {
+        return settingsVersion;
+    }
     /**
      * метод, который задает аккаунту его статус верифицированости
      * @param verified - статус верификации аккаунта
@@ -60,11 +126,15 @@ public abstract class Account {
         this.calculateMoney = calculateMoney;
     }
     /**
-     * метод, который задает аккаунту сумму этого акканута
+     * метод, который задает аккаунту сумму этого акканута. проценты за прошедшие дни сначала начисляются
+     * на прежний баланс, затем баланс заменяется, а дробный остаток начисления обнуляется
      * @param accountMoney - сумма на аккаунте
+     * @throws AccountException - исключение бросается если сумма null
      */
-    public void setAccountMoney(BigDecimal accountMoney) {
-        this.accountMoney = accountMoney;
+    public void setAccountMoney(BigDecimal accountMoney) throws AccountException {
+        if (accountMoney == null)
+            throw AccountException.NullException();
+        setBalanceUnits(MoneyUnits.toUnits(accountMoney));
     }
     /**
      * метод, который задает аккаунту его владельца
@@ -98,6 +168,15 @@ public abstract class Account {
         return id;
     }
 
+    /**
+     * метод, который возвращает блокировку аккаунта. операции над несколькими аккаунтами
+     * должны брать блокировки в порядке возрастания id аккаунта (см. AccountLocks)
+     * @return - блокировка аккаунта
+     */
+    public ReentrantLock getLock() {
+        return lock;
+    }
+
     /**
      * метод, который возвращает верифицирован ли аккаунт
      * @return - возвращает статус аккаунта
@@ -119,7 +198,308 @@ public abstract class Account {
      * @return - возвращает сумму на аккаунта
      */
     public BigDecimal getAccountMoney() {
-        return accountMoney;
+        return MoneyUnits.toMoney(getBalanceUnits());
+    }
+
+    /**
+     * метод, который возвращает баланс аккаунта в минимальных единицах (после начисления процентов)
+     * @return - баланс в копейках
+     */
+    public long getBalanceUnits() {
+        accrue();
+        return (long) BALANCE.getVolatile(this);
+    }
+
+    /**
+     * метод, который задает баланс аккаунта в минимальных единицах. проценты за прошедшие дни сначала
+     * начисляются на прежний баланс, затем баланс заменяется, а дробный остаток начисления обнуляется,
+     * поэтому новый баланс не получает проценты за дни до замены
+     * @param units - баланс в копейках
+     */
+    public void setBalanceUnits(long units) {
+        accrueAndUpdate(() -> {
+            BALANCE.setVolatile(this, units);
+            accruedCarry = 0;
+        });
+    }
+
+    /**
+     * метод, который восстанавливает баланс и состояние начисления из снимка без начисления процентов
+     * (проценты за дни после дня последнего начисления начислятся при следующем обращении к балансу)
+     * @param units - баланс в копейках
+     * @param lastAccrued - дата последнего начисления
+     * @param carry - дробный остаток начисления в единицах 10^-carryScale копейки
+     * @throws AccountException - исключение бросается если дата null или остаток отрицательный или не меньше копейки
+     */
+    public void restoreBalance(long units, LocalDate lastAccrued, long carry) throws AccountException {
+        if (lastAccrued == null)
+            throw AccountException.NullException();
+        if (carry < 0 || carry >= BigDecimal.ONE.movePointRight(carryScale).longValue())
+            throw AccountException.InvalidAccountMoneyException();
+        claim();
+        BALANCE.setVolatile(this, units);
+        accruedCarry = carry;
+        ACCRUED_DAY.setVolatile(this, lastAccrued.toEpochDay());
+    }
+
+    /**
+     * метод, который возвращает число неудачных попыток compare-and-set баланса
+     * (счетчик конкуренции потоков за этот аккаунт)
+     * @return - число повторов CAS
+     */
+    public long getCasRetries() {
+        return (long) CAS_RETRIES.getOpaque(this);
+    }
+
+    /**
+     * метод, который атомарно списывает сумму, если после списания баланс не опустится ниже порога
+     * @param amount - сумма списания
+     * @param floor - минимальный допустимый баланс после списания
+     * @return - true если деньги списаны, false если денег недостаточно
+     * @throws AccountException - исключение бросается если сумма или порог null или сумма меньше нуля
+     */
+    public boolean tryDebit(BigDecimal amount, BigDecimal floor) throws AccountException {
+        if (amount == null || floor == null)
+            throw AccountException.NullException();
+        if (amount.compareTo(minMoney) < 0)
+            throw AccountException.InvalidAccountMoneyException();
+        return tryDebitUnits(MoneyUnits.toUnits(amount), MoneyUnits.toUnits(floor));
+    }
+
+    /**
+     * метод, который атомарно списывает сумму в минимальных единицах, если после списания
+     * баланс не опустится ниже порога
+     * @param amount - сумма списания в копейках (не меньше нуля)
+     * @param floor - минимальный допустимый баланс после списания в копейках
+     * @return - true если деньги списаны, false если денег недостаточно
+     */
+    public boolean tryDebitUnits(long amount, long floor) {
+        accrue();
+        long current = (long) BALANCE.getVolatile(this);
+        while (true) {
+            long updated = current - amount;
+            if (updated < floor || updated > current)
+                return false;
+            long witness = (long) BALANCE.compareAndExchange(this, current, updated);
+            if (witness == current)
+                return true;
+            CAS_RETRIES.getAndAdd(this, 1L);
+            current = witness;
+        }
+    }
+
+    /**
+     * метод, который атомарно зачисляет сумму
+     * @param amount - сумма зачисления
+     * @throws AccountException - исключение бросается если сумма null или меньше нуля
+     */
+    public void credit(BigDecimal amount) throws AccountException {
+        if (amount == null)
+            throw AccountException.NullException();
+        if (amount.compareTo(minMoney) < 0)
+            throw AccountException.InvalidAccountMoneyException();
+        creditUnits(MoneyUnits.toUnits(amount));
+    }
+
+    /**
+     * метод, который атомарно зачисляет сумму в минимальных единицах
+     * @param amount - сумма зачисления в копейках (не меньше нуля)
+     * @throws AccountException - исключение бросается если баланс переполнится
+     */
+    public void creditUnits(long amount) throws AccountException {
+        accrue();
+        addUnits(amount);
+    }
+
+    /**
+     * метод, который начисляет проценты на баланс за дни с последнего начисления до текущего дня BankClock.
+     * поток, который начисляет, сначала захватывает период: через compare-and-set переводит день последнего
+     * начисления в состояние "идет начисление". пока период захвачен, остальные операции с балансом ждут
+     * в accrue, поэтому проценты считаются с баланса, прочитанного под захватом, и зачисление или списание,
+     * пришедшее в новый день, не получает проценты за дни до своего прихода. день сдвигается всегда, даже
+     * если набежало меньше копейки: дробная часть копится в остатке аккаунта и зачисляется, когда
+     * вместе с последующими начислениями наберется целая копейка
+     * @return - начисленная сумма в копейках
+     * @throws AccountException - исключение бросается если баланс переполнится
+     */
+    public long accrue() throws AccountException {
+        long today = BankClock.epochDay();
+        while (true) {
+            long last = (long) ACCRUED_DAY.getVolatile(this);
+            if (last == accruing) {
+                Thread.yield();
+                continue;
+            }
+            if (today <= last)
+                return 0;
+            if (ACCRUED_DAY.compareAndSet(this, last, accruing)) {
+                long settled = last;
+                try {
+                    long interest = accrueClaimed(last, today);
+                    settled = today;
+                    return interest;
+                } finally {
+                    ACCRUED_DAY.setVolatile(this, settled);
+                }
+            }
+        }
+    }
+
+    /**
+     * метод, который начисляет проценты до текущего дня и, не отпуская период, выполняет изменение
+     * аккаунта, от которого зависят проценты (замена баланса, смена ставки). поэтому проценты за дни
+     * до изменения считаются по старому состоянию, а после - по новому
+     * @param update - изменение
+     * @throws AccountException - исключение бросается если баланс переполнится при начислении
+     */
+    protected final void accrueAndUpdate(Runnable update) throws AccountException {
+        long today = BankClock.epochDay();
+        long last = claim();
+        long settled = last;
+        try {
+            if (today > last) {
+                accrueClaimed(last, today);
+                settled = today;
+            }
+            update.run();
+        } finally {
+            ACCRUED_DAY.setVolatile(this, settled);
+        }
+    }
+
+    /**
+     * метод, который захватывает период начисления, дождавшись окончания идущего начисления
+     * @return - день последнего начисления (захват снимает запись этого или другого дня в ACCRUED_DAY)
+     */
+    private long claim() {
+        while (true) {
+            long last = (long) ACCRUED_DAY.getVolatile(this);
+            if (last == accruing)
+                Thread.yield();
+            else if (ACCRUED_DAY.compareAndSet(this, last, accruing))
+                return last;
+        }
+    }
+
+    /**
+     * метод, который начисляет проценты за захваченный период (период освобождает вызывающий)
+     * @param last - день последнего начисления
+     * @param today - текущий день
+     * @return - начисленная сумма в копейках
+     */
+    private long accrueClaimed(long last, long today) {
+        try {
+            int days = (int) Math.min(today - last, Integer.MAX_VALUE);
+            BigDecimal exact = accruedInterest((long) BALANCE.getVolatile(this), days)
+                    .add(BigDecimal.valueOf(accruedCarry, carryScale));
+            long interest = 0;
+            if (exact.signum() > 0) {
+                interest = exact.setScale(0, RoundingMode.FLOOR).longValueExact();
+                if (interest > 0)
+                    addUnits(interest);
+                accruedCarry = exact.subtract(BigDecimal.valueOf(interest)).movePointRight(carryScale)
+                        .setScale(0, RoundingMode.FLOOR).longValueExact();
+            }
+            return interest;
+        } catch (ArithmeticException e) {
+            throw AccountException.InvalidAccountMoneyException();
+        }
+    }
+
+    /**
+     * метод, который возвращает день последнего начисления процентов
+     * @return - дата последнего начисления
+     */
+    public LocalDate getLastAccrued() {
+        return LocalDate.ofEpochDay(settledDay());
+    }
+
+    /**
+     * метод, который задает день последнего начисления процентов (для восстановления из снимка)
+     * @param date - дата последнего начисления
+     * @throws AccountException - исключение бросается если дата null
+     */
+    public void setLastAccrued(LocalDate date) throws AccountException {
+        if (date == null)
+            throw AccountException.NullException();
+        ACCRUED_DAY.setVolatile(this, date.toEpochDay());
+    }
+
+    /**
+     * метод, который возвращает дробный остаток начисления меньше копейки
+     * @return - остаток в единицах 10^-carryScale копейки
+     */
+    public long getAccruedCarry() {
+        settledDay();
+        return accruedCarry;
+    }
+
+    /**
+     * метод, который задает дробный остаток начисления (для восстановления из снимка)
+     * @param carry - остаток в единицах 10^-carryScale копейки
+     * @throws AccountException - исключение бросается если остаток отрицательный или не меньше копейки
+     */
+    public void setAccruedCarry(long carry) throws AccountException {
+        if (carry < 0 || carry >= BigDecimal.ONE.movePointRight(carryScale).longValue())
+            throw AccountException.InvalidAccountMoneyException();
+        long day = settledDay();
+        accruedCarry = carry;
+        ACCRUED_DAY.setVolatile(this, day);
+    }
+
+    /**
+     * метод, который ждет окончания идущего начисления и возвращает день последнего начисления
+     * @return - день последнего начисления (номер дня от эпохи)
+     */
+    private long settledDay() {
+        long day;
+        while ((day = (long) ACCRUED_DAY.getVolatile(this)) == accruing)
+            Thread.yield();
+        return day;
+    }
+
+    /**
+     * метод, который считает проценты на баланс за несколько дней без округления; аккаунт без процентов
+     * на остаток (кредитный) возвращает ноль
+     * @param balanceUnits - баланс в копейках
+     * @param days - число дней
+     * @return - проценты в копейках (с дробной частью)
+     */
+    protected BigDecimal accruedInterest(long balanceUnits, int days) {
+        return BigDecimal.ZERO;
+    }
+
+    /**
+     * метод, который считает проценты с ежедневной капитализацией на положительный баланс (см. InterestCalculator)
+     * @param balanceUnits - баланс в копейках
+     * @param yearPercent - ставка в процентах годовых
+     * @param days - число дней
+     * @return - проценты в копейках (с дробной частью)
+     */
+    protected BigDecimal compoundInterest(long balanceUnits, BigDecimal yearPercent, int days) {
+        if (balanceUnits <= 0)
+            return BigDecimal.ZERO;
+        BigDecimal growth = InterestCalculator.growthFactor(yearPercent, yearDays, days);
+        return BigDecimal.valueOf(balanceUnits).multiply(growth.subtract(BigDecimal.ONE), InterestCalculator.MATH_CONTEXT);
+    }
+
+    /**
+     * метод, который атомарно прибавляет сумму к балансу без начисления процентов
+     * @param amount - сумма в копейках
+     * @throws AccountException - исключение бросается если баланс переполнится
+     */
+    private void addUnits(long amount) throws AccountException {
+        long current = (long) BALANCE.getVolatile(this);
+        while (true) {
+            long updated = current + amount;
+            if (updated < current)
+                throw AccountException.InvalidAccountMoneyException();
+            long witness = (long) BALANCE.compareAndExchange(this, current, updated);
+            if (witness == current)
+                return;
+            CAS_RETRIES.getAndAdd(this, 1L);
+            current = witness;
+        }
     }
 
     /**
@@ -0,0 +1,88 @@
+package Banks.AccountTypes;
+
+import Banks.Tools.AccountException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * класс, который берет блокировки нескольких аккаунтов в глобальном порядке (по возрастанию id),
+ * чтобы операции над пересекающимися аккаунтами не могли взаимно заблокироваться
+ */
+public final class AccountLocks {
+    private static final Comparator<Account> lockOrder = Comparator.comparing(Account::getId);
+
+    private AccountLocks() { }
+
+    /**
+     * метод, который блокирует два аккаунта в глобальном порядке
+     * @param first - первый аккаунт
+     * @param second - второй аккаунт (может совпадать с первым)
+     * @throws AccountException - исключение бросается если аккаунт null
+     */
+    public static void lockPair(Account first, Account second) throws AccountException {
+        if (first == null || second == null)
+            throw AccountException.NullException();
+        if (first.getId().compareTo(second.getId()) > 0) {
+            Account swap = first;
+            first = second;
+            second = swap;
+        }
+        first.getLock().lock();
+        if (second != first)
+            second.getLock().lock();
+    }
+
+    /**
+     * метод, который снимает блокировки, взятые lockPair
+     * @param first - первый аккаунт
+     * @param second - второй аккаунт
+     */
+    public static void unlockPair(Account first, Account second) {
+        if (second != first)
+            second.getLock().unlock();
+        first.getLock().unlock();
+    }
+
+    /**
+     * метод, который блокирует все аккаунты из коллекции в глобальном порядке (каждый аккаунт один раз)
+     * @param accounts - аккаунты
+     * @return - заблокированные аккаунты в порядке блокировки, их нужно передать в unlockAll
+     * @throws AccountException - исключение бросается если коллекция или аккаунт в ней null
+     */
+    public static List<Account> lockAll(Collection<? extends Account> accounts) throws AccountException {
+        if (accounts == null)
+            throw AccountException.NullException();
+        ArrayList<Account> ordered = new ArrayList<Account>(accounts.size());
+        for (Account account : accounts) {
+            if (account == null)
+                throw AccountException.NullException();
+            ordered.add(account);
+        }
+        ordered.sort(lockOrder);
+        ArrayList<Account> locked = new ArrayList<Account>(ordered.size());
+        try {
+            for (Account account : ordered) {
+                if (!locked.isEmpty() && locked.get(locked.size() - 1) == account)
+                    continue;
+                account.getLock().lock();
+                locked.add(account);
+            }
+        } catch (RuntimeException e) {
+            unlockAll(locked);
+            throw e;
+        }
+        return locked;
+    }
+
+    /**
+     * метод, который снимает блокировки, взятые lockAll, в обратном порядке
+     * @param locked - аккаунты, которые вернул lockAll
+     */
+    public static void unlockAll(List<Account> locked) {
+        for (int i = locked.size() - 1; i >= 0; i--)
+            locked.get(i).getLock().unlock();
+    }
+}
@@ -2,8 +2,10 @@ package Banks.AccountTypes;
 
 import Banks.ClientSystem.Client;
 import Banks.Tools.AccountException;
+import Banks.Tools.Ids;
 
 import java.math.BigDecimal;
+import java.util.UUID;
 
 /**
  * класс кредитного аккаунта, реализующий методы абстрактного класса аккаунт
@@ -19,7 +21,19 @@ public class CreditAccount extends Account {
      * @throws AccountException - исключение, которое бросается если комиссия меньше минимума или null
      */
     public CreditAccount(BigDecimal money, Client client, BigDecimal commission) throws AccountException{
-        super(money, client);
+        this(Ids.next(), money, client, commission);
+    }
+
+    /**
+     * конструктор кредитного аккаунта с заданным id (для восстановления из снимка)
+     * @param id - id аккаунта
+     * @param money - сумма на аккаунте
+     * @param client - владелец
+     * @param commission - комиссия аккаунта
+     * @throws AccountException - исключение, которое бросается если комиссия меньше минимума или null
+     */
+    public CreditAccount(UUID id, BigDecimal money, Client client, BigDecimal commission) throws AccountException{
+        super(id, money, client);
         if (commission == null)
             throw AccountException.NullException();
         if (commission.compareTo(minMoney) < 0)
@@ -55,7 +69,7 @@ public class CreditAccount extends Account {
         if (money.compareTo(minMoney) < 0)
             throw AccountException.InvalidAccountMoneyException();
 
-        setAccountMoney(getAccountMoney().add(money));
+        credit(money);
     }
 
     /**
@@ -68,16 +82,12 @@ public class CreditAccount extends Account {
             throw AccountException.NullException();
         if (money.compareTo(minMoney) < 0)
             throw AccountException.InvalidAccountMoneyException();
-        if (money.compareTo(getAccountMoney()) > 0)
-            throw AccountException.InvalidWithdrawException();
         if (money.compareTo(getVerificationLimit()) > 0)
             throw AccountException.InvalidLimitException();
 
-        if (getAccountMoney().compareTo(minMoney) < 0) {
-            setAccountMoney(getAccountMoney().subtract(money.multiply(accountCommission)));
-        } else {
-            setAccountMoney(getAccountMoney().subtract(money));
-        }
+        BigDecimal debit = getBalanceUnits() < 0 ? money.multiply(accountCommission) : money;
+        if (!tryDebit(debit, minMoney))
+            throw AccountException.InvalidWithdrawException();
     }
 
     /**
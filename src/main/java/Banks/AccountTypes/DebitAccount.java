@@ -2,14 +2,16 @@ package Banks.AccountTypes;
 
 import Banks.ClientSystem.Client;
 import Banks.Tools.AccountException;
+import Banks.Tools.Ids;
 
 import java.math.BigDecimal;
+import java.util.UUID;
 
 /**
  * класс дебетового аккаунта, реализующий методы абстрактного класса аккаунт
  */
 public class DebitAccount extends Account {
-    private BigDecimal accountPercent;
+    private volatile BigDecimal accountPercent;
 
     /**
      * конструктор дебетового аккаунта
@@ -19,7 +21,19 @@ public class DebitAccount extends Account {
      * @throws AccountException - исключение, которое бросается в случае если процент меньше минимума или null
      */
     public DebitAccount(BigDecimal money, Client client, BigDecimal percent) throws AccountException{
-        super(money, client);
+        this(Ids.next(), money, client, percent);
+    }
+
+    /**
+     * конструктор дебетового аккаунта с заданным id (для восстановления из снимка)
+     * @param id - id аккаунта
+     * @param money - сумма на счету
+     * @param client - владелец
+     * @param percent - процентная ставка
+     * @throws AccountException - исключение, которое бросается в случае если процент меньше минимума или null
+     */
+    public DebitAccount(UUID id, BigDecimal money, Client client, BigDecimal percent) throws AccountException{
+        super(id, money, client);
         if (percent == null)
             throw AccountException.NullException();
         if (percent.compareTo(minPercent) < 0)
@@ -30,10 +44,11 @@ public class DebitAccount extends Account {
 
     /**
      * метод, который задет процент дебетового аккаунта
+     * (проценты за дни до смены сначала начисляются по старой ставке)
      * @param accountPercent - дебетовый процент
      */
     public void setAccountPercent(BigDecimal accountPercent) {
-        this.accountPercent = accountPercent;
+        accrueAndUpdate(() -> this.accountPercent = accountPercent);
     }
 
     /**
@@ -55,7 +70,7 @@ public class DebitAccount extends Account {
         if (money.compareTo(minMoney) < 0)
             throw AccountException.InvalidAccountMoneyException();
 
-        setAccountMoney(getAccountMoney().add(money));
+        credit(money);
     }
 
     /**
@@ -68,16 +83,15 @@ public class DebitAccount extends Account {
             throw AccountException.NullException();
         if (money.compareTo(minMoney) < 0)
             throw AccountException.InvalidAccountMoneyException();
-        if (money.compareTo(getAccountMoney()) > 0)
-            throw AccountException.InvalidAccountMoneyException();
         if (money.compareTo(getVerificationLimit()) > 0)
             throw AccountException.InvalidLimitException();
-
-        setAccountMoney(getAccountMoney().subtract(money));
+        if (!tryDebit(money, minMoney))
+            throw AccountException.InvalidAccountMoneyException();
     }
 
     /**
-     * метод, который реализует симуляцию до определенного дня
+     * метод, который реализует симуляцию до определенного дня: начисляет проценты
+     * с ежедневной капитализацией за O(log days) (см. InterestCalculator)
      * @param days - число дней, сколько нужно просимулировать
      * @return - возвращает сумму после симуляции времени
      */
@@ -86,12 +100,18 @@ public class DebitAccount extends Account {
         if (days < minDaysToCalculate)
             throw AccountException.InvalidDaysException();
 
-        BigDecimal yearPercent = accountPercent.divide(yearDays);
-        BigDecimal calcMoney = getCalculateMoney();
-        for (int i = 0; i<days; i++){
-            calcMoney = calcMoney.add(calcMoney.add(yearPercent));
-        }
-        setCalculateMoney(calcMoney);
+        setCalculateMoney(InterestCalculator.compound(getCalculateMoney(), accountPercent, yearDays, days));
         return getCalculateMoney();
     }
+
+    /**
+     * метод, который считает проценты на остаток для ленивого начисления (см. Account.accrue)
+     * @param balanceUnits - баланс в копейках
+     * @param days - число дней
+     * @return - проценты в копейках (с дробной частью)
+     */
+    @Override
+    protected BigDecimal accruedInterest(long balanceUnits, int days) {
+        return compoundInterest(balanceUnits, accountPercent, days);
+    }
 }
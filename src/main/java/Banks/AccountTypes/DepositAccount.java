@@ -2,15 +2,17 @@ package Banks.AccountTypes;
 
 import Banks.ClientSystem.Client;
 import Banks.Tools.AccountException;
+import Banks.Tools.Ids;
 
 import java.math.BigDecimal;
 import java.util.Date;
+import java.util.UUID;
 
 /**
  * класс депозитного аккаунта, реализующий методы абстрактного класса аккаунт
  */
 public class DepositAccount extends Account{
-    private BigDecimal accountPercent;
+    private volatile BigDecimal accountPercent;
     private boolean isDeposit;
     private Date accountDuration;
 
@@ -23,7 +25,20 @@ public class DepositAccount extends Account{
      * @throws AccountException - исключение, которое бросается если параметры null
      */
     public DepositAccount(BigDecimal money, Client client, BigDecimal percent, Date duration) throws AccountException{
-        super(money, client);
+        this(Ids.next(), money, client, percent, duration);
+    }
+
+    /**
+     * конструктор депозитного аккаунта с заданным id (для восстановления из снимка)
+     * @param id - id аккаунта
+     * @param money - сумма на счету
+     * @param client - владелец
+     * @param percent - процент счета
+     * @param duration - длительность
+     * @throws AccountException - исключение, которое бросается если параметры null
+     */
+    public DepositAccount(UUID id, BigDecimal money, Client client, BigDecimal percent, Date duration) throws AccountException{
+        super(id, money, client);
         if (percent == null)
             throw AccountException.NullException();
         if (percent.compareTo(minPercent) < 0)
@@ -52,10 +67,11 @@ public class DepositAccount extends Account{
 
     /**
      * метод, который задает депозитный процент
+     * (проценты за дни до смены сначала начисляются по старой ставке)
      * @param accountPercent - дебетовый процент аккаунта
      */
     public void setAccountPercent(BigDecimal accountPercent) {
-        this.accountPercent = accountPercent;
+        accrueAndUpdate(() -> this.accountPercent = accountPercent);
     }
 
     /**
@@ -91,7 +107,7 @@ public class DepositAccount extends Account{
         if (money.compareTo(minMoney) < 0)
             throw AccountException.InvalidAccountMoneyException();
 
-        setAccountMoney(getAccountMoney().add(money));
+        credit(money);
     }
 
     /**
@@ -105,7 +121,8 @@ public class DepositAccount extends Account{
     }
 
     /**
-     * метод, который реализует симуляцию до определенного дня
+     * метод, который реализует симуляцию до определенного дня: начисляет проценты
+     * с ежедневной капитализацией за O(log days) (см. InterestCalculator)
      * @param days - число дней, сколько нужно просимулировать
      * @return - возвращает сумму после симуляции времени
      */
@@ -114,12 +131,20 @@ public class DepositAccount extends Account{
         if (days < minDaysToCalculate)
             throw AccountException.InvalidDaysException();
 
-        BigDecimal calcMoney = getCalculateMoney();
-        BigDecimal yearPercent = accountPercent.divide(yearDays);
-        for (int i = 0; i<days; i++){
-            calcMoney = calcMoney.add(calcMoney.add(yearPercent));
-        }
-        setCalculateMoney(calcMoney);
+        setCalculateMoney(InterestCalculator.compound(getCalculateMoney(), accountPercent, yearDays, days));
         return getCalculateMoney();
     }
+
+    /**
+     * метод, который считает проценты на остаток для ленивого начисления (см. Account.accrue)
+     * @param balanceUnits - баланс в копейках
+     * @param days - число дней
+     * @return - проценты в копейках (с дробной частью)
+     */
+    @Override
+    protected BigDecimal accruedInterest(long balanceUnits, int days) {
+        if (!isDeposit)
+            return BigDecimal.ZERO;
+        return compoundInterest(balanceUnits, accountPercent, days);
+    }
 }
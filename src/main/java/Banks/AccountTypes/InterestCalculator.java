@@ -0,0 +1,97 @@
+package Banks.AccountTypes;
+
+import Banks.Tools.AccountException;
+import Banks.Tools.MoneyUnits;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * класс расчета процентов на остаток с ежедневной капитализацией.
+ * ставка задается в процентах годовых, дневная ставка - ставка / 100 / число дней в году.
+ * рост за n дней считается как (1 + дневная ставка)^n возведением в степень через квадраты
+ * за O(log n) умножений. все промежуточные вычисления идут в MathContext.DECIMAL128
+ * (34 значащие цифры, HALF_EVEN), итоговая сумма округляется до минимальной единицы
+ * (MoneyUnits.SCALE знаков, MoneyUnits.ROUNDING).
+ * погрешность: до округления результат отличается от ежедневного расчета (compoundDaily)
+ * не больше чем на 1e-28 относительных за 36500 дней, поэтому после округления суммы совпадают
+ * или отличаются на одну минимальную единицу (0.01), если точное значение лежит на границе округления
+ */
+public final class InterestCalculator {
+    /**
+     * точность промежуточных вычислений
+     */
+    public static final MathContext MATH_CONTEXT = MathContext.DECIMAL128;
+    /**
+     * допустимое расхождение с ежедневным расчетом после округления
+     */
+    public static final BigDecimal TOLERANCE = BigDecimal.ONE.movePointLeft(MoneyUnits.SCALE);
+    private static final BigDecimal hundred = BigDecimal.valueOf(100);
+
+    private InterestCalculator() { }
+
+    /**
+     * метод, который считает сумму после начисления процентов за несколько дней
+     * @param money - начальная сумма
+     * @param yearPercent - ставка в процентах годовых
+     * @param yearDays - число дней в году
+     * @param days - число дней
+     * @return - сумма после начисления, округленная до минимальной единицы
+     * @throws AccountException - исключение бросается если параметры null или дней меньше нуля
+     */
+    public static BigDecimal compound(BigDecimal money, BigDecimal yearPercent, BigDecimal yearDays, int days) throws AccountException {
+        BigDecimal growth = growthFactor(yearPercent, yearDays, days);
+        if (money == null)
+            throw AccountException.NullException();
+        return money.multiply(growth, MATH_CONTEXT).setScale(MoneyUnits.SCALE, MoneyUnits.ROUNDING);
+    }
+
+    /**
+     * метод, который считает множитель роста (1 + дневная ставка)^days
+     * @param yearPercent - ставка в процентах годовых
+     * @param yearDays - число дней в году
+     * @param days - число дней
+     * @return - множитель роста суммы
+     * @throws AccountException - исключение бросается если параметры null или дней меньше нуля
+     */
+    public static BigDecimal growthFactor(BigDecimal yearPercent, BigDecimal yearDays, int days) throws AccountException {
+        if (yearPercent == null || yearDays == null)
+            throw AccountException.NullException();
+        if (days < 0)
+            throw AccountException.InvalidDaysException();
+        BigDecimal base = BigDecimal.ONE.add(dailyRate(yearPercent, yearDays), MATH_CONTEXT);
+        BigDecimal result = BigDecimal.ONE;
+        for (int exponent = days; exponent > 0; exponent >>>= 1) {
+            if ((exponent & 1) == 1)
+                result = result.multiply(base, MATH_CONTEXT);
+            if (exponent > 1)
+                base = base.multiply(base, MATH_CONTEXT);
+        }
+        return result;
+    }
+
+    /**
+     * метод, который считает сумму после начисления процентов день за днем (эталонный расчет за O(days))
+     * @param money - начальная сумма
+     * @param yearPercent - ставка в процентах годовых
+     * @param yearDays - число дней в году
+     * @param days - число дней
+     * @return - сумма после начисления, округленная до минимальной единицы
+     * @throws AccountException - исключение бросается если параметры null или дней меньше нуля
+     */
+    public static BigDecimal compoundDaily(BigDecimal money, BigDecimal yearPercent, BigDecimal yearDays, int days) throws AccountException {
+        if (money == null || yearPercent == null || yearDays == null)
+            throw AccountException.NullException();
+        if (days < 0)
+            throw AccountException.InvalidDaysException();
+        BigDecimal rate = dailyRate(yearPercent, yearDays);
+        BigDecimal result = money;
+        for (int i = 0; i < days; i++)
+            result = result.add(result.multiply(rate, MATH_CONTEXT), MATH_CONTEXT);
+        return result.setScale(MoneyUnits.SCALE, MoneyUnits.ROUNDING);
+    }
+
+    private static BigDecimal dailyRate(BigDecimal yearPercent, BigDecimal yearDays) {
+        return yearPercent.divide(hundred.multiply(yearDays), MATH_CONTEXT);
+    }
+}
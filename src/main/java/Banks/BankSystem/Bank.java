@@ -1,29 +1,48 @@
 package Banks.BankSystem;
 
 import Banks.AccountTypes.Account;
+import Banks.AccountTypes.DepositAccount;
 import Banks.ClientSystem.Client;
+import Banks.Metrics.BankMetrics;
+import Banks.Metrics.MetricsOperation;
+import Banks.Metrics.OperationMetrics;
+import Banks.Observer.NotificationDispatcher;
 import Banks.Observer.Observable;
 import Banks.Observer.Observer;
+import Banks.Observer.SettingsEvent;
 import Banks.Tools.AccountException;
 import Banks.Tools.BankException;
 import Banks.Tools.ClientException;
+import Banks.Tools.Ids;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * класс банка, реализующий методы интерфейса Observable
  */
 public class Bank implements Observable {
+    private static final OperationMetrics addClientMetrics = BankMetrics.getInstance().operation(MetricsOperation.ADD_CLIENT);
+    private static final OperationMetrics addAccountMetrics = BankMetrics.getInstance().operation(MetricsOperation.ADD_ACCOUNT);
+    private static final OperationMetrics notifyMetrics = BankMetrics.getInstance().operation(MetricsOperation.NOTIFY);
     private final BigDecimal minMoney = BigDecimal.valueOf(0);
     private final ArrayList<Account> allAccounts;
     private final ArrayList<Client> allClients;
-    private final ArrayList<Observer> observers = new ArrayList<Observer>();
+    private final HashMap<String, Client> clientsByPassport;
+    private final HashMap<UUID, Client> clientsById;
+    private final HashMap<UUID, ArrayList<Account>> accountsByClient;
+    private final CopyOnWriteArrayList<Observer> observers = new CopyOnWriteArrayList<Observer>();
+    private volatile NotificationDispatcher dispatcher;
     private String name;
-    private BankSettings settings;
+    private final AtomicReference<BankSettings> settings;
     private UUID id;
 
     /**
@@ -38,10 +57,13 @@ public class Bank implements Observable {
         if (settings == null)
             throw BankException.InvalidSettingsException();
         this.name = name;
-        this.settings = settings;
-        this.id = UUID.randomUUID();
+        this.settings = new AtomicReference<BankSettings>(settings);
+        this.id = Ids.next();
         this.allAccounts = new ArrayList<Account>();
         this.allClients = new ArrayList<Client>();
+        this.clientsByPassport = new HashMap<String, Client>();
+        this.clientsById = new HashMap<UUID, Client>();
+        this.accountsByClient = new HashMap<UUID, ArrayList<Account>>();
     }
     /**
      * метод, который задает название банка
@@ -51,11 +73,14 @@ public class Bank implements Observable {
         this.name = name;
     }
     /**
-     * метод, который задает параметры банка
+     * метод, который публикует новые параметры банка
      * @param settings - параметры банка
+     * @throws BankException - исключение бросается если параметры null
      */
-    public void setSettings(BankSettings settings) {
-        this.settings = settings;
+    public void setSettings(BankSettings settings) throws BankException{
+        if (settings == null)
+            throw BankException.InvalidSettingsException();
+        this.settings.set(settings);
     }
     /**
      * метод, который задает id банка
@@ -80,6 +105,27 @@ public class Bank implements Observable {
     public List<Client> getClients(){
         return Collections.unmodifiableList(allClients);
     }
+    /**
+     * метод возвращает лист наблюдателей банка
+     * @return - лист наблюдателей
+     */
+    public List<Observer> getObservers(){
+        return Collections.unmodifiableList(observers);
+    }
+    /**
+     * метод, который задает асинхронную рассылку уведомлений банка
+     * @param dispatcher - рассылка или null, чтобы уведомлять наблюдателей синхронно
+     */
+    public void setNotificationDispatcher(NotificationDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+    /**
+     * метод возвращает рассылку уведомлений банка
+     * @return - рассылка или null, если наблюдатели уведомляются синхронно
+     */
+    public NotificationDispatcher getNotificationDispatcher() {
+        return dispatcher;
+    }
     /**
      * метод возвращает id банка
      * @return - id банка
@@ -88,11 +134,11 @@ public class Bank implements Observable {
         return id;
     }
     /**
-     * метод возвращает настройки банка
+     * метод возвращает текущий снимок настроек банка (чтение без блокировок)
      * @return - настройки банка
      */
     public BankSettings getSettings() {
-        return settings;
+        return settings.get();
     }
 
     /**
@@ -105,6 +151,7 @@ public class Bank implements Observable {
 
     /**
      * метод, который проверяет наличие клиента в банке
+     * (по id клиента и, если паспорт задан, по паспорту - за O(1) через индексы)
      * @param client - клиент, которого необходимо найти
      * @return - возвращает true если клиент найдет, иначе false
      * @throws ClientException - исключение бросается если клиент null
@@ -112,7 +159,9 @@ public class Bank implements Observable {
     public boolean checkClientExist(Client client) throws ClientException{
         if (client == null)
             throw ClientException.NullException();
-        return allClients.stream().anyMatch(c -> c.getPassport() == client.getPassport());
+        if (clientsById.containsKey(client.getId()))
+            return true;
+        return client.getPassport() != null && clientsByPassport.containsKey(client.getPassport());
     }
 
     /**
@@ -122,23 +171,78 @@ public class Bank implements Observable {
      * @throws ClientException - исключение бросается если не найден клиент
      */
     public Client findClientByPassport(String passport) throws ClientException {
-        return allClients.stream()
-                .filter(c -> c.getPassport() == passport)
-                .findFirst()
-                .orElseThrow(ClientException::InvalidFindClient);
+        if (passport == null)
+            throw ClientException.NullException();
+        Client client = clientsByPassport.get(passport);
+        if (client == null)
+            throw ClientException.InvalidFindClient();
+        return client;
+    }
+
+    /**
+     * метод, который находит клиента в банке по id
+     * @param id - id клиента
+     * @return - возвращает клиента если он найден иначе бросается исключение
+     * @throws ClientException - исключение бросается если id null или не найден клиент
+     */
+    public Client findClientById(UUID id) throws ClientException {
+        if (id == null)
+            throw ClientException.NullException();
+        Client client = clientsById.get(id);
+        if (client == null)
+            throw ClientException.InvalidFindClient();
+        return client;
     }
 
     /**
      * метод возвращает аккаунт, который есть у клиента в банке
      * @param client - клиент, чей аккаунт нужно найти
-     * @return - возвращает аккаунт клиента в банке
+     * @return - возвращает первый открытый аккаунт клиента в банке
      * @throws AccountException - исключение бросается в случае, если не найден аккаунт у клиента в банке
      */
     public Account findAccountOwner(Client client) throws AccountException {
-        return allAccounts.stream()
-                .filter(c -> c.getAccountClient().getPassport() == client.getPassport())
-                .findFirst()
-                .orElseThrow(AccountException::InvalidAccountFindException);
+        if (client == null)
+            throw AccountException.NullException();
+        ArrayList<Account> accounts = accountsByClient.get(client.getId());
+        if (accounts == null)
+            throw AccountException.InvalidAccountFindException();
+        return accounts.get(0);
+    }
+
+    /**
+     * метод возвращает все аккаунты клиента в банке в порядке их открытия
+     * @param client - клиент, чьи аккаунты нужно найти
+     * @return - лист аккаунтов клиента (пустой, если аккаунтов нет)
+     * @throws AccountException - исключение бросается если клиент null
+     */
+    public List<Account> findClientAccounts(Client client) throws AccountException {
+        if (client == null)
+            throw AccountException.NullException();
+        ArrayList<Account> accounts = accountsByClient.get(client.getId());
+        if (accounts == null)
+            return Collections.emptyList();
+        return Collections.unmodifiableList(accounts);
+    }
+
+    /**
+     * метод возвращает аккаунты клиента в банке заданного типа
+     * @param client - клиент, чьи аккаунты нужно найти
+     * @param type - тип аккаунта (например DebitAccount.class)
+     * @return - лист аккаунтов клиента заданного типа (пустой, если аккаунтов нет)
+     * @throws AccountException - исключение бросается если клиент или тип null
+     */
+    public <T extends Account> List<T> findClientAccounts(Client client, Class<T> type) throws AccountException {
+        if (client == null || type == null)
+            throw AccountException.NullException();
+        ArrayList<Account> accounts = accountsByClient.get(client.getId());
+        if (accounts == null)
+            return Collections.emptyList();
+        ArrayList<T> result = new ArrayList<T>();
+        for (Account account : accounts) {
+            if (type.isInstance(account))
+                result.add(type.cast(account));
+        }
+        return result;
     }
 
     /**
@@ -148,13 +252,50 @@ public class Bank implements Observable {
      * @throws BankException - исключение бросается если клиент null или если уже существует такой клиент в банке
      */
     public Client addClient(Client client) throws BankException{
+        long start = System.nanoTime();
+        try {
+            if (client == null)
+                throw BankException.NullException();
+            if (checkClientExist(client))
+                throw BankException.InvalidClientExistenceException();
+            allClients.add(client);
+            clientsById.put(client.getId(), client);
+            if (client.getPassport() != null)
+                clientsByPassport.put(client.getPassport(), client);
+            return client;
+        } catch (RuntimeException e) {
+            addClientMetrics.failed(e);
+            throw e;
+        } finally {
+            addClientMetrics.record(start);
+        }
+    }
+    /**
+     * метод, который меняет паспорт клиента банка и переносит клиента в индексе паспортов на новый паспорт
+     * (паспорт клиента, уже добавленного в банк, нужно менять через этот метод, иначе индекс устареет)
+     * @param client - клиент банка
+     * @param passport - новый паспорт клиента
+     * @return - возвращаемое значение - клиент с новым паспортом
+     * @throws BankException - исключение бросается если клиент null или паспорт уже занят другим клиентом банка
+     * @throws ClientException - исключение бросается если клиента нет в банке
+     */
+    public Client updatePassport(Client client, String passport) throws BankException, ClientException {
         if (client == null)
             throw BankException.NullException();
-        if (checkClientExist(client))
+        if (clientsById.get(client.getId()) != client)
+            throw ClientException.InvalidFindClient();
+        Client owner = passport == null ? null : clientsByPassport.get(passport);
+        if (owner != null && owner != client)
             throw BankException.InvalidClientExistenceException();
-        allClients.add(client);
+        String previous = client.getPassport();
+        if (previous != null)
+            clientsByPassport.remove(previous, client);
+        client.setPassport(passport);
+        if (passport != null)
+            clientsByPassport.put(passport, client);
         return client;
     }
+
     /**
      * метод, который добавляет аккаунт в банк
      * @param account - аккаунт, который необходимо добавить
@@ -162,38 +303,73 @@ public class Bank implements Observable {
      * @throws BankException - исключение бросается если аккаунт null
      */
     public Account addAccount(Account account) throws AccountException{
-        if (account == null)
-            throw AccountException.NullException();
-        if (!account.getIsVerified())
-            account.setVerificationLimit(settings.getNotVerifiedLimit());
-        allAccounts.add(account);
-        return account;
+        long start = System.nanoTime();
+        try {
+            if (account == null)
+                throw AccountException.NullException();
+            BankSettings current = settings.get();
+            if (!account.getIsVerified())
+                account.setVerificationLimit(current.getNotVerifiedLimit());
+            account.setSettingsVersion(current.getVersion());
+            allAccounts.add(account);
+            accountsByClient.computeIfAbsent(account.getAccountClient().getId(), id -> new ArrayList<Account>()).add(account);
+            return account;
+        } catch (RuntimeException e) {
+            addAccountMetrics.failed(e);
+            throw e;
+        } finally {
+            addAccountMetrics.record(start);
+        }
     }
 
     /**
-     * метод, который выбирает депозитный процент банка для аккаунта
-     * @param money - депозитный процент
+     * метод, который выбирает депозитный процент банка для аккаунта по таблице ставок (двоичный поиск ступени)
+     * @param money - сумма на депозите
      * @return возвращаемое значение - депозитный процент, который назначен аккаунту
-     * @throws AccountException - исключение бросается если процент null или меньше минимума
-     * @throws BankException - исключение бросается если депозитный процент слишком большой
+     * @throws AccountException - исключение бросается если сумма null или меньше минимума
      */
     public BigDecimal chooseDepositPercentToAccount(BigDecimal money) throws AccountException, BankException{
         if (money == null)
             throw AccountException.NullException();
         if (money.compareTo(minMoney) < 0)
             throw AccountException.NullException();
-        List<BigDecimal> depPercents = settings.getDepositPercentages();
-        if (money.compareTo(depPercents.get(0)) < 0)
-            return depPercents.get(0);
-        if (money.compareTo(depPercents.get(1)) < 0)
-            return depPercents.get(1);
-        if (money.compareTo(depPercents.get(2)) < 0)
-            return depPercents.get(2);
-        throw BankException.InvalidDepositPercentException();
+        return settings.get().getDepositRates().rateFor(money);
+    }
+
+    /**
+     * метод, который параллельно пересчитывает ставки всех депозитных аккаунтов банка по текущей таблице
+     * (каждый аккаунт - под своей блокировкой, аккаунт запоминает версию примененных настроек)
+     * @param pool - пул потоков
+     * @return - количество аккаунтов, у которых изменилась ставка
+     * @throws BankException - исключение бросается если пул null
+     */
+    public int retierDepositAccounts(ForkJoinPool pool) throws BankException{
+        if (pool == null)
+            throw BankException.NullException();
+        BankSettings current = settings.get();
+        DepositRateTable rates = current.getDepositRates();
+        LongAdder changed = new LongAdder();
+        List<Account> accounts = getAccounts();
+        pool.invoke(new ParallelAccountTask(accounts, 0, accounts.size(), account -> {
+            if (!(account instanceof DepositAccount deposit))
+                return;
+            deposit.getLock().lock();
+            try {
+                BigDecimal rate = rates.rateForUnits(deposit.getBalanceUnits());
+                if (rate.compareTo(deposit.getAccountPercent()) != 0) {
+                    deposit.setAccountPercent(rate);
+                    changed.increment();
+                }
+                deposit.setSettingsVersion(current.getVersion());
+            } finally {
+                deposit.getLock().unlock();
+            }
+        }));
+        return changed.intValue();
     }
 
     /**
-     * метод, который изменяет дебетовый процент банка
+     * метод, который изменяет дебетовый процент банка (публикует следующую версию настроек)
      * @param percent - дебетовый процент, на который нужно поменять значение
      * @return - возвращает измененные настройки банка
      * @throws BankException - исключение, которое бросается если процент null
@@ -201,28 +377,39 @@ public class Bank implements Observable {
     public BankSettings changeDebitPercent(BigDecimal percent) throws BankException{
         if (percent == null)
             throw BankException.NullException();
-        settings.changeDebitPercent(percent);
-        notify("debit percent", percent);
-        return settings;
+        BankSettings updated = settings.updateAndGet(current -> current.withDebitPercent(percent));
+        notify(new SettingsEvent(id, "debit percent", percent, updated.getVersion()));
+        return updated;
     }
 
     /**
-     * метод, который меняет депозитные проценты банка
+     * метод, который меняет депозитные проценты банка (публикует следующую версию настроек)
      * @param newDeposit - депозитные проценты, на которые нужно поменять текущие
      * @return - возвращает измененные настройки банка
-     * @throws BankException - исключение бросается если проценты null
+     * @throws BankException - исключение бросается если проценты null, меньше минимума или не возрастают
      */
-    public BankSettings changeDepositSettings(ArrayList<BigDecimal> newDeposit) throws BankException{
+    public BankSettings changeDepositSettings(List<BigDecimal> newDeposit) throws BankException{
         if (newDeposit == null)
             throw BankException.NullException();
-        settings.changeDepositPercentages(newDeposit);
-        for (BigDecimal percent: newDeposit){
-            notify("deposit percent", percent);
-        }
-        return settings;
+        return changeDepositRates(DepositRateTable.fromPercentages(newDeposit));
     }
+
     /**
-     * метод, который меняет кредитную комиссию банка
+     * метод, который меняет таблицу депозитных ставок банка (публикует следующую версию настроек).
+     * ставки уже открытых депозитов пересчитывает retierDepositAccounts
+     * @param rates - новая таблица ставок
+     * @return - возвращает измененные настройки банка
+     * @throws BankException - исключение бросается если таблица null
+     */
+    public BankSettings changeDepositRates(DepositRateTable rates) throws BankException{
+        if (rates == null)
+            throw BankException.NullException();
+        BankSettings updated = settings.updateAndGet(current -> current.withDepositRates(rates));
+        notify(new SettingsEvent(id, "deposit percent", rates.getRates(), updated.getVersion()));
+        return updated;
+    }
+    /**
+     * метод, который меняет кредитную комиссию банка (публикует следующую версию настроек)
      * @param newCommission - новая комиссия, на которую нужно поменять текущую
      * @return - возвращает измененные настройки банка
      * @throws BankException - исключение бросается если комиссия null
@@ -230,9 +417,9 @@ public class Bank implements Observable {
     public BankSettings changeCreditSettings(BigDecimal newCommission) throws BankException{
         if (newCommission == null)
             throw BankException.NullException();
-        settings.changeCreditCommission(newCommission);
-        notify("credit commission", newCommission);
-        return settings;
+        BankSettings updated = settings.updateAndGet(current -> current.withCreditCommission(newCommission));
+        notify(new SettingsEvent(id, "credit commission", newCommission, updated.getVersion()));
+        return updated;
     }
 
     /**
@@ -257,11 +444,39 @@ public class Bank implements Observable {
     }
 
     /**
-     * метод, который уведомляет наблюдателей об изменениях в банке
-     * @param message - сообщение, которое получат все наблюдатели
-     * @param newLimit - изменения в банке, которые произошли
+     * метод, который уведомляет наблюдателей об изменениях в банке. на изменение создается одно
+     * событие, которое все наблюдатели получают по ссылке.
+     * если задана рассылка, событие только ставится в ее очередь (ключ - банк и название настройки),
+     * иначе все наблюдатели уведомляются в вызывающем потоке
+     * @param message - название настройки
+     * @param newLimit - новое значение настройки
      */
     public void notify(String message, BigDecimal newLimit){
-        observers.forEach(observer -> observer.update("Banks setting: " + message + " - updated to " + newLimit));
+        notify(new SettingsEvent(id, message, newLimit, settings.get().getVersion()));
+    }
+
+    /**
+     * метод, который рассылает наблюдателям готовое событие: через рассылку, если она задана,
+     * иначе в вызывающем потоке. изменение таблицы депозитных ставок уходит одним таким событием
+     * со всей таблицей и версией настроек
+     * @param event - событие
+     * @throws BankException - исключение бросается если событие null
+     */
+    public void notify(SettingsEvent event) throws BankException{
+        long start = System.nanoTime();
+        try {
+            if (event == null)
+                throw BankException.NullException();
+            NotificationDispatcher current = dispatcher;
+            if (current != null)
+                current.submit(event, observers);
+            else
+                observers.forEach(observer -> observer.update(event));
+        } catch (RuntimeException e) {
+            notifyMetrics.failed(e);
+            throw e;
+        } finally {
+            notifyMetrics.record(start);
+        }
     }
 }
@@ -0,0 +1,67 @@
+package Banks.BankSystem;
+
+import Banks.Tools.BankException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * реестр банков центрального банка с индексами по названию и по id.
+ * чтение (поиск и список банков) идет без блокировок, регистрация сериализуется
+ * и атомарно отклоняет банк с уже занятым названием или id
+ */
+final class BankRegistry {
+    private final ConcurrentHashMap<String, Bank> banksByName = new ConcurrentHashMap<String, Bank>();
+    private final ConcurrentHashMap<UUID, Bank> banksById = new ConcurrentHashMap<UUID, Bank>();
+    private volatile List<Bank> snapshot = Collections.emptyList();
+
+    /**
+     * метод, который регистрирует банк
+     * @param bank - банк
+     * @return - зарегистрированный банк
+     * @throws BankException - исключение бросается если банк null или банк с таким названием или id уже есть
+     */
+    synchronized Bank register(Bank bank) throws BankException {
+        if (bank == null)
+            throw BankException.NullException();
+        if (banksById.containsKey(bank.getId()))
+            throw BankException.InvalidBankExistenceException();
+        if (banksByName.putIfAbsent(bank.getName(), bank) != null)
+            throw BankException.InvalidBankExistenceException();
+        banksById.put(bank.getId(), bank);
+        ArrayList<Bank> banks = new ArrayList<Bank>(snapshot.size() + 1);
+        banks.addAll(snapshot);
+        banks.add(bank);
+        snapshot = Collections.unmodifiableList(banks);
+        return bank;
+    }
+
+    /**
+     * метод, который ищет банк по названию
+     * @param name - название банка
+     * @return - банк или null, если банк не найден
+     */
+    Bank findByName(String name) {
+        return banksByName.get(name);
+    }
+
+    /**
+     * метод, который ищет банк по id
+     * @param id - id банка
+     * @return - банк или null, если банк не найден
+     */
+    Bank findById(UUID id) {
+        return banksById.get(id);
+    }
+
+    /**
+     * метод, который возвращает неизменяемый снимок списка банков в порядке регистрации
+     * @return - банки на момент вызова
+     */
+    List<Bank> getBanks() {
+        return snapshot;
+    }
+}
@@ -3,99 +3,98 @@ package Banks.BankSystem;
 import Banks.Tools.BankException;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 /**
- * класс настроек банка
+ * класс настроек банка: неизменяемый снимок с номером версии.
+ * изменение настройки создает новый снимок со следующей версией (методы with...),
+ * банк публикует его через атомарную ссылку, поэтому читатели видят либо старый, либо новый снимок целиком
  */
-public class BankSettings {
-    private final BigDecimal minPercent = BigDecimal.valueOf(0);
-    private final BigDecimal minMoneyLimit = BigDecimal.valueOf(0);
-    private ArrayList<BigDecimal> depositPercentages;
-    private BigDecimal debitPercent;
-    private BigDecimal creditLimit;
-    private BigDecimal creditCommission;
-    private BigDecimal notVerifiedLimit;
+public final class BankSettings {
+    /**
+     * версия настроек, которые создаются конструктором без версии
+     */
+    public static final long initialVersion = 1;
+    private static final BigDecimal minPercent = BigDecimal.valueOf(0);
+    private static final BigDecimal minMoneyLimit = BigDecimal.valueOf(0);
+    private final long version;
+    private final DepositRateTable depositRates;
+    private final BigDecimal debitPercent;
+    private final BigDecimal creditLimit;
+    private final BigDecimal creditCommission;
+    private final BigDecimal notVerifiedLimit;
 
     /**
      * конструктор настроек банка
      * @param debitPercent - дебетовый процент
-     * @param depositPercentages - депозитные проценты
+     * @param depositPercentages - депозитные проценты строго по возрастанию (см. DepositRateTable.fromPercentages)
+     * @param creditLimit - кредитный лимит
+     * @param creditCommission - кредитная комиссия
+     * @param notVerifiedLimit - лимит для не верифицированных аккаунтов
+     * @throws BankException - исключение, которое бросается если какой то из параметров null или меньше минимума
+     */
+    public BankSettings(
+            BigDecimal debitPercent,
+            List<BigDecimal> depositPercentages,
+            BigDecimal creditLimit,
+            BigDecimal creditCommission,
+            BigDecimal notVerifiedLimit) throws BankException{
+        this(initialVersion, debitPercent, DepositRateTable.fromPercentages(depositPercentages), creditLimit, creditCommission, notVerifiedLimit);
+    }
+
+    /**
+     * конструктор настроек банка с заданной версией (для восстановления из снимка)
+     * @param version - версия настроек
+     * @param debitPercent - дебетовый процент
+     * @param depositRates - таблица депозитных ставок
      * @param creditLimit - кредитный лимит
      * @param creditCommission - кредитная комиссия
      * @param notVerifiedLimit - лимит для не верифицированных аккаунтов
-     * @throws BankException - исключение, которое бросается если какой то из параметров null
+     * @throws BankException - исключение, которое бросается если какой то из параметров null или меньше минимума
      */
     public BankSettings(
+            long version,
             BigDecimal debitPercent,
-            ArrayList<BigDecimal> depositPercentages,
+            DepositRateTable depositRates,
             BigDecimal creditLimit,
             BigDecimal creditCommission,
             BigDecimal notVerifiedLimit) throws BankException{
         if (debitPercent == null ||
-        depositPercentages == null ||
+        depositRates == null ||
         creditLimit == null ||
+        creditCommission == null ||
         notVerifiedLimit == null)
             throw BankException.NullException();
-        if (checkSettingsOnLimits(debitPercent, depositPercentages, creditLimit, creditCommission, notVerifiedLimit))
-        {
+        if (checkSettingsOnLimits(debitPercent, creditLimit, creditCommission, notVerifiedLimit))
             throw BankException.InvalidPercentException();
-        }
-        if (depositPercentages.get(0).compareTo(depositPercentages.get(1)) >= 0 ||
-        depositPercentages.get(1).compareTo(depositPercentages.get(2)) >= 0){
-            throw BankException.InvalidDepositPercentException();
-        }
+        this.version = version;
         this.debitPercent = debitPercent;
-        this.creditCommission = creditCommission;
+        this.depositRates = depositRates;
         this.creditLimit = creditLimit;
-        this.depositPercentages = new ArrayList<BigDecimal>();
+        this.creditCommission = creditCommission;
         this.notVerifiedLimit = notVerifiedLimit;
     }
-    /**
-     * метод, который задает депозитные проценты
-     * @param depositPercentages - депозитные проценты
-     */
-    public void setDepositPercentages(ArrayList<BigDecimal> depositPercentages) {
-        this.depositPercentages = depositPercentages;
-    }
-    /**
-     * метод, который задает дебетовый процент
-     * @param debitPercent - дебетовый процент
-     */
-    public void setDebitPercent(BigDecimal debitPercent) {
-        this.debitPercent = debitPercent;
-    }
-    /**
-     * метод, который задает кредитный лимит
-     * @param creditLimit - кредитный лимит
-     */
-    public void setCreditLimit(BigDecimal creditLimit) {
-        this.creditLimit = creditLimit;
-    }
 
     /**
-     * метод, который задает кредитную комиссию аккаунта
-     * @param creditCommission - кредитная комиссия
+     * метод, который получает версию настроек
+     * @return - возвращает версию настроек
      */
-    public void setCreditCommission(BigDecimal creditCommission) {
-        this.creditCommission = creditCommission;
+    public long getVersion() {
+        return version;
     }
     /**
-     * метод, который задает лимит для не верифицированных аккаунтов
-     * @param notVerifiedLimit - лимит аккаунта
+     * метод, который получает таблицу депозитных ставок
+     * @return - возвращает таблицу депозитных ставок
      */
-    public void setNotVerifiedLimit(BigDecimal notVerifiedLimit) {
-        this.notVerifiedLimit = notVerifiedLimit;
+    public DepositRateTable getDepositRates() {
+        return depositRates;
     }
-
     /**
      * метод, который получает депозитный процент
-     * @return - возвращает депозитный процент
+     * @return - возвращает неизменяемый список ставок ступеней по возрастанию порога
      */
     public List<BigDecimal> getDepositPercentages() {
-        return Collections.unmodifiableList(depositPercentages);
+        return depositRates.getRates();
     }
     /**
      * метод, который получает не верифицированный лимит
@@ -127,66 +126,70 @@ public class BankSettings {
     }
 
     /**
-     * метод, который изменяет значение дебетового процента
+     * метод, который создает следующую версию настроек с новым дебетовым процентом
      * @param percent - дебетовый процент
-     * @return - возвращает новый дебетовый процент
+     * @return - возвращает новые настройки
      * @throws BankException - исключение бросается, если процент null или меньше минимума
      */
-    public BigDecimal changeDebitPercent(BigDecimal percent) throws BankException{
+    public BankSettings withDebitPercent(BigDecimal percent) throws BankException{
         if (percent == null)
             throw BankException.NullException();
-        if (percent.compareTo(minMoneyLimit) < 0)
+        if (percent.compareTo(minPercent) < 0)
             throw BankException.InvalidPercentException();
-        debitPercent = percent;
-        return percent;
+        return new BankSettings(version + 1, percent, depositRates, creditLimit, creditCommission, notVerifiedLimit);
     }
 
     /**
-     * метод, который проверяет все настройки банка, что они меньше минимума
-     * @param debitPercent - дебетовый процент
-     * @param depositPercentages - депозитные проценты
-     * @param creditLimit - кредитный лимит
-     * @param creditCommission - кредитная комиссия
-     * @param notVerifiedLimit - не верифицированный лимит
-     * @return - возвращает true если все значение больше минимума, иначе false
+     * метод, который создает следующую версию настроек с новыми депозитными процентами
+     * @param percentages - депозитные проценты строго по возрастанию (см. DepositRateTable.fromPercentages)
+     * @return - возвращает новые настройки
+     * @throws BankException - исключение бросается, если проценты null, пусты, меньше минимума или не возрастают
      */
-    private boolean checkSettingsOnLimits(BigDecimal debitPercent,
-                                          ArrayList<BigDecimal> depositPercentages,
-                                          BigDecimal creditLimit,
-                                          BigDecimal creditCommission,
-                                          BigDecimal notVerifiedLimit){
-        return debitPercent.compareTo(minPercent) < 0 ||
-                depositPercentages.stream().anyMatch(c -> c.compareTo(minPercent) < 0) ||
-                creditLimit.compareTo(minMoneyLimit) < 0 ||
-                creditCommission.compareTo(minMoneyLimit) < 0 ||
-                notVerifiedLimit.compareTo(minMoneyLimit) < 0;
+    public BankSettings withDepositPercentages(List<BigDecimal> percentages) throws BankException{
+        return withDepositRates(DepositRateTable.fromPercentages(percentages));
     }
+
     /**
-     * метод, который изменяет значение депозитных процентов
-     * @param depositPercentages - депозитные проценты
-     * @return - возвращает новый дебетовый процент
-     * @throws BankException - исключение бросается, если проценты null или меньше минимума
+     * метод, который создает следующую версию настроек с новой таблицей депозитных ставок
+     * @param rates - таблица депозитных ставок
+     * @return - возвращает новые настройки
+     * @throws BankException - исключение бросается, если таблица null
      */
-    public ArrayList<BigDecimal> changeDepositPercentages(ArrayList<BigDecimal> depositPercentages) throws BankException{
-        if (depositPercentages == null)
+    public BankSettings withDepositRates(DepositRateTable rates) throws BankException{
+        if (rates == null)
             throw BankException.NullException();
-        if (depositPercentages.stream().anyMatch(c -> c.compareTo(minPercent) < 0))
-            throw BankException.InvalidDepositPercentException();
-        this.depositPercentages = depositPercentages;
-        return depositPercentages;
+        return new BankSettings(version + 1, debitPercent, rates, creditLimit, creditCommission, notVerifiedLimit);
     }
+
     /**
-     * метод, который изменяет значение кредитного лимита
-     * @param money - кредитный лимит
-     * @return - возвращает новый кредитный лимит
-     * @throws BankException - исключение бросается, если лимит null или меньше минимума
+     * метод, который создает следующую версию настроек с новой кредитной комиссией
+     * @param money - кредитная комиссия
+     * @return - возвращает новые настройки
+     * @throws BankException - исключение бросается, если комиссия null или меньше минимума
      */
-    public BigDecimal changeCreditCommission(BigDecimal money) throws BankException{
+    public BankSettings withCreditCommission(BigDecimal money) throws BankException{
         if (money == null)
             throw BankException.NullException();
         if (money.compareTo(minMoneyLimit) < 0)
             throw BankException.InvalidPercentException();
-        creditCommission = money;
-        return money;
+        return new BankSettings(version + 1, debitPercent, depositRates, creditLimit, money, notVerifiedLimit);
+    }
+
+    /**
+     * метод, который проверяет все настройки банка, что они меньше минимума
+     * @param debitPercent - дебетовый процент
+     * @param creditLimit - кредитный лимит
+     * @param creditCommission - кредитная комиссия
+     * @param notVerifiedLimit - не верифицированный лимит
+     * @return - возвращает true если хотя бы одно значение меньше минимума, иначе false
+     */
+    private static boolean checkSettingsOnLimits(BigDecimal debitPercent,
+                                                 BigDecimal creditLimit,
+                                                 BigDecimal creditCommission,
+                                                 BigDecimal notVerifiedLimit){
+        return debitPercent.compareTo(minPercent) < 0 ||
+                creditLimit.compareTo(minMoneyLimit) < 0 ||
+                creditCommission.compareTo(minMoneyLimit) < 0 ||
+                notVerifiedLimit.compareTo(minMoneyLimit) < 0;
     }
 }
@@ -1,19 +1,44 @@
 package Banks.BankSystem;
 
 import Banks.AccountTypes.Account;
+import Banks.AccountTypes.AccountLocks;
+import Banks.Metrics.BankMetrics;
+import Banks.Metrics.MetricsOperation;
+import Banks.Metrics.OperationMetrics;
+import Banks.Persistence.JournalRecord;
+import Banks.Persistence.TransactionJournal;
 import Banks.Tools.AccountException;
+import Banks.Tools.BankClock;
 import Banks.Tools.BankException;
+import Banks.Tools.Ids;
 import Banks.Tools.TransactionException;
+import Banks.Transactions.AccountHistoryIndex;
+import Banks.Transactions.AccountHistoryPage;
+import Banks.Transactions.CancellationResult;
 import Banks.Transactions.Transaction;
+import Banks.Transactions.TransactionIndex;
+import Banks.Transactions.TransactionLog;
+import Banks.Transactions.TransactionTimeStore;
+import Banks.Transactions.TransferRequest;
+import Banks.Transactions.TransferResult;
 import Banks.Transactions.TransferTransaction;
 
 import javax.sound.midi.Track;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * класс центрального банка
@@ -22,8 +47,18 @@ public class CentralBank {
     private final int minDays = 0;
     private final BigDecimal minMoney = BigDecimal.valueOf(0);
     private static CentralBank instance;
-    private static final ArrayList<Bank> banks = new ArrayList<Bank>();
-    private static final ArrayList<Transaction> transactions = new ArrayList<Transaction>();
+    private static final BankRegistry banks = new BankRegistry();
+    private static final TransactionLog transactions = new TransactionLog();
+    private static final LongAdder recording = new LongAdder();
+    private static final TransactionIndex transactionIndex = new TransactionIndex();
+    private static final TransactionTimeStore transactionTimes = new TransactionTimeStore();
+    private static final AccountHistoryIndex accountHistory = new AccountHistoryIndex();
+    private static final ConcurrentHashMap<UUID, List<Transaction>> batches = new ConcurrentHashMap<UUID, List<Transaction>>();
+    private static volatile TransactionJournal journal;
+    private static final OperationMetrics transferMetrics = BankMetrics.getInstance().operation(MetricsOperation.TRANSFER_MONEY);
+    private static final OperationMetrics cancelMetrics = BankMetrics.getInstance().operation(MetricsOperation.CANCEL_TRANSACTION);
+    private static final OperationMetrics simulateMetrics = BankMetrics.getInstance().operation(MetricsOperation.SIMULATE_DAYS);
+    private static final OperationMetrics simulateAllMetrics = BankMetrics.getInstance().operation(MetricsOperation.SIMULATE_ALL_DAYS);
     public CentralBank(){ }
     public static CentralBank getInstance(){
         if (instance == null)
@@ -31,6 +66,28 @@ public class CentralBank {
         return instance;
     }
 
+    /**
+     * метод, который подключает журнал: все транзакции и отмены, зарегистрированные после этого,
+     * записываются в журнал
+     * @param transactionJournal - журнал транзакций
+     * @throws TransactionException - исключение бросается если журнал null
+     */
+    public void attachJournal(TransactionJournal transactionJournal) throws TransactionException{
+        if (transactionJournal == null)
+            throw TransactionException.NullException();
+        journal = transactionJournal;
+    }
+
+    /**
+     * метод, который отключает журнал (сам журнал не закрывается)
+     * @return - журнал, который был подключен, или null
+     */
+    public TransactionJournal detachJournal(){
+        TransactionJournal detached = journal;
+        journal = null;
+        return detached;
+    }
+
     /**
      * метод, который находит транзакцию по заданному id
      * @param id - id транзакции
@@ -40,24 +97,61 @@ public class CentralBank {
     public Transaction findTransaction(UUID id) throws TransactionException{
         if (id == null)
             throw TransactionException.NullException();
-        return transactions.stream().filter(t -> t.getId() == id)
-                .findFirst()
-                .orElseThrow(TransactionException::InvalidTransactionFindException);
+        Transaction transaction = transactionIndex.get(id);
+        if (transaction == null)
+            throw TransactionException.InvalidTransactionFindException();
+        return transaction;
     }
 
     /**
      * метод, который возвращает все банки в центральном
-     * @return - банки, которые зарегистрированы
+     * @return - неизменяемый снимок банков, которые зарегистрированы на момент вызова
      */
     public List<Bank> getBanks(){
-        return Collections.unmodifiableList(banks);
+        return banks.getBanks();
     }
     /**
      * метод, который возвращает все транзакции в центральном
      * @return - транзакции, которые зарегистрированы
      */
     public List<Transaction> getTransactions(){
-        return Collections.unmodifiableList(transactions);
+        return transactions;
+    }
+
+    /**
+     * метод, который возвращает транзакции за период [from, to), просматривая только часовые разделы периода
+     * @param from - начало периода (включительно)
+     * @param to - конец периода (не включительно)
+     * @return - транзакции
+     * @throws TransactionException - исключение бросается если границы null
+     */
+    public List<Transaction> findTransactionsBetween(LocalDateTime from, LocalDateTime to) throws TransactionException{
+        return transactionTimes.findBetween(from, to);
+    }
+
+    /**
+     * метод, который возвращает поток транзакций за период [from, to) для отчетов
+     * (после parallel() разделы периода сканируются параллельно)
+     * @param from - начало периода (включительно)
+     * @param to - конец периода (не включительно)
+     * @return - поток транзакций
+     * @throws TransactionException - исключение бросается если границы null
+     */
+    public Stream<Transaction> streamTransactionsBetween(LocalDateTime from, LocalDateTime to) throws TransactionException{
+        return transactionTimes.streamBetween(from, to);
+    }
+
+    /**
+     * метод, который возвращает страницу истории аккаунта (отправленные и полученные транзакции и отмены)
+     * от новых записей к старым за O(размер страницы)
+     * @param account - аккаунт
+     * @param cursor - курсор страницы: AccountHistoryPage.firstPage или getNextCursor() предыдущей страницы
+     * @param limit - максимальное количество записей на странице
+     * @return - страница истории
+     * @throws TransactionException - исключение бросается если аккаунт null, курсор отрицательный или размер страницы меньше единицы
+     */
+    public AccountHistoryPage getAccountHistory(Account account, long cursor, int limit) throws TransactionException{
+        return accountHistory.getPage(account, cursor, limit);
     }
 
     /**
@@ -68,10 +162,26 @@ public class CentralBank {
      */
     public Bank findBankByName(String name) throws BankException{
         if (name == null || name.isBlank())
-            throw TransactionException.NullException();
-        return banks.stream().filter(b -> b.getName() == name)
-                .findFirst()
-                .orElseThrow(TransactionException::InvalidTransactionFindException);
+            throw BankException.NullException();
+        Bank bank = banks.findByName(name);
+        if (bank == null)
+            throw BankException.InvalidBankFindException();
+        return bank;
+    }
+
+    /**
+     * метод, который ищет банк по id
+     * @param id - id банка
+     * @return - возвращает найденный банк
+     * @throws BankException - исключение бросается если банк не найден или id null
+     */
+    public Bank findBankById(UUID id) throws BankException{
+        if (id == null)
+            throw BankException.NullException();
+        Bank bank = banks.findById(id);
+        if (bank == null)
+            throw BankException.InvalidBankFindException();
+        return bank;
     }
 
     /**
@@ -79,17 +189,63 @@ public class CentralBank {
      * @param name - название банка
      * @param settings - настройки банка
      * @return - возвращает добавленный банк
-     * @throws BankException - исключение бросается если имя пустое или null или настройки банка null
+     * @throws BankException - исключение бросается если имя пустое или null, настройки банка null
+     * или банк с таким названием уже зарегистрирован
      */
     public Bank registerBank(String name, BankSettings settings) throws BankException{
         if (name == null || settings == null || name.isBlank())
             throw BankException.NullException();
-        Bank bank = new Bank(name, settings);
-        banks.add(bank);
-        return bank;
+        return banks.register(new Bank(name, settings));
     }
+    /**
+     * метод, который регистрирует уже созданный банк (например, восстановленный из снимка)
+     * @param bank - банк
+     * @return - возвращает добавленный банк
+     * @throws BankException - исключение бросается если банк null или банк с таким названием уже зарегистрирован
+     */
+    public Bank registerBank(Bank bank) throws BankException{
+        if (bank == null)
+            throw BankException.NullException();
+        return banks.register(bank);
+    }
+
+    /**
+     * метод, который выполняет действие над согласованным состоянием системы: на время действия
+     * блокируются все аккаунты всех банков (в глобальном порядке), после чего метод ждет, пока
+     * допишутся транзакции, которые уже отпустили блокировки аккаунтов, но еще не попали в список
+     * и индексы. поэтому ни один перевод или отмена не выполняется наполовину, а список транзакций и
+     * позиция журнала соответствуют балансам. действие должно быть коротким (например, копирование балансов)
+     * @param action - действие
+     * @return - результат действия
+     * @throws BankException - исключение бросается если действие null
+     */
+    public <T> T underGlobalLock(Supplier<T> action) throws BankException{
+        if (action == null)
+            throw BankException.NullException();
+        ArrayList<Account> accounts = new ArrayList<Account>();
+        for (Bank bank : banks.getBanks())
+            accounts.addAll(bank.getAccounts());
+        List<Account> locked = AccountLocks.lockAll(accounts);
+        try {
+            while (recording.sum() > 0)
+                Thread.yield();
+            return action.get();
+        } finally {
+            AccountLocks.unlockAll(locked);
+        }
+    }
+
+    /**
+     * метод, который возвращает подключенный журнал
+     * @return - журнал или null, если журнал не подключен
+     */
+    public TransactionJournal getJournal(){
+        return journal;
+    }
+
     /**
      * метод, который регистрирует транзакцию в центральном банке
+     * (и, если подключен журнал, ждет ее записи согласно политике журнала)
      * @param transaction - транзакция
      * @return - возвращает добавленную транзакцию
      * @throws BankException - исключение бросается если транзакция null
@@ -97,12 +253,153 @@ public class CentralBank {
     public Transaction registerTransaction(Transaction transaction) throws TransactionException{
         if (transaction == null)
             throw TransactionException.NullException();
-        transactions.add(transaction);
+        awaitJournal(record(transaction));
         return transaction;
     }
 
     /**
-     * метод, который реализует перевод денег с одного счета на другой
+     * метод, который регистрирует уже проведенные транзакции одной записью в список, индекс и журнал
+     * (и, если подключен журнал, ждет их записи согласно политике журнала). нужен тем, кто проводит
+     * переводы сам и регистрирует их пачками (см. Banks.Engine.ShardedEngine)
+     * @param batch - транзакции
+     * @throws TransactionException - исключение бросается если список или одна из транзакций null
+     */
+    public void registerTransactions(List<? extends Transaction> batch) throws TransactionException{
+        if (batch == null)
+            throw TransactionException.NullException();
+        ArrayList<Transaction> copy = new ArrayList<Transaction>(batch.size());
+        for (Transaction transaction : batch) {
+            if (transaction == null)
+                throw TransactionException.NullException();
+            copy.add(transaction);
+        }
+        awaitJournal(recordAll(copy));
+    }
+
+    /**
+     * метод, который добавляет транзакцию в журнал, историю, список и индексы, не дожидаясь сброса журнала
+     * @param transaction - транзакция
+     * @return - позиция записи в журнале или -1, если журнал не подключен
+     */
+    private long record(Transaction transaction) {
+        long lsn = journalTransaction(transaction);
+        publishTransaction(transaction);
+        return lsn;
+    }
+
+    /**
+     * метод, который добавляет пакет транзакций в журнал одной записью, в историю, список и индексы,
+     * не дожидаясь сброса журнала
+     * @param batch - транзакции
+     * @return - позиция последней записи в журнале или -1, если журнал не подключен или пакет пуст
+     */
+    private long recordAll(List<Transaction> batch) {
+        long lsn = journalBatch(batch);
+        publishBatch(batch);
+        return lsn;
+    }
+
+    /**
+     * метод, который выполняет первый шаг регистрации - запись в журнал и в историю аккаунтов.
+     * переводы вызывают его под блокировками своих аккаунтов, поэтому записи одного аккаунта в журнале
+     * и истории идут в порядке изменения его баланса (восстановление повторяет переводы с проверкой
+     * остатка, и порядок ему важен). общего монитора здесь нет: у журнала своя короткая блокировка,
+     * история пишется под монитором аккаунта. с этого шага до publishTransaction транзакция считается
+     * регистрируемой, и underGlobalLock ждет ее
+     * @param transaction - транзакция
+     * @return - позиция записи в журнале или -1, если журнал не подключен
+     */
+    private long journalTransaction(Transaction transaction) {
+        recording.increment();
+        try {
+            TransactionJournal current = journal;
+            long lsn = current == null ? -1 : current.append(JournalRecord.of(transaction));
+            accountHistory.addTransaction(transaction);
+            return lsn;
+        } catch (RuntimeException e) {
+            recording.decrement();
+            throw e;
+        }
+    }
+
+    /**
+     * метод, который выполняет первый шаг регистрации для пакета (см. journalTransaction)
+     * @param batch - транзакции
+     * @return - позиция последней записи в журнале или -1, если журнал не подключен или пакет пуст
+     */
+    private long journalBatch(List<Transaction> batch) {
+        recording.increment();
+        try {
+            long lsn = -1;
+            TransactionJournal current = journal;
+            if (current != null && !batch.isEmpty()) {
+                ArrayList<JournalRecord> records = new ArrayList<JournalRecord>(batch.size());
+                for (Transaction transaction : batch)
+                    records.add(JournalRecord.of(transaction));
+                lsn = current.appendAll(records);
+            }
+            for (Transaction transaction : batch)
+                accountHistory.addTransaction(transaction);
+            return lsn;
+        } catch (RuntimeException e) {
+            recording.decrement();
+            throw e;
+        }
+    }
+
+    /**
+     * метод, который выполняет второй шаг регистрации - добавление в список, разделы по времени и индекс
+     * по id. вызывается после того, как блокировки аккаунтов отпущены; все три структуры дописываются
+     * без блокировок, общий шаг - только атомарное занятие места в списке
+     * @param transaction - транзакция
+     */
+    private void publishTransaction(Transaction transaction) {
+        try {
+            transactions.append(transaction);
+            transactionTimes.append(transaction);
+            transactionIndex.put(transaction);
+        } finally {
+            recording.decrement();
+        }
+    }
+
+    /**
+     * метод, который выполняет второй шаг регистрации для пакета (см. publishTransaction)
+     * @param batch - транзакции
+     */
+    private void publishBatch(List<Transaction> batch) {
+        try {
+            if (batch.isEmpty())
+                return;
+            transactions.appendAll(batch);
+            for (Transaction transaction : batch) {
+                transactionTimes.append(transaction);
+                transactionIndex.put(transaction);
+            }
+            UUID batchId = batch.get(0).getBatchId();
+            if (batchId != null)
+                batches.put(batchId, Collections.unmodifiableList(batch));
+        } finally {
+            recording.decrement();
+        }
+    }
+
+    /**
+     * метод, который ждет, пока запись журнала станет надежной
+     * @param lsn - позиция записи в журнале или -1, если журнал не подключен
+     */
+    private void awaitJournal(long lsn) {
+        TransactionJournal current = journal;
+        if (lsn >= 0 && current != null)
+            current.awaitDurable(lsn);
+    }
+
+    /**
+     * метод, который реализует перевод денег с одного счета на другой.
+     * оба аккаунта блокируются в глобальном порядке (по id), поэтому проверка лимита, списание,
+     * зачисление и запись транзакции в журнал и историю аккаунтов выполняются атомарно относительно
+     * других переводов, а переводы между непересекающимися аккаунтами идут параллельно. в список и
+     * индексы транзакция добавляется уже после того, как блокировки отпущены
      * @param money - сумма перевода
      * @param sender - отправитель
      * @param recipient - получатель
@@ -112,31 +409,246 @@ public class CentralBank {
      * @throws TransactionException - исключение бросается если хотя бы один из входных данных null
      */
     public Transaction transferMoney(BigDecimal money, Account sender, Account recipient) throws TransactionException, BankException, AccountException{
-        if (money == null || sender == null || recipient == null)
+        long start = System.nanoTime();
+        try {
+            if (money == null || sender == null || recipient == null)
+                throw TransactionException.NullException();
+            if (money.compareTo(minMoney) < 0)
+                throw BankException.InvalidMoneyException();
+            TransferTransaction transfer = new TransferTransaction(sender, recipient, money, LocalDateTime.now(BankClock.getClock()));
+            long lsn;
+            AccountLocks.lockPair(sender, recipient);
+            try {
+                if (money.compareTo(sender.getVerificationLimit()) > 0)
+                    throw AccountException.InvalidLimitException();
+                sender.withdrawMoney(money);
+                credit(sender, recipient, money);
+                lsn = journalTransaction(transfer);
+            } finally {
+                AccountLocks.unlockPair(sender, recipient);
+            }
+            publishTransaction(transfer);
+            awaitJournal(lsn);
+            return transfer;
+        } catch (RuntimeException e) {
+            transferMetrics.failed(e);
+            throw e;
+        } finally {
+            transferMetrics.record(start);
+        }
+    }
+
+    /**
+     * метод, который проводит пакет переводов (например, платежную ведомость).
+     * сначала весь пакет проверяется без блокировок (null, сумма меньше минимума, лимит отправителя),
+     * затем все аккаунты принятых заявок блокируются один раз в глобальном порядке, заявки применяются
+     * в порядке отправителей (заявки одного отправителя сохраняют порядок пакета) и все транзакции
+     * регистрируются одной записью в список и журнал. у транзакций пакета одно время и один id пакета.
+     * отказ одной заявки (например, не хватает денег) не отменяет остальные
+     * @param requests - заявки на перевод
+     * @return - результаты в порядке заявок
+     * @throws TransactionException - исключение бросается если список заявок null
+     */
+    public List<TransferResult> transferBatch(List<TransferRequest> requests) throws TransactionException{
+        if (requests == null)
             throw TransactionException.NullException();
-        if (money.compareTo(minMoney) < 0)
+        int size = requests.size();
+        TransferResult[] results = new TransferResult[size];
+        ArrayList<Integer> accepted = new ArrayList<Integer>(size);
+        ArrayList<Account> involved = new ArrayList<Account>(size * 2);
+        for (int i = 0; i < size; i++) {
+            TransferRequest request = requests.get(i);
+            try {
+                validateTransfer(request);
+            } catch (RuntimeException e) {
+                results[i] = new TransferResult(i, request, null, e);
+                continue;
+            }
+            accepted.add(i);
+            involved.add(request.getSender());
+            involved.add(request.getRecipient());
+        }
+        accepted.sort(Comparator.comparing(i -> requests.get(i).getSender().getId()));
+
+        LocalDateTime time = LocalDateTime.now(BankClock.getClock());
+        UUID batchId = Ids.next();
+        ArrayList<Transaction> applied = new ArrayList<Transaction>(accepted.size());
+        long lsn;
+        List<Account> locked = AccountLocks.lockAll(involved);
+        try {
+            for (int i : accepted) {
+                TransferRequest request = requests.get(i);
+                try {
+                    request.getSender().withdrawMoney(request.getMoney());
+                    credit(request.getSender(), request.getRecipient(), request.getMoney());
+                } catch (RuntimeException e) {
+                    results[i] = new TransferResult(i, request, null, e);
+                    continue;
+                }
+                TransferTransaction transfer = new TransferTransaction(request.getSender(), request.getRecipient(), request.getMoney(), time);
+                transfer.setBatchId(batchId);
+                applied.add(transfer);
+                results[i] = new TransferResult(i, request, transfer, null);
+            }
+            lsn = journalBatch(applied);
+        } finally {
+            AccountLocks.unlockAll(locked);
+        }
+        publishBatch(applied);
+        awaitJournal(lsn);
+        return Collections.unmodifiableList(Arrays.asList(results));
+    }
+
+    /**
+     * метод, который зачисляет уже списанную с отправителя сумму получателю, а если зачисление
+     * не прошло (например, переполнение баланса получателя), возвращает сумму отправителю
+     * и пробрасывает исключение, так что неудачный перевод не меняет ни один баланс
+     * @param sender - отправитель, с которого сумма уже списана
+     * @param recipient - получатель
+     * @param money - сумма перевода
+     * @throws RuntimeException - исключение зачисления (ошибка возврата добавляется в подавленные)
+     */
+    private static void credit(Account sender, Account recipient, BigDecimal money) {
+        try {
+            recipient.updateMoney(money);
+        } catch (RuntimeException e) {
+            try {
+                sender.updateMoney(money);
+            } catch (RuntimeException r) {
+                e.addSuppressed(r);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * метод, который проверяет заявку пакета до блокировки аккаунтов
+     * @param request - заявка
+     * @throws TransactionException - исключение бросается если заявка null
+     * @throws BankException - исключение бросается если сумма меньше минимума
+     * @throws AccountException - исключение бросается если сумма больше лимита отправителя
+     */
+    private void validateTransfer(TransferRequest request) throws TransactionException, BankException, AccountException{
+        if (request == null)
+            throw TransactionException.NullException();
+        if (request.getMoney().compareTo(minMoney) < 0)
             throw BankException.InvalidMoneyException();
-        if (money.compareTo(sender.getVerificationLimit()) > 0)
+        if (request.getMoney().compareTo(request.getSender().getVerificationLimit()) > 0)
             throw AccountException.InvalidLimitException();
-        TransferTransaction transfer = new TransferTransaction(sender, recipient, money, LocalDateTime.now());
-        registerTransaction(transfer);
-        sender.withdrawMoney(money);
-        recipient.updateMoney(money);
-        return transfer;
     }
 
     /**
-     * метод, который реализует отмену транзакции
+     * метод, который реализует отмену транзакции (под блокировками затронутых аккаунтов)
      * @param id - id транзакции
      * @throws TransactionException - исключение бросается если id null или не существует такой транзакции
      */
     public void cancelTransaction(UUID id) throws TransactionException {
-        if (id == null)
+        long start = System.nanoTime();
+        try {
+            if (id == null)
+                throw TransactionException.NullException();
+            Transaction transaction = findTransaction(id);
+            if (transaction == null)
+                throw TransactionException.InvalidTransactionFindException();
+            Account sender = transaction.getSender();
+            Account recipient = transaction instanceof TransferTransaction transfer ? transfer.getRecipient() : sender;
+            long lsn = -1;
+            AccountLocks.lockPair(sender, recipient);
+            try {
+                transaction.cancelTransaction();
+                LocalDateTime cancelledAt = LocalDateTime.now(BankClock.getClock());
+                accountHistory.addCancellation(transaction, cancelledAt);
+                TransactionJournal current = journal;
+                if (current != null)
+                    lsn = current.append(JournalRecord.cancellation(transaction, cancelledAt));
+            } finally {
+                AccountLocks.unlockPair(sender, recipient);
+            }
+            awaitJournal(lsn);
+        } catch (RuntimeException e) {
+            cancelMetrics.failed(e);
+            throw e;
+        } finally {
+            cancelMetrics.record(start);
+        }
+    }
+
+    /**
+     * метод, который отменяет все транзакции за период [from, to)
+     * @param from - начало периода (включительно)
+     * @param to - конец периода (не включительно)
+     * @return - результаты отмены от новых транзакций к старым
+     * @throws TransactionException - исключение бросается если границы null
+     */
+    public List<CancellationResult> cancelTransactionsBetween(LocalDateTime from, LocalDateTime to) throws TransactionException {
+        return cancelAll(transactionTimes.findBetween(from, to));
+    }
+
+    /**
+     * метод, который отменяет все транзакции пакета переводов
+     * @param batchId - id пакета
+     * @return - результаты отмены от новых транзакций к старым
+     * @throws TransactionException - исключение бросается если id null или пакет не найден
+     */
+    public List<CancellationResult> cancelBatch(UUID batchId) throws TransactionException {
+        if (batchId == null)
             throw TransactionException.NullException();
-        Transaction transaction = findTransaction(id);
-        if (transaction == null)
+        List<Transaction> batch = batches.get(batchId);
+        if (batch == null)
             throw TransactionException.InvalidTransactionFindException();
-        transaction.cancelTransaction();
+        return cancelAll(batch);
+    }
+
+    /**
+     * метод, который отменяет транзакции от новых к старым (при равном времени - от поздней регистрации к ранней).
+     * все затронутые аккаунты блокируются один раз в глобальном порядке, отмены пишутся в журнал одной записью
+     * с общим временем отмены. отказ одной отмены (транзакция уже отменена, у получателя не хватает денег)
+     * не прерывает остальные и попадает в результат
+     * @param selected - транзакции в порядке регистрации
+     * @return - результаты отмены в порядке отмены
+     */
+    private List<CancellationResult> cancelAll(List<Transaction> selected) {
+        ArrayList<Transaction> ordered = new ArrayList<Transaction>(selected);
+        Collections.reverse(ordered);
+        Comparator<Transaction> newestFirst = Comparator.comparing(Transaction::getTransactionTime).reversed();
+        for (int i = 1; i < ordered.size(); i++) {
+            if (newestFirst.compare(ordered.get(i - 1), ordered.get(i)) > 0) {
+                ordered.sort(newestFirst);
+                break;
+            }
+        }
+        Set<Account> involved = Collections.newSetFromMap(new IdentityHashMap<Account, Boolean>());
+        for (Transaction transaction : ordered) {
+            involved.add(transaction.getSender());
+            if (transaction instanceof TransferTransaction transfer)
+                involved.add(transfer.getRecipient());
+        }
+        ArrayList<CancellationResult> results = new ArrayList<CancellationResult>(ordered.size());
+        LocalDateTime cancelledAt = LocalDateTime.now(BankClock.getClock());
+        long lsn = -1;
+        List<Account> locked = AccountLocks.lockAll(involved);
+        try {
+            TransactionJournal current = journal;
+            ArrayList<JournalRecord> records = new ArrayList<JournalRecord>(current == null ? 0 : ordered.size());
+            for (Transaction transaction : ordered) {
+                try {
+                    transaction.cancelTransaction();
+                } catch (RuntimeException e) {
+                    results.add(new CancellationResult(transaction, e));
+                    continue;
+                }
+                accountHistory.addCancellation(transaction, cancelledAt);
+                if (current != null)
+                    records.add(JournalRecord.cancellation(transaction, cancelledAt));
+                results.add(new CancellationResult(transaction, null));
+            }
+            if (!records.isEmpty())
+                lsn = current.appendAll(records);
+        } finally {
+            AccountLocks.unlockAll(locked);
+        }
+        awaitJournal(lsn);
+        return Collections.unmodifiableList(results);
     }
 
     /**
@@ -147,10 +659,80 @@ public class CentralBank {
      * @throws BankException - исключение бросается если количество дней меньше минимума
      */
     public void simulateDays(Account account, int days) throws TransactionException, BankException{
-        if (account == null)
-            throw TransactionException.NullException();
-        if (days < minDays)
-            throw BankException.InvalidDaysException();
-        account.calculateMoney(days);
+        long start = System.nanoTime();
+        try {
+            if (account == null)
+                throw TransactionException.NullException();
+            if (days < minDays)
+                throw BankException.InvalidDaysException();
+            account.calculateMoney(days);
+        } catch (RuntimeException e) {
+            simulateMetrics.failed(e);
+            throw e;
+        } finally {
+            simulateMetrics.record(start);
+        }
+    }
+
+    /**
+     * метод, который симулирует время до определенного дня для всех аккаунтов всех банков.
+     * аккаунты делятся между потоками пула ForkJoin по банкам и по диапазонам аккаунтов,
+     * каждый аккаунт считается независимо, поэтому результат не зависит от числа потоков.
+     * во время симуляции нельзя добавлять аккаунты в банки
+     * @param days - количество дней симуляции
+     * @return - отчет о симуляции (количество аккаунтов, время, аккаунтов в секунду)
+     * @throws BankException - исключение бросается если количество дней меньше минимума
+     */
+    public SimulationReport simulateDays(int days) throws BankException{
+        return simulateDays(days, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * метод, который симулирует время до определенного дня для всех аккаунтов всех банков в заданном пуле
+     * @param days - количество дней симуляции
+     * @param pool - пул потоков
+     * @return - отчет о симуляции (количество аккаунтов, время, аккаунтов в секунду)
+     * @throws BankException - исключение бросается если количество дней меньше минимума или пул null
+     */
+    public SimulationReport simulateDays(int days, ForkJoinPool pool) throws BankException{
+        long callStart = System.nanoTime();
+        try {
+            if (pool == null)
+                throw BankException.NullException();
+            if (days < minDays)
+                throw BankException.InvalidDaysException();
+            List<Bank> snapshot = banks.getBanks();
+            long accounts = 0;
+            for (Bank bank : snapshot)
+                accounts += bank.getAccounts().size();
+            long start = System.nanoTime();
+            pool.invoke(ParallelAccountTask.forBanks(snapshot, account -> account.calculateMoney(days)));
+            return new SimulationReport(snapshot.size(), accounts, System.nanoTime() - start);
+        } catch (RuntimeException e) {
+            simulateAllMetrics.failed(e);
+            throw e;
+        } finally {
+            simulateAllMetrics.record(callStart);
+        }
+    }
+
+    /**
+     * метод, который начисляет проценты всем аккаунтам системы по текущий день (например, перед отчетной датой).
+     * в обычной работе проценты начисляются лениво при обращении к балансу (см. Account.accrue),
+     * этот проход нужен, чтобы на дату были начислены и аккаунты, к которым никто не обращался
+     * @param pool - пул потоков
+     * @return - отчет о проходе
+     * @throws BankException - исключение бросается если пул null
+     */
+    public SimulationReport accrueAll(ForkJoinPool pool) throws BankException{
+        if (pool == null)
+            throw BankException.NullException();
+        List<Bank> snapshot = banks.getBanks();
+        long accounts = 0;
+        for (Bank bank : snapshot)
+            accounts += bank.getAccounts().size();
+        long start = System.nanoTime();
+        pool.invoke(ParallelAccountTask.forBanks(snapshot, Account::accrue));
+        return new SimulationReport(snapshot.size(), accounts, System.nanoTime() - start);
     }
 }
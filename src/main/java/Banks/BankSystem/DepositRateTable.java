@@ -0,0 +1,132 @@
+package Banks.BankSystem;
+
+import Banks.Tools.BankException;
+import Banks.Tools.MoneyUnits;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * неизменяемая таблица депозитных ставок: ступень - минимальный остаток (в копейках) и ставка.
+ * пороги лежат в отсортированном массиве long, поэтому ставка для остатка ищется двоичным поиском
+ * за O(log n) без создания объектов. нижняя ступень начинается с нуля, верхняя не ограничена
+ */
+public final class DepositRateTable {
+    private static final BigDecimal minPercent = BigDecimal.valueOf(0);
+    private final long[] thresholds;
+    private final BigDecimal[] rates;
+
+    /**
+     * конструктор таблицы
+     * @param tiers - минимальный остаток ступени и ее ставка (нижняя ступень - с нулевого остатка)
+     * @throws BankException - исключение бросается если таблица null или пуста, в ней есть null,
+     * отрицательные значения, пороги совпадают с точностью до копейки или нет ступени с нуля
+     */
+    public DepositRateTable(SortedMap<BigDecimal, BigDecimal> tiers) throws BankException {
+        if (tiers == null)
+            throw BankException.NullException();
+        if (tiers.isEmpty())
+            throw BankException.InvalidDepositPercentException();
+        thresholds = new long[tiers.size()];
+        rates = new BigDecimal[tiers.size()];
+        int i = 0;
+        for (Map.Entry<BigDecimal, BigDecimal> tier : tiers.entrySet()) {
+            if (tier.getKey() == null || tier.getValue() == null)
+                throw BankException.NullException();
+            if (tier.getKey().compareTo(minPercent) < 0 || tier.getValue().compareTo(minPercent) < 0)
+                throw BankException.InvalidPercentException();
+            thresholds[i] = MoneyUnits.toUnits(tier.getKey());
+            rates[i] = tier.getValue();
+            if (i > 0 && thresholds[i] <= thresholds[i - 1])
+                throw BankException.InvalidDepositPercentException();
+            i++;
+        }
+        if (thresholds[0] != 0)
+            throw BankException.InvalidDepositPercentException();
+    }
+
+    /**
+     * метод, который строит таблицу из прежнего списка ставок, где каждая ставка одновременно была
+     * верхней границей своей ступени: остаток меньше p[0] - ставка p[0], от p[i-1] до p[i] - ставка p[i],
+     * последняя ступень теперь не ограничена сверху
+     * @param percentages - ставки строго по возрастанию
+     * @return - таблица
+     * @throws BankException - исключение бросается если список null или пуст, в нем есть null,
+     * отрицательные ставки или ставки не возрастают
+     */
+    public static DepositRateTable fromPercentages(List<BigDecimal> percentages) throws BankException {
+        if (percentages == null)
+            throw BankException.NullException();
+        TreeMap<BigDecimal, BigDecimal> tiers = new TreeMap<BigDecimal, BigDecimal>();
+        BigDecimal from = minPercent;
+        for (BigDecimal percent : percentages) {
+            if (percent == null)
+                throw BankException.NullException();
+            if (percent.compareTo(minPercent) < 0)
+                throw BankException.InvalidPercentException();
+            if (!tiers.isEmpty() && percent.compareTo(from) <= 0)
+                throw BankException.InvalidDepositPercentException();
+            tiers.put(from, percent);
+            from = percent;
+        }
+        return new DepositRateTable(tiers);
+    }
+
+    /**
+     * метод, который находит ставку для остатка
+     * @param money - остаток
+     * @return - ставка ступени, в которую попадает остаток
+     * @throws BankException - исключение бросается если остаток null или отрицательный
+     */
+    public BigDecimal rateFor(BigDecimal money) throws BankException {
+        if (money == null)
+            throw BankException.NullException();
+        return rateForUnits(MoneyUnits.toUnits(money));
+    }
+
+    /**
+     * метод, который находит ставку для остатка в копейках
+     * @param units - остаток в копейках
+     * @return - ставка ступени, в которую попадает остаток
+     * @throws BankException - исключение бросается если остаток отрицательный
+     */
+    public BigDecimal rateForUnits(long units) throws BankException {
+        if (units < 0)
+            throw BankException.InvalidMoneyException();
+        int index = Arrays.binarySearch(thresholds, units);
+        return rates[index >= 0 ? index : -index - 2];
+    }
+
+    /**
+     * метод, который возвращает количество ступеней
+     * @return - количество ступеней
+     */
+    public int size() {
+        return thresholds.length;
+    }
+
+    /**
+     * метод, который возвращает ставки ступеней по возрастанию порога
+     * @return - неизменяемый список ставок
+     */
+    public List<BigDecimal> getRates() {
+        return List.of(rates);
+    }
+
+    /**
+     * метод, который возвращает ступени таблицы
+     * @return - неизменяемая таблица: минимальный остаток ступени и ее ставка
+     */
+    public NavigableMap<BigDecimal, BigDecimal> getTiers() {
+        TreeMap<BigDecimal, BigDecimal> tiers = new TreeMap<BigDecimal, BigDecimal>();
+        for (int i = 0; i < thresholds.length; i++)
+            tiers.put(MoneyUnits.toMoney(thresholds[i]), rates[i]);
+        return Collections.unmodifiableNavigableMap(tiers);
+    }
+}
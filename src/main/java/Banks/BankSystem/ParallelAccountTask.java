@@ -0,0 +1,66 @@
+package Banks.BankSystem;
+
+import Banks.AccountTypes.Account;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * задача ForkJoin, которая применяет действие к диапазону аккаунтов,
+ * деля диапазон пополам, пока он больше порога
+ */
+final class ParallelAccountTask extends RecursiveAction {
+    private static final int threshold = 2048;
+    private final List<Account> accounts;
+    private final int from;
+    private final int to;
+    private final Consumer<Account> action;
+
+    /**
+     * конструктор задачи
+     * @param accounts - аккаунты (список с быстрым доступом по индексу)
+     * @param from - начало диапазона (включительно)
+     * @param to - конец диапазона (не включительно)
+     * @param action - действие над аккаунтом
+     */
+    ParallelAccountTask(List<Account> accounts, int from, int to, Consumer<Account> action) {
+        this.accounts = accounts;
+        this.from = from;
+        this.to = to;
+        this.action = action;
+    }
+
+    /**
+     * метод, который создает по задаче на каждый банк
+     * @param banks - банки
+     * @param action - действие над аккаунтом
+     * @return - задача над всеми аккаунтами всех банков
+     */
+    static RecursiveAction forBanks(List<Bank> banks, Consumer<Account> action) {
+        ArrayList<ParallelAccountTask> tasks = new ArrayList<ParallelAccountTask>(banks.size());
+        for (Bank bank : banks) {
+            List<Account> accounts = bank.getAccounts();
+            tasks.add(new ParallelAccountTask(accounts, 0, accounts.size(), action));
+        }
+        return new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        };
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= threshold) {
+            for (int i = from; i < to; i++)
+                action.accept(accounts.get(i));
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        invokeAll(new ParallelAccountTask(accounts, from, middle, action),
+                new ParallelAccountTask(accounts, middle, to, action));
+    }
+}
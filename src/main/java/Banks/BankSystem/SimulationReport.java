@@ -0,0 +1,62 @@
+package Banks.BankSystem;
+
+/**
+ * класс отчета о проходе по всем аккаунтам системы (симуляция дней, начисление процентов)
+ */
+public class SimulationReport {
+    private final int banks;
+    private final long accounts;
+    private final long elapsedNanos;
+
+    /**
+     * конструктор отчета
+     * @param banks - количество банков
+     * @param accounts - количество обработанных аккаунтов
+     * @param elapsedNanos - время прохода в наносекундах
+     */
+    public SimulationReport(int banks, long accounts, long elapsedNanos) {
+        this.banks = banks;
+        this.accounts = accounts;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * метод, который возвращает количество банков
+     * @return - количество банков
+     */
+    public int getBanks() {
+        return banks;
+    }
+
+    /**
+     * метод, который возвращает количество обработанных аккаунтов
+     * @return - количество аккаунтов
+     */
+    public long getAccounts() {
+        return accounts;
+    }
+
+    /**
+     * метод, который возвращает время прохода
+     * @return - время в наносекундах
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * метод, который возвращает пропускную способность прохода
+     * @return - аккаунтов в секунду
+     */
+    public double getAccountsPerSecond() {
+        if (elapsedNanos == 0)
+            return 0;
+        return accounts * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d accounts in %d banks, %.1f ms, %.0f accounts/s",
+                accounts, banks, elapsedNanos / 1_000_000.0, getAccountsPerSecond());
+    }
+}
@@ -1,9 +1,9 @@
 package Banks.ClientSystem;
 
 import Banks.Observer.Observer;
+import Banks.Observer.SettingsEvent;
 import Banks.Tools.ClientException;
-import java.util.ArrayList;
-import java.util.Collections;
+import Banks.Tools.Ids;
 import java.util.List;
 import java.util.UUID;
 
@@ -16,7 +16,7 @@ public class Client implements Observer {
     private String address;
     private String passport;
     private final UUID id;
-    private final ArrayList<String> notifications;
+    private final NotificationInbox inbox;
 
     /**
      * конструктор клиента
@@ -27,6 +27,21 @@ public class Client implements Observer {
      * @throws ClientException - исключение бросается, если имя или фамилия клиента null или пустые
      */
     public Client(String name, String surname, String address, String passport) throws ClientException {
+        this(Ids.next(), name, surname, address, passport);
+    }
+
+    /**
+     * конструктор клиента с заданным id (для восстановления из снимка)
+     * @param id - id клиента
+     * @param name - имя клиента
+     * @param surname - фамилия клиента
+     * @param address - адрес клиента
+     * @param passport - паспорт клиента
+     * @throws ClientException - исключение бросается, если id null или имя или фамилия клиента null или пустые
+     */
+    public Client(UUID id, String name, String surname, String address, String passport) throws ClientException {
+        if (id == null)
+            throw ClientException.NullException();
         if (name == null || name.isBlank())
             throw ClientException.InvalidClientName();
         if (surname == null || surname.isBlank())
@@ -36,8 +51,8 @@ public class Client implements Observer {
         this.surname = surname;
         this.passport = passport;
         this.address = address;
-        this.id = UUID.randomUUID();
-        this.notifications = new ArrayList<String>();
+        this.id = id;
+        this.inbox = new NotificationInbox();
     }
 
     /**
@@ -92,6 +107,7 @@ public class Client implements Observer {
     }
     /**
      * метод, который задает паспорт клиента
+     * (у клиента, уже добавленного в банк, паспорт меняется через Bank.updatePassport)
      * @param passport - паспорт клиента
      */
     public void setPassport(String passport) {
@@ -106,10 +122,17 @@ public class Client implements Observer {
     }
     /**
      * метод, который возвращает уведомления клиента
-     * @return - паспорт клиента
+     * @return - тексты уведомлений из ящика от старых к новым
      */
-    public ArrayList<String> getNotifications() {
-        return notifications;
+    public List<String> getNotifications() {
+        return inbox.getMessages();
+    }
+    /**
+     * метод, который возвращает ящик уведомлений клиента
+     * @return - ящик уведомлений
+     */
+    public NotificationInbox getInbox() {
+        return inbox;
     }
 
     /**
@@ -129,6 +152,16 @@ public class Client implements Observer {
     public void update(String message) throws ClientException {
         if (message.isBlank())
             throw ClientException.InvalidNotificationMessage();
-        notifications.add(message);
+        inbox.add(message);
+    }
+
+    /**
+     * метод, который добавляет событие об изменении настройки банка (текст не собирается)
+     * @param event - событие
+     * @throws ClientException - исключение, которое бросается если событие null
+     */
+    @Override
+    public void update(SettingsEvent event) throws ClientException {
+        inbox.add(event);
     }
 }
@@ -0,0 +1,154 @@
+package Banks.ClientSystem;
+
+import Banks.Observer.SettingsEvent;
+import Banks.Tools.ClientException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * класс ящика уведомлений клиента: кольцевой буфер фиксированной емкости. при переполнении
+ * самое старое уведомление затирается. события хранятся по ссылке (одно событие на всех клиентов),
+ * текст собирается только при чтении. массив ячеек создается при первом уведомлении, поэтому клиент,
+ * которому ничего не приходило, не держит пустое кольцо. ящик потокобезопасен: его пополняют потоки рассылки
+ */
+public class NotificationInbox {
+    /**
+     * емкость ящика по умолчанию
+     */
+    public static final int DEFAULT_CAPACITY = 32;
+    private final int capacity;
+    private Object[] items;
+    private int head;
+    private int size;
+    private int unread;
+    private long received;
+    private long overwritten;
+
+    /**
+     * конструктор ящика емкостью DEFAULT_CAPACITY
+     */
+    public NotificationInbox() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * конструктор ящика
+     * @param capacity - емкость ящика
+     * @throws ClientException - исключение бросается если емкость меньше единицы
+     */
+    public NotificationInbox(int capacity) throws ClientException {
+        if (capacity < 1)
+            throw ClientException.InvalidInboxCapacity();
+        this.capacity = capacity;
+    }
+
+    /**
+     * метод, который добавляет событие
+     * @param event - событие
+     * @throws ClientException - исключение бросается если событие null
+     */
+    public void add(SettingsEvent event) throws ClientException {
+        if (event == null)
+            throw ClientException.NullException();
+        put(event);
+    }
+
+    /**
+     * метод, который добавляет текстовое уведомление
+     * @param message - уведомление
+     * @throws ClientException - исключение бросается если уведомление null
+     */
+    public void add(String message) throws ClientException {
+        if (message == null)
+            throw ClientException.NullException();
+        put(message);
+    }
+
+    /**
+     * метод, который возвращает емкость ящика
+     * @return - емкость
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * метод, который возвращает количество уведомлений в ящике
+     * @return - количество уведомлений
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * метод, который возвращает количество непрочитанных уведомлений
+     * @return - количество непрочитанных
+     */
+    public synchronized int getUnreadCount() {
+        return unread;
+    }
+
+    /**
+     * метод, который возвращает, сколько уведомлений получено за все время
+     * @return - количество полученных уведомлений
+     */
+    public synchronized long getReceived() {
+        return received;
+    }
+
+    /**
+     * метод, который возвращает, сколько уведомлений затерто при переполнении
+     * @return - количество затертых уведомлений
+     */
+    public synchronized long getOverwritten() {
+        return overwritten;
+    }
+
+    /**
+     * метод, который возвращает тексты всех уведомлений ящика (не меняя отметку о прочтении)
+     * @return - тексты от старых к новым
+     */
+    public synchronized List<String> getMessages() {
+        return messages(size);
+    }
+
+    /**
+     * метод, который возвращает тексты непрочитанных уведомлений и помечает их прочитанными
+     * @return - тексты от старых к новым
+     */
+    public synchronized List<String> readUnread() {
+        List<String> result = messages(unread);
+        unread = 0;
+        return result;
+    }
+
+    /**
+     * метод, который помечает все уведомления прочитанными
+     */
+    public synchronized void markAllRead() {
+        unread = 0;
+    }
+
+    private synchronized void put(Object item) {
+        if (items == null)
+            items = new Object[capacity];
+        items[(head + size) % capacity] = item;
+        if (size == capacity) {
+            head = (head + 1) % capacity;
+            overwritten++;
+        } else {
+            size++;
+        }
+        if (unread < size)
+            unread++;
+        received++;
+    }
+
+    private List<String> messages(int count) {
+        ArrayList<String> result = new ArrayList<String>(count);
+        for (int i = size - count; i < size; i++)
+            result.add(items[(head + i) % capacity].toString());
+        return result;
+    }
+}
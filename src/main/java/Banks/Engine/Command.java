@@ -0,0 +1,77 @@
+package Banks.Engine;
+
+import Banks.AccountTypes.Account;
+import Banks.Transactions.TransferTransaction;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * команда шарда. ячейки кольца создаются один раз и переиспользуются: производитель заполняет
+ * ячейку перед публикацией, шард очищает ее после обработки
+ */
+final class Command {
+    CommandType type;
+    Account sender;
+    Account recipient;
+    BigDecimal money;
+    TransferTransaction transaction;
+    RuntimeException failure;
+    CompletableFuture<TransferTransaction> result;
+
+    /**
+     * метод, который заполняет команду перевода от клиента
+     * @param sender - отправитель
+     * @param recipient - получатель
+     * @param money - сумма перевода
+     * @param result - результат перевода
+     */
+    void transfer(Account sender, Account recipient, BigDecimal money, CompletableFuture<TransferTransaction> result) {
+        this.type = CommandType.TRANSFER;
+        this.sender = sender;
+        this.recipient = recipient;
+        this.money = money;
+        this.result = result;
+    }
+
+    /**
+     * метод, который заполняет команду второго шага перевода (зачисление или возврат)
+     * @param type - тип команды
+     * @param transaction - перевод, по которому деньги уже списаны у отправителя
+     * @param failure - причина возврата или null
+     * @param result - результат перевода
+     */
+    void handOff(CommandType type, TransferTransaction transaction, RuntimeException failure, CompletableFuture<TransferTransaction> result) {
+        this.type = type;
+        this.transaction = transaction;
+        this.failure = failure;
+        this.result = result;
+    }
+
+    /**
+     * метод, который копирует команду в ячейку кольца
+     * @param other - команда
+     */
+    void copyFrom(Command other) {
+        type = other.type;
+        sender = other.sender;
+        recipient = other.recipient;
+        money = other.money;
+        transaction = other.transaction;
+        failure = other.failure;
+        result = other.result;
+    }
+
+    /**
+     * метод, который очищает ячейку, чтобы она не удерживала аккаунты и транзакции
+     */
+    void clear() {
+        type = null;
+        sender = null;
+        recipient = null;
+        money = null;
+        transaction = null;
+        failure = null;
+        result = null;
+    }
+}
@@ -0,0 +1,119 @@
+package Banks.Engine;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * ограниченное кольцо команд без блокировок с несколькими производителями и одним потребителем
+ * (в духе LMAX Disruptor). ячейки создаются заранее, производитель занимает номер через CAS курсора,
+ * заполняет ячейку и публикует ее, записывая номер в массив публикаций; потребитель читает ячейки
+ * подряд, пока они опубликованы, и освобождает их одним сдвигом своего номера после пачки
+ */
+final class CommandRing {
+    private static final VarHandle PUBLISHED = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle CURSOR;
+    private static final VarHandle CONSUMED;
+    private static final int spinLimit = 100;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            CURSOR = lookup.findVarHandle(CommandRing.class, "cursor", long.class);
+            CONSUMED = lookup.findVarHandle(CommandRing.class, "consumed", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Command[] slots;
+    private final long[] published;
+    private final int mask;
+    private volatile long cursor;
+    private volatile long consumed;
+
+    /**
+     * конструктор кольца
+     * @param capacity - емкость (степень двойки)
+     */
+    CommandRing(int capacity) {
+        slots = new Command[capacity];
+        published = new long[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Command();
+            published[i] = -1;
+        }
+    }
+
+    /**
+     * метод, который занимает номер ячейки, не дожидаясь места
+     * @return - номер ячейки или -1, если кольцо заполнено
+     */
+    long tryClaim() {
+        while (true) {
+            long sequence = (long) CURSOR.getVolatile(this);
+            if (sequence - (long) CONSUMED.getVolatile(this) >= slots.length)
+                return -1;
+            if (CURSOR.compareAndSet(this, sequence, sequence + 1))
+                return sequence;
+        }
+    }
+
+    /**
+     * метод, который занимает номер ячейки, дожидаясь места (сначала активно, затем уступая процессор)
+     * @return - номер ячейки
+     */
+    long claim() {
+        int spins = 0;
+        long sequence;
+        while ((sequence = tryClaim()) < 0) {
+            if (spins++ < spinLimit)
+                Thread.onSpinWait();
+            else
+                Thread.yield();
+        }
+        return sequence;
+    }
+
+    /**
+     * метод, который возвращает ячейку по номеру
+     * @param sequence - номер ячейки
+     * @return - ячейка
+     */
+    Command get(long sequence) {
+        return slots[(int) sequence & mask];
+    }
+
+    /**
+     * метод, который публикует заполненную ячейку
+     * @param sequence - номер ячейки
+     */
+    void publish(long sequence) {
+        PUBLISHED.setVolatile(published, (int) sequence & mask, sequence);
+    }
+
+    /**
+     * метод, который проверяет, опубликована ли ячейка
+     * @param sequence - номер ячейки
+     * @return - true если ячейку можно читать
+     */
+    boolean isPublished(long sequence) {
+        return (long) PUBLISHED.getVolatile(published, (int) sequence & mask) == sequence;
+    }
+
+    /**
+     * метод, который освобождает прочитанные ячейки (вызывается только потребителем)
+     * @param next - номер следующей непрочитанной ячейки
+     */
+    void release(long next) {
+        CONSUMED.setVolatile(this, next);
+    }
+
+    /**
+     * метод, который возвращает количество занятых ячеек
+     * @return - глубина очереди
+     */
+    int size() {
+        return (int) Math.max(0, (long) CURSOR.getVolatile(this) - (long) CONSUMED.getVolatile(this));
+    }
+}
@@ -0,0 +1,19 @@
+package Banks.Engine;
+
+/**
+ * тип команды в кольце шарда
+ */
+enum CommandType {
+    /**
+     * перевод от клиента: шард отправителя списывает деньги
+     */
+    TRANSFER,
+    /**
+     * второй шаг межшардового перевода: шард получателя зачисляет деньги
+     */
+    CREDIT,
+    /**
+     * возврат списанной суммы отправителю, если зачисление не удалось
+     */
+    REFUND
+}
@@ -0,0 +1,255 @@
+package Banks.Engine;
+
+import Banks.AccountTypes.Account;
+import Banks.BankSystem.CentralBank;
+import Banks.Transactions.TransferTransaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * шард движка: кольцо команд и единственный поток, который меняет балансы аккаунтов шарда.
+ * поток разбирает кольцо пачками, после пачки регистрирует проведенные переводы в центральном банке
+ * одной записью и только затем завершает их результаты. команды другим шардам шард никогда не ждет:
+ * если кольцо получателя заполнено, команда откладывается и отправляется после следующей пачки,
+ * поэтому два шарда, пересылающие друг другу команды, не могут заблокировать друг друга
+ */
+final class Shard implements Runnable {
+    private static final int batchLimit = 1024;
+    private static final int spinLimit = 200;
+    private final ShardedEngine engine;
+    private final CentralBank centralBank;
+    private final CommandRing ring;
+    private final ArrayDeque<Command> deferred = new ArrayDeque<Command>();
+    private final ArrayList<TransferTransaction> applied = new ArrayList<TransferTransaction>();
+    private final ArrayList<CompletableFuture<TransferTransaction>> waiting = new ArrayList<CompletableFuture<TransferTransaction>>();
+    private final Thread thread;
+    private volatile boolean sleeping;
+    private volatile long completed;
+    private volatile long handedOff;
+
+    /**
+     * конструктор шарда (поток создается, но не запускается)
+     * @param index - номер шарда
+     * @param engine - движок
+     * @param centralBank - центральный банк, в котором регистрируются переводы
+     * @param capacity - емкость кольца
+     */
+    Shard(int index, ShardedEngine engine, CentralBank centralBank, int capacity) {
+        this.engine = engine;
+        this.centralBank = centralBank;
+        this.ring = new CommandRing(capacity);
+        this.thread = new Thread(this, "engine-shard-" + index);
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * метод, который возвращает поток шарда
+     * @return - поток
+     */
+    Thread getThread() {
+        return thread;
+    }
+
+    /**
+     * метод, который возвращает количество завершенных шардом переводов (проведенных и отклоненных)
+     * @return - количество переводов
+     */
+    long getCompleted() {
+        return completed;
+    }
+
+    /**
+     * метод, который возвращает количество переводов, переданных шардом на второй шаг другому шарду
+     * @return - количество межшардовых переводов
+     */
+    long getHandedOff() {
+        return handedOff;
+    }
+
+    /**
+     * метод, который возвращает количество команд в кольце шарда
+     * @return - глубина очереди
+     */
+    int getQueueDepth() {
+        return ring.size();
+    }
+
+    /**
+     * метод, который ставит перевод от клиента в кольцо, дожидаясь места
+     * @param sender - отправитель
+     * @param recipient - получатель
+     * @param money - сумма перевода
+     * @param result - результат перевода
+     */
+    void submit(Account sender, Account recipient, BigDecimal money, CompletableFuture<TransferTransaction> result) {
+        long sequence = ring.claim();
+        ring.get(sequence).transfer(sender, recipient, money, result);
+        ring.publish(sequence);
+        wake();
+    }
+
+    /**
+     * метод, который будит поток шарда, если он уснул на пустом кольце
+     */
+    void wake() {
+        if (sleeping)
+            LockSupport.unpark(thread);
+    }
+
+    @Override
+    public void run() {
+        long next = 0;
+        int idle = 0;
+        while (true) {
+            int batch = 0;
+            while (batch < batchLimit && ring.isPublished(next)) {
+                Command command = ring.get(next);
+                handle(command);
+                command.clear();
+                next++;
+                batch++;
+            }
+            if (batch > 0)
+                ring.release(next);
+            commit();
+            sendDeferred();
+            if (batch > 0) {
+                idle = 0;
+                continue;
+            }
+            if (!deferred.isEmpty()) {
+                Thread.yield();
+                continue;
+            }
+            if (engine.isStopped())
+                return;
+            if (idle++ < spinLimit) {
+                Thread.onSpinWait();
+                continue;
+            }
+            sleeping = true;
+            if (!ring.isPublished(next) && !engine.isStopped())
+                LockSupport.park(this);
+            sleeping = false;
+            idle = 0;
+        }
+    }
+
+    private void handle(Command command) {
+        switch (command.type) {
+            case TRANSFER -> debit(command);
+            case CREDIT -> credit(command.transaction, command.result);
+            case REFUND -> refund(command.transaction, command.failure, command.result);
+        }
+    }
+
+    /**
+     * первый шаг: списание у отправителя. если получатель в этом же шарде, перевод проводится целиком,
+     * иначе зачисление передается шарду получателя
+     */
+    private void debit(Command command) {
+        try {
+            command.sender.withdrawMoney(command.money);
+        } catch (RuntimeException e) {
+            fail(command.result, e);
+            return;
+        }
+        TransferTransaction transaction = new TransferTransaction(command.sender, command.recipient, command.money, LocalDateTime.now());
+        Shard target = engine.shardFor(command.recipient);
+        if (target == this) {
+            credit(transaction, command.result);
+            return;
+        }
+        handedOff++;
+        send(target, CommandType.CREDIT, transaction, null, command.result);
+    }
+
+    /**
+     * второй шаг: зачисление получателю. при отказе списанная сумма возвращается отправителю
+     * (через его шард, если он другой)
+     */
+    private void credit(TransferTransaction transaction, CompletableFuture<TransferTransaction> result) {
+        try {
+            transaction.getRecipient().updateMoney(transaction.getMoney());
+        } catch (RuntimeException e) {
+            Shard source = engine.shardFor(transaction.getSender());
+            if (source == this)
+                refund(transaction, e, result);
+            else
+                send(source, CommandType.REFUND, transaction, e, result);
+            return;
+        }
+        applied.add(transaction);
+        waiting.add(result);
+    }
+
+    private void refund(TransferTransaction transaction, RuntimeException failure, CompletableFuture<TransferTransaction> result) {
+        try {
+            transaction.getSender().updateMoney(transaction.getMoney());
+        } catch (RuntimeException e) {
+            failure.addSuppressed(e);
+        }
+        fail(result, failure);
+    }
+
+    private void fail(CompletableFuture<TransferTransaction> result, RuntimeException failure) {
+        result.completeExceptionally(failure);
+        completed++;
+    }
+
+    /**
+     * регистрирует переводы пачки в центральном банке одной записью и завершает их результаты
+     */
+    private void commit() {
+        if (applied.isEmpty())
+            return;
+        RuntimeException failure = null;
+        try {
+            centralBank.registerTransactions(applied);
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        for (int i = 0; i < applied.size(); i++) {
+            if (failure == null)
+                waiting.get(i).complete(applied.get(i));
+            else
+                waiting.get(i).completeExceptionally(failure);
+        }
+        completed += applied.size();
+        applied.clear();
+        waiting.clear();
+    }
+
+    private void send(Shard target, CommandType type, TransferTransaction transaction, RuntimeException failure, CompletableFuture<TransferTransaction> result) {
+        long sequence = deferred.isEmpty() ? target.ring.tryClaim() : -1;
+        if (sequence < 0) {
+            Command command = new Command();
+            command.handOff(type, transaction, failure, result);
+            deferred.addLast(command);
+            return;
+        }
+        target.ring.get(sequence).handOff(type, transaction, failure, result);
+        target.ring.publish(sequence);
+        target.wake();
+    }
+
+    private void sendDeferred() {
+        while (!deferred.isEmpty()) {
+            Command command = deferred.peekFirst();
+            Shard target = command.type == CommandType.CREDIT
+                    ? engine.shardFor(command.transaction.getRecipient())
+                    : engine.shardFor(command.transaction.getSender());
+            long sequence = target.ring.tryClaim();
+            if (sequence < 0)
+                return;
+            target.ring.get(sequence).copyFrom(deferred.pollFirst());
+            target.ring.publish(sequence);
+            target.wake();
+        }
+    }
+}
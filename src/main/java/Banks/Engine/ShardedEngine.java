@@ -0,0 +1,275 @@
+package Banks.Engine;
+
+import Banks.AccountTypes.Account;
+import Banks.BankSystem.CentralBank;
+import Banks.Tools.AccountException;
+import Banks.Tools.BankException;
+import Banks.Tools.TransactionException;
+import Banks.Transactions.TransferRequest;
+import Banks.Transactions.TransferTransaction;
+
+import java.io.Closeable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+/**
+ * движок переводов с одним писателем на шард. аккаунты делятся между шардами по id, у каждого шарда
+ * свое кольцо команд без блокировок и единственный поток, который меняет балансы его аккаунтов,
+ * поэтому переводы проводятся без блокировок аккаунтов, а шарды работают параллельно.
+ *
+ * перевод проходит стадии:
+ * 1. проверка (null, сумма меньше минимума, лимит отправителя) - в потоке, который отправляет перевод,
+ * то есть параллельно для разных отправителей (для пакета - параллельно по заявкам, см. transferAll);
+ * отклоненный перевод не попадает в кольцо
+ * 2. списание - в шарде отправителя; при нехватке денег перевод завершается отказом
+ * 3. зачисление - если получатель в том же шарде, сразу же, иначе шард отправителя передает команду
+ * зачисления в кольцо шарда получателя. если зачисление не удалось, шард получателя передает команду
+ * возврата обратно в шард отправителя, и сумма возвращается отправителю
+ *
+ * между шагами межшардового перевода деньги уже списаны у отправителя, но еще не зачислены получателю.
+ * проведенные переводы шард регистрирует в центральном банке пачками (см. CentralBank.registerTransactions),
+ * результат перевода завершается после регистрации. аккаунты, которые обслуживает движок, нужно
+ * менять только через него: блокировки CentralBank.transferMoney шард не берет
+ */
+public final class ShardedEngine implements Closeable {
+    private static final BigDecimal minMoney = BigDecimal.valueOf(0);
+    private static final long idleParkNanos = 100_000;
+    private static final long mixFirst = 0xff51afd7ed558ccdL;
+    private static final long mixSecond = 0xc4ceb9fe1a85ec53L;
+    private final Shard[] shards;
+    private final LongAdder submitted = new LongAdder();
+    private volatile boolean closed;
+    private volatile boolean stopped;
+
+    /**
+     * конструктор движка (потоки шардов запускаются сразу)
+     * @param shards - количество шардов
+     * @param capacity - емкость кольца каждого шарда (степень двойки)
+     * @throws BankException - исключение бросается если шардов меньше одного или емкость не степень двойки
+     */
+    public ShardedEngine(int shards, int capacity) throws BankException {
+        if (shards < 1 || capacity < 1 || Integer.bitCount(capacity) != 1)
+            throw BankException.InvalidEngineSettingsException();
+        CentralBank centralBank = CentralBank.getInstance();
+        this.shards = new Shard[shards];
+        for (int i = 0; i < shards; i++)
+            this.shards[i] = new Shard(i, this, centralBank, capacity);
+        for (Shard shard : this.shards)
+            shard.getThread().start();
+    }
+
+    /**
+     * метод, который возвращает количество шардов
+     * @return - количество шардов
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * метод, который возвращает номер шарда, владеющего аккаунтом
+     * @param account - аккаунт
+     * @return - номер шарда
+     * @throws BankException - исключение бросается если аккаунт null
+     */
+    public int shardOf(Account account) throws BankException {
+        if (account == null)
+            throw BankException.NullException();
+        return indexOf(account);
+    }
+
+    /**
+     * метод, который отправляет перевод в шард отправителя. перевод проверяется до постановки в кольцо,
+     * если в кольце нет места, метод ждет его
+     * @param money - сумма перевода
+     * @param sender - отправитель
+     * @param recipient - получатель
+     * @return - результат: проведенная транзакция или исключение отказа (например, не хватает денег)
+     * @throws TransactionException - исключение бросается если хотя бы один из параметров null
+     * @throws BankException - исключение бросается если сумма меньше минимума или движок закрыт
+     * @throws AccountException - исключение бросается если сумма больше верифицированного лимита
+     */
+    public CompletableFuture<TransferTransaction> transfer(BigDecimal money, Account sender, Account recipient) throws TransactionException, BankException, AccountException {
+        validate(money, sender, recipient);
+        return submit(money, sender, recipient);
+    }
+
+    /**
+     * метод, который отправляет пакет переводов. заявки проверяются параллельно, затем принятые
+     * ставятся в кольца в порядке пакета, поэтому заявки одного отправителя проводятся в порядке пакета
+     * @param requests - заявки на перевод
+     * @return - результаты в порядке заявок; отклоненные при проверке заявки завершены исключением
+     * @throws TransactionException - исключение бросается если список заявок null
+     * @throws BankException - исключение бросается если движок закрыт
+     */
+    public List<CompletableFuture<TransferTransaction>> transferAll(List<TransferRequest> requests) throws TransactionException, BankException {
+        if (requests == null)
+            throw TransactionException.NullException();
+        int size = requests.size();
+        RuntimeException[] failures = new RuntimeException[size];
+        IntStream.range(0, size).parallel().forEach(i -> {
+            TransferRequest request = requests.get(i);
+            try {
+                if (request == null)
+                    throw TransactionException.NullException();
+                validate(request.getMoney(), request.getSender(), request.getRecipient());
+            } catch (RuntimeException e) {
+                failures[i] = e;
+            }
+        });
+        ArrayList<CompletableFuture<TransferTransaction>> results = new ArrayList<CompletableFuture<TransferTransaction>>(size);
+        for (int i = 0; i < size; i++) {
+            TransferRequest request = requests.get(i);
+            if (failures[i] != null)
+                results.add(CompletableFuture.failedFuture(failures[i]));
+            else
+                results.add(submit(request.getMoney(), request.getSender(), request.getRecipient()));
+        }
+        return Collections.unmodifiableList(results);
+    }
+
+    /**
+     * метод, который возвращает количество принятых переводов
+     * @return - количество переводов
+     */
+    public long getSubmitted() {
+        return submitted.sum();
+    }
+
+    /**
+     * метод, который возвращает количество завершенных переводов (проведенных и отклоненных шардами)
+     * @return - количество переводов
+     */
+    public long getCompleted() {
+        long completed = 0;
+        for (Shard shard : shards)
+            completed += shard.getCompleted();
+        return completed;
+    }
+
+    /**
+     * метод, который возвращает количество переводов, проведенных в два шага между шардами
+     * @return - количество межшардовых переводов
+     */
+    public long getCrossShardTransfers() {
+        long handedOff = 0;
+        for (Shard shard : shards)
+            handedOff += shard.getHandedOff();
+        return handedOff;
+    }
+
+    /**
+     * метод, который возвращает количество команд, ждущих в кольцах
+     * @return - глубина очередей
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Shard shard : shards)
+            depth += shard.getQueueDepth();
+        return depth;
+    }
+
+    /**
+     * метод, который ждет, пока все принятые переводы будут завершены
+     * @param timeout - максимальное время ожидания
+     * @param unit - единица времени
+     * @return - true если все переводы завершены, false если время вышло
+     * @throws InterruptedException - если поток прерван
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (getCompleted() < submitted.sum()) {
+            if (System.nanoTime() - deadline >= 0)
+                return false;
+            LockSupport.parkNanos(idleParkNanos);
+            if (Thread.interrupted())
+                throw new InterruptedException();
+        }
+        return true;
+    }
+
+    /**
+     * метод, который закрывает движок: новые переводы не принимаются, уже принятые проводятся
+     * до конца (включая вторые шаги межшардовых переводов), после чего потоки шардов завершаются
+     */
+    @Override
+    public void close() {
+        closed = true;
+        while (getCompleted() < submitted.sum())
+            LockSupport.parkNanos(idleParkNanos);
+        stopped = true;
+        for (Shard shard : shards)
+            LockSupport.unpark(shard.getThread());
+        for (Shard shard : shards) {
+            try {
+                shard.getThread().join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * метод, который проверяет, остановлены ли шарды
+     * @return - true если потоки шардов должны завершиться
+     */
+    boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * метод, который возвращает шард, владеющий аккаунтом
+     * @param account - аккаунт
+     * @return - шард
+     */
+    Shard shardFor(Account account) {
+        return shards[indexOf(account)];
+    }
+
+    /**
+     * номер шарда по id аккаунта. UUID.hashCode не годится: у id, выданных одним потоком
+     * (см. TimeOrderedIdGenerator), младшие биты хеша совпадают, и все аккаунты попали бы в один шард,
+     * поэтому обе половины id перемешиваются финализатором murmur3 (сдвиги и умножения)
+     */
+    private int indexOf(Account account) {
+        UUID id = account.getId();
+        long mixed = id.getMostSignificantBits() ^ id.getLeastSignificantBits();
+        mixed = (mixed ^ (mixed >>> 33)) * mixFirst;
+        mixed = (mixed ^ (mixed >>> 33)) * mixSecond;
+        mixed ^= mixed >>> 33;
+        return (int) Long.remainderUnsigned(mixed, shards.length);
+    }
+
+    private void validate(BigDecimal money, Account sender, Account recipient) throws TransactionException, BankException, AccountException {
+        if (money == null || sender == null || recipient == null)
+            throw TransactionException.NullException();
+        if (money.compareTo(minMoney) < 0)
+            throw BankException.InvalidMoneyException();
+        if (money.compareTo(sender.getVerificationLimit()) > 0)
+            throw AccountException.InvalidLimitException();
+    }
+
+    /**
+     * ставит проверенный перевод в кольцо шарда отправителя. счетчик принятых переводов увеличивается
+     * до проверки закрытия, поэтому close либо увидит перевод и дождется его, либо перевод увидит закрытие
+     */
+    private CompletableFuture<TransferTransaction> submit(BigDecimal money, Account sender, Account recipient) throws BankException {
+        submitted.increment();
+        if (closed) {
+            submitted.decrement();
+            throw BankException.ClosedEngineException();
+        }
+        CompletableFuture<TransferTransaction> result = new CompletableFuture<TransferTransaction>();
+        shardFor(sender).submit(sender, recipient, money, result);
+        return result;
+    }
+}
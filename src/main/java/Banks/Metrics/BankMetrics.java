@@ -0,0 +1,131 @@
+package Banks.Metrics;
+
+import Banks.Tools.BankException;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+
+/**
+ * класс реестра метрик операций центрального банка, банков и аккаунтов. метрики пишутся в месте
+ * вызова операции, а читаются по запросу: снимком через snapshot или через JMX
+ * (объекты Banks:type=Operation,name=имя операции после registerMBeans)
+ */
+public final class BankMetrics {
+    /**
+     * домен JMX объектов метрик
+     */
+    public static final String jmxDomain = "Banks";
+    private static final BankMetrics instance = new BankMetrics();
+    private final EnumMap<MetricsOperation, OperationMetrics> operations = new EnumMap<MetricsOperation, OperationMetrics>(MetricsOperation.class);
+    private volatile boolean enabled = true;
+
+    private BankMetrics() {
+        for (MetricsOperation operation : MetricsOperation.values())
+            operations.put(operation, new OperationMetrics(operation));
+    }
+
+    /**
+     * метод, который возвращает реестр метрик
+     * @return - реестр метрик
+     */
+    public static BankMetrics getInstance() {
+        return instance;
+    }
+
+    /**
+     * метод, который возвращает метрики операции
+     * @param operation - операция
+     * @return - метрики операции
+     * @throws BankException - исключение бросается если операция null
+     */
+    public OperationMetrics operation(MetricsOperation operation) throws BankException {
+        if (operation == null)
+            throw BankException.NullException();
+        return operations.get(operation);
+    }
+
+    /**
+     * метод, который возвращает снимки метрик всех операций
+     * @return - снимки в порядке MetricsOperation
+     */
+    public List<OperationSnapshot> snapshot() {
+        ArrayList<OperationSnapshot> result = new ArrayList<OperationSnapshot>(operations.size());
+        for (OperationMetrics metrics : operations.values())
+            result.add(metrics.snapshot());
+        return result;
+    }
+
+    /**
+     * метод, который проверяет, записываются ли метрики
+     * @return - true если метрики записываются
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * метод, который включает или выключает запись метрик
+     * @param enabled - true если метрики нужно записывать
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * метод, который обнуляет метрики всех операций
+     */
+    public void reset() {
+        for (OperationMetrics metrics : operations.values())
+            metrics.reset();
+    }
+
+    /**
+     * метод, который регистрирует метрики операций в платформенном MBeanServer
+     * (повторная регистрация ничего не делает)
+     * @throws BankException - исключение бросается если JMX отказал в регистрации
+     */
+    public void registerMBeans() throws BankException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (OperationMetrics metrics : operations.values()) {
+                ObjectName name = objectName(metrics.getOperation());
+                if (!server.isRegistered(name))
+                    server.registerMBean(metrics, name);
+            }
+        } catch (JMException e) {
+            throw BankException.MetricsRegistrationException();
+        }
+    }
+
+    /**
+     * метод, который снимает метрики операций с регистрации в платформенном MBeanServer
+     * @throws BankException - исключение бросается если JMX отказал в снятии регистрации
+     */
+    public void unregisterMBeans() throws BankException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (OperationMetrics metrics : operations.values()) {
+                ObjectName name = objectName(metrics.getOperation());
+                if (server.isRegistered(name))
+                    server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            throw BankException.MetricsRegistrationException();
+        }
+    }
+
+    /**
+     * метод, который возвращает JMX имя объекта метрик операции
+     * @param operation - имя операции
+     * @return - имя объекта
+     * @throws JMException - если имя некорректно
+     */
+    public static ObjectName objectName(String operation) throws JMException {
+        return new ObjectName(jmxDomain + ":type=Operation,name=" + operation);
+    }
+}
@@ -0,0 +1,85 @@
+package Banks.Metrics;
+
+/**
+ * класс снимка гистограммы задержек
+ */
+public final class HistogramSnapshot {
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+    private final long p50Nanos;
+    private final long p99Nanos;
+    private final long p999Nanos;
+
+    /**
+     * конструктор снимка
+     * @param count - количество значений
+     * @param totalNanos - сумма значений в наносекундах
+     * @param maxNanos - максимум в наносекундах
+     * @param p50Nanos - медиана в наносекундах
+     * @param p99Nanos - 99-й перцентиль в наносекундах
+     * @param p999Nanos - 99.9-й перцентиль в наносекундах
+     */
+    public HistogramSnapshot(long count, long totalNanos, long maxNanos, long p50Nanos, long p99Nanos, long p999Nanos) {
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+        this.p50Nanos = p50Nanos;
+        this.p99Nanos = p99Nanos;
+        this.p999Nanos = p999Nanos;
+    }
+
+    /**
+     * метод, который возвращает количество значений
+     * @return - количество
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * метод, который возвращает среднее значение
+     * @return - среднее в наносекундах
+     */
+    public long getMeanNanos() {
+        return count == 0 ? 0 : totalNanos / count;
+    }
+
+    /**
+     * метод, который возвращает максимум
+     * @return - максимум в наносекундах
+     */
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * метод, который возвращает медиану
+     * @return - медиана в наносекундах
+     */
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+
+    /**
+     * метод, который возвращает 99-й перцентиль
+     * @return - перцентиль в наносекундах
+     */
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    /**
+     * метод, который возвращает 99.9-й перцентиль
+     * @return - перцентиль в наносекундах
+     */
+    public long getP999Nanos() {
+        return p999Nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count %d, mean %d ns, p50 %d ns, p99 %d ns, p999 %d ns, max %d ns",
+                count, getMeanNanos(), p50Nanos, p99Nanos, p999Nanos, maxNanos);
+    }
+}
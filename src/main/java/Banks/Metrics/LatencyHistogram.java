@@ -0,0 +1,137 @@
+package Banks.Metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * класс потокобезопасной гистограммы задержек без блокировок. значение в наносекундах попадает
+ * в корзину по старшему биту и следующим subBucketBits битам, а относительная ошибка перцентиля
+ * не больше 1/2^subBucketBits (около 3%). корзины, сумма и максимум разбиты на полосы (как ячейки LongAdder):
+ * поток пишет в полосу по своему id, поэтому параллельные записи не делят одну ячейку, а снимок
+ * складывает полосы. полоса создается при первой записи в нее, полос не больше, чем ядер (до maxStripes)
+ */
+public final class LatencyHistogram {
+    private static final int subBucketBits = 5;
+    private static final int subBuckets = 1 << subBucketBits;
+    private static final int bucketCount = (Long.SIZE - subBucketBits + 1) * subBuckets;
+    private static final int totalSlot = bucketCount;
+    private static final int maxSlot = bucketCount + 1;
+    private static final int maxStripes = 16;
+    private static final int stripesCount = Math.min(maxStripes, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+    private final AtomicReferenceArray<AtomicLongArray> stripes = new AtomicReferenceArray<AtomicLongArray>(stripesCount);
+
+    /**
+     * метод, который записывает задержку
+     * @param nanos - задержка в наносекундах (отрицательная считается нулем)
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        AtomicLongArray stripe = stripe();
+        stripe.incrementAndGet(index(value));
+        stripe.addAndGet(totalSlot, value);
+        long max = stripe.get(maxSlot);
+        while (value > max && !stripe.compareAndSet(maxSlot, max, value))
+            max = stripe.get(maxSlot);
+    }
+
+    /**
+     * метод, который прибавляет к гистограмме значения другой (например, гистограмм отдельных потоков)
+     * @param other - гистограмма
+     */
+    public void add(LatencyHistogram other) {
+        long[] counts = new long[maxSlot + 1];
+        other.collect(counts);
+        AtomicLongArray stripe = stripe();
+        for (int i = 0; i < maxSlot; i++) {
+            if (counts[i] != 0)
+                stripe.addAndGet(i, counts[i]);
+        }
+        long max = stripe.get(maxSlot);
+        while (counts[maxSlot] > max && !stripe.compareAndSet(maxSlot, max, counts[maxSlot]))
+            max = stripe.get(maxSlot);
+    }
+
+    /**
+     * метод, который возвращает снимок гистограммы. полосы и корзины читаются по одной, поэтому при
+     * параллельной записи снимок может не учесть часть последних значений
+     * @return - снимок
+     */
+    public HistogramSnapshot snapshot() {
+        long[] copy = new long[maxSlot + 1];
+        collect(copy);
+        long count = 0;
+        for (int i = 0; i < bucketCount; i++)
+            count += copy[i];
+        long max = copy[maxSlot];
+        return new HistogramSnapshot(count, copy[totalSlot], max,
+                percentile(copy, count, max, 50), percentile(copy, count, max, 99), percentile(copy, count, max, 99.9));
+    }
+
+    /**
+     * метод, который обнуляет гистограмму
+     */
+    public void reset() {
+        for (int s = 0; s < stripesCount; s++) {
+            AtomicLongArray stripe = stripes.get(s);
+            if (stripe == null)
+                continue;
+            for (int i = 0; i <= maxSlot; i++)
+                stripe.set(i, 0);
+        }
+    }
+
+    /**
+     * складывает полосы: корзины и сумму - сложением, максимум - выбором большего
+     */
+    private void collect(long[] into) {
+        for (int s = 0; s < stripesCount; s++) {
+            AtomicLongArray stripe = stripes.get(s);
+            if (stripe == null)
+                continue;
+            for (int i = 0; i < maxSlot; i++)
+                into[i] += stripe.get(i);
+            into[maxSlot] = Math.max(into[maxSlot], stripe.get(maxSlot));
+        }
+    }
+
+    /**
+     * полоса вызывающего потока (id потоков идут подряд, поэтому младшие биты распределяют их равномерно)
+     */
+    private AtomicLongArray stripe() {
+        int index = (int) Thread.currentThread().threadId() & (stripesCount - 1);
+        AtomicLongArray stripe = stripes.get(index);
+        if (stripe == null) {
+            stripes.compareAndSet(index, null, new AtomicLongArray(maxSlot + 1));
+            stripe = stripes.get(index);
+        }
+        return stripe;
+    }
+
+    private static long percentile(long[] counts, long total, long max, double percentile) {
+        if (total == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                return Math.min(max, upperBound(i));
+        }
+        return max;
+    }
+
+    private static int index(long value) {
+        if (value < subBuckets)
+            return (int) value;
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - subBucketBits;
+        return (shift + 1) * subBuckets + (int) (value >>> shift) - subBuckets;
+    }
+
+    private static long upperBound(int index) {
+        if (index < subBuckets)
+            return index;
+        int shift = index / subBuckets - 1;
+        long sub = index % subBuckets + subBuckets;
+        return ((sub + 1) << shift) - 1;
+    }
+}
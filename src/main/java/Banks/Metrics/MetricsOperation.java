@@ -0,0 +1,28 @@
+package Banks.Metrics;
+
+/**
+ * операции, для которых собираются метрики
+ */
+public enum MetricsOperation {
+    TRANSFER_MONEY("transferMoney"),
+    CANCEL_TRANSACTION("cancelTransaction"),
+    SIMULATE_DAYS("simulateDays"),
+    SIMULATE_ALL_DAYS("simulateAllDays"),
+    ADD_CLIENT("addClient"),
+    ADD_ACCOUNT("addAccount"),
+    NOTIFY("notify");
+
+    private final String metricName;
+
+    MetricsOperation(String metricName) {
+        this.metricName = metricName;
+    }
+
+    /**
+     * метод, который возвращает имя операции в метриках (совпадает с именем метода)
+     * @return - имя операции
+     */
+    public String getMetricName() {
+        return metricName;
+    }
+}
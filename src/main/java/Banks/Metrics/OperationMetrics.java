@@ -0,0 +1,141 @@
+package Banks.Metrics;
+
+import Banks.Tools.AccountException;
+import Banks.Tools.BankException;
+import Banks.Tools.ClientException;
+import Banks.Tools.TransactionException;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * класс метрик одной операции: гистограмма задержек и счетчики отказов по типам исключений.
+ * запись не берет блокировок (атомарный инкремент корзины и LongAdder), чтение идет через
+ * снимок или JMX и не мешает записи
+ */
+public final class OperationMetrics implements OperationMetricsMXBean {
+    private final MetricsOperation operation;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder accountFailures = new LongAdder();
+    private final LongAdder bankFailures = new LongAdder();
+    private final LongAdder transactionFailures = new LongAdder();
+    private final LongAdder clientFailures = new LongAdder();
+    private final LongAdder otherFailures = new LongAdder();
+
+    OperationMetrics(MetricsOperation operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * метод, который записывает время выполнения вызова
+     * @param startNanos - значение System.nanoTime() в начале вызова
+     */
+    public void record(long startNanos) {
+        if (BankMetrics.getInstance().isEnabled())
+            latency.record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * метод, который учитывает неудачный вызов по типу исключения
+     * @param exception - брошенное исключение
+     */
+    public void failed(RuntimeException exception) {
+        if (!BankMetrics.getInstance().isEnabled())
+            return;
+        if (exception instanceof AccountException)
+            accountFailures.increment();
+        else if (exception instanceof BankException)
+            bankFailures.increment();
+        else if (exception instanceof TransactionException)
+            transactionFailures.increment();
+        else if (exception instanceof ClientException)
+            clientFailures.increment();
+        else
+            otherFailures.increment();
+    }
+
+    /**
+     * метод, который возвращает снимок метрик операции
+     * @return - снимок
+     */
+    public OperationSnapshot snapshot() {
+        return new OperationSnapshot(operation, latency.snapshot(), accountFailures.sum(), bankFailures.sum(),
+                transactionFailures.sum(), clientFailures.sum(), otherFailures.sum());
+    }
+
+    /**
+     * метод, который обнуляет метрики операции
+     */
+    public void reset() {
+        latency.reset();
+        accountFailures.reset();
+        bankFailures.reset();
+        transactionFailures.reset();
+        clientFailures.reset();
+        otherFailures.reset();
+    }
+
+    @Override
+    public String getOperation() {
+        return operation.getMetricName();
+    }
+
+    @Override
+    public long getCount() {
+        return latency.snapshot().getCount();
+    }
+
+    @Override
+    public long getFailures() {
+        return accountFailures.sum() + bankFailures.sum() + transactionFailures.sum() + clientFailures.sum() + otherFailures.sum();
+    }
+
+    @Override
+    public long getAccountFailures() {
+        return accountFailures.sum();
+    }
+
+    @Override
+    public long getBankFailures() {
+        return bankFailures.sum();
+    }
+
+    @Override
+    public long getTransactionFailures() {
+        return transactionFailures.sum();
+    }
+
+    @Override
+    public long getClientFailures() {
+        return clientFailures.sum();
+    }
+
+    @Override
+    public long getOtherFailures() {
+        return otherFailures.sum();
+    }
+
+    @Override
+    public long getMeanNanos() {
+        return latency.snapshot().getMeanNanos();
+    }
+
+    @Override
+    public long getP50Nanos() {
+        return latency.snapshot().getP50Nanos();
+    }
+
+    @Override
+    public long getP99Nanos() {
+        return latency.snapshot().getP99Nanos();
+    }
+
+    @Override
+    public long getP999Nanos() {
+        return latency.snapshot().getP999Nanos();
+    }
+
+    @Override
+    public long getMaxNanos() {
+        return latency.snapshot().getMaxNanos();
+    }
+}
@@ -0,0 +1,84 @@
+package Banks.Metrics;
+
+/**
+ * JMX интерфейс метрик одной операции (атрибуты только для чтения)
+ */
+public interface OperationMetricsMXBean {
+    /**
+     * метод, который возвращает имя операции
+     * @return - имя операции
+     */
+    String getOperation();
+
+    /**
+     * метод, который возвращает количество вызовов (включая неудачные)
+     * @return - количество вызовов
+     */
+    long getCount();
+
+    /**
+     * метод, который возвращает количество неудачных вызовов
+     * @return - количество отказов
+     */
+    long getFailures();
+
+    /**
+     * метод, который возвращает количество отказов с AccountException
+     * @return - количество отказов
+     */
+    long getAccountFailures();
+
+    /**
+     * метод, который возвращает количество отказов с BankException
+     * @return - количество отказов
+     */
+    long getBankFailures();
+
+    /**
+     * метод, который возвращает количество отказов с TransactionException
+     * @return - количество отказов
+     */
+    long getTransactionFailures();
+
+    /**
+     * метод, который возвращает количество отказов с ClientException
+     * @return - количество отказов
+     */
+    long getClientFailures();
+
+    /**
+     * метод, который возвращает количество отказов с остальными исключениями
+     * @return - количество отказов
+     */
+    long getOtherFailures();
+
+    /**
+     * метод, который возвращает среднюю задержку
+     * @return - задержка в наносекундах
+     */
+    long getMeanNanos();
+
+    /**
+     * метод, который возвращает медиану задержки
+     * @return - задержка в наносекундах
+     */
+    long getP50Nanos();
+
+    /**
+     * метод, который возвращает 99-й перцентиль задержки
+     * @return - задержка в наносекундах
+     */
+    long getP99Nanos();
+
+    /**
+     * метод, который возвращает 99.9-й перцентиль задержки
+     * @return - задержка в наносекундах
+     */
+    long getP999Nanos();
+
+    /**
+     * метод, который возвращает максимальную задержку
+     * @return - задержка в наносекундах
+     */
+    long getMaxNanos();
+}
@@ -0,0 +1,114 @@
+package Banks.Metrics;
+
+/**
+ * класс снимка метрик одной операции
+ */
+public final class OperationSnapshot {
+    private final MetricsOperation operation;
+    private final HistogramSnapshot latency;
+    private final long accountFailures;
+    private final long bankFailures;
+    private final long transactionFailures;
+    private final long clientFailures;
+    private final long otherFailures;
+
+    /**
+     * конструктор снимка
+     * @param operation - операция
+     * @param latency - снимок гистограммы задержек
+     * @param accountFailures - отказов с AccountException
+     * @param bankFailures - отказов с BankException
+     * @param transactionFailures - отказов с TransactionException
+     * @param clientFailures - отказов с ClientException
+     * @param otherFailures - отказов с остальными исключениями
+     */
+    public OperationSnapshot(MetricsOperation operation, HistogramSnapshot latency, long accountFailures, long bankFailures,
+                             long transactionFailures, long clientFailures, long otherFailures) {
+        this.operation = operation;
+        this.latency = latency;
+        this.accountFailures = accountFailures;
+        this.bankFailures = bankFailures;
+        this.transactionFailures = transactionFailures;
+        this.clientFailures = clientFailures;
+        this.otherFailures = otherFailures;
+    }
+
+    /**
+     * метод, который возвращает операцию
+     * @return - операция
+     */
+    public MetricsOperation getOperation() {
+        return operation;
+    }
+
+    /**
+     * метод, который возвращает снимок задержек
+     * @return - снимок гистограммы
+     */
+    public HistogramSnapshot getLatency() {
+        return latency;
+    }
+
+    /**
+     * метод, который возвращает количество вызовов (включая неудачные)
+     * @return - количество вызовов
+     */
+    public long getCount() {
+        return latency.getCount();
+    }
+
+    /**
+     * метод, который возвращает количество неудачных вызовов
+     * @return - количество отказов
+     */
+    public long getFailures() {
+        return accountFailures + bankFailures + transactionFailures + clientFailures + otherFailures;
+    }
+
+    /**
+     * метод, который возвращает количество отказов с AccountException
+     * @return - количество отказов
+     */
+    public long getAccountFailures() {
+        return accountFailures;
+    }
+
+    /**
+     * метод, который возвращает количество отказов с BankException
+     * @return - количество отказов
+     */
+    public long getBankFailures() {
+        return bankFailures;
+    }
+
+    /**
+     * метод, который возвращает количество отказов с TransactionException
+     * @return - количество отказов
+     */
+    public long getTransactionFailures() {
+        return transactionFailures;
+    }
+
+    /**
+     * метод, который возвращает количество отказов с ClientException
+     * @return - количество отказов
+     */
+    public long getClientFailures() {
+        return clientFailures;
+    }
+
+    /**
+     * метод, который возвращает количество отказов с остальными исключениями
+     * @return - количество отказов
+     */
+    public long getOtherFailures() {
+        return otherFailures;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %s, failures %d (account %d, bank %d, transaction %d, client %d, other %d)",
+                operation.getMetricName(), latency, getFailures(), accountFailures, bankFailures,
+                transactionFailures, clientFailures, otherFailures);
+    }
+}
@@ -0,0 +1,20 @@
+package Banks.Observer;
+
+/**
+ * политика рассылки уведомлений при заполненной очереди
+ */
+public enum BackPressurePolicy {
+    /**
+     * отправитель ждет, пока в очереди освободится место
+     */
+    BLOCK,
+    /**
+     * из очереди выбрасывается самое старое недоставленное уведомление
+     */
+    DROP_OLDEST,
+    /**
+     * недоставленное уведомление с тем же ключом заменяется новым (доставляется только последнее значение),
+     * уведомление с новым ключом при заполненной очереди ждет, как при BLOCK
+     */
+    COALESCE
+}
@@ -0,0 +1,284 @@
+package Banks.Observer;
+
+import Banks.Tools.BankException;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * класс асинхронной рассылки уведомлений наблюдателям через ограниченные очереди.
+ * уведомления делятся между полосами по ключу (у каждой полосы своя очередь и свой рабочий поток),
+ * поэтому уведомления с одним ключом доставляются в порядке отправки, а разные ключи - параллельно.
+ * отправитель ждет только постановки в очередь, а не обхода всех наблюдателей; при заполненной
+ * очереди поведение задает BackPressurePolicy
+ */
+public final class NotificationDispatcher implements Closeable {
+    private final Lane[] lanes;
+    private final BackPressurePolicy policy;
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong deliveries = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong latencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+    private final ReentrantLock idleLock = new ReentrantLock();
+    private final Condition idle = idleLock.newCondition();
+    private long pending;
+    private volatile boolean closed;
+
+    /**
+     * конструктор рассылки
+     * @param capacity - емкость очереди каждой полосы
+     * @param workers - количество полос (рабочих потоков)
+     * @param policy - политика при заполненной очереди
+     * @throws BankException - исключение бросается если политика null или емкость или число потоков меньше единицы
+     */
+    public NotificationDispatcher(int capacity, int workers, BackPressurePolicy policy) throws BankException {
+        if (policy == null)
+            throw BankException.NullException();
+        if (capacity < 1 || workers < 1)
+            throw BankException.InvalidDispatcherSettingsException();
+        this.policy = policy;
+        this.lanes = new Lane[workers];
+        for (int i = 0; i < workers; i++) {
+            lanes[i] = new Lane(capacity);
+            Thread worker = new Thread(lanes[i]::run, "notification-worker-" + i);
+            worker.setDaemon(true);
+            lanes[i].worker = worker;
+            worker.start();
+        }
+    }
+
+    /**
+     * метод, который возвращает политику при заполненной очереди
+     * @return - политика
+     */
+    public BackPressurePolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * метод, который ставит событие в очередь (ключ события - банк и настройка).
+     * наблюдатели обходятся при доставке через итератор, полученный при отправке
+     * (для CopyOnWriteArrayList это снимок списка на момент отправки)
+     * @param event - событие
+     * @param observers - наблюдатели
+     * @throws BankException - исключение бросается если параметры null или рассылка закрыта
+     */
+    public void submit(SettingsEvent event, Iterable<? extends Observer> observers) throws BankException {
+        if (event == null || observers == null)
+            throw BankException.NullException();
+        String key = event.getKey();
+        lanes[Math.floorMod(key.hashCode(), lanes.length)].offer(key, event, observers.iterator());
+    }
+
+    /**
+     * метод, который возвращает количество уведомлений, ждущих в очередях
+     * @return - глубина очередей
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Lane lane : lanes)
+            depth += lane.size();
+        return depth;
+    }
+
+    /**
+     * метод, который возвращает снимок метрик рассылки
+     * @return - метрики
+     */
+    public NotificationMetrics getMetrics() {
+        return new NotificationMetrics(getQueueDepth(), submitted.get(), delivered.get(), deliveries.get(),
+                dropped.get(), coalesced.get(), failures.get(), latencyNanos.get(), maxLatencyNanos.get());
+    }
+
+    /**
+     * метод, который ждет, пока все поставленные уведомления будут доставлены или выброшены
+     * @param timeout - максимальное время ожидания
+     * @param unit - единица времени
+     * @return - true если очереди опустели, false если время вышло
+     * @throws InterruptedException - если поток прерван
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        idleLock.lock();
+        try {
+            while (pending > 0) {
+                if (nanos <= 0)
+                    return false;
+                nanos = idle.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            idleLock.unlock();
+        }
+    }
+
+    /**
+     * метод, который закрывает рассылку: новые уведомления не принимаются,
+     * уже поставленные доставляются, после чего рабочие потоки завершаются
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Lane lane : lanes)
+            lane.wake();
+        for (Lane lane : lanes) {
+            try {
+                lane.worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void changePending(long delta) {
+        idleLock.lock();
+        try {
+            pending += delta;
+            if (pending == 0)
+                idle.signalAll();
+        } finally {
+            idleLock.unlock();
+        }
+    }
+
+    private void deliver(Queued queued) {
+        while (queued.observers.hasNext()) {
+            try {
+                queued.observers.next().update(queued.event);
+                deliveries.incrementAndGet();
+            } catch (RuntimeException e) {
+                failures.incrementAndGet();
+            }
+        }
+        long latency = System.nanoTime() - queued.enqueuedAt;
+        latencyNanos.addAndGet(latency);
+        maxLatencyNanos.accumulateAndGet(latency, Math::max);
+        delivered.incrementAndGet();
+        changePending(-1);
+    }
+
+    /**
+     * уведомление в очереди (событие и наблюдатели заменяются при слиянии)
+     */
+    private static final class Queued {
+        private final String key;
+        private final long enqueuedAt = System.nanoTime();
+        private SettingsEvent event;
+        private Iterator<? extends Observer> observers;
+
+        private Queued(String key, SettingsEvent event, Iterator<? extends Observer> observers) {
+            this.key = key;
+            this.event = event;
+            this.observers = observers;
+        }
+    }
+
+    /**
+     * полоса рассылки: ограниченная очередь и рабочий поток, который ее разбирает
+     */
+    private final class Lane {
+        private final int capacity;
+        private final ArrayDeque<Queued> queue;
+        private final HashMap<String, Queued> queuedByKey = new HashMap<String, Queued>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final Condition notFull = lock.newCondition();
+        private Thread worker;
+
+        private Lane(int capacity) {
+            this.capacity = capacity;
+            this.queue = new ArrayDeque<Queued>(capacity);
+        }
+
+        /**
+         * ставит уведомление в очередь полосы. закрытие проверяется под блокировкой полосы: рабочий поток
+         * завершается только под ней же, увидев закрытие и пустую очередь, поэтому уведомление либо
+         * попадает в очередь до его выхода и будет доставлено, либо отклоняется
+         */
+        private void offer(String key, SettingsEvent event, Iterator<? extends Observer> observers) {
+            lock.lock();
+            try {
+                if (closed)
+                    throw BankException.ClosedDispatcherException();
+                submitted.incrementAndGet();
+                if (policy == BackPressurePolicy.COALESCE) {
+                    Queued waiting = queuedByKey.get(key);
+                    if (waiting != null) {
+                        waiting.event = event;
+                        waiting.observers = observers;
+                        coalesced.incrementAndGet();
+                        return;
+                    }
+                }
+                if (queue.size() == capacity && policy == BackPressurePolicy.DROP_OLDEST) {
+                    Queued oldest = queue.pollFirst();
+                    queuedByKey.remove(oldest.key, oldest);
+                    dropped.incrementAndGet();
+                    changePending(-1);
+                }
+                while (queue.size() == capacity) {
+                    if (closed)
+                        throw BankException.ClosedDispatcherException();
+                    notFull.awaitUninterruptibly();
+                }
+                Queued queued = new Queued(key, event, observers);
+                changePending(1);
+                queue.addLast(queued);
+                queuedByKey.put(key, queued);
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int size() {
+            lock.lock();
+            try {
+                return queue.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void wake() {
+            lock.lock();
+            try {
+                notEmpty.signalAll();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void run() {
+            while (true) {
+                Queued queued;
+                lock.lock();
+                try {
+                    while (queue.isEmpty()) {
+                        if (closed)
+                            return;
+                        notEmpty.awaitUninterruptibly();
+                    }
+                    queued = queue.pollFirst();
+                    queuedByKey.remove(queued.key, queued);
+                    notFull.signal();
+                } finally {
+                    lock.unlock();
+                }
+                deliver(queued);
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package Banks.Observer;
+
+/**
+ * класс снимка метрик рассылки уведомлений
+ */
+public class NotificationMetrics {
+    private final int queueDepth;
+    private final long submitted;
+    private final long delivered;
+    private final long deliveries;
+    private final long dropped;
+    private final long coalesced;
+    private final long failures;
+    private final long totalLatencyNanos;
+    private final long maxLatencyNanos;
+
+    /**
+     * конструктор снимка метрик
+     * @param queueDepth - уведомлений в очередях
+     * @param submitted - отправлено уведомлений
+     * @param delivered - доставлено уведомлений (всем наблюдателям)
+     * @param deliveries - вызовов update у наблюдателей
+     * @param dropped - выброшено уведомлений при переполнении
+     * @param coalesced - уведомлений, слитых с ждущим уведомлением того же ключа
+     * @param failures - исключений, брошенных наблюдателями
+     * @param totalLatencyNanos - суммарная задержка доставки в наносекундах
+     * @param maxLatencyNanos - максимальная задержка доставки в наносекундах
+     */
+    public NotificationMetrics(int queueDepth, long submitted, long delivered, long deliveries, long dropped,
+                               long coalesced, long failures, long totalLatencyNanos, long maxLatencyNanos) {
+        this.queueDepth = queueDepth;
+        this.submitted = submitted;
+        this.delivered = delivered;
+        this.deliveries = deliveries;
+        this.dropped = dropped;
+        this.coalesced = coalesced;
+        this.failures = failures;
+        this.totalLatencyNanos = totalLatencyNanos;
+        this.maxLatencyNanos = maxLatencyNanos;
+    }
+
+    /**
+     * метод, который возвращает количество уведомлений в очередях
+     * @return - глубина очередей
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * метод, который возвращает количество отправленных уведомлений
+     * @return - количество уведомлений
+     */
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    /**
+     * метод, который возвращает количество доставленных уведомлений
+     * @return - количество уведомлений
+     */
+    public long getDelivered() {
+        return delivered;
+    }
+
+    /**
+     * метод, который возвращает количество вызовов update у наблюдателей
+     * @return - количество вызовов
+     */
+    public long getDeliveries() {
+        return deliveries;
+    }
+
+    /**
+     * метод, который возвращает количество выброшенных уведомлений
+     * @return - количество уведомлений
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * метод, который возвращает количество слитых уведомлений
+     * @return - количество уведомлений
+     */
+    public long getCoalesced() {
+        return coalesced;
+    }
+
+    /**
+     * метод, который возвращает количество исключений наблюдателей
+     * @return - количество исключений
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    /**
+     * метод, который возвращает среднюю задержку от постановки в очередь до доставки последнему наблюдателю
+     * @return - задержка в наносекундах
+     */
+    public long getAverageLatencyNanos() {
+        return delivered == 0 ? 0 : totalLatencyNanos / delivered;
+    }
+
+    /**
+     * метод, который возвращает максимальную задержку доставки
+     * @return - задержка в наносекундах
+     */
+    public long getMaxLatencyNanos() {
+        return maxLatencyNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("depth %d, submitted %d, delivered %d (%d updates), dropped %d, coalesced %d, failures %d, latency avg %.3f ms max %.3f ms",
+                queueDepth, submitted, delivered, deliveries, dropped, coalesced, failures,
+                getAverageLatencyNanos() / 1_000_000.0, maxLatencyNanos / 1_000_000.0);
+    }
+}
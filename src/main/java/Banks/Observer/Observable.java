@@ -24,4 +24,10 @@ public interface Observable {
      * @param newLimit - изменения
      */
     void notify(String message, BigDecimal newLimit);
+
+    /**
+     * метод, который рассылает наблюдателям готовое событие (например, изменение всей таблицы ставок одним событием)
+     * @param event - событие
+     */
+    void notify(SettingsEvent event);
 }
@@ -12,4 +12,16 @@ public interface Observer {
      * @throws ClientException - исключение, которое бросается если уведомление null
      */
     void update(String message) throws ClientException;
+
+    /**
+     * метод, который принимает событие об изменении настройки банка.
+     * по умолчанию передает текст события в update(String)
+     * @param event - событие
+     * @throws ClientException - исключение, которое бросается если событие null
+     */
+    default void update(SettingsEvent event) throws ClientException {
+        if (event == null)
+            throw ClientException.NullException();
+        update(event.getMessage());
+    }
 }
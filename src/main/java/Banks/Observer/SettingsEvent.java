@@ -0,0 +1,148 @@
+package Banks.Observer;
+
+import Banks.Tools.BankException;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * класс неизменяемого события об изменении настройки банка. событие создается один раз на изменение
+ * и передается всем наблюдателям по ссылке, текст уведомления собирается только при чтении.
+ * настройка из нескольких значений (таблица депозитных ставок) меняется одним событием со всеми значениями,
+ * событие несет версию настроек банка, которую оно объявляет (0, если версия неизвестна)
+ */
+public final class SettingsEvent {
+    private final UUID bankId;
+    private final String setting;
+    private final BigDecimal value;
+    private final List<BigDecimal> values;
+    private final long settingsVersion;
+    private final long epochMillis;
+
+    /**
+     * конструктор события
+     * @param bankId - id банка (может быть null, если источник не банк)
+     * @param setting - название настройки
+     * @param value - новое значение
+     * @throws BankException - исключение бросается если название настройки null
+     */
+    public SettingsEvent(UUID bankId, String setting, BigDecimal value) throws BankException {
+        this(bankId, setting, value, 0);
+    }
+
+    /**
+     * конструктор события об изменении одного значения
+     * @param bankId - id банка (может быть null, если источник не банк)
+     * @param setting - название настройки
+     * @param value - новое значение
+     * @param settingsVersion - версия настроек, в которой появилось значение
+     * @throws BankException - исключение бросается если название настройки null
+     */
+    public SettingsEvent(UUID bankId, String setting, BigDecimal value, long settingsVersion) throws BankException {
+        this(bankId, setting, value, value == null ? List.of() : List.of(value), settingsVersion);
+    }
+
+    /**
+     * конструктор события об изменении настройки из нескольких значений (одно событие на всю таблицу)
+     * @param bankId - id банка (может быть null, если источник не банк)
+     * @param setting - название настройки
+     * @param values - новые значения
+     * @param settingsVersion - версия настроек, в которой появились значения
+     * @throws BankException - исключение бросается если название настройки или значения null
+     */
+    public SettingsEvent(UUID bankId, String setting, List<BigDecimal> values, long settingsVersion) throws BankException {
+        this(bankId, setting, null, copyOf(values), settingsVersion);
+    }
+
+    private SettingsEvent(UUID bankId, String setting, BigDecimal value, List<BigDecimal> values, long settingsVersion) throws BankException {
+        if (setting == null)
+            throw BankException.NullException();
+        this.bankId = bankId;
+        this.setting = setting;
+        this.value = value;
+        this.values = values;
+        this.settingsVersion = settingsVersion;
+        this.epochMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * метод, который возвращает id банка
+     * @return - id банка
+     */
+    public UUID getBankId() {
+        return bankId;
+    }
+
+    /**
+     * метод, который возвращает название настройки
+     * @return - название настройки
+     */
+    public String getSetting() {
+        return setting;
+    }
+
+    /**
+     * метод, который возвращает новое значение настройки
+     * @return - значение (null, если событие несет несколько значений)
+     */
+    public BigDecimal getValue() {
+        return value;
+    }
+
+    /**
+     * метод, который возвращает все новые значения настройки
+     * @return - неизменяемый список значений (для одного значения - список из него)
+     */
+    public List<BigDecimal> getValues() {
+        return values;
+    }
+
+    /**
+     * метод, который возвращает версию настроек банка, которую объявляет событие
+     * @return - версия настроек или 0, если она неизвестна
+     */
+    public long getSettingsVersion() {
+        return settingsVersion;
+    }
+
+    /**
+     * метод, который возвращает время изменения
+     * @return - миллисекунды от 1970-01-01T00:00 UTC
+     */
+    public long getEpochMillis() {
+        return epochMillis;
+    }
+
+    /**
+     * метод, который возвращает ключ события для рассылки (банк и настройка)
+     * @return - ключ
+     */
+    public String getKey() {
+        return bankId + ":" + setting;
+    }
+
+    /**
+     * метод, который собирает текст уведомления
+     * @return - текст вида "Banks setting: настройка - updated to значение"
+     * (для нескольких значений - "updated to [значение, ...]")
+     */
+    public String getMessage() {
+        return "Banks setting: " + setting + " - updated to " + (value != null || values.isEmpty() ? value : values);
+    }
+
+    private static List<BigDecimal> copyOf(List<BigDecimal> values) throws BankException {
+        if (values == null)
+            throw BankException.NullException();
+        for (BigDecimal item : values) {
+            if (item == null)
+                throw BankException.NullException();
+        }
+        return List.copyOf(values);
+    }
+
+    @Override
+    public String toString() {
+        return getMessage();
+    }
+}
@@ -0,0 +1,62 @@
+package Banks.Persistence;
+
+/**
+ * класс позиции в журнале: номер сегмента и смещение внутри сегмента
+ */
+public final class JournalPosition implements Comparable<JournalPosition> {
+    /**
+     * позиция начала журнала
+     */
+    public static final JournalPosition START = new JournalPosition(0, 0);
+    private final long segment;
+    private final int offset;
+
+    /**
+     * конструктор позиции
+     * @param segment - номер сегмента
+     * @param offset - смещение в сегменте в байтах
+     */
+    public JournalPosition(long segment, int offset) {
+        this.segment = segment;
+        this.offset = offset;
+    }
+
+    /**
+     * метод, который возвращает номер сегмента
+     * @return - номер сегмента
+     */
+    public long getSegment() {
+        return segment;
+    }
+
+    /**
+     * метод, который возвращает смещение в сегменте
+     * @return - смещение в байтах
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    @Override
+    public int compareTo(JournalPosition other) {
+        int bySegment = Long.compare(segment, other.segment);
+        return bySegment != 0 ? bySegment : Integer.compare(offset, other.offset);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof JournalPosition position))
+            return false;
+        return segment == position.segment && offset == position.offset;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(segment) * 31 + offset;
+    }
+
+    @Override
+    public String toString() {
+        return segment + ":" + offset;
+    }
+}
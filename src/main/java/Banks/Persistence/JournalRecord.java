@@ -0,0 +1,219 @@
+package Banks.Persistence;
+
+import Banks.Tools.JournalException;
+import Banks.Tools.MoneyUnits;
+import Banks.Tools.TransactionException;
+import Banks.Transactions.Transaction;
+import Banks.Transactions.TransferTransaction;
+import Banks.Transactions.UpdateTransaction;
+import Banks.Transactions.WithdrawTransaction;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+/**
+ * класс записи журнала транзакций. в двоичном виде запись содержит только примитивы:
+ * тип (1 байт), id транзакции (16), время в микросекундах (8), а для транзакций еще
+ * сумму в минимальных единицах (8), id отправителя (16) и для перевода id получателя (16).
+ * время транзакции хранится с точностью до микросекунды как время UTC
+ */
+public final class JournalRecord {
+    private static final int idBytes = Long.BYTES * 2;
+    private final JournalRecordType type;
+    private final UUID transactionId;
+    private final long epochMicros;
+    private final long amountUnits;
+    private final UUID senderId;
+    private final UUID recipientId;
+
+    /**
+     * конструктор записи
+     * @param type - тип записи
+     * @param transactionId - id транзакции
+     * @param epochMicros - время в микросекундах от 1970-01-01T00:00 UTC
+     * @param amountUnits - сумма в минимальных единицах (0 для отмены)
+     * @param senderId - id аккаунта отправителя (null для отмены)
+     * @param recipientId - id аккаунта получателя (только для перевода)
+     * @throws JournalException - исключение бросается если тип или id транзакции null
+     */
+    public JournalRecord(JournalRecordType type, UUID transactionId, long epochMicros, long amountUnits, UUID senderId, UUID recipientId) throws JournalException {
+        if (type == null || transactionId == null)
+            throw JournalException.NullException();
+        if (type != JournalRecordType.CANCEL && senderId == null)
+            throw JournalException.NullException();
+        if (type == JournalRecordType.TRANSFER && recipientId == null)
+            throw JournalException.NullException();
+        this.type = type;
+        this.transactionId = transactionId;
+        this.epochMicros = epochMicros;
+        this.amountUnits = amountUnits;
+        this.senderId = senderId;
+        this.recipientId = recipientId;
+    }
+
+    /**
+     * метод, который создает запись о транзакции
+     * @param transaction - транзакция
+     * @return - запись журнала
+     * @throws TransactionException - исключение бросается если транзакция null или неизвестного типа
+     */
+    public static JournalRecord of(Transaction transaction) throws TransactionException {
+        if (transaction == null)
+            throw TransactionException.NullException();
+        JournalRecordType type;
+        UUID recipientId = null;
+        if (transaction instanceof TransferTransaction transfer) {
+            type = JournalRecordType.TRANSFER;
+            recipientId = transfer.getRecipient().getId();
+        } else if (transaction instanceof UpdateTransaction) {
+            type = JournalRecordType.UPDATE;
+        } else if (transaction instanceof WithdrawTransaction) {
+            type = JournalRecordType.WITHDRAW;
+        } else {
+            throw TransactionException.InvalidTransactionFindException();
+        }
+        return new JournalRecord(type, transaction.getId(), toEpochMicros(transaction.getTransactionTime()),
+                MoneyUnits.toUnits(transaction.getMoney()), transaction.getSender().getId(), recipientId);
+    }
+
+    /**
+     * метод, который создает запись об отмене транзакции
+     * @param transaction - отмененная транзакция
+     * @param time - время отмены
+     * @return - запись журнала
+     * @throws TransactionException - исключение бросается если параметры null
+     */
+    public static JournalRecord cancellation(Transaction transaction, LocalDateTime time) throws TransactionException {
+        if (transaction == null || time == null)
+            throw TransactionException.NullException();
+        return new JournalRecord(JournalRecordType.CANCEL, transaction.getId(), toEpochMicros(time), 0, null, null);
+    }
+
+    /**
+     * метод, который возвращает тип записи
+     * @return - тип записи
+     */
+    public JournalRecordType getType() {
+        return type;
+    }
+
+    /**
+     * метод, который возвращает id транзакции
+     * @return - id транзакции
+     */
+    public UUID getTransactionId() {
+        return transactionId;
+    }
+
+    /**
+     * метод, который возвращает время записи в микросекундах UTC
+     * @return - время в микросекундах
+     */
+    public long getEpochMicros() {
+        return epochMicros;
+    }
+
+    /**
+     * метод, который возвращает время записи
+     * @return - время
+     */
+    public LocalDateTime getTime() {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMicros, 1_000_000L),
+                (int) Math.floorMod(epochMicros, 1_000_000L) * 1000, ZoneOffset.UTC);
+    }
+
+    /**
+     * метод, который возвращает сумму в минимальных единицах
+     * @return - сумма в копейках
+     */
+    public long getAmountUnits() {
+        return amountUnits;
+    }
+
+    /**
+     * метод, который возвращает id аккаунта отправителя
+     * @return - id отправителя или null для отмены
+     */
+    public UUID getSenderId() {
+        return senderId;
+    }
+
+    /**
+     * метод, который возвращает id аккаунта получателя
+     * @return - id получателя или null, если запись не о переводе
+     */
+    public UUID getRecipientId() {
+        return recipientId;
+    }
+
+    /**
+     * метод, который переводит время в микросекунды UTC
+     * @param time - время
+     * @return - микросекунды от 1970-01-01T00:00
+     */
+    public static long toEpochMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1000;
+    }
+
+    /**
+     * метод, который возвращает размер записи в байтах
+     * @return - размер в двоичном виде
+     */
+    int encodedSize() {
+        int size = 1 + idBytes + Long.BYTES;
+        if (type != JournalRecordType.CANCEL)
+            size += Long.BYTES + idBytes;
+        if (type == JournalRecordType.TRANSFER)
+            size += idBytes;
+        return size;
+    }
+
+    /**
+     * метод, который записывает запись в буфер
+     * @param buffer - буфер
+     */
+    void writeTo(ByteBuffer buffer) {
+        buffer.put((byte) type.ordinal());
+        writeId(buffer, transactionId);
+        buffer.putLong(epochMicros);
+        if (type == JournalRecordType.CANCEL)
+            return;
+        buffer.putLong(amountUnits);
+        writeId(buffer, senderId);
+        if (type == JournalRecordType.TRANSFER)
+            writeId(buffer, recipientId);
+    }
+
+    /**
+     * метод, который читает запись из буфера
+     * @param buffer - буфер, стоящий на начале записи
+     * @return - запись журнала
+     * @throws JournalException - исключение бросается если тип записи неизвестен
+     */
+    static JournalRecord readFrom(ByteBuffer buffer) throws JournalException {
+        int ordinal = buffer.get();
+        JournalRecordType[] types = JournalRecordType.values();
+        if (ordinal < 0 || ordinal >= types.length)
+            throw JournalException.CorruptedException();
+        JournalRecordType type = types[ordinal];
+        UUID transactionId = readId(buffer);
+        long epochMicros = buffer.getLong();
+        if (type == JournalRecordType.CANCEL)
+            return new JournalRecord(type, transactionId, epochMicros, 0, null, null);
+        long amountUnits = buffer.getLong();
+        UUID senderId = readId(buffer);
+        UUID recipientId = type == JournalRecordType.TRANSFER ? readId(buffer) : null;
+        return new JournalRecord(type, transactionId, epochMicros, amountUnits, senderId, recipientId);
+    }
+
+    private static void writeId(ByteBuffer buffer, UUID id) {
+        buffer.putLong(id.getMostSignificantBits());
+        buffer.putLong(id.getLeastSignificantBits());
+    }
+
+    private static UUID readId(ByteBuffer buffer) {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
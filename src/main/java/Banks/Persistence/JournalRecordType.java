@@ -0,0 +1,23 @@
+package Banks.Persistence;
+
+/**
+ * тип записи журнала
+ */
+public enum JournalRecordType {
+    /**
+     * перевод между счетами (TransferTransaction)
+     */
+    TRANSFER,
+    /**
+     * пополнение счета (UpdateTransaction)
+     */
+    UPDATE,
+    /**
+     * снятие со счета (WithdrawTransaction)
+     */
+    WITHDRAW,
+    /**
+     * отмена ранее записанной транзакции
+     */
+    CANCEL
+}
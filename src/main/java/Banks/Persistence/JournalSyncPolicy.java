@@ -0,0 +1,21 @@
+package Banks.Persistence;
+
+/**
+ * политика сброса журнала на диск (fsync)
+ */
+public enum JournalSyncPolicy {
+    /**
+     * каждая запись сбрасывается на диск до возврата из append
+     */
+    PER_RECORD,
+    /**
+     * групповая фиксация: писатели ждут сброса, один из ожидающих сбрасывает на диск
+     * все записи, накопленные к этому моменту, и будит остальных
+     */
+    GROUP,
+    /**
+     * фоновый поток сбрасывает журнал раз в заданный период, писатели не ждут
+     * (при сбое теряются записи за последний период)
+     */
+    PERIODIC
+}
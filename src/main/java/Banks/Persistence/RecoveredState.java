@@ -0,0 +1,240 @@
+package Banks.Persistence;
+
+import Banks.AccountTypes.Account;
+import Banks.BankSystem.Bank;
+import Banks.BankSystem.CentralBank;
+import Banks.Tools.BankClock;
+import Banks.Tools.JournalException;
+import Banks.Tools.MoneyUnits;
+import Banks.Transactions.Transaction;
+import Banks.Transactions.TransferTransaction;
+import Banks.Transactions.UpdateTransaction;
+import Banks.Transactions.WithdrawTransaction;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * класс состояния, восстановленного из снимка: банки, аккаунты и транзакции, еще не зарегистрированные
+ * в центральном банке. к состоянию можно применить хвост журнала (replay) и затем установить его (install).
+ * воспроизведение идемпотентно: транзакции, которые уже есть в состоянии, и повторные отмены пропускаются
+ */
+public final class RecoveredState {
+    private final Path snapshot;
+    private final JournalPosition journalPosition;
+    private final ArrayList<Bank> banks = new ArrayList<Bank>();
+    private final HashMap<UUID, Account> accounts = new HashMap<UUID, Account>();
+    private final ArrayList<Transaction> transactions = new ArrayList<Transaction>();
+    private final HashMap<UUID, Transaction> transactionsById = new HashMap<UUID, Transaction>();
+    private long skippedTransactions;
+    private long replayedRecords;
+    private long skippedRecords;
+    private boolean installed;
+
+    /**
+     * конструктор восстановленного состояния
+     * @param snapshot - файл снимка или null, если снимка нет
+     * @param journalPosition - позиция журнала на момент снимка или null, если журнал не был подключен
+     * @param decoded - восстановленные банки
+     */
+    RecoveredState(Path snapshot, JournalPosition journalPosition, List<SnapshotCodec.DecodedBank> decoded) {
+        this.snapshot = snapshot;
+        this.journalPosition = journalPosition;
+        for (SnapshotCodec.DecodedBank bank : decoded) {
+            banks.add(bank.getBank());
+            for (Account account : bank.getAccounts())
+                accounts.put(account.getId(), account);
+        }
+    }
+
+    /**
+     * метод, который возвращает файл снимка
+     * @return - файл снимка или null, если состояние восстановлено без снимка
+     */
+    public Path getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * метод, который возвращает позицию журнала, с которой начинается хвост после снимка
+     * @return - позиция или null, если при снимке журнал не был подключен
+     */
+    public JournalPosition getJournalPosition() {
+        return journalPosition;
+    }
+
+    /**
+     * метод, который возвращает восстановленные банки
+     * @return - банки в порядке регистрации
+     */
+    public List<Bank> getBanks() {
+        return Collections.unmodifiableList(banks);
+    }
+
+    /**
+     * метод, который возвращает восстановленные транзакции
+     * @return - транзакции в порядке регистрации
+     */
+    public List<Transaction> getTransactions() {
+        return Collections.unmodifiableList(transactions);
+    }
+
+    /**
+     * метод, который ищет восстановленный аккаунт по id
+     * @param id - id аккаунта
+     * @return - аккаунт или null, если аккаунта нет в снимке
+     */
+    public Account findAccount(UUID id) {
+        return accounts.get(id);
+    }
+
+    /**
+     * метод, который ищет восстановленную транзакцию по id
+     * @param id - id транзакции
+     * @return - транзакция или null, если ее нет
+     */
+    public Transaction findTransaction(UUID id) {
+        return transactionsById.get(id);
+    }
+
+    /**
+     * метод, который возвращает количество аккаунтов
+     * @return - количество аккаунтов
+     */
+    public int getAccountCount() {
+        return accounts.size();
+    }
+
+    /**
+     * метод, который возвращает количество транзакций снимка, пропущенных из-за неизвестных аккаунтов
+     * @return - количество пропущенных транзакций
+     */
+    public long getSkippedTransactions() {
+        return skippedTransactions;
+    }
+
+    /**
+     * метод, который возвращает количество примененных записей журнала
+     * @return - количество записей
+     */
+    public long getReplayedRecords() {
+        return replayedRecords;
+    }
+
+    /**
+     * метод, который возвращает количество пропущенных записей журнала
+     * (уже примененные, с неизвестными аккаунтами или не прошедшие проверки)
+     * @return - количество записей
+     */
+    public long getSkippedRecords() {
+        return skippedRecords;
+    }
+
+    /**
+     * метод, который применяет хвост журнала после позиции снимка. операции выполняются теми же
+     * методами аккаунтов, что и при работе системы, в порядке журнала, а часы BankClock на время
+     * применения записи ставятся на время записи, поэтому проценты начисляются до дня записи, а не
+     * до текущего дня, и результат (в том числе проценты и комиссии кредитных аккаунтов) совпадает
+     * с исходным. после применения журнала прежние часы возвращаются
+     * @param journalDirectory - папка журнала
+     * @return - позиция конца прочитанного журнала
+     * @throws JournalException - исключение бросается если папка null, состояние уже установлено или чтение не удалось
+     */
+    public JournalPosition replay(Path journalDirectory) throws JournalException {
+        if (journalDirectory == null)
+            throw JournalException.NullException();
+        if (installed)
+            throw JournalException.ClosedException();
+        JournalPosition from = journalPosition == null ? JournalPosition.START : journalPosition;
+        Clock clock = BankClock.getClock();
+        try {
+            return TransactionJournal.read(journalDirectory, from, record -> apply(record, clock.getZone()));
+        } finally {
+            BankClock.setClock(clock);
+        }
+    }
+
+    /**
+     * метод, который регистрирует банки и транзакции в центральном банке. журнал должен быть отключен,
+     * иначе восстановленные транзакции записались бы в него повторно
+     * @throws JournalException - исключение бросается если журнал подключен или состояние уже установлено
+     */
+    public void install() throws JournalException {
+        CentralBank centralBank = new CentralBank();
+        if (centralBank.getJournal() != null)
+            throw JournalException.AttachedJournalException();
+        if (installed)
+            throw JournalException.ClosedException();
+        installed = true;
+        for (Bank bank : banks)
+            centralBank.registerBank(bank);
+        for (Transaction transaction : transactions)
+            centralBank.registerTransaction(transaction);
+    }
+
+    /**
+     * метод, который добавляет транзакцию из снимка
+     * @param transaction - транзакция
+     */
+    void addTransaction(Transaction transaction) {
+        transactions.add(transaction);
+        transactionsById.put(transaction.getId(), transaction);
+    }
+
+    /**
+     * метод, который учитывает пропущенную транзакцию снимка
+     */
+    void skipTransaction() {
+        skippedTransactions++;
+    }
+
+    private void apply(JournalRecord record, ZoneId zone) {
+        try {
+            BankClock.setClock(Clock.fixed(record.getTime().atZone(zone).toInstant(), zone));
+            if (record.getType() == JournalRecordType.CANCEL) {
+                Transaction cancelled = transactionsById.get(record.getTransactionId());
+                if (cancelled == null || cancelled.getStatus()) {
+                    skippedRecords++;
+                    return;
+                }
+                cancelled.cancelTransaction();
+                replayedRecords++;
+                return;
+            }
+            Account sender = accounts.get(record.getSenderId());
+            Account recipient = record.getRecipientId() == null ? null : accounts.get(record.getRecipientId());
+            if (transactionsById.containsKey(record.getTransactionId()) || sender == null
+                    || (record.getType() == JournalRecordType.TRANSFER && recipient == null)) {
+                skippedRecords++;
+                return;
+            }
+            BigDecimal money = MoneyUnits.toMoney(record.getAmountUnits());
+            Transaction transaction;
+            if (record.getType() == JournalRecordType.TRANSFER) {
+                TransferTransaction transfer = new TransferTransaction(sender, recipient, money, record.getTime());
+                transfer.transfer(money);
+                transaction = transfer;
+            } else if (record.getType() == JournalRecordType.UPDATE) {
+                UpdateTransaction update = new UpdateTransaction(sender, money, record.getTime());
+                update.update(money);
+                transaction = update;
+            } else {
+                WithdrawTransaction withdraw = new WithdrawTransaction(sender, money, record.getTime());
+                withdraw.withdraw(money);
+                transaction = withdraw;
+            }
+            transaction.setId(record.getTransactionId());
+            addTransaction(transaction);
+            replayedRecords++;
+        } catch (RuntimeException e) {
+            skippedRecords++;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package Banks.Persistence;
+
+import java.nio.file.Path;
+
+/**
+ * класс отчета о восстановлении системы из снимка и хвоста журнала
+ */
+public class RecoveryReport {
+    private final Path snapshot;
+    private final int banks;
+    private final long accounts;
+    private final long transactions;
+    private final long replayedRecords;
+    private final long skippedRecords;
+    private final long loadNanos;
+    private final long replayNanos;
+
+    /**
+     * конструктор отчета
+     * @param state - восстановленное состояние
+     * @param loadNanos - время загрузки снимка в наносекундах
+     * @param replayNanos - время воспроизведения журнала в наносекундах
+     */
+    public RecoveryReport(RecoveredState state, long loadNanos, long replayNanos) {
+        this.snapshot = state.getSnapshot();
+        this.banks = state.getBanks().size();
+        this.accounts = state.getAccountCount();
+        this.transactions = state.getTransactions().size();
+        this.replayedRecords = state.getReplayedRecords();
+        this.skippedRecords = state.getSkippedRecords();
+        this.loadNanos = loadNanos;
+        this.replayNanos = replayNanos;
+    }
+
+    /**
+     * метод, который возвращает файл снимка
+     * @return - файл снимка или null, если снимка не было
+     */
+    public Path getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * метод, который возвращает количество восстановленных банков
+     * @return - количество банков
+     */
+    public int getBanks() {
+        return banks;
+    }
+
+    /**
+     * метод, который возвращает количество восстановленных аккаунтов
+     * @return - количество аккаунтов
+     */
+    public long getAccounts() {
+        return accounts;
+    }
+
+    /**
+     * метод, который возвращает количество восстановленных транзакций
+     * @return - количество транзакций
+     */
+    public long getTransactions() {
+        return transactions;
+    }
+
+    /**
+     * метод, который возвращает количество примененных записей журнала
+     * @return - количество записей
+     */
+    public long getReplayedRecords() {
+        return replayedRecords;
+    }
+
+    /**
+     * метод, который возвращает количество пропущенных записей журнала
+     * @return - количество записей
+     */
+    public long getSkippedRecords() {
+        return skippedRecords;
+    }
+
+    /**
+     * метод, который возвращает время загрузки снимка
+     * @return - время в наносекундах
+     */
+    public long getLoadNanos() {
+        return loadNanos;
+    }
+
+    /**
+     * метод, который возвращает время воспроизведения журнала
+     * @return - время в наносекундах
+     */
+    public long getReplayNanos() {
+        return replayNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d banks, %d accounts, %d transactions from %s in %.1f ms, %d journal records replayed (%d skipped) in %.1f ms",
+                banks, accounts, transactions, snapshot, loadNanos / 1_000_000.0, replayedRecords, skippedRecords, replayNanos / 1_000_000.0);
+    }
+}
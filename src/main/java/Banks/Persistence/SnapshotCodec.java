@@ -0,0 +1,466 @@
+package Banks.Persistence;
+
+import Banks.AccountTypes.Account;
+import Banks.AccountTypes.CreditAccount;
+import Banks.AccountTypes.DebitAccount;
+import Banks.AccountTypes.DepositAccount;
+import Banks.BankSystem.Bank;
+import Banks.BankSystem.BankSettings;
+import Banks.BankSystem.DepositRateTable;
+import Banks.ClientSystem.Client;
+import Banks.Observer.Observer;
+import Banks.Tools.JournalException;
+import Banks.Transactions.Transaction;
+import Banks.Transactions.TransferTransaction;
+import Banks.Transactions.UpdateTransaction;
+import Banks.Transactions.WithdrawTransaction;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * класс двоичного формата секций снимка: секция банка (настройки, клиенты, наблюдатели, аккаунты)
+ * и секция транзакций. суммы хранятся как масштаб и немасштабированное значение (long, если
+ * помещается), строки - длина и UTF-8, ссылки аккаунта на владельца - номер в таблице клиентов секции
+ */
+final class SnapshotCodec {
+    private static final byte debitType = 0;
+    private static final byte creditType = 1;
+    private static final byte depositType = 2;
+    private static final byte nullDecimal = 0;
+    private static final byte longDecimal = 1;
+    private static final byte bigDecimal = 2;
+    private static final long noDuration = Long.MIN_VALUE;
+
+    private SnapshotCodec() { }
+
+    /**
+     * копия состояния банка, снятая под глобальной блокировкой: ссылки на объекты и изменяемые поля аккаунтов
+     */
+    static final class BankImage {
+        private final Bank bank;
+        private final Client[] clients;
+        private final int members;
+        private final int[] observers;
+        private final Account[] accounts;
+        private final int[] owners;
+        private final long[] balances;
+        private final long[] accrued;
+        private final long[] carries;
+        private final boolean[] verified;
+        private final BigDecimal[] limits;
+        private final BigDecimal[] calculated;
+
+        /**
+         * конструктор копии банка (вызывается, пока аккаунты банка заблокированы)
+         * @param bank - банк
+         */
+        BankImage(Bank bank) {
+            this.bank = bank;
+            List<Client> bankClients = bank.getClients();
+            List<Account> bankAccounts = bank.getAccounts();
+            HashMap<UUID, Integer> indexes = new HashMap<UUID, Integer>();
+            ArrayList<Client> table = new ArrayList<Client>(bankClients.size());
+            for (Client client : bankClients) {
+                if (indexes.putIfAbsent(client.getId(), table.size()) == null)
+                    table.add(client);
+            }
+            members = table.size();
+            int count = bankAccounts.size();
+            accounts = bankAccounts.toArray(new Account[0]);
+            owners = new int[count];
+            balances = new long[count];
+            accrued = new long[count];
+            carries = new long[count];
+            verified = new boolean[count];
+            limits = new BigDecimal[count];
+            calculated = new BigDecimal[count];
+            for (int i = 0; i < count; i++) {
+                Account account = accounts[i];
+                Client owner = account.getAccountClient();
+                Integer index = indexes.get(owner.getId());
+                if (index == null) {
+                    index = table.size();
+                    indexes.put(owner.getId(), index);
+                    table.add(owner);
+                }
+                owners[i] = index;
+                balances[i] = account.getBalanceUnits();
+                accrued[i] = account.getLastAccrued().toEpochDay();
+                carries[i] = account.getAccruedCarry();
+                verified[i] = account.getIsVerified();
+                limits[i] = account.getVerificationLimit();
+                calculated[i] = account.getCalculateMoney();
+            }
+            clients = table.toArray(new Client[0]);
+            ArrayList<Integer> subscribed = new ArrayList<Integer>();
+            for (Observer observer : bank.getObservers()) {
+                if (observer instanceof Client client && indexes.containsKey(client.getId()))
+                    subscribed.add(indexes.get(client.getId()));
+            }
+            observers = subscribed.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        /**
+         * метод, который возвращает количество аккаунтов в копии
+         * @return - количество аккаунтов
+         */
+        int accountCount() {
+            return accounts.length;
+        }
+    }
+
+    /**
+     * копия списка транзакций со статусами отмены
+     */
+    static final class TransactionsImage {
+        private final Transaction[] transactions;
+        private final boolean[] cancelled;
+
+        /**
+         * конструктор копии транзакций (вызывается, пока регистрация транзакций заблокирована)
+         * @param transactions - транзакции центрального банка
+         */
+        TransactionsImage(List<Transaction> transactions) {
+            this.transactions = transactions.toArray(new Transaction[0]);
+            this.cancelled = new boolean[this.transactions.length];
+            for (int i = 0; i < cancelled.length; i++)
+                cancelled[i] = this.transactions[i].getStatus();
+        }
+    }
+
+    /**
+     * восстановленный банк вместе с его аккаунтами
+     */
+    static final class DecodedBank {
+        private final Bank bank;
+        private final Account[] accounts;
+
+        private DecodedBank(Bank bank, Account[] accounts) {
+            this.bank = bank;
+            this.accounts = accounts;
+        }
+
+        /**
+         * метод, который возвращает восстановленный банк
+         * @return - банк
+         */
+        Bank getBank() {
+            return bank;
+        }
+
+        /**
+         * метод, который возвращает аккаунты банка
+         * @return - аккаунты
+         */
+        Account[] getAccounts() {
+            return accounts;
+        }
+    }
+
+    /**
+     * метод, который кодирует секцию банка
+     * @param image - копия банка
+     * @return - байты секции
+     * @throws JournalException - исключение бросается если тип аккаунта не поддерживается
+     */
+    static byte[] encodeBank(BankImage image) throws JournalException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + image.accountCount() * 64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            Bank bank = image.bank;
+            BankSettings settings = bank.getSettings();
+            writeString(out, bank.getName());
+            writeId(out, bank.getId());
+            out.writeLong(settings.getVersion());
+            writeDecimal(out, settings.getDebitPercent());
+            NavigableMap<BigDecimal, BigDecimal> depositTiers = settings.getDepositRates().getTiers();
+            out.writeInt(depositTiers.size());
+            for (Map.Entry<BigDecimal, BigDecimal> tier : depositTiers.entrySet()) {
+                writeDecimal(out, tier.getKey());
+                writeDecimal(out, tier.getValue());
+            }
+            writeDecimal(out, settings.getCreditLimit());
+            writeDecimal(out, settings.getCreditCommission());
+            writeDecimal(out, settings.getNotVerifiedLimit());
+
+            out.writeInt(image.clients.length);
+            out.writeInt(image.members);
+            for (Client client : image.clients) {
+                writeId(out, client.getId());
+                writeString(out, client.getName());
+                writeString(out, client.getSurname());
+                writeString(out, client.getAddress());
+                writeString(out, client.getPassport());
+            }
+            out.writeInt(image.observers.length);
+            for (int observer : image.observers)
+                out.writeInt(observer);
+
+            out.writeInt(image.accounts.length);
+            for (int i = 0; i < image.accounts.length; i++) {
+                Account account = image.accounts[i];
+                if (account instanceof DebitAccount) {
+                    out.writeByte(debitType);
+                } else if (account instanceof CreditAccount) {
+                    out.writeByte(creditType);
+                } else if (account instanceof DepositAccount) {
+                    out.writeByte(depositType);
+                } else {
+                    throw JournalException.UnsupportedTypeException();
+                }
+                writeId(out, account.getId());
+                out.writeInt(image.owners[i]);
+                out.writeLong(image.balances[i]);
+                out.writeBoolean(image.verified[i]);
+                writeDecimal(out, image.limits[i]);
+                writeDecimal(out, image.calculated[i]);
+                out.writeLong(account.getSettingsVersion());
+                out.writeLong(image.accrued[i]);
+                out.writeLong(image.carries[i]);
+                if (account instanceof DebitAccount debit) {
+                    writeDecimal(out, debit.getAccountPercent());
+                } else if (account instanceof CreditAccount credit) {
+                    writeDecimal(out, credit.getAccountCommission());
+                } else if (account instanceof DepositAccount deposit) {
+                    writeDecimal(out, deposit.getAccountPercent());
+                    Date duration = deposit.getAccountDuration();
+                    out.writeLong(duration == null ? noDuration : duration.getTime());
+                    out.writeBoolean(deposit.isDeposit());
+                }
+            }
+        } catch (IOException e) {
+            throw JournalException.IOFailureException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * метод, который декодирует секцию банка в новый, еще не зарегистрированный банк
+     * @param buffer - буфер секции
+     * @return - банк и его аккаунты
+     * @throws JournalException - исключение бросается если секция повреждена
+     */
+    static DecodedBank decodeBank(ByteBuffer buffer) throws JournalException {
+        String name = readString(buffer);
+        UUID id = readId(buffer);
+        long settingsVersion = buffer.getLong();
+        BigDecimal debitPercent = readDecimal(buffer);
+        int depositCount = buffer.getInt();
+        TreeMap<BigDecimal, BigDecimal> depositTiers = new TreeMap<BigDecimal, BigDecimal>();
+        for (int i = 0; i < depositCount; i++)
+            depositTiers.put(readDecimal(buffer), readDecimal(buffer));
+        BigDecimal creditLimit = readDecimal(buffer);
+        BigDecimal creditCommission = readDecimal(buffer);
+        BigDecimal notVerifiedLimit = readDecimal(buffer);
+        BankSettings settings = new BankSettings(settingsVersion, debitPercent, new DepositRateTable(depositTiers), creditLimit, creditCommission, notVerifiedLimit);
+        Bank bank = new Bank(name, settings);
+        bank.setId(id);
+
+        int clientCount = buffer.getInt();
+        int members = buffer.getInt();
+        Client[] clients = new Client[clientCount];
+        for (int i = 0; i < clientCount; i++) {
+            clients[i] = new Client(readId(buffer), readString(buffer), readString(buffer), readString(buffer), readString(buffer));
+            if (i < members)
+                bank.addClient(clients[i]);
+        }
+        int observerCount = buffer.getInt();
+        for (int i = 0; i < observerCount; i++)
+            bank.addObserver(clients[buffer.getInt()]);
+
+        int accountCount = buffer.getInt();
+        Account[] accounts = new Account[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            byte type = buffer.get();
+            UUID accountId = readId(buffer);
+            Client owner = clients[buffer.getInt()];
+            long balance = buffer.getLong();
+            boolean verified = buffer.get() != 0;
+            BigDecimal limit = readDecimal(buffer);
+            BigDecimal calculated = readDecimal(buffer);
+            long accountSettingsVersion = buffer.getLong();
+            long accruedDay = buffer.getLong();
+            long accruedCarry = buffer.getLong();
+            Account account;
+            if (type == debitType) {
+                account = new DebitAccount(accountId, BigDecimal.ZERO, owner, readDecimal(buffer));
+            } else if (type == creditType) {
+                account = new CreditAccount(accountId, BigDecimal.ZERO, owner, readDecimal(buffer));
+            } else if (type == depositType) {
+                BigDecimal percent = readDecimal(buffer);
+                long duration = buffer.getLong();
+                DepositAccount deposit = new DepositAccount(accountId, BigDecimal.ZERO, owner, percent,
+                        duration == noDuration ? null : new Date(duration));
+                deposit.setDeposit(buffer.get() != 0);
+                account = deposit;
+            } else {
+                throw JournalException.CorruptedException();
+            }
+            bank.addAccount(account);
+            account.restoreBalance(balance, LocalDate.ofEpochDay(accruedDay), accruedCarry);
+            account.setVerified(verified);
+            account.setVerificationLimit(limit);
+            account.setCalculateMoney(calculated);
+            account.setSettingsVersion(accountSettingsVersion);
+            accounts[i] = account;
+        }
+        return new DecodedBank(bank, accounts);
+    }
+
+    /**
+     * метод, который кодирует секцию транзакций
+     * @param image - копия транзакций
+     * @return - байты секции
+     * @throws JournalException - исключение бросается если тип транзакции не поддерживается
+     */
+    static byte[] encodeTransactions(TransactionsImage image) throws JournalException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + image.transactions.length * 80);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(image.transactions.length);
+            for (int i = 0; i < image.transactions.length; i++) {
+                Transaction transaction = image.transactions[i];
+                JournalRecordType type;
+                if (transaction instanceof TransferTransaction) {
+                    type = JournalRecordType.TRANSFER;
+                } else if (transaction instanceof UpdateTransaction) {
+                    type = JournalRecordType.UPDATE;
+                } else if (transaction instanceof WithdrawTransaction) {
+                    type = JournalRecordType.WITHDRAW;
+                } else {
+                    throw JournalException.UnsupportedTypeException();
+                }
+                out.writeByte(type.ordinal());
+                writeId(out, transaction.getId());
+                LocalDateTime time = transaction.getTransactionTime();
+                out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(time.getNano());
+                writeDecimal(out, transaction.getMoney());
+                writeId(out, transaction.getSender().getId());
+                if (transaction instanceof TransferTransaction transfer)
+                    writeId(out, transfer.getRecipient().getId());
+                out.writeBoolean(image.cancelled[i]);
+            }
+        } catch (IOException e) {
+            throw JournalException.IOFailureException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * метод, который декодирует секцию транзакций. транзакции, аккаунты которых не входят в снимок
+     * (например, аккаунты незарегистрированных банков), пропускаются
+     * @param buffer - буфер секции
+     * @param state - восстановленное состояние, в котором ищутся аккаунты и в которое добавляются транзакции
+     * @throws JournalException - исключение бросается если секция повреждена
+     */
+    static void decodeTransactions(ByteBuffer buffer, RecoveredState state) throws JournalException {
+        int count = buffer.getInt();
+        JournalRecordType[] types = JournalRecordType.values();
+        for (int i = 0; i < count; i++) {
+            int ordinal = buffer.get();
+            if (ordinal < 0 || ordinal >= types.length)
+                throw JournalException.CorruptedException();
+            JournalRecordType type = types[ordinal];
+            UUID id = readId(buffer);
+            LocalDateTime time = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+            BigDecimal money = readDecimal(buffer);
+            Account sender = state.findAccount(readId(buffer));
+            Account recipient = type == JournalRecordType.TRANSFER ? state.findAccount(readId(buffer)) : null;
+            boolean cancelled = buffer.get() != 0;
+            if (sender == null || (type == JournalRecordType.TRANSFER && recipient == null)) {
+                state.skipTransaction();
+                continue;
+            }
+            Transaction transaction;
+            if (type == JournalRecordType.TRANSFER) {
+                transaction = new TransferTransaction(sender, recipient, money, time);
+            } else if (type == JournalRecordType.UPDATE) {
+                transaction = new UpdateTransaction(sender, money, time);
+            } else if (type == JournalRecordType.WITHDRAW) {
+                transaction = new WithdrawTransaction(sender, money, time);
+            } else {
+                throw JournalException.CorruptedException();
+            }
+            transaction.setId(id);
+            transaction.setCancelled(cancelled);
+            state.addTransaction(transaction);
+        }
+    }
+
+    private static void writeId(DataOutputStream out, UUID id) throws IOException {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    private static UUID readId(ByteBuffer buffer) {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0)
+            return null;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        if (value == null) {
+            out.writeByte(nullDecimal);
+            return;
+        }
+        BigInteger unscaled = value.unscaledValue();
+        if (unscaled.bitLength() < Long.SIZE) {
+            out.writeByte(longDecimal);
+            out.writeInt(value.scale());
+            out.writeLong(unscaled.longValue());
+            return;
+        }
+        byte[] bytes = unscaled.toByteArray();
+        out.writeByte(bigDecimal);
+        out.writeInt(value.scale());
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static BigDecimal readDecimal(ByteBuffer buffer) throws JournalException {
+        byte kind = buffer.get();
+        if (kind == nullDecimal)
+            return null;
+        int scale = buffer.getInt();
+        if (kind == longDecimal)
+            return BigDecimal.valueOf(buffer.getLong(), scale);
+        if (kind != bigDecimal)
+            throw JournalException.CorruptedException();
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new BigDecimal(new BigInteger(bytes), scale);
+    }
+}
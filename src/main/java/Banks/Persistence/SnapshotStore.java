@@ -0,0 +1,384 @@
+package Banks.Persistence;
+
+import Banks.BankSystem.Bank;
+import Banks.BankSystem.CentralBank;
+import Banks.Tools.JournalException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * класс хранилища снимков состояния центрального банка.
+ * снимок делается так: под глобальной блокировкой (все аккаунты и регистрация транзакций) копируются
+ * балансы и списки объектов и запоминается позиция журнала, блокировка снимается, секции банков
+ * кодируются параллельно, файл пишется во временный, сбрасывается на диск и атомарно переименовывается.
+ * формат файла: magic, версия, время снимка, позиция журнала, таблица секций (смещение, длина, CRC32C),
+ * затем секции банков и последней секция транзакций.
+ * восстановление: последний снимок загружается (секции банков разбираются параллельно, по задаче на банк),
+ * затем воспроизводится хвост журнала с позиции снимка и состояние регистрируется в центральном банке.
+ * банки, клиенты и аккаунты, созданные после снимка, в журнал не пишутся и сохраняются только следующим снимком
+ */
+public final class SnapshotStore implements Closeable {
+    /**
+     * количество хранимых снимков по умолчанию
+     */
+    public static final int DEFAULT_RETAINED = 2;
+    private static final int magic = 0x42534E50;
+    private static final int version = 4;
+    private static final int fixedHeaderBytes = Integer.BYTES * 2 + Long.BYTES + 1 + Long.BYTES + Integer.BYTES * 3;
+    private static final int sectionEntryBytes = Long.BYTES + Integer.BYTES * 2;
+    private static final String snapshotPrefix = "snapshot-";
+    private static final String snapshotSuffix = ".snap";
+    private static final String temporarySuffix = ".tmp";
+
+    private final Path directory;
+    private final int retained;
+    private final CentralBank centralBank = new CentralBank();
+    private final AtomicLong snapshots = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private ScheduledExecutorService scheduler;
+    private boolean closed;
+
+    /**
+     * конструктор хранилища, которое хранит DEFAULT_RETAINED последних снимков
+     * @param directory - папка снимков
+     * @throws JournalException - исключение бросается если папка null или ее не удалось создать
+     */
+    public SnapshotStore(Path directory) throws JournalException {
+        this(directory, DEFAULT_RETAINED);
+    }
+
+    /**
+     * конструктор хранилища
+     * @param directory - папка снимков
+     * @param retained - сколько последних снимков хранить (не меньше одного)
+     * @throws JournalException - исключение бросается если папка null или ее не удалось создать
+     */
+    public SnapshotStore(Path directory, int retained) throws JournalException {
+        if (directory == null)
+            throw JournalException.NullException();
+        this.directory = directory;
+        this.retained = Math.max(1, retained);
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw JournalException.IOFailureException(e);
+        }
+    }
+
+    /**
+     * метод, который возвращает количество снимков, сделанных этим хранилищем
+     * @return - количество снимков
+     */
+    public long getSnapshotCount() {
+        return snapshots.get();
+    }
+
+    /**
+     * метод, который возвращает количество неудачных периодических снимков
+     * @return - количество неудач
+     */
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    /**
+     * метод, который делает согласованный снимок всего центрального банка
+     * @return - файл снимка
+     * @throws JournalException - исключение бросается если хранилище закрыто или запись не удалась
+     */
+    public synchronized Path write() throws JournalException {
+        if (closed)
+            throw JournalException.ClosedException();
+        Capture capture = centralBank.underGlobalLock(() -> {
+            List<Bank> banks = centralBank.getBanks();
+            SnapshotCodec.BankImage[] images = new SnapshotCodec.BankImage[banks.size()];
+            for (int i = 0; i < images.length; i++)
+                images[i] = new SnapshotCodec.BankImage(banks.get(i));
+            TransactionJournal journal = centralBank.getJournal();
+            return new Capture(images, new SnapshotCodec.TransactionsImage(centralBank.getTransactions()),
+                    journal == null ? null : journal.position());
+        });
+        int bankCount = capture.banks.length;
+        byte[][] sections = IntStream.rangeClosed(0, bankCount).parallel()
+                .mapToObj(i -> i < bankCount ? SnapshotCodec.encodeBank(capture.banks[i]) : SnapshotCodec.encodeTransactions(capture.transactions))
+                .toArray(byte[][]::new);
+        int[] checksums = IntStream.range(0, sections.length).parallel().map(i -> checksum(ByteBuffer.wrap(sections[i]))).toArray();
+
+        ByteBuffer header = ByteBuffer.allocate(fixedHeaderBytes + sections.length * sectionEntryBytes);
+        header.putInt(magic);
+        header.putInt(version);
+        header.putLong(JournalRecord.toEpochMicros(capture.time));
+        header.put((byte) (capture.position == null ? 0 : 1));
+        header.putLong(capture.position == null ? 0 : capture.position.getSegment());
+        header.putInt(capture.position == null ? 0 : capture.position.getOffset());
+        header.putInt(bankCount);
+        header.putInt(sections.length);
+        long offset = header.capacity();
+        for (int i = 0; i < sections.length; i++) {
+            header.putLong(offset);
+            header.putInt(sections[i].length);
+            header.putInt(checksums[i]);
+            offset += sections[i].length;
+        }
+        header.flip();
+
+        try {
+            List<Long> existing = listSnapshots(directory);
+            long index = existing.isEmpty() ? 0 : existing.get(existing.size() - 1) + 1;
+            Path target = snapshotPath(directory, index);
+            Path temporary = target.resolveSibling(target.getFileName() + temporarySuffix);
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                writeFully(channel, header);
+                for (byte[] section : sections)
+                    writeFully(channel, ByteBuffer.wrap(section));
+                channel.force(true);
+            }
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+            existing.add(index);
+            for (int i = 0; i < existing.size() - retained; i++)
+                Files.deleteIfExists(snapshotPath(directory, existing.get(i)));
+            snapshots.incrementAndGet();
+            return target;
+        } catch (IOException e) {
+            throw JournalException.IOFailureException(e);
+        }
+    }
+
+    /**
+     * метод, который запускает периодические снимки в фоновом потоке
+     * @param periodMillis - период между снимками в миллисекундах
+     * @throws JournalException - исключение бросается если хранилище закрыто или снимки уже запущены
+     */
+    public synchronized void schedule(long periodMillis) throws JournalException {
+        if (closed || scheduler != null)
+            throw JournalException.ClosedException();
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                write();
+            } catch (RuntimeException e) {
+                failures.incrementAndGet();
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * метод, который возвращает последний снимок в папке хранилища
+     * @return - файл снимка или null, если снимков нет
+     * @throws JournalException - исключение бросается если папку не удалось прочитать
+     */
+    public Path latest() throws JournalException {
+        return latest(directory);
+    }
+
+    /**
+     * метод, который восстанавливает центральный банк: загружает последний снимок, применяет хвост журнала
+     * и регистрирует банки и транзакции. вызывается при старте до подключения журнала
+     * @param journalDirectory - папка журнала или null, если журнал не воспроизводится
+     * @return - отчет о восстановлении
+     * @throws JournalException - исключение бросается если журнал подключен или чтение не удалось
+     */
+    public RecoveryReport recover(Path journalDirectory) throws JournalException {
+        if (centralBank.getJournal() != null)
+            throw JournalException.AttachedJournalException();
+        long start = System.nanoTime();
+        Path snapshot = latest();
+        RecoveredState state = snapshot == null
+                ? new RecoveredState(null, null, List.of())
+                : load(snapshot);
+        long loaded = System.nanoTime();
+        if (journalDirectory != null)
+            state.replay(journalDirectory);
+        state.install();
+        return new RecoveryReport(state, loaded - start, System.nanoTime() - loaded);
+    }
+
+    /**
+     * метод, который останавливает периодические снимки
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (scheduler != null)
+            scheduler.shutdownNow();
+    }
+
+    /**
+     * метод, который возвращает последний снимок в папке
+     * @param directory - папка снимков
+     * @return - файл снимка или null, если снимков нет
+     * @throws JournalException - исключение бросается если папка null или ее не удалось прочитать
+     */
+    public static Path latest(Path directory) throws JournalException {
+        if (directory == null)
+            throw JournalException.NullException();
+        try {
+            if (!Files.isDirectory(directory))
+                return null;
+            List<Long> existing = listSnapshots(directory);
+            return existing.isEmpty() ? null : snapshotPath(directory, existing.get(existing.size() - 1));
+        } catch (IOException e) {
+            throw JournalException.IOFailureException(e);
+        }
+    }
+
+    /**
+     * метод, который загружает снимок в общем пуле ForkJoin
+     * @param file - файл снимка
+     * @return - восстановленное состояние (не зарегистрированное в центральном банке)
+     * @throws JournalException - исключение бросается если файл null, поврежден или чтение не удалось
+     */
+    public static RecoveredState load(Path file) throws JournalException {
+        return load(file, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * метод, который загружает снимок: секции банков разбираются параллельно в заданном пуле
+     * (по задаче на банк), затем секция транзакций связывается с восстановленными аккаунтами
+     * @param file - файл снимка
+     * @param pool - пул потоков
+     * @return - восстановленное состояние (не зарегистрированное в центральном банке)
+     * @throws JournalException - исключение бросается если параметры null, файл поврежден или чтение не удалось
+     */
+    public static RecoveredState load(Path file, ForkJoinPool pool) throws JournalException {
+        if (file == null || pool == null)
+            throw JournalException.NullException();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer fixed = readFully(channel, 0, fixedHeaderBytes);
+            if (fixed.getInt() != magic || fixed.getInt() != version)
+                throw JournalException.CorruptedException();
+            fixed.getLong();
+            boolean hasPosition = fixed.get() != 0;
+            long segment = fixed.getLong();
+            int segmentOffset = fixed.getInt();
+            JournalPosition position = hasPosition ? new JournalPosition(segment, segmentOffset) : null;
+            int bankCount = fixed.getInt();
+            int sectionCount = fixed.getInt();
+            if (bankCount < 0 || sectionCount != bankCount + 1)
+                throw JournalException.CorruptedException();
+            ByteBuffer table = readFully(channel, fixedHeaderBytes, sectionCount * sectionEntryBytes);
+            long[] offsets = new long[sectionCount];
+            int[] lengths = new int[sectionCount];
+            int[] checksums = new int[sectionCount];
+            for (int i = 0; i < sectionCount; i++) {
+                offsets[i] = table.getLong();
+                lengths[i] = table.getInt();
+                checksums[i] = table.getInt();
+                if (offsets[i] < 0 || lengths[i] < 0 || offsets[i] + lengths[i] > channel.size())
+                    throw JournalException.CorruptedException();
+            }
+
+            ArrayList<ForkJoinTask<SnapshotCodec.DecodedBank>> tasks = new ArrayList<ForkJoinTask<SnapshotCodec.DecodedBank>>(bankCount);
+            for (int i = 0; i < bankCount; i++) {
+                MappedByteBuffer section = mapSection(channel, offsets[i], lengths[i], checksums[i]);
+                tasks.add(pool.submit(() -> decodeBank(section)));
+            }
+            ArrayList<SnapshotCodec.DecodedBank> banks = new ArrayList<SnapshotCodec.DecodedBank>(bankCount);
+            for (ForkJoinTask<SnapshotCodec.DecodedBank> task : tasks)
+                banks.add(task.join());
+
+            RecoveredState state = new RecoveredState(file, position, banks);
+            MappedByteBuffer transactions = mapSection(channel, offsets[bankCount], lengths[bankCount], checksums[bankCount]);
+            try {
+                SnapshotCodec.decodeTransactions(transactions, state);
+            } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                throw JournalException.CorruptedException();
+            }
+            return state;
+        } catch (IOException e) {
+            throw JournalException.IOFailureException(e);
+        }
+    }
+
+    private static SnapshotCodec.DecodedBank decodeBank(ByteBuffer section) throws JournalException {
+        try {
+            return SnapshotCodec.decodeBank(section);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw JournalException.CorruptedException();
+        }
+    }
+
+    private static MappedByteBuffer mapSection(FileChannel channel, long offset, int length, int expected) throws IOException {
+        MappedByteBuffer section = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        if (checksum(section.duplicate()) != expected)
+            throw JournalException.CorruptedException();
+        return section;
+    }
+
+    private static int checksum(ByteBuffer buffer) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer);
+        return (int) crc.getValue();
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+                throw JournalException.CorruptedException();
+        }
+        return buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    private static List<Long> listSnapshots(Path directory) throws IOException {
+        ArrayList<Long> indexes = new ArrayList<Long>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(snapshotPrefix) && name.endsWith(snapshotSuffix))
+                    .forEach(name -> indexes.add(Long.parseLong(name.substring(snapshotPrefix.length(), name.length() - snapshotSuffix.length()))));
+        }
+        indexes.sort(null);
+        return indexes;
+    }
+
+    private static Path snapshotPath(Path directory, long index) {
+        return directory.resolve(String.format("%s%020d%s", snapshotPrefix, index, snapshotSuffix));
+    }
+
+    /**
+     * копия состояния, снятая под глобальной блокировкой
+     */
+    private static final class Capture {
+        private final SnapshotCodec.BankImage[] banks;
+        private final SnapshotCodec.TransactionsImage transactions;
+        private final JournalPosition position;
+        private final LocalDateTime time = LocalDateTime.now();
+
+        private Capture(SnapshotCodec.BankImage[] banks, SnapshotCodec.TransactionsImage transactions, JournalPosition position) {
+            this.banks = banks;
+            this.transactions = transactions;
+            this.position = position;
+        }
+    }
+}
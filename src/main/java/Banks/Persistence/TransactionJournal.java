@@ -0,0 +1,499 @@
+package Banks.Persistence;
+
+import Banks.Tools.JournalException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * журнал транзакций с упреждающей записью (write-ahead log).
+ * записи добавляются в конец сегментов фиксированного размера, отображенных в память
+ * (файлы journal-&lt;номер&gt;.log), каждая запись - [длина][crc32c][данные JournalRecord].
+ * длина пишется последней, поэтому нулевая длина означает конец сегмента, а запись с неверной
+ * контрольной суммой - оборванный при сбое хвост журнала.
+ * запись кодируется и подписывается контрольной суммой в буфере вызывающего потока, под блокировкой
+ * журнала остаются только выбор места (и смена сегмента), копирование байтов и запись длины.
+ * когда запись попадает на диск, определяет JournalSyncPolicy
+ */
+public class TransactionJournal implements Closeable {
+    /**
+     * размер сегмента по умолчанию
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+    /**
+     * период сброса по умолчанию для политики PERIODIC
+     */
+    public static final long DEFAULT_SYNC_PERIOD_MILLIS = 10;
+    private static final String segmentPrefix = "journal-";
+    private static final String segmentSuffix = ".log";
+    private static final int headerBytes = Integer.BYTES * 2;
+    private static final int maxRecordBytes = 128;
+    private static final int retainedEncoderBytes = 64 << 10;
+    private static final ThreadLocal<Encoder> encoders = ThreadLocal.withInitial(Encoder::new);
+
+    private final Path directory;
+    private final JournalSyncPolicy policy;
+    private final int segmentSize;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition syncDone = syncLock.newCondition();
+    private final AtomicLong syncs = new AtomicLong();
+    private final AtomicLong records = new AtomicLong();
+    private final ScheduledExecutorService flusher;
+    private Segment current;
+    private long writtenLsn;
+    private long syncedLsn;
+    private boolean syncInProgress;
+    private boolean closed;
+
+    /**
+     * конструктор журнала с размером сегмента и периодом сброса по умолчанию
+     * @param directory - папка журнала
+     * @param policy - политика сброса на диск
+     * @throws JournalException - исключение бросается если параметры null или папку не удалось открыть
+     */
+    public TransactionJournal(Path directory, JournalSyncPolicy policy) throws JournalException {
+        this(directory, policy, DEFAULT_SEGMENT_SIZE, DEFAULT_SYNC_PERIOD_MILLIS);
+    }
+
+    /**
+     * конструктор журнала. если в папке уже есть сегменты, запись продолжается после последней
+     * целой записи, а оборванный хвост последнего сегмента затирается нулями
+     * @param directory - папка журнала
+     * @param policy - политика сброса на диск
+     * @param segmentSize - размер сегмента в байтах
+     * @param syncPeriodMillis - период сброса для политики PERIODIC
+     * @throws JournalException - исключение бросается если параметры null, сегмент слишком мал
+     * или папку не удалось открыть
+     */
+    public TransactionJournal(Path directory, JournalSyncPolicy policy, int segmentSize, long syncPeriodMillis) throws JournalException {
+        if (directory == null || policy == null)
+            throw JournalException.NullException();
+        if (segmentSize < headerBytes + maxRecordBytes)
+            throw JournalException.InvalidSegmentSizeException();
+        this.directory = directory;
+        this.policy = policy;
+        this.segmentSize = segmentSize;
+        try {
+            Files.createDirectories(directory);
+            List<Long> segments = listSegments(directory);
+            if (segments.isEmpty()) {
+                current = openSegment(0);
+            } else {
+                long last = segments.get(segments.size() - 1);
+                current = openSegment(last);
+                current.position = scanSegment(current.buffer, null);
+                for (int i = current.position; i < segmentSize; i++)
+                    current.buffer.put(i, (byte) 0);
+                current.buffer.force();
+                current.forcedUpTo = current.position;
+            }
+        } catch (IOException e) {
+            throw JournalException.IOFailureException(e);
+        }
+        writtenLsn = lsn(current);
+        syncedLsn = writtenLsn;
+        if (policy == JournalSyncPolicy.PERIODIC) {
+            flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "journal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleAtFixedRate(this::sync, syncPeriodMillis, syncPeriodMillis, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    /**
+     * метод, который возвращает политику сброса
+     * @return - политика сброса
+     */
+    public JournalSyncPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * метод, который возвращает количество сбросов на диск
+     * (при GROUP оно меньше количества записей - одна фиксация покрывает группу)
+     * @return - количество вызовов fsync
+     */
+    public long getSyncCount() {
+        return syncs.get();
+    }
+
+    /**
+     * метод, который возвращает количество записей, добавленных этим экземпляром журнала
+     * @return - количество записей
+     */
+    public long getRecordCount() {
+        return records.get();
+    }
+
+    /**
+     * метод, который возвращает позицию конца журнала (сюда ляжет следующая запись)
+     * @return - позиция конца журнала
+     */
+    public JournalPosition position() {
+        appendLock.lock();
+        try {
+            return new JournalPosition(current.index, current.position);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * метод, который добавляет запись и ждет, пока она станет надежной согласно политике
+     * @param record - запись
+     * @throws JournalException - исключение бросается если запись null, журнал закрыт или запись не удалась
+     */
+    public void write(JournalRecord record) throws JournalException {
+        awaitDurable(append(record));
+    }
+
+    /**
+     * метод, который добавляет запись, не дожидаясь сброса на диск
+     * (кроме политики PER_RECORD, при которой запись сбрасывается сразу)
+     * @param record - запись
+     * @return - логическая позиция конца записи, ее нужно передать в awaitDurable
+     * @throws JournalException - исключение бросается если запись null, журнал закрыт или запись не удалась
+     */
+    public long append(JournalRecord record) throws JournalException {
+        if (record == null)
+            throw JournalException.NullException();
+        Encoder encoder = encoders.get();
+        encoder.clear();
+        encoder.add(record);
+        appendLock.lock();
+        try {
+            return appendLocked(encoder);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * метод, который добавляет несколько записей за один захват журнала
+     * @param batch - записи
+     * @return - логическая позиция конца последней записи, ее нужно передать в awaitDurable
+     * @throws JournalException - исключение бросается если записи null, журнал закрыт или запись не удалась
+     */
+    public long appendAll(List<JournalRecord> batch) throws JournalException {
+        if (batch == null)
+            throw JournalException.NullException();
+        Encoder encoder = encoders.get();
+        encoder.clear();
+        for (JournalRecord record : batch) {
+            if (record == null)
+                throw JournalException.NullException();
+            encoder.add(record);
+        }
+        appendLock.lock();
+        try {
+            return appendLocked(encoder);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * метод, который ждет, пока записи до заданной позиции станут надежными согласно политике:
+     * при GROUP ждет групповой фиксации, при PER_RECORD и PERIODIC возвращается сразу
+     * @param lsn - позиция, которую вернул append
+     * @throws JournalException - исключение бросается если сброс на диск не удался
+     */
+    public void awaitDurable(long lsn) throws JournalException {
+        if (policy == JournalSyncPolicy.GROUP)
+            syncUpTo(lsn);
+    }
+
+    /**
+     * метод, который сбрасывает на диск все добавленные записи
+     * @throws JournalException - исключение бросается если сброс на диск не удался
+     */
+    public void sync() throws JournalException {
+        long lsn;
+        appendLock.lock();
+        try {
+            lsn = writtenLsn;
+        } finally {
+            appendLock.unlock();
+        }
+        syncUpTo(lsn);
+    }
+
+    /**
+     * метод, который сбрасывает журнал на диск и закрывает его
+     * @throws JournalException - исключение бросается если сброс на диск не удался
+     */
+    @Override
+    public void close() throws JournalException {
+        appendLock.lock();
+        try {
+            if (closed)
+                return;
+            closed = true;
+        } finally {
+            appendLock.unlock();
+        }
+        if (flusher != null)
+            flusher.shutdownNow();
+        sync();
+    }
+
+    /**
+     * метод, который читает все целые записи журнала по порядку
+     * @param directory - папка журнала
+     * @param consumer - обработчик записей
+     * @return - позиция конца прочитанного журнала
+     * @throws JournalException - исключение бросается если параметры null или чтение не удалось
+     */
+    public static JournalPosition read(Path directory, Consumer<JournalRecord> consumer) throws JournalException {
+        return read(directory, JournalPosition.START, consumer);
+    }
+
+    /**
+     * метод, который читает целые записи журнала начиная с позиции
+     * (чтение останавливается на первой оборванной записи)
+     * @param directory - папка журнала
+     * @param from - позиция, с которой начинать чтение
+     * @param consumer - обработчик записей
+     * @return - позиция конца прочитанного журнала
+     * @throws JournalException - исключение бросается если параметры null или чтение не удалось
+     */
+    public static JournalPosition read(Path directory, JournalPosition from, Consumer<JournalRecord> consumer) throws JournalException {
+        if (directory == null || from == null || consumer == null)
+            throw JournalException.NullException();
+        JournalPosition end = from;
+        try {
+            if (!Files.isDirectory(directory))
+                return end;
+            for (long index : listSegments(directory)) {
+                if (index < from.getSegment())
+                    continue;
+                MappedByteBuffer buffer;
+                try (FileChannel channel = FileChannel.open(segmentPath(directory, index), StandardOpenOption.READ)) {
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                }
+                int start = index == from.getSegment() ? from.getOffset() : 0;
+                buffer.position(start);
+                int stop = scanSegment(buffer, consumer);
+                end = new JournalPosition(index, stop);
+                if (stop + headerBytes <= buffer.capacity() && buffer.getInt(stop) != 0)
+                    break;
+            }
+        } catch (IOException e) {
+            throw JournalException.IOFailureException(e);
+        }
+        return end;
+    }
+
+    /**
+     * копирует закодированные записи в сегмент (под appendLock)
+     * @param encoder - записи вызывающего потока
+     * @return - логическая позиция конца последней записи
+     */
+    private long appendLocked(Encoder encoder) {
+        if (closed)
+            throw JournalException.ClosedException();
+        ByteBuffer frames = encoder.frames;
+        int offset = 0;
+        for (int i = 0; i < encoder.count; i++) {
+            int payload = frames.getInt(offset);
+            int size = headerBytes + payload;
+            if (current.position + size + headerBytes > segmentSize)
+                roll();
+            Segment segment = current;
+            int start = segment.position;
+            MappedByteBuffer buffer = segment.buffer;
+            buffer.put(start + Integer.BYTES, frames, offset + Integer.BYTES, size - Integer.BYTES);
+            buffer.putInt(start, payload);
+            segment.position = start + size;
+            writtenLsn = lsn(segment);
+            records.incrementAndGet();
+            if (policy == JournalSyncPolicy.PER_RECORD) {
+                buffer.force(start, size);
+                syncs.incrementAndGet();
+            }
+            offset += size;
+        }
+        return writtenLsn;
+    }
+
+    private void roll() {
+        Segment old = current;
+        old.buffer.force();
+        old.forcedUpTo = old.position;
+        try {
+            current = openSegment(old.index + 1);
+        } catch (IOException e) {
+            throw JournalException.IOFailureException(e);
+        }
+        writtenLsn = lsn(current);
+    }
+
+    private void syncUpTo(long lsn) {
+        syncLock.lock();
+        try {
+            while (syncedLsn < lsn) {
+                if (syncInProgress) {
+                    syncDone.awaitUninterruptibly();
+                    continue;
+                }
+                syncInProgress = true;
+                long reached = -1;
+                syncLock.unlock();
+                try {
+                    reached = forceWritten();
+                } finally {
+                    syncLock.lock();
+                    syncInProgress = false;
+                    if (reached > syncedLsn)
+                        syncedLsn = reached;
+                    syncDone.signalAll();
+                }
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private long forceWritten() {
+        Segment segment;
+        int to;
+        long lsn;
+        appendLock.lock();
+        try {
+            segment = current;
+            to = segment.position;
+            lsn = writtenLsn;
+        } finally {
+            appendLock.unlock();
+        }
+        int from = segment.forcedUpTo;
+        if (to > from) {
+            segment.buffer.force(from, to - from);
+            segment.forcedUpTo = to;
+            syncs.incrementAndGet();
+        }
+        return lsn;
+    }
+
+    private long lsn(Segment segment) {
+        return segment.index * segmentSize + segment.position;
+    }
+
+    private Segment openSegment(long index) throws IOException {
+        Path path = segmentPath(directory, index);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            channel.force(true);
+            return new Segment(index, buffer);
+        }
+    }
+
+    /**
+     * метод, который проходит по целым записям сегмента с текущей позиции буфера
+     * @param buffer - сегмент
+     * @param consumer - обработчик записей (null - только найти конец)
+     * @return - смещение конца последней целой записи
+     */
+    private static int scanSegment(ByteBuffer buffer, Consumer<JournalRecord> consumer) {
+        CRC32C checksum = new CRC32C();
+        int offset = buffer.position();
+        while (offset + headerBytes <= buffer.capacity()) {
+            int payload = buffer.getInt(offset);
+            if (payload <= 0 || payload > maxRecordBytes || offset + headerBytes + payload > buffer.capacity())
+                break;
+            checksum.reset();
+            checksum.update(buffer.slice(offset + headerBytes, payload));
+            if ((int) checksum.getValue() != buffer.getInt(offset + Integer.BYTES))
+                break;
+            if (consumer != null)
+                consumer.accept(JournalRecord.readFrom(buffer.slice(offset + headerBytes, payload)));
+            offset += headerBytes + payload;
+        }
+        return offset;
+    }
+
+    private static List<Long> listSegments(Path directory) throws IOException {
+        ArrayList<Long> segments = new ArrayList<Long>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(segmentPrefix) && name.endsWith(segmentSuffix))
+                    .forEach(name -> segments.add(Long.parseLong(name.substring(segmentPrefix.length(), name.length() - segmentSuffix.length()))));
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    private static Path segmentPath(Path directory, long index) {
+        return directory.resolve(String.format("%s%020d%s", segmentPrefix, index, segmentSuffix));
+    }
+
+    /**
+     * буфер потока, в котором записи кодируются целиком ([длина][crc32c][данные]) до захвата журнала
+     */
+    private static final class Encoder {
+        private final CRC32C crc = new CRC32C();
+        private ByteBuffer frames = ByteBuffer.allocate(headerBytes + maxRecordBytes);
+        private int count;
+
+        private void clear() {
+            if (frames.capacity() > retainedEncoderBytes)
+                frames = ByteBuffer.allocate(headerBytes + maxRecordBytes);
+            frames.clear();
+            count = 0;
+        }
+
+        private void add(JournalRecord record) {
+            int payload = record.encodedSize();
+            if (frames.remaining() < headerBytes + payload) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(frames.capacity() * 2, frames.position() + headerBytes + payload));
+                grown.put(frames.flip());
+                frames = grown;
+            }
+            int start = frames.position();
+            frames.position(start + headerBytes);
+            record.writeTo(frames);
+            crc.reset();
+            crc.update(frames.slice(start + headerBytes, payload));
+            frames.putInt(start, payload);
+            frames.putInt(start + Integer.BYTES, (int) crc.getValue());
+            count++;
+        }
+    }
+
+    /**
+     * сегмент журнала, отображенный в память
+     */
+    private static final class Segment {
+        private final long index;
+        private final MappedByteBuffer buffer;
+        private int position;
+        private volatile int forcedUpTo;
+
+        private Segment(long index, MappedByteBuffer buffer) {
+            this.index = index;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package Banks.Tools;
+
+import java.time.Clock;
+import java.time.LocalDate;
+
+/**
+ * класс общих часов банковской системы (по умолчанию - системные часы в зоне по умолчанию).
+ * часы можно подменить через setClock, например, чтобы тест прокрутил дни начисления процентов.
+ * текущий день кэшируется вместе с границами суток, поэтому epochDay на горячем пути стоит
+ * одного чтения clock.millis() и двух сравнений
+ */
+public final class BankClock {
+    private static volatile Day day = Day.of(Clock.systemDefaultZone());
+
+    private BankClock() { }
+
+    /**
+     * метод, который возвращает текущий день
+     * @return - номер дня от 1970-01-01
+     */
+    public static long epochDay() {
+        Day current = day;
+        long now = current.clock.millis();
+        if (now >= current.startMillis && now < current.endMillis)
+            return current.epochDay;
+        current = Day.of(current.clock);
+        day = current;
+        return current.epochDay;
+    }
+
+    /**
+     * метод, который возвращает текущую дату
+     * @return - дата
+     */
+    public static LocalDate today() {
+        return LocalDate.ofEpochDay(epochDay());
+    }
+
+    /**
+     * метод, который возвращает текущие часы
+     * @return - часы
+     */
+    public static Clock getClock() {
+        return day.clock;
+    }
+
+    /**
+     * метод, который заменяет часы
+     * @param clock - новые часы
+     * @throws BankException - исключение бросается если часы null
+     */
+    public static void setClock(Clock clock) throws BankException {
+        if (clock == null)
+            throw BankException.NullException();
+        day = Day.of(clock);
+    }
+
+    /**
+     * текущий день часов и его границы в миллисекундах
+     */
+    private static final class Day {
+        private final Clock clock;
+        private final long epochDay;
+        private final long startMillis;
+        private final long endMillis;
+
+        private Day(Clock clock, long epochDay, long startMillis, long endMillis) {
+            this.clock = clock;
+            this.epochDay = epochDay;
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+        }
+
+        private static Day of(Clock clock) {
+            LocalDate date = LocalDate.ofInstant(clock.instant(), clock.getZone());
+            return new Day(clock, date.toEpochDay(),
+                    date.atStartOfDay(clock.getZone()).toInstant().toEpochMilli(),
+                    date.plusDays(1).atStartOfDay(clock.getZone()).toInstant().toEpochMilli());
+        }
+    }
+}
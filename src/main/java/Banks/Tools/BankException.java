@@ -75,6 +75,14 @@ public class BankException extends RuntimeException {
     public static BankException InvalidClientExistenceException() throws BankException {
         throw new BankException("such client exist in bank");
     }
+    /**
+     * исключение, которое бросается если банк с таким названием уже зарегистрирован
+     * @return - возвращает исключение
+     * @throws AccountException - бросаемое исключение
+     */
+    public static BankException InvalidBankExistenceException() throws BankException {
+        throw new BankException("such bank already registered");
+    }
     /**
      * исключение, которое бросается если параметр null
      * @return - возвращает исключение
@@ -83,4 +91,52 @@ public class BankException extends RuntimeException {
     public static BankException NullException() throws BankException{
         throw new BankException("param is null");
     }
+    /**
+     * исключение, которое бросается если параметры рассылки уведомлений некорректны
+     * @return - возвращает исключение
+     * @throws BankException - бросаемое исключение
+     */
+    public static BankException InvalidDispatcherSettingsException() throws BankException{
+        throw new BankException("dispatcher capacity and workers must be positive");
+    }
+    /**
+     * исключение, которое бросается если рассылка уведомлений уже закрыта
+     * @return - возвращает исключение
+     * @throws BankException - бросаемое исключение
+     */
+    public static BankException ClosedDispatcherException() throws BankException{
+        throw new BankException("notification dispatcher is closed");
+    }
+    /**
+     * исключение, которое бросается если метрики не удалось зарегистрировать в JMX
+     * @return - возвращает исключение
+     * @throws BankException - бросаемое исключение
+     */
+    public static BankException MetricsRegistrationException() throws BankException{
+        throw new BankException("failed to register metrics mbeans");
+    }
+    /**
+     * исключение, которое бросается если номер узла генератора id не помещается в 16 бит
+     * @return - возвращает исключение
+     * @throws BankException - бросаемое исключение
+     */
+    public static BankException InvalidNodeException() throws BankException{
+        throw new BankException("id generator node must be between 0 and 65535");
+    }
+    /**
+     * исключение, которое бросается если параметры движка переводов некорректны
+     * @return - возвращает исключение
+     * @throws BankException - бросаемое исключение
+     */
+    public static BankException InvalidEngineSettingsException() throws BankException{
+        throw new BankException("engine shards must be positive and ring capacity a power of two");
+    }
+    /**
+     * исключение, которое бросается если движок переводов уже закрыт
+     * @return - возвращает исключение
+     * @throws BankException - бросаемое исключение
+     */
+    public static BankException ClosedEngineException() throws BankException{
+        throw new BankException("transfer engine is closed");
+    }
 }
@@ -67,4 +67,12 @@ public class ClientException extends RuntimeException{
     public static ClientException NullException() throws ClientException{
         throw new ClientException("param is null");
     }
+    /**
+     * исключение, которое бросается если емкость ящика уведомлений меньше единицы
+     * @return - возвращает исключение
+     * @throws ClientException - бросаемое исключение
+     */
+    public static ClientException InvalidInboxCapacity() throws ClientException{
+        throw new ClientException("inbox capacity must be positive");
+    }
 }
@@ -0,0 +1,14 @@
+package Banks.Tools;
+
+import java.util.UUID;
+
+/**
+ * интерфейс генератора id транзакций, аккаунтов, клиентов и банков
+ */
+public interface IdGenerator {
+    /**
+     * метод, который выдает новый id
+     * @return - id
+     */
+    UUID nextId();
+}
@@ -0,0 +1,40 @@
+package Banks.Tools;
+
+import java.util.UUID;
+
+/**
+ * класс общего генератора id; по умолчанию id упорядочены по времени (TimeOrderedIdGenerator),
+ * прежние случайные id возвращаются через setGenerator(new RandomIdGenerator())
+ */
+public final class Ids {
+    private static volatile IdGenerator generator = new TimeOrderedIdGenerator();
+
+    private Ids() { }
+
+    /**
+     * метод, который выдает новый id текущим генератором
+     * @return - id
+     */
+    public static UUID next() {
+        return generator.nextId();
+    }
+
+    /**
+     * метод, который возвращает текущий генератор
+     * @return - генератор
+     */
+    public static IdGenerator getGenerator() {
+        return generator;
+    }
+
+    /**
+     * метод, который заменяет генератор id
+     * @param idGenerator - новый генератор
+     * @throws BankException - исключение бросается если генератор null
+     */
+    public static void setGenerator(IdGenerator idGenerator) throws BankException {
+        if (idGenerator == null)
+            throw BankException.NullException();
+        generator = idGenerator;
+    }
+}
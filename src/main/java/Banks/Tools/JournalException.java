@@ -0,0 +1,81 @@
+package Banks.Tools;
+
+/**
+ * класс кастомных исключений журнала транзакций и снимков состояния
+ */
+public class JournalException extends RuntimeException {
+    /**
+     * конструктор исключения
+     * @param message - сообщение исключения
+     */
+    public JournalException(String message) {
+        super(message);
+    }
+
+    /**
+     * конструктор исключения
+     * @param message - сообщение исключения
+     * @param cause - исходная ошибка ввода-вывода
+     */
+    public JournalException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    /**
+     * исключение, которое бросается если не удалось записать или прочитать файл журнала
+     * @param cause - исходная ошибка ввода-вывода
+     * @return - возвращает исключение
+     * @throws JournalException - бросаемое исключение
+     */
+    public static JournalException IOFailureException(Throwable cause) throws JournalException {
+        throw new JournalException("journal io failed: " + cause.getMessage(), cause);
+    }
+    /**
+     * исключение, которое бросается если журнал уже закрыт
+     * @return - возвращает исключение
+     * @throws JournalException - бросаемое исключение
+     */
+    public static JournalException ClosedException() throws JournalException {
+        throw new JournalException("journal is closed");
+    }
+    /**
+     * исключение, которое бросается если запись не помещается в сегмент журнала
+     * @return - возвращает исключение
+     * @throws JournalException - бросаемое исключение
+     */
+    public static JournalException InvalidSegmentSizeException() throws JournalException {
+        throw new JournalException("segment size is too small");
+    }
+    /**
+     * исключение, которое бросается если файл поврежден или имеет неизвестный формат
+     * @return - возвращает исключение
+     * @throws JournalException - бросаемое исключение
+     */
+    public static JournalException CorruptedException() throws JournalException {
+        throw new JournalException("file is corrupted or has unknown format");
+    }
+    /**
+     * исключение, которое бросается если параметр null
+     * @return - возвращает исключение
+     * @throws JournalException - бросаемое исключение
+     */
+    public static JournalException NullException() throws JournalException {
+        throw new JournalException("param is null");
+    }
+    /**
+     * исключение, которое бросается если тип аккаунта или транзакции не поддерживается снимком
+     * @return - возвращает исключение
+     * @throws JournalException - бросаемое исключение
+     */
+    public static JournalException UnsupportedTypeException() throws JournalException {
+        throw new JournalException("type is not supported by snapshot");
+    }
+    /**
+     * исключение, которое бросается если восстановление запущено при подключенном журнале
+     * @return - возвращает исключение
+     * @throws JournalException - бросаемое исключение
+     */
+    public static JournalException AttachedJournalException() throws JournalException {
+        throw new JournalException("journal must be detached during recovery");
+    }
+}
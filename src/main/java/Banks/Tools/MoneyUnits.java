@@ -0,0 +1,50 @@
+package Banks.Tools;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * класс перевода денежных сумм между BigDecimal и целым числом минимальных единиц (копеек)
+ */
+public final class MoneyUnits {
+    /**
+     * количество знаков после запятой у минимальной единицы
+     */
+    public static final int SCALE = 2;
+    /**
+     * правило округления сумм, у которых больше знаков, чем SCALE
+     */
+    public static final RoundingMode ROUNDING = RoundingMode.HALF_EVEN;
+
+    private MoneyUnits() { }
+
+    /**
+     * метод, который переводит сумму в минимальные единицы
+     * @param money - сумма
+     * @return - сумма в минимальных единицах
+     * @throws AccountException - исключение бросается если сумма null или не помещается в long
+     */
+    public static long toUnits(BigDecimal money) throws AccountException {
+        if (money == null)
+            throw AccountException.NullException();
+        try {
+            return money.setScale(SCALE, ROUNDING).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw AccountException.InvalidAccountMoneyException();
+        }
+    }
+
+    /**
+     * метод, который переводит минимальные единицы в сумму с наименьшим неотрицательным масштабом
+     * (10000 копеек - это 100, а не 100.00, 150 копеек - 1.5)
+     * @param units - сумма в минимальных единицах
+     * @return - сумма
+     */
+    public static BigDecimal toMoney(long units) {
+        if (units % 100 == 0)
+            return BigDecimal.valueOf(units / 100);
+        if (units % 10 == 0)
+            return BigDecimal.valueOf(units / 10, SCALE - 1);
+        return BigDecimal.valueOf(units, SCALE);
+    }
+}
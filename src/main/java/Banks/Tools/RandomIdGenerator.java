@@ -0,0 +1,13 @@
+package Banks.Tools;
+
+import java.util.UUID;
+
+/**
+ * генератор случайных id через UUID.randomUUID (SecureRandom): прежнее поведение
+ */
+public final class RandomIdGenerator implements IdGenerator {
+    @Override
+    public UUID nextId() {
+        return UUID.randomUUID();
+    }
+}
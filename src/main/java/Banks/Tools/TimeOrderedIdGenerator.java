@@ -0,0 +1,83 @@
+package Banks.Tools;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * генератор упорядоченных по времени id в формате UUID версии 7:
+ * старшие 48 бит - миллисекунды от 1970-01-01 UTC, затем 26-битный счетчик потока,
+ * 16 бит номера узла и 32 бита номера потока.
+ * у каждого потока свои время и счетчик, поэтому выдача id не берет общих блокировок и не трогает
+ * SecureRandom; уникальность между потоками дает номер потока, между процессами - номер узла.
+ * id одного потока строго возрастают (если часы идут назад, поток продолжает от последней
+ * выданной миллисекунды, при переполнении счетчика переходит на следующую)
+ */
+public final class TimeOrderedIdGenerator implements IdGenerator {
+    private static final int counterBits = 26;
+    private static final int counterLowBits = 14;
+    private static final long counterLowMask = (1L << counterLowBits) - 1;
+    private static final long versionBits = 0x7000L;
+    private static final long variantBits = 0x8000_0000_0000_0000L;
+    private static final long maxNode = 0xFFFF;
+    private final long node;
+    private final AtomicInteger threads = new AtomicInteger();
+    private final ThreadLocal<State> states = ThreadLocal.withInitial(() -> new State(threads.getAndIncrement()));
+
+    /**
+     * конструктор генератора со случайным номером узла
+     */
+    public TimeOrderedIdGenerator() {
+        this(new SecureRandom().nextInt((int) maxNode + 1));
+    }
+
+    /**
+     * конструктор генератора
+     * @param node - номер узла от 0 до 65535, разный у процессов, которые пишут в общее хранилище
+     * @throws BankException - исключение бросается если номер узла вне диапазона
+     */
+    public TimeOrderedIdGenerator(int node) throws BankException {
+        if (node < 0 || node > maxNode)
+            throw BankException.InvalidNodeException();
+        this.node = node;
+    }
+
+    @Override
+    public UUID nextId() {
+        State state = states.get();
+        long now = System.currentTimeMillis();
+        if (now > state.millis) {
+            state.millis = now;
+            state.counter = 0;
+        } else if (++state.counter >>> counterBits != 0) {
+            state.millis++;
+            state.counter = 0;
+        }
+        long counter = state.counter;
+        long high = state.millis << 16 | versionBits | counter >>> counterLowBits;
+        long low = variantBits | (counter & counterLowMask) << 48 | node << 32 | state.thread;
+        return new UUID(high, low);
+    }
+
+    /**
+     * метод, который возвращает время выдачи id этого генератора
+     * @param id - id версии 7
+     * @return - миллисекунды от 1970-01-01 UTC
+     */
+    public static long getEpochMillis(UUID id) {
+        return id.getMostSignificantBits() >>> 16;
+    }
+
+    /**
+     * состояние потока: последняя миллисекунда, счетчик в ней и номер потока
+     */
+    private static final class State {
+        private final long thread;
+        private long millis;
+        private long counter;
+
+        private State(int thread) {
+            this.thread = Integer.toUnsignedLong(thread);
+        }
+    }
+}
@@ -46,4 +46,28 @@ public class TransactionException extends RuntimeException{
     public static TransactionException NullException() throws TransactionException{
         throw new TransactionException("param is null");
     }
+    /**
+     * исключение, которое бросается если длительность раздела хранилища меньше секунды
+     * @return - возвращает исключение
+     * @throws TransactionException - бросаемое исключение
+     */
+    public static TransactionException InvalidPartitionException() throws TransactionException{
+        throw new TransactionException("partition duration must be at least one second");
+    }
+    /**
+     * исключение, которое бросается если курсор страницы отрицательный или размер страницы меньше единицы
+     * @return - возвращает исключение
+     * @throws TransactionException - бросаемое исключение
+     */
+    public static TransactionException InvalidPageException() throws TransactionException{
+        throw new TransactionException("page cursor must not be negative and page size must be positive");
+    }
+    /**
+     * исключение, которое бросается если тип транзакции нельзя сохранить в архиве
+     * @return - возвращает исключение
+     * @throws TransactionException - бросаемое исключение
+     */
+    public static TransactionException InvalidArchiveTypeException() throws TransactionException{
+        throw new TransactionException("only transfer, update and withdraw transactions can be archived");
+    }
 }
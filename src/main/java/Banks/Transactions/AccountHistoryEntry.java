@@ -0,0 +1,48 @@
+package Banks.Transactions;
+
+import java.time.LocalDateTime;
+
+/**
+ * класс записи истории аккаунта: проведение транзакции или ее отмена
+ */
+public final class AccountHistoryEntry {
+    private final Transaction transaction;
+    private final LocalDateTime time;
+    private final boolean cancellation;
+
+    /**
+     * конструктор записи
+     * @param transaction - транзакция
+     * @param time - время проведения или отмены
+     * @param cancellation - true если запись об отмене транзакции
+     */
+    public AccountHistoryEntry(Transaction transaction, LocalDateTime time, boolean cancellation) {
+        this.transaction = transaction;
+        this.time = time;
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * метод, который возвращает транзакцию
+     * @return - транзакция
+     */
+    public Transaction getTransaction() {
+        return transaction;
+    }
+
+    /**
+     * метод, который возвращает время проведения или отмены
+     * @return - время
+     */
+    public LocalDateTime getTime() {
+        return time;
+    }
+
+    /**
+     * метод, который проверяет, является ли запись отменой транзакции
+     * @return - true если запись об отмене
+     */
+    public boolean isCancellation() {
+        return cancellation;
+    }
+}
@@ -0,0 +1,115 @@
+package Banks.Transactions;
+
+import Banks.AccountTypes.Account;
+import Banks.Tools.TransactionException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * индекс истории операций по аккаунтам: у каждого аккаунта свой журнал записей в порядке
+ * регистрации (транзакция попадает в журналы отправителя и получателя, отмена - отдельной записью).
+ * курсор страницы - номер записи в журнале аккаунта, поэтому страница читается за O(размер страницы)
+ * и не сдвигается, когда в начало истории добавляются новые записи.
+ * запись в журнал одного аккаунта идет под его монитором, чтение - без блокировок
+ */
+public class AccountHistoryIndex {
+    private static final int initialCapacity = 8;
+    private final ConcurrentHashMap<UUID, History> histories = new ConcurrentHashMap<UUID, History>();
+
+    /**
+     * метод, который добавляет проведенную транзакцию в историю ее аккаунтов
+     * @param transaction - транзакция
+     * @throws TransactionException - исключение бросается если транзакция null
+     */
+    public void addTransaction(Transaction transaction) throws TransactionException {
+        if (transaction == null)
+            throw TransactionException.NullException();
+        add(transaction, new AccountHistoryEntry(transaction, transaction.getTransactionTime(), false));
+    }
+
+    /**
+     * метод, который добавляет отмену транзакции в историю ее аккаунтов
+     * @param transaction - отмененная транзакция
+     * @param time - время отмены
+     * @throws TransactionException - исключение бросается если транзакция или время null
+     */
+    public void addCancellation(Transaction transaction, LocalDateTime time) throws TransactionException {
+        if (transaction == null || time == null)
+            throw TransactionException.NullException();
+        add(transaction, new AccountHistoryEntry(transaction, time, true));
+    }
+
+    /**
+     * метод, который возвращает страницу истории аккаунта от новых записей к старым
+     * @param account - аккаунт
+     * @param cursor - курсор страницы (AccountHistoryPage.firstPage для самых новых записей)
+     * @param limit - максимальное количество записей на странице
+     * @return - страница истории
+     * @throws TransactionException - исключение бросается если аккаунт null, курсор отрицательный или размер страницы меньше единицы
+     */
+    public AccountHistoryPage getPage(Account account, long cursor, int limit) throws TransactionException {
+        if (account == null)
+            throw TransactionException.NullException();
+        if (cursor < 0 || limit < 1)
+            throw TransactionException.InvalidPageException();
+        History history = histories.get(account.getId());
+        if (history == null)
+            return new AccountHistoryPage(Collections.emptyList(), -1);
+        int size = history.size;
+        AccountHistoryEntry[] entries = history.entries;
+        int end = (int) Math.min(cursor, size);
+        int start = Math.max(0, end - limit);
+        ArrayList<AccountHistoryEntry> page = new ArrayList<AccountHistoryEntry>(end - start);
+        for (int i = end - 1; i >= start; i--)
+            page.add(entries[i]);
+        return new AccountHistoryPage(Collections.unmodifiableList(page), start > 0 ? start : -1);
+    }
+
+    /**
+     * метод, который возвращает количество записей в истории аккаунта
+     * @param account - аккаунт
+     * @return - количество записей
+     * @throws TransactionException - исключение бросается если аккаунт null
+     */
+    public int size(Account account) throws TransactionException {
+        if (account == null)
+            throw TransactionException.NullException();
+        History history = histories.get(account.getId());
+        return history == null ? 0 : history.size;
+    }
+
+    private void add(Transaction transaction, AccountHistoryEntry entry) {
+        Account sender = transaction.getSender();
+        historyOf(sender).add(entry);
+        if (transaction instanceof TransferTransaction transfer && transfer.getRecipient() != sender)
+            historyOf(transfer.getRecipient()).add(entry);
+    }
+
+    private History historyOf(Account account) {
+        return histories.computeIfAbsent(account.getId(), id -> new History());
+    }
+
+    /**
+     * журнал аккаунта: массив с дописыванием в конец, элементы [0, size) видны после чтения volatile size
+     */
+    private static final class History {
+        private volatile AccountHistoryEntry[] entries = new AccountHistoryEntry[initialCapacity];
+        private volatile int size;
+
+        private synchronized void add(AccountHistoryEntry entry) {
+            AccountHistoryEntry[] current = entries;
+            int count = size;
+            if (count == current.length) {
+                current = Arrays.copyOf(current, count * 2);
+                entries = current;
+            }
+            current[count] = entry;
+            size = count + 1;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package Banks.Transactions;
+
+import java.util.List;
+
+/**
+ * класс страницы истории аккаунта: записи от новых к старым и курсор следующей страницы
+ */
+public final class AccountHistoryPage {
+    /**
+     * курсор первой страницы (самые новые записи)
+     */
+    public static final long firstPage = Long.MAX_VALUE;
+    private final List<AccountHistoryEntry> entries;
+    private final long nextCursor;
+
+    /**
+     * конструктор страницы
+     * @param entries - записи от новых к старым
+     * @param nextCursor - курсор следующей (более старой) страницы или -1, если страниц больше нет
+     */
+    public AccountHistoryPage(List<AccountHistoryEntry> entries, long nextCursor) {
+        this.entries = entries;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * метод, который возвращает записи страницы
+     * @return - записи от новых к старым
+     */
+    public List<AccountHistoryEntry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * метод, который проверяет, есть ли более старая страница
+     * @return - true если есть следующая страница
+     */
+    public boolean hasNext() {
+        return nextCursor >= 0;
+    }
+
+    /**
+     * метод, который возвращает курсор следующей страницы
+     * @return - курсор или -1, если страниц больше нет
+     */
+    public long getNextCursor() {
+        return nextCursor;
+    }
+}
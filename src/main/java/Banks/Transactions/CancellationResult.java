@@ -0,0 +1,43 @@
+package Banks.Transactions;
+
+/**
+ * класс результата отмены одной транзакции при массовой отмене: отмененная транзакция или причина отказа
+ */
+public final class CancellationResult {
+    private final Transaction transaction;
+    private final RuntimeException failure;
+
+    /**
+     * конструктор результата
+     * @param transaction - транзакция
+     * @param failure - причина отказа или null, если транзакция отменена
+     */
+    public CancellationResult(Transaction transaction, RuntimeException failure) {
+        this.transaction = transaction;
+        this.failure = failure;
+    }
+
+    /**
+     * метод, который возвращает транзакцию
+     * @return - транзакция
+     */
+    public Transaction getTransaction() {
+        return transaction;
+    }
+
+    /**
+     * метод, который возвращает причину отказа
+     * @return - исключение или null, если транзакция отменена
+     */
+    public RuntimeException getFailure() {
+        return failure;
+    }
+
+    /**
+     * метод, который проверяет, отменена ли транзакция
+     * @return - true если транзакция отменена, иначе false
+     */
+    public boolean isSuccess() {
+        return failure == null;
+    }
+}
@@ -1,6 +1,7 @@
 package Banks.Transactions;
 
 import Banks.AccountTypes.Account;
+import Banks.Tools.Ids;
 import Banks.Tools.TransactionException;
 
 import java.math.BigDecimal;
@@ -16,6 +17,7 @@ public abstract class Transaction {
     private BigDecimal money;
     private LocalDateTime transactionTime;
     private UUID id;
+    private UUID batchId;
     private boolean isCancelled;
 
     /**
@@ -32,7 +34,7 @@ public abstract class Transaction {
         if (money.compareTo(minMoney) < 0)
             throw TransactionException.InvalidMoneyException();
         this.sender = sender;
-        this.id = UUID.randomUUID();
+        this.id = Ids.next();
         this.money = money;
         this.transactionTime = time;
         isCancelled = false;
@@ -66,6 +68,13 @@ public abstract class Transaction {
     public void setId(UUID id) {
         this.id = id;
     }
+    /**
+     * метод, который задает id пакета, в котором проведена операция
+     * @param batchId - id пакета
+     */
+    public void setBatchId(UUID batchId) {
+        this.batchId = batchId;
+    }
     /**
      * метод, который задает статус операции
      * @param cancelled - статус операции
@@ -88,6 +97,13 @@ public abstract class Transaction {
     public UUID getId() {
         return id;
     }
+    /**
+     * метод, который возвращает id пакета, в котором проведена транзакция
+     * @return - id пакета или null, если транзакция проведена не пакетом
+     */
+    public UUID getBatchId() {
+        return batchId;
+    }
     /**
      * метод, который возвращает время транзакции
      * @return - возвращаемое время транзакции
@@ -0,0 +1,381 @@
+package Banks.Transactions;
+
+import Banks.AccountTypes.Account;
+import Banks.Tools.MoneyUnits;
+import Banks.Tools.TransactionException;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.UUID;
+
+/**
+ * колоночный архив исторических транзакций: вместо объекта транзакции с UUID, BigDecimal и LocalDateTime
+ * (около 190 байт в пяти объектах) каждая запись - это строка в примитивных колонках: две половины id,
+ * сумма в копейках, время в микросекундах от 1970-01-01T00:00 UTC, номера отправителя и получателя
+ * в словаре аккаунтов и байт типа и статуса. колонки разбиты на блоки по chunkSize записей,
+ * поэтому рост архива не копирует уже заполненные колонки.
+ * числовые колонки хранятся как база группы из groupSize записей и разности с ней минимальной ширины
+ * (1, 2, 4 или 8 байт; группа расширяется, когда разность перестает помещаться). id версии 7 и время
+ * соседних транзакций близки, поэтому для живого потока разности узкие: половины id поворачиваются так,
+ * чтобы меняющиеся биты (миллисекунды, счетчик, номер потока) оказались младшими, и запись занимает
+ * около 18 байт. случайные id или разбросанные значения расширяют только свои группы до 8 байт.
+ * у блока запоминается диапазон старших половин id, поэтому indexOf просматривает только блоки,
+ * в диапазон которых попадает id (для id версии 7 - обычно один блок).
+ * объект Transaction собирается только при чтении (get). сумма хранится с точностью до копейки,
+ * время - до микросекунды, id пакета не хранится.
+ * запись идет под монитором архива, чтение позиций меньше size() - без блокировок.
+ * архив - самостоятельный компонент: центральный банк не переносит в него старые транзакции,
+ * их пишет в архив тот, кто выгружает историю
+ */
+public class TransactionArchive {
+    private static final int chunkBits = 14;
+    private static final int chunkSize = 1 << chunkBits;
+    private static final int chunkMask = chunkSize - 1;
+    private static final int groupBits = 6;
+    private static final int groupSize = 1 << groupBits;
+    private static final int groupMask = groupSize - 1;
+    private static final int groupsCount = chunkSize >>> groupBits;
+    private static final int idRotation = 16;
+    private static final int arrayHeaderBytes = 16;
+    private static final int referenceBytes = Integer.BYTES;
+    private static final byte transferType = 0;
+    private static final byte updateType = 1;
+    private static final byte withdrawType = 2;
+    private static final byte typeMask = 0x0F;
+    private static final byte cancelledFlag = 0x10;
+    private static final int noAccount = -1;
+    private final HashMap<Account, Integer> accountNumbers = new HashMap<Account, Integer>();
+    private volatile Account[] accounts = new Account[64];
+    private volatile Chunk[] chunks = new Chunk[4];
+    private volatile long size;
+    private int accountCount;
+    private long footprintBytes = arrayHeaderBytes + 4L * referenceBytes;
+
+    /**
+     * метод, который добавляет транзакцию в архив
+     * @param transaction - транзакция
+     * @return - позиция записи в архиве
+     * @throws TransactionException - исключение бросается если транзакция null или ее тип неизвестен
+     */
+    public synchronized long append(Transaction transaction) throws TransactionException {
+        if (transaction == null)
+            throw TransactionException.NullException();
+        byte type;
+        int recipient = noAccount;
+        if (transaction instanceof TransferTransaction transfer) {
+            type = transferType;
+            recipient = accountNumber(transfer.getRecipient());
+        } else if (transaction instanceof UpdateTransaction) {
+            type = updateType;
+        } else if (transaction instanceof WithdrawTransaction) {
+            type = withdrawType;
+        } else {
+            throw TransactionException.InvalidArchiveTypeException();
+        }
+        long position = size;
+        int chunkIndex = (int) (position >>> chunkBits);
+        Chunk[] current = chunks;
+        if (chunkIndex == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+            footprintBytes += (long) (current.length - chunks.length) * referenceBytes;
+            chunks = current;
+        }
+        if (current[chunkIndex] == null) {
+            current[chunkIndex] = new Chunk();
+            footprintBytes += Chunk.fixedBytes;
+        }
+        Chunk chunk = current[chunkIndex];
+        int row = (int) (position & chunkMask);
+        UUID id = transaction.getId();
+        LocalDateTime time = transaction.getTransactionTime();
+        long high = id.getMostSignificantBits();
+        if (row == 0 || high < chunk.minIdHigh)
+            chunk.minIdHigh = high;
+        if (row == 0 || high > chunk.maxIdHigh)
+            chunk.maxIdHigh = high;
+        footprintBytes += chunk.idHigh.set(row, Long.rotateRight(high, idRotation));
+        footprintBytes += chunk.idLow.set(row, Long.rotateLeft(id.getLeastSignificantBits(), idRotation));
+        footprintBytes += chunk.amountUnits.set(row, MoneyUnits.toUnits(transaction.getMoney()));
+        footprintBytes += chunk.epochMicros.set(row, time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000);
+        footprintBytes += chunk.sender.set(row, accountNumber(transaction.getSender()));
+        footprintBytes += chunk.recipient.set(row, recipient);
+        chunk.flags[row] = (byte) (type | (transaction.getStatus() ? cancelledFlag : 0));
+        size = position + 1;
+        return position;
+    }
+
+    /**
+     * метод, который отмечает запись архива отмененной
+     * @param position - позиция записи
+     * @throws TransactionException - исключение бросается если позиции нет в архиве
+     */
+    public synchronized void markCancelled(long position) throws TransactionException {
+        Chunk chunk = chunk(position);
+        int row = (int) (position & chunkMask);
+        chunk.flags[row] = (byte) (chunk.flags[row] | cancelledFlag);
+    }
+
+    /**
+     * метод, который собирает объект транзакции по записи архива
+     * (каждый вызов возвращает новый объект, изменения в нем не попадают в архив)
+     * @param position - позиция записи
+     * @return - транзакция
+     * @throws TransactionException - исключение бросается если позиции нет в архиве
+     */
+    public Transaction get(long position) throws TransactionException {
+        Chunk chunk = chunk(position);
+        int row = (int) (position & chunkMask);
+        Account[] dictionary = accounts;
+        Account sender = dictionary[(int) chunk.sender.get(row)];
+        long micros = chunk.epochMicros.get(row);
+        LocalDateTime time = LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+        BigDecimal money = MoneyUnits.toMoney(chunk.amountUnits.get(row));
+        Transaction transaction = switch (chunk.flags[row] & typeMask) {
+            case transferType -> new TransferTransaction(sender, dictionary[(int) chunk.recipient.get(row)], money, time);
+            case updateType -> new UpdateTransaction(sender, money, time);
+            default -> new WithdrawTransaction(sender, money, time);
+        };
+        transaction.setId(new UUID(Long.rotateLeft(chunk.idHigh.get(row), idRotation), Long.rotateRight(chunk.idLow.get(row), idRotation)));
+        transaction.setCancelled((chunk.flags[row] & cancelledFlag) != 0);
+        return transaction;
+    }
+
+    /**
+     * метод, который ищет позицию транзакции по id перебором колонок id (без сборки объектов).
+     * просматриваются только блоки, в диапазон старших половин id которых попадает id
+     * @param id - id транзакции
+     * @return - позиция записи или -1, если такой транзакции нет в архиве
+     * @throws TransactionException - исключение бросается если id null
+     */
+    public long indexOf(UUID id) throws TransactionException {
+        if (id == null)
+            throw TransactionException.NullException();
+        long high = id.getMostSignificantBits();
+        long packedHigh = Long.rotateRight(high, idRotation);
+        long packedLow = Long.rotateLeft(id.getLeastSignificantBits(), idRotation);
+        long count = size;
+        Chunk[] current = chunks;
+        for (long position = 0; position < count; position += chunkSize) {
+            Chunk chunk = current[(int) (position >>> chunkBits)];
+            if (high < chunk.minIdHigh || high > chunk.maxIdHigh)
+                continue;
+            int rows = (int) Math.min(chunkSize, count - position);
+            for (int row = chunk.idHigh.indexOf(packedHigh, 0, rows); row >= 0; row = chunk.idHigh.indexOf(packedHigh, row + 1, rows)) {
+                if (chunk.idLow.get(row) == packedLow)
+                    return position + row;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * метод, который возвращает сумму записи без сборки транзакции
+     * @param position - позиция записи
+     * @return - сумма в копейках
+     * @throws TransactionException - исключение бросается если позиции нет в архиве
+     */
+    public long getAmountUnits(long position) throws TransactionException {
+        return chunk(position).amountUnits.get((int) (position & chunkMask));
+    }
+
+    /**
+     * метод, который возвращает время записи без сборки транзакции
+     * @param position - позиция записи
+     * @return - микросекунды от 1970-01-01T00:00 UTC
+     * @throws TransactionException - исключение бросается если позиции нет в архиве
+     */
+    public long getEpochMicros(long position) throws TransactionException {
+        return chunk(position).epochMicros.get((int) (position & chunkMask));
+    }
+
+    /**
+     * метод, который проверяет, отменена ли транзакция записи
+     * @param position - позиция записи
+     * @return - true если транзакция отменена
+     * @throws TransactionException - исключение бросается если позиции нет в архиве
+     */
+    public boolean isCancelled(long position) throws TransactionException {
+        return (chunk(position).flags[(int) (position & chunkMask)] & cancelledFlag) != 0;
+    }
+
+    /**
+     * метод, который возвращает количество записей
+     * @return - количество записей
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * метод, который возвращает количество аккаунтов в словаре архива
+     * @return - количество аккаунтов
+     */
+    public synchronized int getAccountCount() {
+        return accountCount;
+    }
+
+    /**
+     * метод, который возвращает память колонок архива (без словаря аккаунтов, который ссылается на живые аккаунты).
+     * считается при записи: массивы групп текущей ширины, базы групп, байты статуса и заголовки массивов
+     * (ссылки и заголовки - как при сжатых указателях)
+     * @return - байты, занятые колонками, включая незаполненный хвост последнего блока
+     */
+    public synchronized long getFootprintBytes() {
+        return footprintBytes;
+    }
+
+    private Chunk chunk(long position) {
+        if (position < 0 || position >= size)
+            throw TransactionException.InvalidTransactionFindException();
+        return chunks[(int) (position >>> chunkBits)];
+    }
+
+    private int accountNumber(Account account) {
+        Integer number = accountNumbers.get(account);
+        if (number != null)
+            return number;
+        Account[] current = accounts;
+        if (accountCount == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+            accounts = current;
+        }
+        current[accountCount] = account;
+        accountNumbers.put(account, accountCount);
+        return accountCount++;
+    }
+
+    /**
+     * блок колонок на chunkSize записей и диапазон старших половин id в нем
+     * (диапазон пишется до публикации size, поэтому читатель видит его не старее своих строк)
+     */
+    private static final class Chunk {
+        private static final long fixedBytes = 2L * arrayHeaderBytes + chunkSize + 6 * PackedColumn.fixedBytes;
+        private final PackedColumn idHigh = new PackedColumn();
+        private final PackedColumn idLow = new PackedColumn();
+        private final PackedColumn amountUnits = new PackedColumn();
+        private final PackedColumn epochMicros = new PackedColumn();
+        private final PackedColumn sender = new PackedColumn();
+        private final PackedColumn recipient = new PackedColumn();
+        private final byte[] flags = new byte[chunkSize];
+        private long minIdHigh;
+        private long maxIdHigh;
+    }
+
+    /**
+     * числовая колонка блока: для каждой группы из groupSize записей база (значение первой записи)
+     * и массив разностей с ней (byte[], short[], int[] или long[]). группа начинается с byte[]
+     * и расширяется, когда очередная разность не помещается; разности считаются по модулю 2^64,
+     * поэтому база плюс разность всегда дает исходное значение
+     */
+    private static final class PackedColumn {
+        private static final long fixedBytes = 3L * arrayHeaderBytes + (long) groupsCount * (Long.BYTES + referenceBytes);
+        private final long[] bases = new long[groupsCount];
+        private final Object[] groups = new Object[groupsCount];
+
+        /**
+         * записывает значение строки (строки пишутся по порядку)
+         * @return - на сколько байт выросла колонка
+         */
+        private long set(int row, long value) {
+            int group = row >>> groupBits;
+            int slot = row & groupMask;
+            if (slot == 0) {
+                bases[group] = value;
+                groups[group] = new byte[groupSize];
+                return arrayHeaderBytes + groupSize;
+            }
+            long delta = value - bases[group];
+            Object deltas = groups[group];
+            long grown = 0;
+            int width = width(delta);
+            if (width > width(deltas)) {
+                Object wider = allocate(width);
+                for (int i = 0; i < slot; i++)
+                    store(wider, i, load(deltas, i));
+                grown = (long) (width - width(deltas)) * groupSize;
+                deltas = wider;
+                groups[group] = deltas;
+            }
+            store(deltas, slot, delta);
+            return grown;
+        }
+
+        private long get(int row) {
+            int group = row >>> groupBits;
+            return bases[group] + load(groups[group], row & groupMask);
+        }
+
+        /**
+         * ищет строку со значением в [from, rows), сравнивая разности группы без расширения до long
+         * @return - номер строки или -1
+         */
+        private int indexOf(long value, int from, int rows) {
+            for (int group = from >>> groupBits; group << groupBits < rows; group++) {
+                int first = Math.max(from, group << groupBits);
+                int last = Math.min(rows, (group + 1) << groupBits);
+                long delta = value - bases[group];
+                Object deltas = groups[group];
+                if (width(delta) > width(deltas))
+                    continue;
+                for (int row = first; row < last; row++) {
+                    if (load(deltas, row & groupMask) == delta)
+                        return row;
+                }
+            }
+            return -1;
+        }
+
+        private static int width(long delta) {
+            if (delta == (byte) delta)
+                return Byte.BYTES;
+            if (delta == (short) delta)
+                return Short.BYTES;
+            if (delta == (int) delta)
+                return Integer.BYTES;
+            return Long.BYTES;
+        }
+
+        private static int width(Object deltas) {
+            if (deltas instanceof byte[])
+                return Byte.BYTES;
+            if (deltas instanceof short[])
+                return Short.BYTES;
+            if (deltas instanceof int[])
+                return Integer.BYTES;
+            return Long.BYTES;
+        }
+
+        private static Object allocate(int width) {
+            return switch (width) {
+                case Short.BYTES -> new short[groupSize];
+                case Integer.BYTES -> new int[groupSize];
+                default -> new long[groupSize];
+            };
+        }
+
+        private static long load(Object deltas, int slot) {
+            if (deltas instanceof byte[] items)
+                return items[slot];
+            if (deltas instanceof short[] items)
+                return items[slot];
+            if (deltas instanceof int[] items)
+                return items[slot];
+            return ((long[]) deltas)[slot];
+        }
+
+        private static void store(Object deltas, int slot, long delta) {
+            if (deltas instanceof byte[] items)
+                items[slot] = (byte) delta;
+            else if (deltas instanceof short[] items)
+                items[slot] = (short) delta;
+            else if (deltas instanceof int[] items)
+                items[slot] = (int) delta;
+            else
+                ((long[]) deltas)[slot] = delta;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package Banks.Transactions;
+
+import Banks.Tools.TransactionException;
+
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * индекс транзакций по id. ключом служат две половины UUID (старшие и младшие 64 бита),
+ * поэтому при поиске не нужно хешировать и сравнивать объекты UUID.
+ * индекс разбит на сегменты с открытой адресацией: вставка блокирует только свой сегмент,
+ * чтение идет без блокировки (оптимистичное чтение StampedLock) и берет блокировку
+ * только если во время чтения в сегмент писали.
+ * память: на запись приходится 2 long и одна ссылка (20 байт при compressed oops) в слоте таблицы,
+ * при заполнении таблиц от 3/8 до 3/4 это 27-53 байта на транзакцию, в среднем около 36.
+ * HashMap&lt;UUID, Transaction&gt; тратит на запись узел (32 байта) и слот таблицы (5-11 байт),
+ * а если ключ - не тот же объект UUID, что хранится в транзакции, еще 32 байта на сам UUID
+ */
+public class TransactionIndex {
+    private static final int segmentsCount = 64;
+    private static final int segmentShift = Long.SIZE - Integer.numberOfTrailingZeros(segmentsCount);
+    private static final int initialCapacity = 16;
+    private final Segment[] segments;
+
+    /**
+     * конструктор пустого индекса
+     */
+    public TransactionIndex() {
+        segments = new Segment[segmentsCount];
+        for (int i = 0; i < segmentsCount; i++)
+            segments[i] = new Segment();
+    }
+
+    /**
+     * метод, который добавляет транзакцию в индекс (транзакция с таким же id заменяется)
+     * @param transaction - транзакция
+     * @throws TransactionException - исключение бросается если транзакция null
+     */
+    public void put(Transaction transaction) throws TransactionException {
+        if (transaction == null)
+            throw TransactionException.NullException();
+        long high = transaction.getId().getMostSignificantBits();
+        long low = transaction.getId().getLeastSignificantBits();
+        long hash = hash(high, low);
+        segments[(int) (hash >>> segmentShift)].put(high, low, (int) hash, transaction);
+    }
+
+    /**
+     * метод, который находит транзакцию по id
+     * @param id - id транзакции
+     * @return - найденная транзакция или null, если ее нет в индексе
+     * @throws TransactionException - исключение бросается если id null
+     */
+    public Transaction get(UUID id) throws TransactionException {
+        if (id == null)
+            throw TransactionException.NullException();
+        return get(id.getMostSignificantBits(), id.getLeastSignificantBits());
+    }
+
+    /**
+     * метод, который находит транзакцию по половинам id
+     * @param high - старшие 64 бита id
+     * @param low - младшие 64 бита id
+     * @return - найденная транзакция или null, если ее нет в индексе
+     */
+    public Transaction get(long high, long low) {
+        long hash = hash(high, low);
+        return segments[(int) (hash >>> segmentShift)].get(high, low, (int) hash);
+    }
+
+    /**
+     * метод, который возвращает количество транзакций в индексе
+     * @return - количество транзакций
+     */
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments)
+            size += segment.size();
+        return size;
+    }
+
+    /**
+     * метод, который считает объем памяти под таблицы индекса (без самих транзакций)
+     * @return - размер таблиц в байтах при compressed oops
+     */
+    public long footprintBytes() {
+        long bytes = 0;
+        for (Segment segment : segments)
+            bytes += segment.footprintBytes();
+        return bytes;
+    }
+
+    /**
+     * метод, который перемешивает обе половины id (финализатор murmur3),
+     * старшие биты хеша выбирают сегмент, младшие - слот в таблице сегмента
+     */
+    private static long hash(long high, long low) {
+        long h = high * 0x9E3779B97F4A7C15L ^ low;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * таблица с открытой адресацией (линейное пробирование), слот пуст если value null
+     */
+    private static final class Table {
+        private final long[] highs;
+        private final long[] lows;
+        private final Transaction[] values;
+        private final int mask;
+
+        private Table(int capacity) {
+            highs = new long[capacity];
+            lows = new long[capacity];
+            values = new Transaction[capacity];
+            mask = capacity - 1;
+        }
+
+        private Transaction find(long high, long low, int hash) {
+            for (int i = hash & mask, probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+                Transaction value = values[i];
+                if (value == null)
+                    return null;
+                if (highs[i] == high && lows[i] == low)
+                    return value;
+            }
+            return null;
+        }
+
+        private boolean insert(long high, long low, int hash, Transaction transaction) {
+            int i = hash & mask;
+            while (values[i] != null) {
+                if (highs[i] == high && lows[i] == low) {
+                    values[i] = transaction;
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            highs[i] = high;
+            lows[i] = low;
+            values[i] = transaction;
+            return true;
+        }
+    }
+
+    /**
+     * сегмент индекса со своей таблицей и блокировкой
+     */
+    private static final class Segment {
+        private final StampedLock lock = new StampedLock();
+        private Table table = new Table(initialCapacity);
+        private int size;
+
+        private void put(long high, long low, int hash, Transaction transaction) {
+            long stamp = lock.writeLock();
+            try {
+                if ((size + 1) * 4L > (table.mask + 1) * 3L)
+                    table = resize(table);
+                if (table.insert(high, low, hash, transaction))
+                    size++;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private Transaction get(long high, long low, int hash) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                Transaction found = table.find(high, low, hash);
+                if (lock.validate(stamp))
+                    return found;
+            }
+            stamp = lock.readLock();
+            try {
+                return table.find(high, low, hash);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private int size() {
+            long stamp = lock.readLock();
+            try {
+                return size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private long footprintBytes() {
+            long stamp = lock.readLock();
+            try {
+                return (table.mask + 1) * (Long.BYTES * 2L + Integer.BYTES);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private static Table resize(Table old) {
+            Table resized = new Table((old.mask + 1) * 2);
+            for (int i = 0; i <= old.mask; i++) {
+                Transaction value = old.values[i];
+                if (value != null)
+                    resized.insert(old.highs[i], old.lows[i], (int) hash(old.highs[i], old.lows[i]), value);
+            }
+            return resized;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package Banks.Transactions;
+
+import Banks.Tools.TransactionException;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * список транзакций только для дописывания, без блокировок. место под транзакцию занимается одним
+ * атомарным увеличением счетчика (единственный общий для пишущих потоков шаг), после чего транзакция
+ * записывается в свою ячейку. ячейки лежат в кусках, размер которых удваивается (64, 128, 256, ...),
+ * поэтому при росте ничего не копируется, а кусок и смещение считаются по старшему биту индекса.
+ * size() - число занятых ячеек; ячейку, место которой уже занято, но транзакция еще не записана,
+ * get ждет (запись идет сразу после занятия места). снаружи список только для чтения
+ */
+public final class TransactionLog extends AbstractList<Transaction> implements RandomAccess {
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Transaction[].class);
+    private static final int firstChunkBits = 6;
+    private static final int chunksCount = Integer.SIZE - firstChunkBits;
+    private final AtomicReferenceArray<Transaction[]> chunks = new AtomicReferenceArray<Transaction[]>(chunksCount);
+    private final AtomicInteger claimed = new AtomicInteger();
+
+    /**
+     * метод, который дописывает транзакцию в конец списка
+     * @param transaction - транзакция
+     * @return - индекс транзакции в списке
+     * @throws TransactionException - исключение бросается если транзакция null
+     */
+    public int append(Transaction transaction) throws TransactionException {
+        if (transaction == null)
+            throw TransactionException.NullException();
+        int index = claimed.getAndIncrement();
+        write(index, transaction);
+        return index;
+    }
+
+    /**
+     * метод, который дописывает транзакции подряд (места занимаются одним атомарным шагом)
+     * @param batch - транзакции
+     * @return - индекс первой транзакции пакета
+     * @throws TransactionException - исключение бросается если список или одна из транзакций null
+     */
+    public int appendAll(List<? extends Transaction> batch) throws TransactionException {
+        if (batch == null)
+            throw TransactionException.NullException();
+        for (Transaction transaction : batch) {
+            if (transaction == null)
+                throw TransactionException.NullException();
+        }
+        int first = claimed.getAndAdd(batch.size());
+        for (int i = 0; i < batch.size(); i++)
+            write(first + i, batch.get(i));
+        return first;
+    }
+
+    /**
+     * метод, который возвращает транзакцию по индексу (ждет, если место занято, но транзакция еще пишется)
+     * @param index - индекс
+     * @return - транзакция
+     */
+    @Override
+    public Transaction get(int index) {
+        Objects.checkIndex(index, claimed.get());
+        int position = index + (1 << firstChunkBits);
+        int chunk = chunkOf(position);
+        Transaction[] items;
+        while ((items = chunks.get(chunk)) == null)
+            Thread.yield();
+        int offset = position - (1 << (chunk + firstChunkBits));
+        Transaction transaction;
+        while ((transaction = (Transaction) SLOT.getAcquire(items, offset)) == null)
+            Thread.yield();
+        return transaction;
+    }
+
+    /**
+     * метод, который возвращает количество занятых ячеек
+     * @return - количество транзакций
+     */
+    @Override
+    public int size() {
+        return claimed.get();
+    }
+
+    private void write(int index, Transaction transaction) {
+        int position = index + (1 << firstChunkBits);
+        int chunk = chunkOf(position);
+        Transaction[] items = chunks.get(chunk);
+        if (items == null) {
+            chunks.compareAndSet(chunk, null, new Transaction[1 << (chunk + firstChunkBits)]);
+            items = chunks.get(chunk);
+        }
+        SLOT.setRelease(items, position - (1 << (chunk + firstChunkBits)), transaction);
+    }
+
+    private static int chunkOf(int position) {
+        return Integer.SIZE - 1 - Integer.numberOfLeadingZeros(position) - firstChunkBits;
+    }
+}
@@ -0,0 +1,210 @@
+package Banks.Transactions;
+
+import Banks.Tools.TransactionException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * хранилище транзакций, разбитое на разделы по времени транзакции (по умолчанию по часу).
+ * разделы лежат в ConcurrentSkipListMap по номеру интервала, поэтому запрос за период трогает только
+ * разделы, пересекающие период, а целиком попавшие в период разделы не фильтруются по времени.
+ * добавление - O(1) и без блокировок: почти все транзакции попадают в последний раздел, который
+ * запоминается, а сам раздел - TransactionLog, где место занимается одним атомарным шагом.
+ * чтение тоже идет без блокировок
+ */
+public class TransactionTimeStore {
+    private static final int scanChunk = 4096;
+    private final ConcurrentSkipListMap<Long, TransactionLog> partitions = new ConcurrentSkipListMap<Long, TransactionLog>();
+    private final long partitionSeconds;
+    private final AtomicReference<Latest> latest = new AtomicReference<Latest>(new Latest(Long.MIN_VALUE, null));
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * конструктор хранилища с часовыми разделами
+     */
+    public TransactionTimeStore() {
+        this(Duration.ofHours(1));
+    }
+
+    /**
+     * конструктор хранилища
+     * @param partition - длительность раздела (целое число секунд)
+     * @throws TransactionException - исключение бросается если длительность null или меньше секунды
+     */
+    public TransactionTimeStore(Duration partition) throws TransactionException {
+        if (partition == null)
+            throw TransactionException.NullException();
+        if (partition.getSeconds() < 1)
+            throw TransactionException.InvalidPartitionException();
+        this.partitionSeconds = partition.getSeconds();
+    }
+
+    /**
+     * метод, который добавляет транзакцию в раздел ее времени
+     * @param transaction - транзакция
+     * @throws TransactionException - исключение бросается если транзакция или ее время null
+     */
+    public void append(Transaction transaction) throws TransactionException {
+        if (transaction == null || transaction.getTransactionTime() == null)
+            throw TransactionException.NullException();
+        long key = partitionKey(transaction.getTransactionTime());
+        Latest cached = latest.get();
+        TransactionLog partition = cached.partition;
+        if (key != cached.key) {
+            partition = partitions.computeIfAbsent(key, k -> new TransactionLog());
+            // запоминается только самый новый раздел: запоздавшие транзакции не сбивают кеш
+            Latest next = new Latest(key, partition);
+            while (key > cached.key && !latest.compareAndSet(cached, next))
+                cached = latest.get();
+        }
+        partition.append(transaction);
+        size.increment();
+    }
+
+    /**
+     * метод, который возвращает транзакции за период [from, to)
+     * @param from - начало периода (включительно)
+     * @param to - конец периода (не включительно)
+     * @return - транзакции (внутри раздела - в порядке добавления)
+     * @throws TransactionException - исключение бросается если границы null
+     */
+    public List<Transaction> findBetween(LocalDateTime from, LocalDateTime to) throws TransactionException {
+        ArrayList<Transaction> result = new ArrayList<Transaction>();
+        for (Chunk chunk : chunks(from, to))
+            chunk.collect(result, from, to);
+        return result;
+    }
+
+    /**
+     * метод, который возвращает поток транзакций за период [from, to). поток разбит на куски
+     * разделов, поэтому после parallel() куски одного периода сканируются параллельно
+     * @param from - начало периода (включительно)
+     * @param to - конец периода (не включительно)
+     * @return - поток транзакций
+     * @throws TransactionException - исключение бросается если границы null
+     */
+    public Stream<Transaction> streamBetween(LocalDateTime from, LocalDateTime to) throws TransactionException {
+        return chunks(from, to).stream().flatMap(chunk -> chunk.stream(from, to));
+    }
+
+    /**
+     * метод, который возвращает количество разделов, пересекающих период [from, to)
+     * @param from - начало периода (включительно)
+     * @param to - конец периода (не включительно)
+     * @return - количество разделов
+     * @throws TransactionException - исключение бросается если границы null
+     */
+    public int countPartitionsBetween(LocalDateTime from, LocalDateTime to) throws TransactionException {
+        return range(from, to).size();
+    }
+
+    /**
+     * метод, который возвращает количество разделов
+     * @return - количество разделов
+     */
+    public int getPartitionCount() {
+        return partitions.size();
+    }
+
+    /**
+     * метод, который возвращает количество транзакций
+     * @return - количество транзакций
+     */
+    public long size() {
+        return size.sum();
+    }
+
+    /**
+     * метод, который возвращает длительность раздела
+     * @return - длительность раздела
+     */
+    public Duration getPartitionDuration() {
+        return Duration.ofSeconds(partitionSeconds);
+    }
+
+    private long partitionKey(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), partitionSeconds);
+    }
+
+    private NavigableMap<Long, TransactionLog> range(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null)
+            throw TransactionException.NullException();
+        if (!from.isBefore(to))
+            return partitions.subMap(0L, true, 0L, false);
+        return partitions.subMap(partitionKey(from), true, partitionKey(to.minusNanos(1)), true);
+    }
+
+    private List<Chunk> chunks(LocalDateTime from, LocalDateTime to) {
+        NavigableMap<Long, TransactionLog> range = range(from, to);
+        long firstFull = partitionKey(from.minusNanos(1)) + 1;
+        long lastFull = partitionKey(to) - 1;
+        ArrayList<Chunk> chunks = new ArrayList<Chunk>();
+        for (Map.Entry<Long, TransactionLog> entry : range.entrySet()) {
+            TransactionLog items = entry.getValue();
+            int count = items.size();
+            boolean filter = entry.getKey() < firstFull || entry.getKey() > lastFull;
+            for (int start = 0; start < count; start += scanChunk)
+                chunks.add(new Chunk(items, start, Math.min(count, start + scanChunk), filter));
+        }
+        return chunks;
+    }
+
+    /**
+     * самый новый раздел и его номер (заменяются вместе одним compare-and-set)
+     */
+    private static final class Latest {
+        private final long key;
+        private final TransactionLog partition;
+
+        private Latest(long key, TransactionLog partition) {
+            this.key = key;
+            this.partition = partition;
+        }
+    }
+
+    /**
+     * кусок раздела для сканирования; filter - нужно ли проверять время (раздел на границе периода)
+     */
+    private static final class Chunk {
+        private final TransactionLog items;
+        private final int start;
+        private final int end;
+        private final boolean filter;
+
+        private Chunk(TransactionLog items, int start, int end, boolean filter) {
+            this.items = items;
+            this.start = start;
+            this.end = end;
+            this.filter = filter;
+        }
+
+        private void collect(List<Transaction> result, LocalDateTime from, LocalDateTime to) {
+            for (int i = start; i < end; i++) {
+                Transaction transaction = items.get(i);
+                if (!filter || inRange(transaction, from, to))
+                    result.add(transaction);
+            }
+        }
+
+        private Stream<Transaction> stream(LocalDateTime from, LocalDateTime to) {
+            Stream<Transaction> stream = IntStream.range(start, end).mapToObj(items::get);
+            return filter ? stream.filter(transaction -> inRange(transaction, from, to)) : stream;
+        }
+
+        private static boolean inRange(Transaction transaction, LocalDateTime from, LocalDateTime to) {
+            LocalDateTime time = transaction.getTransactionTime();
+            return !time.isBefore(from) && time.isBefore(to);
+        }
+    }
+}
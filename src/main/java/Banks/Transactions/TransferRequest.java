@@ -0,0 +1,54 @@
+package Banks.Transactions;
+
+import Banks.AccountTypes.Account;
+import Banks.Tools.TransactionException;
+
+import java.math.BigDecimal;
+
+/**
+ * класс заявки на перевод в пакете переводов (строка платежной ведомости)
+ */
+public final class TransferRequest {
+    private final Account sender;
+    private final Account recipient;
+    private final BigDecimal money;
+
+    /**
+     * конструктор заявки на перевод
+     * @param sender - отправитель
+     * @param recipient - получатель
+     * @param money - сумма перевода
+     * @throws TransactionException - исключение бросается если хотя бы один из параметров null
+     */
+    public TransferRequest(Account sender, Account recipient, BigDecimal money) throws TransactionException {
+        if (sender == null || recipient == null || money == null)
+            throw TransactionException.NullException();
+        this.sender = sender;
+        this.recipient = recipient;
+        this.money = money;
+    }
+
+    /**
+     * метод, который возвращает отправителя
+     * @return - отправитель
+     */
+    public Account getSender() {
+        return sender;
+    }
+
+    /**
+     * метод, который возвращает получателя
+     * @return - получатель
+     */
+    public Account getRecipient() {
+        return recipient;
+    }
+
+    /**
+     * метод, который возвращает сумму перевода
+     * @return - сумма перевода
+     */
+    public BigDecimal getMoney() {
+        return money;
+    }
+}
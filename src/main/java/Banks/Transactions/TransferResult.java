@@ -0,0 +1,65 @@
+package Banks.Transactions;
+
+/**
+ * класс результата одной заявки пакета переводов: проведенная транзакция или причина отказа
+ */
+public final class TransferResult {
+    private final int index;
+    private final TransferRequest request;
+    private final TransferTransaction transaction;
+    private final RuntimeException failure;
+
+    /**
+     * конструктор результата
+     * @param index - номер заявки в пакете
+     * @param request - заявка
+     * @param transaction - проведенная транзакция или null, если заявка отклонена
+     * @param failure - причина отказа или null, если перевод проведен
+     */
+    public TransferResult(int index, TransferRequest request, TransferTransaction transaction, RuntimeException failure) {
+        this.index = index;
+        this.request = request;
+        this.transaction = transaction;
+        this.failure = failure;
+    }
+
+    /**
+     * метод, который возвращает номер заявки в пакете
+     * @return - номер заявки
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * метод, который возвращает заявку
+     * @return - заявка (может быть null, если в пакете был null)
+     */
+    public TransferRequest getRequest() {
+        return request;
+    }
+
+    /**
+     * метод, который возвращает проведенную транзакцию
+     * @return - транзакция или null, если заявка отклонена
+     */
+    public TransferTransaction getTransaction() {
+        return transaction;
+    }
+
+    /**
+     * метод, который возвращает причину отказа
+     * @return - исключение или null, если перевод проведен
+     */
+    public RuntimeException getFailure() {
+        return failure;
+    }
+
+    /**
+     * метод, который проверяет, проведен ли перевод
+     * @return - true если перевод проведен, иначе false
+     */
+    public boolean isSuccess() {
+        return transaction != null;
+    }
+}
@@ -56,13 +56,14 @@ public class TransferTransaction extends Transaction{
 
     /**
      * метод, который реализует отмену операции
+     * (сначала списание у получателя, чтобы при нехватке денег отмена не меняла ни один баланс)
      */
     @Override
     public void cancelTransaction() throws TransactionException {
         if (getStatus())
             throw TransactionException.InvalidCancellingException();
-        getSender().updateMoney(getMoney());
         recipient.withdrawMoney(getMoney());
+        getSender().updateMoney(getMoney());
         setCancelled(true);
     }
 }
@@ -1,20 +1,83 @@
 import Banks.AccountTypes.Account;
+import Banks.AccountTypes.CreditAccount;
 import Banks.AccountTypes.DebitAccount;
+import Banks.AccountTypes.DepositAccount;
+import Banks.AccountTypes.InterestCalculator;
 import Banks.BankSystem.Bank;
 import Banks.BankSystem.BankSettings;
 import Banks.BankSystem.CentralBank;
+import Banks.BankSystem.DepositRateTable;
+import Banks.BankSystem.SimulationReport;
 import Banks.ClientSystem.Client;
 import Banks.ClientSystem.ClientBuilder;
+import Banks.ClientSystem.NotificationInbox;
+import Banks.Engine.ShardedEngine;
+import Banks.Metrics.BankMetrics;
+import Banks.Metrics.HistogramSnapshot;
+import Banks.Metrics.LatencyHistogram;
+import Banks.Metrics.MetricsOperation;
+import Banks.Metrics.OperationSnapshot;
+import Banks.Observer.BackPressurePolicy;
+import Banks.Observer.NotificationDispatcher;
+import Banks.Observer.Observer;
+import Banks.Observer.SettingsEvent;
+import Banks.Persistence.JournalRecord;
+import Banks.Persistence.JournalRecordType;
+import Banks.Persistence.JournalSyncPolicy;
+import Banks.Persistence.RecoveredState;
+import Banks.Persistence.SnapshotStore;
+import Banks.Persistence.TransactionJournal;
 import Banks.Tools.AccountException;
+import Banks.Tools.BankClock;
+import Banks.Tools.BankException;
 import Banks.Tools.ClientException;
+import Banks.Tools.Ids;
+import Banks.Tools.MoneyUnits;
+import Banks.Tools.RandomIdGenerator;
+import Banks.Tools.TimeOrderedIdGenerator;
+import Banks.Tools.TransactionException;
+import Banks.Transactions.AccountHistoryEntry;
+import Banks.Transactions.AccountHistoryPage;
+import Banks.Transactions.CancellationResult;
 import Banks.Transactions.Transaction;
+import Banks.Transactions.TransactionArchive;
+import Banks.Transactions.TransactionIndex;
+import Banks.Transactions.TransactionLog;
+import Banks.Transactions.TransactionTimeStore;
+import Banks.Transactions.TransferRequest;
+import Banks.Transactions.TransferResult;
+import Banks.Transactions.TransferTransaction;
 import Banks.Transactions.UpdateTransaction;
 import Banks.Transactions.WithdrawTransaction;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import javax.management.MBeanServer;
+import java.lang.management.ManagementFactory;
 import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -46,7 +109,7 @@ public class banksTest {
         list.add(BigDecimal.valueOf(3));
         list.add(BigDecimal.valueOf(4));
         BankSettings bankSettings = new BankSettings(BigDecimal.valueOf(1), list, BigDecimal.valueOf(10000), BigDecimal.valueOf(1000), BigDecimal.valueOf(10000));
-        Bank bank = centralBank.registerBank("sber", bankSettings);
+        Bank bank = centralBank.registerBank("tinkoff", bankSettings);
         assertThrows(ClientException.class, ()->
         {
             ClientBuilder clientBuilder = new ClientBuilder();
@@ -65,7 +128,7 @@ public class banksTest {
         list.add(BigDecimal.valueOf(3));
         list.add(BigDecimal.valueOf(4));
         BankSettings bankSettings = new BankSettings(BigDecimal.valueOf(1), list, BigDecimal.valueOf(10000), BigDecimal.valueOf(1000), BigDecimal.valueOf(10000));
-        Bank bank = centralBank.registerBank("sber", bankSettings);
+        Bank bank = centralBank.registerBank("vtb", bankSettings);
         ClientBuilder clientBuilder = new ClientBuilder();
         clientBuilder.addName("name");
         clientBuilder.addSurname("surname");
@@ -86,7 +149,7 @@ public class banksTest {
         list.add(BigDecimal.valueOf(3));
         list.add(BigDecimal.valueOf(4));
         BankSettings bankSettings = new BankSettings(BigDecimal.valueOf(1), list, BigDecimal.valueOf(10000), BigDecimal.valueOf(1000), BigDecimal.valueOf(10000));
-        Bank bank = centralBank.registerBank("sber", bankSettings);
+        Bank bank = centralBank.registerBank("gazprombank", bankSettings);
         ClientBuilder clientBuilder = new ClientBuilder();
         clientBuilder.addName("name");
         clientBuilder.addSurname("surname");
@@ -113,7 +176,7 @@ public class banksTest {
         list.add(BigDecimal.valueOf(3));
         list.add(BigDecimal.valueOf(4));
         BankSettings bankSettings = new BankSettings(BigDecimal.valueOf(1), list, BigDecimal.valueOf(10000), BigDecimal.valueOf(1000), BigDecimal.valueOf(1000));
-        Bank bank = centralBank.registerBank("sber", bankSettings);
+        Bank bank = centralBank.registerBank("raiffeisen", bankSettings);
         ClientBuilder clientBuilder = new ClientBuilder();
         clientBuilder.addName("name");
         clientBuilder.addSurname("surname");
@@ -137,7 +200,7 @@ public class banksTest {
         list.add(BigDecimal.valueOf(3));
         list.add(BigDecimal.valueOf(4));
         BankSettings bankSettings = new BankSettings(BigDecimal.valueOf(1), list, BigDecimal.valueOf(10000), BigDecimal.valueOf(1000), BigDecimal.valueOf(1000));
-        Bank bank = centralBank.registerBank("sber", bankSettings);
+        Bank bank = centralBank.registerBank("otkritie", bankSettings);
         ClientBuilder clientBuilder = new ClientBuilder();
         clientBuilder.addName("name");
         clientBuilder.addSurname("surname");
@@ -162,7 +225,7 @@ public class banksTest {
         list.add(BigDecimal.valueOf(3));
         list.add(BigDecimal.valueOf(4));
         BankSettings bankSettings = new BankSettings(BigDecimal.valueOf(1), list, BigDecimal.valueOf(10000), BigDecimal.valueOf(1000), BigDecimal.valueOf(1000));
-        Bank bank = centralBank.registerBank("sber", bankSettings);
+        Bank bank = centralBank.registerBank("sovcombank", bankSettings);
         ClientBuilder clientBuilder = new ClientBuilder();
         clientBuilder.addName("name");
         clientBuilder.addSurname("surname");
@@ -174,4 +237,1156 @@ public class banksTest {
         bank.changeDebitPercent(BigDecimal.valueOf(10));
         assertEquals("Banks setting: debit percent - updated to 10", cl.getNotifications().get(0));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void findClientByPassportValueTest(){
+        ArrayList<BigDecimal> list = new ArrayList<BigDecimal>();
+        list.add(BigDecimal.valueOf(2));
+        list.add(BigDecimal.valueOf(3));
+        list.add(BigDecimal.valueOf(4));
+        BankSettings bankSettings = new BankSettings(BigDecimal.valueOf(1), list, BigDecimal.valueOf(10000), BigDecimal.valueOf(1000), BigDecimal.valueOf(10000));
+        Bank bank = new Bank("alfa", bankSettings);
+        Client cl = new Client("name", "surname", "street", "6000102030");
+        bank.addClient(cl);
+        Client clone = new Client("name", "surname", "street", new String("6000102030"));
+        assertEquals(cl, bank.findClientByPassport(new String("6000102030")));
+        assertEquals(cl, bank.findClientById(cl.getId()));
+        assertThrows(BankException.class, () -> bank.addClient(clone));
+        assertThrows(ClientException.class, () -> bank.findClientByPassport("6000102031"));
+
+        Client late = new Client("name", "surname", "street", null);
+        bank.addClient(late);
+        bank.updatePassport(late, "6000102032");
+        assertEquals(late, bank.findClientByPassport("6000102032"));
+        bank.updatePassport(late, "6000102033");
+        assertEquals(late, bank.findClientByPassport("6000102033"));
+        assertThrows(ClientException.class, () -> bank.findClientByPassport("6000102032"));
+        assertThrows(BankException.class, () -> bank.updatePassport(late, "6000102030"));
+        assertEquals("6000102033", late.getPassport());
+        assertThrows(BankException.class, () -> bank.addClient(new Client("name", "surname", "street", "6000102033")));
+        assertThrows(ClientException.class, () -> bank.updatePassport(clone, "6000102034"));
+    }
+
+    @Test
+    public void findClientAccountsTest(){
+        ArrayList<BigDecimal> list = new ArrayList<BigDecimal>();
+        list.add(BigDecimal.valueOf(2));
+        list.add(BigDecimal.valueOf(3));
+        list.add(BigDecimal.valueOf(4));
+        BankSettings bankSettings = new BankSettings(BigDecimal.valueOf(1), list, BigDecimal.valueOf(10000), BigDecimal.valueOf(1000), BigDecimal.valueOf(10000));
+        Bank bank = new Bank("alfa", bankSettings);
+        Client cl = new Client("name", "surname", "street", "6000102030");
+        Client other = new Client("name", "surname", "street", "6000102031");
+        bank.addClient(cl);
+        bank.addClient(other);
+
+        Account debit = bank.addAccount(new DebitAccount(BigDecimal.valueOf(100), cl, bankSettings.getDebitPercent()));
+        bank.addAccount(new DebitAccount(BigDecimal.valueOf(100), other, bankSettings.getDebitPercent()));
+        Account credit = bank.addAccount(new CreditAccount(BigDecimal.valueOf(100), cl, bankSettings.getCreditCommission()));
+        Account secondDebit = bank.addAccount(new DebitAccount(BigDecimal.valueOf(200), cl, bankSettings.getDebitPercent()));
+
+        assertEquals(List.of(debit, credit, secondDebit), bank.findClientAccounts(cl));
+        assertEquals(List.of(debit, secondDebit), bank.findClientAccounts(cl, DebitAccount.class));
+        assertEquals(List.of(credit), bank.findClientAccounts(cl, CreditAccount.class));
+        assertEquals(debit, bank.findAccountOwner(cl));
+        assertTrue(bank.findClientAccounts(new Client("name", "surname", "street", "6000102032")).isEmpty());
+    }
+
+    @Test
+    public void transactionIndexConcurrentTest() throws InterruptedException {
+        ArrayList<BigDecimal> list = new ArrayList<BigDecimal>();
+        list.add(BigDecimal.valueOf(2));
+        list.add(BigDecimal.valueOf(3));
+        list.add(BigDecimal.valueOf(4));
+        BankSettings bankSettings = new BankSettings(BigDecimal.valueOf(1), list, BigDecimal.valueOf(10000), BigDecimal.valueOf(1000), BigDecimal.valueOf(10000));
+        Client cl = new Client("name", "surname", "street", "6000102030");
+        Account acc = new DebitAccount(BigDecimal.valueOf(10000), cl, bankSettings.getDebitPercent());
+        TransactionIndex index = new TransactionIndex();
+        int threads = 4;
+        int perThread = 20000;
+        Transaction[][] created = new Transaction[threads][perThread];
+        Thread[] writers = new Thread[threads];
+        AtomicInteger misses = new AtomicInteger();
+        for (int t = 0; t < threads; t++) {
+            Transaction[] own = created[t];
+            writers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    own[i] = new UpdateTransaction(acc, BigDecimal.ONE, LocalDateTime.now());
+                    index.put(own[i]);
+                    UUID copy = new UUID(own[i].getId().getMostSignificantBits(), own[i].getId().getLeastSignificantBits());
+                    if (index.get(copy) != own[i])
+                        misses.incrementAndGet();
+                }
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers)
+            writer.join();
+        assertEquals(0, misses.get());
+        assertEquals((long) threads * perThread, index.size());
+        for (Transaction[] own : created)
+            for (Transaction transaction : own)
+                assertSame(transaction, index.get(transaction.getId()));
+        assertNull(index.get(UUID.randomUUID()));
+    }
+
+    @Test
+    public void registerBankTwiceTest(){
+        ArrayList<BigDecimal> list = new ArrayList<BigDecimal>();
+        list.add(BigDecimal.valueOf(2));
+        list.add(BigDecimal.valueOf(3));
+        list.add(BigDecimal.valueOf(4));
+        BankSettings bankSettings = new BankSettings(BigDecimal.valueOf(1), list, BigDecimal.valueOf(10000), BigDecimal.valueOf(1000), BigDecimal.valueOf(10000));
+        Bank bank = centralBank.registerBank("rosbank", bankSettings);
+        assertThrows(BankException.class, () -> centralBank.registerBank(new String("rosbank"), bankSettings));
+        assertEquals(bank, centralBank.findBankByName(new String("rosbank")));
+        assertEquals(bank, centralBank.findBankById(bank.getId()));
+        assertEquals(1, centralBank.getBanks().stream().filter(b -> b.getName().equals("rosbank")).count());
+        assertThrows(BankException.class, () -> centralBank.findBankByName("pochtabank"));
+    }
+
+    @Test
+    public void concurrentTransferConservesMoneyTest() throws InterruptedException {
+        ArrayList<BigDecimal> list = new ArrayList<BigDecimal>();
+        list.add(BigDecimal.valueOf(2));
+        list.add(BigDecimal.valueOf(3));
+        list.add(BigDecimal.valueOf(4));
+        BankSettings bankSettings = new BankSettings(BigDecimal.valueOf(1), list, BigDecimal.valueOf(10000), BigDecimal.valueOf(1000), BigDecimal.valueOf(10000));
+        Bank bank = new Bank("alfa", bankSettings);
+        Client cl = new Client("name", "surname", "street", "6000102030");
+        bank.addClient(cl);
+        int accountsCount = 8;
+        Account[] accounts = new Account[accountsCount];
+        for (int i = 0; i < accountsCount; i++)
+            accounts[i] = bank.addAccount(new DebitAccount(BigDecimal.valueOf(1000), cl, bankSettings.getDebitPercent()));
+
+        int threads = 8;
+        int transfers = 5000;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            workers[t] = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                for (int i = 0; i < transfers; i++) {
+                    Account sender = accounts[random.nextInt(accountsCount)];
+                    Account recipient = accounts[random.nextInt(accountsCount)];
+                    try {
+                        centralBank.transferMoney(BigDecimal.valueOf(random.nextInt(1, 300)), sender, recipient);
+                    } catch (AccountException e) {
+                        // недостаточно денег - перевод отклонен, ничего не изменилось
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers)
+            worker.join();
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (Account account : accounts) {
+            assertTrue(account.getAccountMoney().signum() >= 0);
+            total = total.add(account.getAccountMoney());
+        }
+        assertEquals(0, BigDecimal.valueOf(1000L * accountsCount).compareTo(total));
+    }
+
+    @Test
+    public void atomicBalanceTest() throws InterruptedException {
+        Client cl = new Client("name", "surname", "street", "6000102030");
+        Account acc = new DebitAccount(BigDecimal.valueOf(1000), cl, BigDecimal.ONE);
+        assertTrue(acc.tryDebit(new BigDecimal("999.99"), BigDecimal.ZERO));
+        assertEquals(new BigDecimal("0.01"), acc.getAccountMoney());
+        assertFalse(acc.tryDebit(new BigDecimal("0.02"), BigDecimal.ZERO));
+        acc.credit(new BigDecimal("99.99"));
+        assertEquals(BigDecimal.valueOf(100), acc.getAccountMoney());
+
+        int threads = 4;
+        int operations = 10000;
+        AtomicInteger rejected = new AtomicInteger();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < operations; i++) {
+                    acc.credit(BigDecimal.ONE);
+                    if (!acc.tryDebit(BigDecimal.ONE, BigDecimal.ZERO))
+                        rejected.incrementAndGet();
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers)
+            worker.join();
+        assertEquals(0, rejected.get());
+        assertEquals(BigDecimal.valueOf(100), acc.getAccountMoney());
+        assertTrue(acc.getCasRetries() >= 0);
+    }
+
+    @Test
+    public void closedFormInterestTest(){
+        BigDecimal yearDays = BigDecimal.valueOf(365);
+        BigDecimal money = new BigDecimal("12345.67");
+        for (BigDecimal percent : List.of(BigDecimal.ONE, new BigDecimal("3.5"), new BigDecimal("7.3"))) {
+            for (int days : new int[] {0, 1, 30, 365, 3650, 36500}) {
+                BigDecimal closedForm = InterestCalculator.compound(money, percent, yearDays, days);
+                BigDecimal reference = InterestCalculator.compoundDaily(money, percent, yearDays, days);
+                assertTrue(closedForm.subtract(reference).abs().compareTo(InterestCalculator.TOLERANCE) <= 0);
+            }
+        }
+
+        Client cl = new Client("name", "surname", "street", "6000102030");
+        Account acc = new DebitAccount(BigDecimal.valueOf(1000), cl, new BigDecimal("3.65"));
+        assertEquals(new BigDecimal("1037.17"), acc.calculateMoney(365));
+        assertEquals(BigDecimal.valueOf(1000), acc.getAccountMoney());
+        assertThrows(AccountException.class, () -> acc.calculateMoney(-1));
+    }
+
+    @Test
+    public void parallelSimulateDaysTest(){
+        ArrayList<BigDecimal> list = new ArrayList<BigDecimal>();
+        list.add(BigDecimal.valueOf(2));
+        list.add(BigDecimal.valueOf(3));
+        list.add(BigDecimal.valueOf(4));
+        BankSettings bankSettings = new BankSettings(BigDecimal.valueOf(1), list, BigDecimal.valueOf(10000), BigDecimal.valueOf(1000), BigDecimal.valueOf(10000));
+        Bank bank = centralBank.registerBank("mkb", bankSettings);
+        Client cl = new Client("name", "surname", "street", "6000102030");
+        bank.addClient(cl);
+        int accountsCount = 5000;
+        ArrayList<BigDecimal> expected = new ArrayList<BigDecimal>();
+        for (int i = 0; i < accountsCount; i++) {
+            BigDecimal money = BigDecimal.valueOf(100 + i);
+            bank.addAccount(new DebitAccount(money, cl, bankSettings.getDebitPercent()));
+            expected.add(InterestCalculator.compound(money, bankSettings.getDebitPercent(), BigDecimal.valueOf(365), 30));
+        }
+
+        SimulationReport report = centralBank.simulateDays(30, new ForkJoinPool(4));
+        assertTrue(report.getAccounts() >= accountsCount);
+        assertTrue(report.getAccountsPerSecond() > 0);
+        for (int i = 0; i < accountsCount; i++)
+            assertEquals(expected.get(i), bank.getAccounts().get(i).getCalculateMoney());
+        assertThrows(BankException.class, () -> centralBank.simulateDays(-1));
+    }
+
+    @Test
+    public void transactionJournalTest(@TempDir Path directory) throws InterruptedException {
+        Client cl = new Client("name", "surname", "street", "6000102030");
+        Account first = new DebitAccount(BigDecimal.valueOf(1000), cl, BigDecimal.ONE);
+        Account second = new DebitAccount(BigDecimal.valueOf(1000), cl, BigDecimal.ONE);
+        TransactionJournal journal = new TransactionJournal(directory, JournalSyncPolicy.GROUP, 4096, 10);
+        centralBank.attachJournal(journal);
+        Transaction transfer;
+        try {
+            transfer = centralBank.transferMoney(new BigDecimal("10.50"), first, second);
+            centralBank.registerTransaction(new UpdateTransaction(first, BigDecimal.ONE, LocalDateTime.now()));
+            centralBank.registerTransaction(new WithdrawTransaction(first, BigDecimal.ONE, LocalDateTime.now()));
+            centralBank.cancelTransaction(transfer.getId());
+            Thread[] writers = new Thread[4];
+            for (int t = 0; t < writers.length; t++) {
+                writers[t] = new Thread(() -> {
+                    for (int i = 0; i < 100; i++)
+                        centralBank.transferMoney(BigDecimal.ONE, first, second);
+                });
+                writers[t].start();
+            }
+            for (Thread writer : writers)
+                writer.join();
+        } finally {
+            centralBank.detachJournal();
+            journal.close();
+        }
+
+        ArrayList<JournalRecord> records = new ArrayList<JournalRecord>();
+        TransactionJournal.read(directory, records::add);
+        assertEquals(404, records.size());
+        assertEquals(JournalRecordType.TRANSFER, records.get(0).getType());
+        assertEquals(transfer.getId(), records.get(0).getTransactionId());
+        assertEquals(1050, records.get(0).getAmountUnits());
+        assertEquals(second.getId(), records.get(0).getRecipientId());
+        assertEquals(JournalRecordType.UPDATE, records.get(1).getType());
+        assertEquals(JournalRecordType.WITHDRAW, records.get(2).getType());
+        assertEquals(JournalRecordType.CANCEL, records.get(3).getType());
+        assertEquals(transfer.getId(), records.get(3).getTransactionId());
+        assertTrue(journal.getSyncCount() <= journal.getRecordCount());
+
+        TransactionJournal reopened = new TransactionJournal(directory, JournalSyncPolicy.PER_RECORD, 4096, 10);
+        reopened.write(JournalRecord.of(transfer));
+        reopened.close();
+        records.clear();
+        TransactionJournal.read(directory, records::add);
+        assertEquals(405, records.size());
+    }
+
+    @Test
+    public void snapshotRecoveryTest(@TempDir Path directory) {
+        ArrayList<BigDecimal> list = new ArrayList<BigDecimal>();
+        list.add(BigDecimal.valueOf(2));
+        list.add(BigDecimal.valueOf(3));
+        list.add(BigDecimal.valueOf(4));
+        BankSettings bankSettings = new BankSettings(BigDecimal.valueOf(1), list, BigDecimal.valueOf(10000), BigDecimal.valueOf(1000), BigDecimal.valueOf(10000));
+        Bank bank = centralBank.registerBank("psb", bankSettings);
+        Client cl = new Client("name", "surname", "street", "7000102030");
+        bank.addClient(cl);
+        bank.addObserver(cl);
+        Account debit = bank.addAccount(new DebitAccount(BigDecimal.valueOf(1000), cl, BigDecimal.ONE));
+        bank.changeCreditSettings(new BigDecimal("1.5"));
+        Account credit = bank.addAccount(new CreditAccount(BigDecimal.valueOf(500), cl, new BigDecimal("1.5")));
+        Transaction beforeSnapshot = centralBank.transferMoney(BigDecimal.valueOf(50), debit, credit);
+
+        SnapshotStore store = new SnapshotStore(directory.resolve("snapshots"));
+        Path journalDirectory = directory.resolve("journal");
+        TransactionJournal journal = new TransactionJournal(journalDirectory, JournalSyncPolicy.PER_RECORD, 4096, 10);
+        centralBank.attachJournal(journal);
+        Path snapshot;
+        try {
+            snapshot = store.write();
+            centralBank.transferMoney(BigDecimal.valueOf(400), credit, debit);
+            centralBank.transferMoney(new BigDecimal("50.25"), credit, debit);
+            centralBank.cancelTransaction(beforeSnapshot.getId());
+        } finally {
+            centralBank.detachJournal();
+            journal.close();
+        }
+        assertEquals(snapshot, store.latest());
+
+        RecoveredState state = SnapshotStore.load(snapshot, new ForkJoinPool(2));
+        Bank restored = state.getBanks().stream().filter(b -> b.getId().equals(bank.getId())).findFirst().orElseThrow();
+        assertEquals("psb", restored.getName());
+        assertEquals(2, restored.getSettings().getVersion());
+        assertEquals(list, restored.getSettings().getDepositPercentages());
+        assertEquals(0, new BigDecimal("1.5").compareTo(restored.getSettings().getCreditCommission()));
+        assertEquals(1, state.findAccount(debit.getId()).getSettingsVersion());
+        assertEquals(2, state.findAccount(credit.getId()).getSettingsVersion());
+        assertEquals(1, restored.getObservers().size());
+        assertEquals(cl.getId(), restored.findClientByPassport("7000102030").getId());
+        assertEquals(0, BigDecimal.valueOf(950).compareTo(state.findAccount(debit.getId()).getAccountMoney()));
+        assertFalse(state.findTransaction(beforeSnapshot.getId()).getStatus());
+
+        state.replay(journalDirectory);
+        assertEquals(3, state.getReplayedRecords());
+        assertTrue(state.findTransaction(beforeSnapshot.getId()).getStatus());
+        assertEquals(debit.getBalanceUnits(), state.findAccount(debit.getId()).getBalanceUnits());
+        assertEquals(credit.getBalanceUnits(), state.findAccount(credit.getId()).getBalanceUnits());
+        assertEquals(4975, state.findAccount(credit.getId()).getBalanceUnits());
+        assertInstanceOf(CreditAccount.class, state.findAccount(credit.getId()));
+
+        state.replay(journalDirectory);
+        assertEquals(3, state.getReplayedRecords());
+        assertEquals(debit.getBalanceUnits(), state.findAccount(debit.getId()).getBalanceUnits());
+    }
+
+    @Test
+    public void replayAccruesToRecordDayTest(@TempDir Path directory) {
+        Instant start = Instant.parse("2032-01-01T12:00:00Z");
+        BankClock.setClock(Clock.fixed(start, ZoneOffset.UTC));
+        try {
+            BankSettings bankSettings = new BankSettings(BigDecimal.ONE, List.of(BigDecimal.ONE), BigDecimal.valueOf(10000), BigDecimal.valueOf(1000), BigDecimal.valueOf(10000));
+            Bank bank = centralBank.registerBank("replay", bankSettings);
+            Client cl = new Client("name", "surname", "street", "7400000002");
+            bank.addClient(cl);
+            Account first = bank.addAccount(new DebitAccount(BigDecimal.valueOf(10000), cl, BigDecimal.TEN));
+            Account second = bank.addAccount(new DebitAccount(BigDecimal.valueOf(1000), cl, BigDecimal.TEN));
+
+            SnapshotStore store = new SnapshotStore(directory.resolve("snapshots"));
+            Path journalDirectory = directory.resolve("journal");
+            TransactionJournal journal = new TransactionJournal(journalDirectory, JournalSyncPolicy.PER_RECORD, 4096, 10);
+            centralBank.attachJournal(journal);
+            Path snapshot;
+            try {
+                snapshot = store.write();
+                centralBank.transferMoney(BigDecimal.valueOf(500), first, second);
+                BankClock.setClock(Clock.fixed(start.plus(Duration.ofDays(100)), ZoneOffset.UTC));
+                centralBank.transferMoney(BigDecimal.valueOf(100), second, first);
+            } finally {
+                centralBank.detachJournal();
+                journal.close();
+            }
+
+            BankClock.setClock(Clock.fixed(start.plus(Duration.ofDays(101)), ZoneOffset.UTC));
+            RecoveredState state = SnapshotStore.load(snapshot, new ForkJoinPool(2));
+            state.replay(journalDirectory);
+            assertEquals(2, state.getReplayedRecords());
+            assertEquals(start.plus(Duration.ofDays(101)), BankClock.getClock().instant());
+            assertEquals(LocalDate.of(2032, 4, 10), state.findAccount(first.getId()).getLastAccrued());
+            assertEquals(LocalDate.of(2032, 4, 10), state.findAccount(second.getId()).getLastAccrued());
+            assertEquals(first.getBalanceUnits(), state.findAccount(first.getId()).getBalanceUnits());
+            assertEquals(second.getBalanceUnits(), state.findAccount(second.getId()).getBalanceUnits());
+            assertEquals(LocalDate.of(2032, 4, 11), state.findAccount(first.getId()).getLastAccrued());
+        } finally {
+            BankClock.setClock(Clock.systemDefaultZone());
+        }
+    }
+
+    @Test
+    public void transferBatchTest() {
+        Client cl = new Client("name", "surname", "street", "6000102030");
+        Account first = new DebitAccount(BigDecimal.valueOf(1000), cl, BigDecimal.ONE);
+        Account second = new DebitAccount(BigDecimal.valueOf(1000), cl, BigDecimal.ONE);
+        Account third = new DebitAccount(BigDecimal.valueOf(100), cl, BigDecimal.ONE);
+        ArrayList<TransferRequest> requests = new ArrayList<TransferRequest>();
+        requests.add(new TransferRequest(first, second, BigDecimal.valueOf(100)));
+        requests.add(new TransferRequest(third, first, BigDecimal.valueOf(-1)));
+        requests.add(null);
+        requests.add(new TransferRequest(second, third, BigDecimal.valueOf(300)));
+        requests.add(new TransferRequest(third, first, BigDecimal.valueOf(500)));
+        requests.add(new TransferRequest(first, third, new BigDecimal("0.50")));
+
+        List<TransferResult> results = centralBank.transferBatch(requests);
+        assertEquals(requests.size(), results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertInstanceOf(BankException.class, results.get(1).getFailure());
+        assertInstanceOf(TransactionException.class, results.get(2).getFailure());
+        assertTrue(results.get(3).isSuccess());
+        assertTrue(results.get(5).isSuccess());
+        assertEquals(3, results.get(3).getIndex());
+        assertEquals(results.get(0).getTransaction().getBatchId(), results.get(3).getTransaction().getBatchId());
+        assertEquals(results.get(0).getTransaction().getTransactionTime(), results.get(5).getTransaction().getTransactionTime());
+        assertSame(results.get(3).getTransaction(), centralBank.findTransaction(results.get(3).getTransaction().getId()));
+
+        long total = first.getBalanceUnits() + second.getBalanceUnits() + third.getBalanceUnits();
+        assertEquals(210000, total);
+        assertInstanceOf(AccountException.class, results.get(4).getFailure());
+        assertEquals(0, new BigDecimal("400.50").compareTo(third.getAccountMoney()));
+        assertThrows(TransactionException.class, () -> centralBank.transferBatch(null));
+    }
+
+    @Test
+    public void failedCreditRefundsSenderTest() {
+        Client cl = new Client("name", "surname", "street", "7400000001");
+        Account sender = new DebitAccount(BigDecimal.valueOf(1000), cl, BigDecimal.ONE);
+        Account full = new DebitAccount(BigDecimal.ZERO, cl, BigDecimal.ONE);
+        Account other = new DebitAccount(BigDecimal.ZERO, cl, BigDecimal.ONE);
+        full.setBalanceUnits(Long.MAX_VALUE - 10);
+        int recorded = centralBank.getTransactions().size();
+
+        assertThrows(AccountException.class, () -> centralBank.transferMoney(BigDecimal.ONE, sender, full));
+        assertEquals(100000, sender.getBalanceUnits());
+        assertEquals(Long.MAX_VALUE - 10, full.getBalanceUnits());
+        assertEquals(recorded, centralBank.getTransactions().size());
+
+        ArrayList<TransferRequest> requests = new ArrayList<TransferRequest>();
+        requests.add(new TransferRequest(sender, full, BigDecimal.ONE));
+        requests.add(new TransferRequest(sender, other, BigDecimal.TEN));
+        List<TransferResult> results = centralBank.transferBatch(requests);
+        assertInstanceOf(AccountException.class, results.get(0).getFailure());
+        assertTrue(results.get(1).isSuccess());
+        assertEquals(99000, sender.getBalanceUnits());
+        assertEquals(1000, other.getBalanceUnits());
+        assertEquals(Long.MAX_VALUE - 10, full.getBalanceUnits());
+        assertEquals(recorded + 1, centralBank.getTransactions().size());
+    }
+
+    @Test
+    public void notificationDispatcherTest() throws InterruptedException {
+        ArrayList<BigDecimal> list = new ArrayList<BigDecimal>();
+        list.add(BigDecimal.valueOf(2));
+        list.add(BigDecimal.valueOf(3));
+        list.add(BigDecimal.valueOf(4));
+        BankSettings bankSettings = new BankSettings(BigDecimal.valueOf(1), list, BigDecimal.valueOf(10000), BigDecimal.valueOf(1000), BigDecimal.valueOf(10000));
+        Bank bank = new Bank("alfa", bankSettings);
+        ArrayList<Client> clients = new ArrayList<Client>();
+        for (int i = 0; i < 1000; i++) {
+            Client cl = new Client("name", "surname", "street", Long.toString(6100000000L + i));
+            clients.add(cl);
+            bank.addObserver(cl);
+        }
+        NotificationDispatcher dispatcher = new NotificationDispatcher(16, 2, BackPressurePolicy.BLOCK);
+        bank.setNotificationDispatcher(dispatcher);
+        bank.changeDebitPercent(BigDecimal.valueOf(5));
+        bank.changeCreditSettings(BigDecimal.valueOf(20));
+        assertTrue(dispatcher.awaitIdle(10, TimeUnit.SECONDS));
+        for (Client cl : clients)
+            assertEquals(2, cl.getNotifications().size());
+        assertTrue(clients.get(0).getNotifications().contains("Banks setting: debit percent - updated to 5"));
+        assertEquals(2000, dispatcher.getMetrics().getDeliveries());
+        dispatcher.close();
+        assertThrows(BankException.class, () -> bank.changeDebitPercent(BigDecimal.ONE));
+
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ArrayList<String> received = new ArrayList<String>();
+        Observer slow = message -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.add(message);
+        };
+        NotificationDispatcher coalescing = new NotificationDispatcher(2, 1, BackPressurePolicy.COALESCE);
+        coalescing.submit(new SettingsEvent(null, "rate", BigDecimal.ONE), List.of(slow));
+        entered.await();
+        coalescing.submit(new SettingsEvent(null, "rate", BigDecimal.valueOf(2)), List.of(slow));
+        coalescing.submit(new SettingsEvent(null, "rate", BigDecimal.valueOf(3)), List.of(slow));
+        assertEquals(1, coalescing.getQueueDepth());
+        release.countDown();
+        assertTrue(coalescing.awaitIdle(10, TimeUnit.SECONDS));
+        assertEquals(List.of("Banks setting: rate - updated to 1", "Banks setting: rate - updated to 3"), received);
+        assertEquals(1, coalescing.getMetrics().getCoalesced());
+        coalescing.close();
+
+        NotificationDispatcher dropping = new NotificationDispatcher(1, 1, BackPressurePolicy.DROP_OLDEST);
+        CountDownLatch stalled = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        AtomicInteger deliveredCount = new AtomicInteger();
+        Observer stalling = message -> {
+            stalled.countDown();
+            try {
+                resume.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            deliveredCount.incrementAndGet();
+        };
+        dropping.submit(new SettingsEvent(null, "k1", BigDecimal.ONE), List.of(stalling));
+        stalled.await();
+        dropping.submit(new SettingsEvent(null, "k2", BigDecimal.ONE), List.of(stalling));
+        dropping.submit(new SettingsEvent(null, "k3", BigDecimal.ONE), List.of(stalling));
+        resume.countDown();
+        assertTrue(dropping.awaitIdle(10, TimeUnit.SECONDS));
+        assertEquals(1, dropping.getMetrics().getDropped());
+        assertEquals(2, deliveredCount.get());
+        dropping.close();
+
+        for (int round = 0; round < 200; round++) {
+            NotificationDispatcher closing = new NotificationDispatcher(64, 1, BackPressurePolicy.BLOCK);
+            AtomicInteger accepted = new AtomicInteger();
+            AtomicInteger arrived = new AtomicInteger();
+            Observer counting = message -> arrived.incrementAndGet();
+            Thread sender = new Thread(() -> {
+                for (int i = 0; i < 50; i++) {
+                    try {
+                        closing.submit(new SettingsEvent(null, "k" + i, BigDecimal.ONE), List.of(counting));
+                        accepted.incrementAndGet();
+                    } catch (BankException e) {
+                        return;
+                    }
+                }
+            });
+            sender.start();
+            closing.close();
+            sender.join();
+            assertTrue(closing.awaitIdle(10, TimeUnit.SECONDS));
+            assertEquals(accepted.get(), arrived.get());
+        }
+    }
+
+    @Test
+    public void notificationInboxTest() {
+        ArrayList<BigDecimal> list = new ArrayList<BigDecimal>();
+        list.add(BigDecimal.valueOf(2));
+        list.add(BigDecimal.valueOf(3));
+        list.add(BigDecimal.valueOf(4));
+        BankSettings bankSettings = new BankSettings(BigDecimal.valueOf(1), list, BigDecimal.valueOf(10000), BigDecimal.valueOf(1000), BigDecimal.valueOf(10000));
+        Bank bank = new Bank("alfa", bankSettings);
+        ArrayList<SettingsEvent> events = new ArrayList<SettingsEvent>();
+        Client first = new Client("name", "surname", "street", "6200000001");
+        Client second = new Client("name", "surname", "street", "6200000002");
+        bank.addObserver(first);
+        bank.addObserver(second);
+        bank.addObserver(new Observer() {
+            @Override
+            public void update(String message) {
+            }
+
+            @Override
+            public void update(SettingsEvent event) {
+                events.add(event);
+            }
+        });
+        bank.changeDebitPercent(BigDecimal.valueOf(5));
+        assertEquals(1, events.size());
+        assertEquals(events.get(0).getBankId(), bank.getId());
+        assertEquals("debit percent", events.get(0).getSetting());
+        assertEquals(List.of("Banks setting: debit percent - updated to 5"), first.getNotifications());
+        assertEquals(first.getNotifications(), second.getNotifications());
+        assertEquals(1, first.getInbox().getUnreadCount());
+
+        NotificationInbox inbox = new NotificationInbox(3);
+        assertEquals(List.of(), inbox.getMessages());
+        assertEquals(List.of(), inbox.readUnread());
+        assertEquals(3, inbox.getCapacity());
+        for (int i = 1; i <= 5; i++)
+            inbox.add(new SettingsEvent(null, "rate", BigDecimal.valueOf(i)));
+        assertEquals(3, inbox.size());
+        assertEquals(5, inbox.getReceived());
+        assertEquals(2, inbox.getOverwritten());
+        assertEquals(List.of("Banks setting: rate - updated to 3", "Banks setting: rate - updated to 4",
+                "Banks setting: rate - updated to 5"), inbox.readUnread());
+        assertEquals(0, inbox.getUnreadCount());
+        inbox.add("plain");
+        assertEquals(List.of("plain"), inbox.readUnread());
+        assertEquals("plain", inbox.getMessages().get(2));
+        assertThrows(ClientException.class, () -> new NotificationInbox(0));
+        assertThrows(ClientException.class, () -> first.update((SettingsEvent) null));
+    }
+
+    @Test
+    public void metricsTest() throws Exception {
+        BankMetrics metrics = BankMetrics.getInstance();
+        OperationSnapshot transfersBefore = metrics.operation(MetricsOperation.TRANSFER_MONEY).snapshot();
+        OperationSnapshot clientsBefore = metrics.operation(MetricsOperation.ADD_CLIENT).snapshot();
+        CentralBank centralBank = CentralBank.getInstance();
+        ArrayList<BigDecimal> list = new ArrayList<BigDecimal>();
+        list.add(BigDecimal.valueOf(2));
+        list.add(BigDecimal.valueOf(3));
+        list.add(BigDecimal.valueOf(4));
+        Bank bank = new Bank("alfa", new BankSettings(BigDecimal.valueOf(1), list, BigDecimal.valueOf(10000), BigDecimal.valueOf(1000), BigDecimal.valueOf(10000)));
+        Client client = bank.addClient(new Client("name", "surname", "street", "6300000001"));
+        assertThrows(BankException.class, () -> bank.addClient(client));
+        Account first = bank.addAccount(new DebitAccount(BigDecimal.valueOf(500), client, BigDecimal.ONE));
+        Account second = bank.addAccount(new DebitAccount(BigDecimal.valueOf(500), client, BigDecimal.ONE));
+        centralBank.transferMoney(BigDecimal.TEN, first, second);
+        assertThrows(AccountException.class, () -> centralBank.transferMoney(BigDecimal.valueOf(1000), first, second));
+        assertThrows(BankException.class, () -> centralBank.transferMoney(BigDecimal.valueOf(-1), first, second));
+        assertThrows(TransactionException.class, () -> centralBank.transferMoney(BigDecimal.ONE, null, second));
+
+        OperationSnapshot transfers = metrics.operation(MetricsOperation.TRANSFER_MONEY).snapshot();
+        assertTrue(transfers.getCount() - transfersBefore.getCount() >= 4);
+        assertTrue(transfers.getAccountFailures() - transfersBefore.getAccountFailures() >= 1);
+        assertTrue(transfers.getBankFailures() - transfersBefore.getBankFailures() >= 1);
+        assertTrue(transfers.getTransactionFailures() - transfersBefore.getTransactionFailures() >= 1);
+        assertTrue(transfers.getLatency().getP50Nanos() <= transfers.getLatency().getP999Nanos());
+        assertTrue(transfers.getLatency().getP999Nanos() <= transfers.getLatency().getMaxNanos());
+        OperationSnapshot clients = metrics.operation(MetricsOperation.ADD_CLIENT).snapshot();
+        assertTrue(clients.getBankFailures() - clientsBefore.getBankFailures() >= 1);
+        assertEquals(MetricsOperation.values().length, metrics.snapshot().size());
+
+        metrics.registerMBeans();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        long jmxCount = (Long) server.getAttribute(BankMetrics.objectName("transferMoney"), "Count");
+        assertTrue(jmxCount >= transfers.getCount());
+        assertEquals("transferMoney", server.getAttribute(BankMetrics.objectName("transferMoney"), "Operation"));
+        metrics.unregisterMBeans();
+        assertFalse(server.isRegistered(BankMetrics.objectName("transferMoney")));
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            long base = t;
+            writers[t] = new Thread(() -> {
+                for (int i = 1; i <= 10_000; i++)
+                    histogram.record(i * 1000L + base);
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers)
+            writer.join();
+        HistogramSnapshot latency = histogram.snapshot();
+        assertEquals(40_000, latency.getCount());
+        assertEquals(10_000_003, latency.getMaxNanos());
+        assertTrue(Math.abs(latency.getP50Nanos() - 5_000_000) <= 5_000_000 / 32);
+        LatencyHistogram merged = new LatencyHistogram();
+        merged.add(histogram);
+        merged.add(histogram);
+        assertEquals(80_000, merged.snapshot().getCount());
+        assertEquals(10_000_003, merged.snapshot().getMaxNanos());
+        histogram.reset();
+        assertEquals(0, histogram.snapshot().getCount());
+    }
+
+    @Test
+    public void transactionTimeStoreTest() {
+        Client client = new Client("name", "surname", "street", "6400000001");
+        Account account = new DebitAccount(BigDecimal.valueOf(1000), client, BigDecimal.ONE);
+        TransactionTimeStore store = new TransactionTimeStore();
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 0, 0);
+        ArrayList<Transaction> all = new ArrayList<Transaction>();
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 20000; i++) {
+            // время в пределах двух суток, иногда транзакция приходит с опозданием
+            LocalDateTime time = start.plusSeconds(i * 8L - (random.nextInt(10) == 0 ? random.nextInt(7200) : 0));
+            UpdateTransaction transaction = new UpdateTransaction(account, BigDecimal.ONE, time.isBefore(start) ? start : time);
+            store.append(transaction);
+            all.add(transaction);
+        }
+        assertEquals(20000, store.size());
+        assertEquals(45, store.getPartitionCount());
+
+        LocalDateTime from = start.plusHours(5).plusMinutes(30);
+        LocalDateTime to = start.plusHours(9).plusMinutes(15);
+        List<Transaction> expected = all.stream()
+                .filter(t -> !t.getTransactionTime().isBefore(from) && t.getTransactionTime().isBefore(to))
+                .toList();
+        List<Transaction> found = store.findBetween(from, to);
+        assertEquals(expected.size(), found.size());
+        assertTrue(found.containsAll(expected));
+        assertEquals(5, store.countPartitionsBetween(from, to));
+        assertEquals(expected.size(), store.streamBetween(from, to).parallel().count());
+        assertEquals(4, store.countPartitionsBetween(start.plusHours(1), start.plusHours(5)));
+        assertTrue(store.findBetween(to, from).isEmpty());
+        assertThrows(TransactionException.class, () -> new TransactionTimeStore(Duration.ZERO));
+        assertThrows(TransactionException.class, () -> store.findBetween(null, to));
+
+        CentralBank centralBank = CentralBank.getInstance();
+        Account recipient = new DebitAccount(BigDecimal.valueOf(1000), client, BigDecimal.ONE);
+        LocalDateTime before = LocalDateTime.now().minusSeconds(1);
+        Transaction transfer = centralBank.transferMoney(BigDecimal.TEN, account, recipient);
+        assertTrue(centralBank.findTransactionsBetween(before, LocalDateTime.now().plusSeconds(1)).contains(transfer));
+    }
+
+    @Test
+    public void accountHistoryTest() {
+        CentralBank centralBank = CentralBank.getInstance();
+        Client client = new Client("name", "surname", "street", "6500000001");
+        Account first = new DebitAccount(BigDecimal.valueOf(1000), client, BigDecimal.ONE);
+        Account second = new DebitAccount(BigDecimal.valueOf(1000), client, BigDecimal.ONE);
+        Account third = new DebitAccount(BigDecimal.valueOf(1000), client, BigDecimal.ONE);
+        ArrayList<Transaction> made = new ArrayList<Transaction>();
+        for (int i = 0; i < 7; i++)
+            made.add(centralBank.transferMoney(BigDecimal.ONE, i % 2 == 0 ? first : second, i % 2 == 0 ? second : first));
+        Transaction other = centralBank.transferMoney(BigDecimal.ONE, second, third);
+        centralBank.cancelTransaction(made.get(6).getId());
+
+        AccountHistoryPage page = centralBank.getAccountHistory(first, AccountHistoryPage.firstPage, 3);
+        assertEquals(3, page.getEntries().size());
+        assertTrue(page.getEntries().get(0).isCancellation());
+        assertEquals(made.get(6), page.getEntries().get(0).getTransaction());
+        assertEquals(made.get(6), page.getEntries().get(1).getTransaction());
+        assertFalse(page.getEntries().get(1).isCancellation());
+        assertEquals(made.get(5), page.getEntries().get(2).getTransaction());
+        ArrayList<Transaction> seen = new ArrayList<Transaction>();
+        page.getEntries().forEach(entry -> seen.add(entry.getTransaction()));
+        while (page.hasNext()) {
+            page = centralBank.getAccountHistory(first, page.getNextCursor(), 3);
+            for (AccountHistoryEntry entry : page.getEntries())
+                seen.add(entry.getTransaction());
+        }
+        assertEquals(8, seen.size());
+        assertEquals(made.get(0), seen.get(7));
+        assertFalse(seen.contains(other));
+
+        AccountHistoryPage thirdPage = centralBank.getAccountHistory(third, AccountHistoryPage.firstPage, 10);
+        assertEquals(List.of(other), thirdPage.getEntries().stream().map(AccountHistoryEntry::getTransaction).toList());
+        assertFalse(thirdPage.hasNext());
+        assertTrue(centralBank.getAccountHistory(new DebitAccount(BigDecimal.ONE, client, BigDecimal.ONE), AccountHistoryPage.firstPage, 10).getEntries().isEmpty());
+        assertThrows(TransactionException.class, () -> centralBank.getAccountHistory(first, AccountHistoryPage.firstPage, 0));
+        assertThrows(TransactionException.class, () -> centralBank.getAccountHistory(first, -1, 10));
+    }
+
+    @Test
+    public void transactionArchiveTest() {
+        Client client = new Client("name", "surname", "street", "6600000001");
+        Account first = new DebitAccount(BigDecimal.valueOf(1000), client, BigDecimal.ONE);
+        Account second = new DebitAccount(BigDecimal.valueOf(1000), client, BigDecimal.ONE);
+        LocalDateTime time = LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_456_000);
+        TransactionArchive archive = new TransactionArchive();
+        Transaction transfer = new TransferTransaction(first, second, new BigDecimal("12.34"), time);
+        Transaction update = new UpdateTransaction(second, new BigDecimal("0.05"), time.plusHours(1));
+        Transaction withdraw = new WithdrawTransaction(first, BigDecimal.valueOf(7), time.plusDays(1));
+        withdraw.setCancelled(true);
+        assertEquals(0, archive.append(transfer));
+        assertEquals(1, archive.append(update));
+        assertEquals(2, archive.append(withdraw));
+        assertEquals(2, archive.getAccountCount());
+
+        TransferTransaction restored = assertInstanceOf(TransferTransaction.class, archive.get(0));
+        assertEquals(transfer.getId(), restored.getId());
+        assertSame(first, restored.getSender());
+        assertSame(second, restored.getRecipient());
+        assertEquals(0, new BigDecimal("12.34").compareTo(restored.getMoney()));
+        assertEquals(time, restored.getTransactionTime());
+        assertFalse(restored.getStatus());
+        assertInstanceOf(UpdateTransaction.class, archive.get(1));
+        assertEquals(5, archive.getAmountUnits(1));
+        assertInstanceOf(WithdrawTransaction.class, archive.get(2));
+        assertTrue(archive.get(2).getStatus());
+        assertEquals(1, archive.indexOf(update.getId()));
+        assertEquals(-1, archive.indexOf(UUID.randomUUID()));
+        archive.markCancelled(1);
+        assertTrue(archive.isCancelled(1));
+        assertThrows(TransactionException.class, () -> archive.get(3));
+        assertThrows(TransactionException.class, () -> archive.append(null));
+
+        TransactionArchive large = new TransactionArchive();
+        ArrayList<Transaction> source = new ArrayList<Transaction>();
+        for (int i = 0; i < 100_000; i++) {
+            Transaction transaction = new TransferTransaction(i % 2 == 0 ? first : second, i % 2 == 0 ? second : first, BigDecimal.valueOf(i), time.plusSeconds(i));
+            source.add(transaction);
+            large.append(transaction);
+        }
+        assertEquals(source.size(), large.size());
+        assertEquals(source.get(77_777).getId(), large.get(77_777).getId());
+        assertEquals(time.plusSeconds(99_999), large.get(99_999).getTransactionTime());
+        assertEquals(0, BigDecimal.valueOf(54_321).compareTo(large.get(54_321).getMoney()));
+        assertEquals(99_999, large.indexOf(source.get(99_999).getId()));
+        assertTrue(large.getFootprintBytes() / large.size() <= 19);
+
+        TransactionArchive scattered = new TransactionArchive();
+        SplittableRandom random = new SplittableRandom(19);
+        ArrayList<Transaction> wide = new ArrayList<Transaction>();
+        for (int i = 0; i < 5000; i++) {
+            Transaction transaction = new UpdateTransaction(i % 3 == 0 ? first : second,
+                    BigDecimal.valueOf(random.nextLong(1L << 50), 2), time.minusYears(random.nextInt(50)).plusNanos(random.nextInt(1_000_000) * 1000L));
+            if (i % 2 == 0)
+                transaction.setId(UUID.randomUUID());
+            wide.add(transaction);
+            scattered.append(transaction);
+        }
+        for (int i = 0; i < wide.size(); i += 7) {
+            Transaction restoredWide = scattered.get(i);
+            assertEquals(wide.get(i).getId(), restoredWide.getId());
+            assertEquals(0, wide.get(i).getMoney().compareTo(restoredWide.getMoney()));
+            assertEquals(wide.get(i).getTransactionTime(), restoredWide.getTransactionTime());
+            assertSame(wide.get(i).getSender(), restoredWide.getSender());
+            assertEquals(i, scattered.indexOf(wide.get(i).getId()));
+        }
+        assertTrue(scattered.getFootprintBytes() > large.getFootprintBytes() / large.size() * scattered.size());
+    }
+
+    @Test
+    public void idGeneratorTest() throws InterruptedException {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(7);
+        long before = System.currentTimeMillis();
+        UUID previous = generator.nextId();
+        assertEquals(7, previous.version());
+        assertEquals(2, previous.variant());
+        assertTrue(TimeOrderedIdGenerator.getEpochMillis(previous) >= before);
+        for (int i = 0; i < 100_000; i++) {
+            UUID next = generator.nextId();
+            assertTrue(previous.compareTo(next) < 0);
+            previous = next;
+        }
+
+        int threads = 4;
+        int perThread = 50_000;
+        Set<UUID> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < perThread; i++)
+                    ids.add(generator.nextId());
+                done.countDown();
+            }).start();
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertEquals(threads * perThread, ids.size());
+
+        assertEquals(7, new Client("name", "surname", "street", "6700000001").getId().version());
+        Ids.setGenerator(new RandomIdGenerator());
+        try {
+            assertEquals(4, new Client("name", "surname", "street", "6700000002").getId().version());
+        } finally {
+            Ids.setGenerator(new TimeOrderedIdGenerator());
+        }
+        assertThrows(BankException.class, () -> Ids.setGenerator(null));
+        assertThrows(BankException.class, () -> new TimeOrderedIdGenerator(1 << 16));
+    }
+
+    @Test
+    public void bulkCancellationTest() {
+        CentralBank centralBank = CentralBank.getInstance();
+        Client client = new Client("name", "surname", "street", "6800000001");
+        Account first = new DebitAccount(BigDecimal.valueOf(1000), client, BigDecimal.ONE);
+        Account second = new DebitAccount(BigDecimal.valueOf(1000), client, BigDecimal.ONE);
+        Account third = new DebitAccount(BigDecimal.valueOf(20), client, BigDecimal.ONE);
+        LocalDateTime start = LocalDateTime.of(2003, 7, 1, 10, 0);
+        Transaction oldest = centralBank.registerTransaction(new TransferTransaction(first, second, BigDecimal.valueOf(100), start));
+        Transaction unpaid = centralBank.registerTransaction(new TransferTransaction(second, third, BigDecimal.valueOf(30), start.plusMinutes(1)));
+        Transaction newest = centralBank.registerTransaction(new UpdateTransaction(first, BigDecimal.TEN, start.plusMinutes(2)));
+        Transaction outside = centralBank.registerTransaction(new TransferTransaction(first, second, BigDecimal.ONE, start.plusHours(1)));
+
+        List<CancellationResult> results = centralBank.cancelTransactionsBetween(start, start.plusHours(1));
+        assertEquals(List.of(newest, unpaid, oldest), results.stream().map(CancellationResult::getTransaction).toList());
+        assertTrue(results.get(0).isSuccess());
+        assertInstanceOf(AccountException.class, results.get(1).getFailure());
+        assertTrue(results.get(2).isSuccess());
+        assertEquals(0, BigDecimal.valueOf(1090).compareTo(first.getAccountMoney()));
+        assertEquals(0, BigDecimal.valueOf(900).compareTo(second.getAccountMoney()));
+        assertEquals(0, BigDecimal.valueOf(20).compareTo(third.getAccountMoney()));
+        assertFalse(unpaid.getStatus());
+        assertFalse(outside.getStatus());
+        assertTrue(centralBank.cancelTransactionsBetween(start, start.plusHours(1)).stream()
+                .noneMatch(CancellationResult::isSuccess));
+
+        ArrayList<TransferRequest> requests = new ArrayList<TransferRequest>();
+        requests.add(new TransferRequest(first, second, BigDecimal.valueOf(5)));
+        requests.add(new TransferRequest(first, third, BigDecimal.valueOf(7)));
+        List<TransferResult> batch = centralBank.transferBatch(requests);
+        List<CancellationResult> cancelled = centralBank.cancelBatch(batch.get(0).getTransaction().getBatchId());
+        assertEquals(2, cancelled.size());
+        assertTrue(cancelled.stream().allMatch(CancellationResult::isSuccess));
+        assertEquals(batch.get(1).getTransaction(), cancelled.get(0).getTransaction());
+        assertEquals(0, BigDecimal.valueOf(1090).compareTo(first.getAccountMoney()));
+        assertEquals(0, BigDecimal.valueOf(20).compareTo(third.getAccountMoney()));
+        assertThrows(TransactionException.class, () -> centralBank.cancelBatch(UUID.randomUUID()));
+        assertThrows(TransactionException.class, () -> centralBank.cancelBatch(null));
+    }
+
+    @Test
+    public void settingsSnapshotTest() throws InterruptedException {
+        ArrayList<BigDecimal> list = new ArrayList<BigDecimal>();
+        list.add(BigDecimal.valueOf(2));
+        list.add(BigDecimal.valueOf(3));
+        list.add(BigDecimal.valueOf(4));
+        BankSettings initial = new BankSettings(BigDecimal.valueOf(1), list, BigDecimal.valueOf(10000), BigDecimal.valueOf(1000), BigDecimal.valueOf(10000));
+        list.add(BigDecimal.valueOf(5));
+        assertEquals(List.of(BigDecimal.valueOf(2), BigDecimal.valueOf(3), BigDecimal.valueOf(4)), initial.getDepositPercentages());
+        assertThrows(UnsupportedOperationException.class, () -> initial.getDepositPercentages().add(BigDecimal.TEN));
+        assertEquals(BankSettings.initialVersion, initial.getVersion());
+
+        Bank bank = new Bank("settings", initial);
+        Client client = new Client("name", "surname", "street", "6900000001");
+        Account first = bank.addAccount(new DebitAccount(BigDecimal.valueOf(100), client, BigDecimal.ONE));
+        BankSettings changed = bank.changeDebitPercent(BigDecimal.valueOf(7));
+        assertEquals(2, changed.getVersion());
+        assertSame(changed, bank.getSettings());
+        assertEquals(0, BigDecimal.ONE.compareTo(initial.getDebitPercent()));
+        assertEquals(0, BigDecimal.valueOf(7).compareTo(bank.getSettings().getDebitPercent()));
+        Account second = bank.addAccount(new DebitAccount(BigDecimal.valueOf(100), client, BigDecimal.ONE));
+        assertEquals(1, first.getSettingsVersion());
+        assertEquals(2, second.getSettingsVersion());
+        assertEquals(0, BigDecimal.valueOf(3).compareTo(bank.chooseDepositPercentToAccount(BigDecimal.valueOf(2))));
+
+        assertThrows(BankException.class, () -> bank.changeDepositSettings(List.of(BigDecimal.valueOf(3), BigDecimal.valueOf(2), BigDecimal.valueOf(4))));
+        assertThrows(BankException.class, () -> bank.changeDepositSettings(List.of(BigDecimal.valueOf(-1), BigDecimal.ONE)));
+        assertEquals(2, bank.getSettings().getVersion());
+        assertThrows(BankException.class, () -> new BankSettings(BigDecimal.ONE, List.of(), BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE));
+        assertThrows(BankException.class, () -> bank.setSettings(null));
+
+        int threads = 4;
+        int changes = 250;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < changes; i++)
+                    bank.changeCreditSettings(BigDecimal.valueOf(i));
+                done.countDown();
+            }).start();
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertEquals(2 + threads * changes, bank.getSettings().getVersion());
+    }
+
+    @Test
+    public void depositRateTableTest() {
+        TreeMap<BigDecimal, BigDecimal> tiers = new TreeMap<BigDecimal, BigDecimal>();
+        for (int i = 0; i < 40; i++)
+            tiers.put(BigDecimal.valueOf(i * 1000L), BigDecimal.valueOf(i).movePointLeft(1));
+        DepositRateTable table = new DepositRateTable(tiers);
+        assertEquals(40, table.size());
+        assertEquals(0, BigDecimal.ZERO.compareTo(table.rateFor(BigDecimal.ZERO)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(table.rateFor(new BigDecimal("999.99"))));
+        assertEquals(0, new BigDecimal("0.1").compareTo(table.rateFor(BigDecimal.valueOf(1000))));
+        assertEquals(0, new BigDecimal("2.5").compareTo(table.rateFor(BigDecimal.valueOf(25_500))));
+        assertEquals(0, new BigDecimal("3.9").compareTo(table.rateFor(BigDecimal.valueOf(10_000_000))));
+        assertEquals(tiers.keySet().stream().map(BigDecimal::stripTrailingZeros).toList(),
+                table.getTiers().keySet().stream().map(BigDecimal::stripTrailingZeros).toList());
+        assertThrows(BankException.class, () -> table.rateFor(BigDecimal.valueOf(-1)));
+        assertThrows(BankException.class, () -> new DepositRateTable(new TreeMap<BigDecimal, BigDecimal>(Map.of(BigDecimal.ONE, BigDecimal.ONE))));
+        assertThrows(BankException.class, () -> new DepositRateTable(new TreeMap<BigDecimal, BigDecimal>()));
+
+        ArrayList<BigDecimal> list = new ArrayList<BigDecimal>(List.of(BigDecimal.valueOf(2), BigDecimal.valueOf(3), BigDecimal.valueOf(4)));
+        Bank bank = new Bank("tiers", new BankSettings(BigDecimal.valueOf(1), list, BigDecimal.valueOf(10000), BigDecimal.valueOf(1000), BigDecimal.valueOf(10000)));
+        assertEquals(0, BigDecimal.valueOf(2).compareTo(bank.chooseDepositPercentToAccount(BigDecimal.ONE)));
+        assertEquals(0, BigDecimal.valueOf(4).compareTo(bank.chooseDepositPercentToAccount(BigDecimal.valueOf(100))));
+        Client client = new Client("name", "surname", "street", "6900000002");
+        Date end = new Date(System.currentTimeMillis() + 86_400_000L);
+        ArrayList<DepositAccount> deposits = new ArrayList<DepositAccount>();
+        for (int i = 0; i < 5000; i++)
+            deposits.add((DepositAccount) bank.addAccount(new DepositAccount(BigDecimal.valueOf(i * 10L), client, BigDecimal.ONE, end)));
+        bank.addAccount(new DebitAccount(BigDecimal.valueOf(100), client, BigDecimal.ONE));
+
+        ArrayList<SettingsEvent> events = new ArrayList<SettingsEvent>();
+        bank.addObserver(new Observer() {
+            @Override
+            public void update(String message) { }
+
+            @Override
+            public void update(SettingsEvent event) {
+                events.add(event);
+            }
+        });
+        BankSettings updated = bank.changeDepositRates(table);
+        assertEquals(1, events.size());
+        assertEquals(table.getRates(), events.get(0).getValues());
+        assertEquals(updated.getVersion(), events.get(0).getSettingsVersion());
+        assertNull(events.get(0).getValue());
+        int changed = bank.retierDepositAccounts(new ForkJoinPool(2));
+        assertEquals(4900, changed);
+        for (DepositAccount deposit : deposits) {
+            assertEquals(0, table.rateFor(deposit.getAccountMoney()).compareTo(deposit.getAccountPercent()));
+            assertEquals(updated.getVersion(), deposit.getSettingsVersion());
+        }
+        assertEquals(0, bank.retierDepositAccounts(new ForkJoinPool(2)));
+        assertThrows(BankException.class, () -> bank.retierDepositAccounts(null));
+    }
+
+    @Test
+    public void lazyAccrualTest() {
+        Instant start = Instant.parse("2030-01-01T12:00:00Z");
+        BankClock.setClock(Clock.fixed(start, ZoneOffset.UTC));
+        try {
+            Client client = new Client("name", "surname", "street", "7100000001");
+            DebitAccount debit = new DebitAccount(BigDecimal.valueOf(100000), client, BigDecimal.TEN);
+            CreditAccount credit = new CreditAccount(BigDecimal.valueOf(100000), client, BigDecimal.valueOf(10));
+            DebitAccount small = new DebitAccount(new BigDecimal("1.00"), client, BigDecimal.ONE);
+            DebitAccount empty = new DebitAccount(BigDecimal.ZERO, client, BigDecimal.TEN);
+            DebitAccount tiny = new DebitAccount(new BigDecimal("0.01"), client, BigDecimal.TEN);
+            DebitAccount overwritten = new DebitAccount(BigDecimal.valueOf(100000), client, BigDecimal.TEN);
+            DepositAccount rerated = new DepositAccount(BigDecimal.valueOf(1000), client, BigDecimal.TEN, null);
+            assertEquals(LocalDate.of(2030, 1, 1), debit.getLastAccrued());
+            assertEquals(0, debit.accrue());
+
+            BankClock.setClock(Clock.fixed(start.plus(Duration.ofDays(365)), ZoneOffset.UTC));
+            BigDecimal expected = InterestCalculator.compound(BigDecimal.valueOf(100000), BigDecimal.TEN, BigDecimal.valueOf(365), 365);
+            assertTrue(Math.abs(MoneyUnits.toUnits(expected) - debit.getBalanceUnits()) <= 1);
+            assertEquals(LocalDate.of(2031, 1, 1), debit.getLastAccrued());
+            assertEquals(0, debit.accrue());
+            assertEquals(0, BigDecimal.valueOf(100000).compareTo(credit.getAccountMoney()));
+
+            empty.updateMoney(BigDecimal.valueOf(1000));
+            assertEquals(LocalDate.of(2031, 1, 1), empty.getLastAccrued());
+            assertEquals(0, BigDecimal.valueOf(1000).compareTo(empty.getAccountMoney()));
+            tiny.updateMoney(BigDecimal.valueOf(1000));
+            assertEquals(LocalDate.of(2031, 1, 1), tiny.getLastAccrued());
+            assertEquals(0, new BigDecimal("1000.01").compareTo(tiny.getAccountMoney()));
+            assertTrue(tiny.getAccruedCarry() > 0);
+
+            overwritten.setAccountMoney(BigDecimal.valueOf(1000));
+            assertEquals(LocalDate.of(2031, 1, 1), overwritten.getLastAccrued());
+            assertEquals(0, overwritten.getAccruedCarry());
+            assertEquals(0, BigDecimal.valueOf(1000).compareTo(overwritten.getAccountMoney()));
+            rerated.setAccountPercent(BigDecimal.ZERO);
+            long reratedUnits = MoneyUnits.toUnits(InterestCalculator.compound(BigDecimal.valueOf(1000), BigDecimal.TEN, BigDecimal.valueOf(365), 365));
+            assertEquals(LocalDate.of(2031, 1, 1), rerated.getLastAccrued());
+
+            for (int day = 1; day <= 30; day++) {
+                BankClock.setClock(Clock.fixed(start.plus(Duration.ofDays(365 + day)), ZoneOffset.UTC));
+                small.getAccountMoney();
+            }
+            BigDecimal smallExpected = InterestCalculator.compound(new BigDecimal("1.00"), BigDecimal.ONE, BigDecimal.valueOf(365), 395);
+            assertTrue(Math.abs(MoneyUnits.toUnits(smallExpected) - small.getBalanceUnits()) <= 1);
+            assertTrue(small.getBalanceUnits() > 100);
+            assertTrue(Math.abs(reratedUnits - rerated.getBalanceUnits()) <= 1);
+            BigDecimal overwrittenExpected = InterestCalculator.compound(BigDecimal.valueOf(1000), BigDecimal.TEN, BigDecimal.valueOf(365), 30);
+            assertTrue(Math.abs(MoneyUnits.toUnits(overwrittenExpected) - overwritten.getBalanceUnits()) <= 1);
+
+            Bank bank = CentralBank.getInstance().registerBank("accrual", new BankSettings(BigDecimal.TEN, List.of(BigDecimal.ONE), BigDecimal.valueOf(10000), BigDecimal.valueOf(1000), BigDecimal.valueOf(10000)));
+            Account registered = bank.addAccount(new DebitAccount(BigDecimal.valueOf(1000), client, BigDecimal.TEN));
+            BankClock.setClock(Clock.fixed(start.plus(Duration.ofDays(400 + 365)), ZoneOffset.UTC));
+            SimulationReport report = CentralBank.getInstance().accrueAll(new ForkJoinPool(2));
+            assertTrue(report.getAccounts() >= 1);
+            assertEquals(BankClock.today(), registered.getLastAccrued());
+            assertTrue(Math.abs(MoneyUnits.toUnits(InterestCalculator.compound(BigDecimal.valueOf(1000), BigDecimal.TEN, BigDecimal.valueOf(365), 370)) - registered.getBalanceUnits()) <= 1);
+            BigDecimal emptyExpected = InterestCalculator.compound(BigDecimal.valueOf(1000), BigDecimal.TEN, BigDecimal.valueOf(365), 400);
+            assertTrue(Math.abs(MoneyUnits.toUnits(emptyExpected) - empty.getBalanceUnits()) <= 1);
+            assertThrows(BankException.class, () -> CentralBank.getInstance().accrueAll(null));
+            assertThrows(AccountException.class, () -> debit.setLastAccrued(null));
+        } finally {
+            BankClock.setClock(Clock.systemDefaultZone());
+        }
+    }
+
+    @Test
+    public void shardedEngineTest() throws InterruptedException {
+        assertThrows(BankException.class, () -> new ShardedEngine(0, 64));
+        assertThrows(BankException.class, () -> new ShardedEngine(2, 100));
+        Client client = new Client("name", "surname", "street", "7200000001");
+        int count = 64;
+        Account[] accounts = new Account[count];
+        for (int i = 0; i < count; i++)
+            accounts[i] = new DebitAccount(BigDecimal.valueOf(1000), client, BigDecimal.ONE);
+        BigDecimal total = BigDecimal.valueOf(1000L * count);
+
+        ShardedEngine engine = new ShardedEngine(4, 16);
+        int threads = 4;
+        int transfers = 5000;
+        ConcurrentHashMap<UUID, Transaction> done = new ConcurrentHashMap<UUID, Transaction>();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch finished = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                ArrayList<CompletableFuture<TransferTransaction>> results = new ArrayList<CompletableFuture<TransferTransaction>>();
+                for (int i = 0; i < transfers; i++)
+                    results.add(engine.transfer(BigDecimal.valueOf(1 + random.nextInt(300)), accounts[random.nextInt(count)], accounts[random.nextInt(count)]));
+                for (CompletableFuture<TransferTransaction> result : results) {
+                    try {
+                        Transaction transaction = result.join();
+                        done.put(transaction.getId(), transaction);
+                    } catch (CompletionException e) {
+                        assertInstanceOf(AccountException.class, e.getCause());
+                        rejected.incrementAndGet();
+                    }
+                }
+                finished.countDown();
+            }).start();
+        }
+        assertTrue(finished.await(60, TimeUnit.SECONDS));
+        assertTrue(engine.awaitIdle(10, TimeUnit.SECONDS));
+        assertEquals(threads * transfers, engine.getSubmitted());
+        assertEquals(threads * transfers, engine.getCompleted());
+        assertEquals(threads * transfers, done.size() + rejected.get());
+        assertTrue(engine.getCrossShardTransfers() > 0);
+        BigDecimal sum = BigDecimal.ZERO;
+        for (Account account : accounts) {
+            assertTrue(account.getAccountMoney().signum() >= 0);
+            sum = sum.add(account.getAccountMoney());
+        }
+        assertEquals(0, total.compareTo(sum));
+        Transaction any = done.values().iterator().next();
+        assertSame(any, CentralBank.getInstance().findTransaction(any.getId()));
+
+        assertThrows(AccountException.class, () -> engine.transfer(BigDecimal.valueOf(5000), accounts[0], accounts[1]));
+        assertThrows(BankException.class, () -> engine.transfer(BigDecimal.valueOf(-1), accounts[0], accounts[1]));
+        List<CompletableFuture<TransferTransaction>> batch = engine.transferAll(Arrays.asList(
+                new TransferRequest(accounts[0], accounts[1], BigDecimal.ONE), null,
+                new TransferRequest(accounts[0], accounts[1], BigDecimal.valueOf(5000))));
+        assertNotNull(batch.get(0).join());
+        assertThrows(CompletionException.class, () -> batch.get(1).join());
+        assertThrows(CompletionException.class, () -> batch.get(2).join());
+        engine.close();
+        assertThrows(BankException.class, () -> engine.transfer(BigDecimal.ONE, accounts[0], accounts[1]));
+    }
+
+    @Test
+    public void transactionLogTest() throws InterruptedException {
+        Client cl = new Client("name", "surname", "street", "7300000001");
+        Account account = new DebitAccount(BigDecimal.valueOf(1000), cl, BigDecimal.ONE);
+        TransactionLog log = new TransactionLog();
+        int threads = 4;
+        int perThread = 5_000;
+        CountDownLatch finished = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    if (i % 100 == 0)
+                        log.appendAll(List.of(new UpdateTransaction(account, BigDecimal.ONE, LocalDateTime.now()), new UpdateTransaction(account, BigDecimal.ONE, LocalDateTime.now())));
+                    else
+                        log.append(new UpdateTransaction(account, BigDecimal.ONE, LocalDateTime.now()));
+                }
+                finished.countDown();
+            }).start();
+        }
+        assertTrue(finished.await(60, TimeUnit.SECONDS));
+        int expected = threads * (perThread + perThread / 100);
+        assertEquals(expected, log.size());
+        Set<UUID> ids = ConcurrentHashMap.newKeySet();
+        for (Transaction transaction : log)
+            ids.add(transaction.getId());
+        assertEquals(expected, ids.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> log.get(expected));
+        assertThrows(UnsupportedOperationException.class, () -> log.add(null));
+        assertThrows(TransactionException.class, () -> log.append(null));
+
+        Account[] accounts = new Account[threads * 2];
+        for (int i = 0; i < accounts.length; i++)
+            accounts[i] = new DebitAccount(BigDecimal.valueOf(1000), cl, BigDecimal.ONE);
+        int before = centralBank.getTransactions().size();
+        CountDownLatch transferred = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            Account sender = accounts[t * 2];
+            Account recipient = accounts[t * 2 + 1];
+            new Thread(() -> {
+                for (int i = 0; i < 100; i++)
+                    centralBank.transferMoney(BigDecimal.ONE, sender, recipient);
+                transferred.countDown();
+            }).start();
+        }
+        assertTrue(transferred.await(60, TimeUnit.SECONDS));
+        assertTrue(centralBank.getTransactions().size() >= before + threads * 100);
+        for (int t = 0; t < threads; t++)
+            assertEquals(100, centralBank.getAccountHistory(accounts[t * 2], AccountHistoryPage.firstPage, 200).getEntries().size());
+    }
+}